@@ -1,5 +1,6 @@
 package hudson.plugins.dimensionsscm;
 
+import hudson.AbortException;
 import hudson.Extension;
 import hudson.FilePath;
 import hudson.Launcher;
@@ -7,24 +8,31 @@
 import hudson.model.AbstractProject;
 import hudson.model.BuildListener;
 import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.BuildStepMonitor;
 import hudson.tasks.Notifier;
 import hudson.tasks.Publisher;
 import hudson.util.Secret;
-import hudson.util.VariableResolver;
 import java.io.IOException;
 import java.io.Serializable;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import jenkins.tasks.SimpleBuildStep;
 import net.sf.json.JSONObject;
 import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.Symbol;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.StaplerRequest;
 
 /**
  * A Notifier that can deliver built artifacts back to the SCM project/stream
  * as a post-build step in a Jenkins build.
+ * <p>
+ * As a SimpleBuildStep it can also be used in a Pipeline, after a {@code dimensionsscm} checkout step.
  */
-public class ArtifactUploader extends Notifier implements Serializable {
+public class ArtifactUploader extends Notifier implements SimpleBuildStep, Serializable {
     private static final String[] DEFAULT_INCLUDES_REGEX = new String[]{".*"};
     private static final String[] DEFAULT_INCLUDES_ANT = new String[]{"**/*"};
 
@@ -38,6 +46,7 @@ public class ArtifactUploader extends Notifier implements Serializable {
     private final String owningPart;
     private final boolean forceAsSlave;
     private final String patternType;
+    private boolean useAgentAPI;
 
     @DataBoundConstructor
     public ArtifactUploader(String[] pregEx, boolean fTip, boolean fMerge, String part, boolean fAsSlave,
@@ -132,6 +141,21 @@ public boolean isForceAsSlave() {
         return this.forceAsSlave;
     }
 
+    /**
+     * Gets use Java API on agent flag.
+     */
+    public boolean isUseAgentAPI() {
+        return this.useAgentAPI;
+    }
+
+    /**
+     * Sets use Java API on agent flag.
+     */
+    @DataBoundSetter
+    public void setUseAgentAPI(boolean useAgentAPI) {
+        this.useAgentAPI = useAgentAPI;
+    }
+
     @Override
     public BuildStepMonitor getRequiredMonitorService() {
         return BuildStepMonitor.NONE;
@@ -140,21 +164,49 @@ public BuildStepMonitor getRequiredMonitorService() {
     @Override
     public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) {
         Logger.debug("Invoking perform callout " + this.getClass().getName());
-        FilePath workspace = build.getWorkspace();
+        boolean bRet = deliver(build, build.getWorkspace(), listener);
+        if (!bRet) {
+            build.setResult(Result.FAILURE);
+        }
+        return bRet;
+    }
+
+    /**
+     * Pipeline entry point, e.g. {@code step([$class: 'ArtifactUploader', ...])} or {@code dimensionsArtifactUploader}.
+     * <p>
+     * {@inheritDoc}
+     */
+    @Override
+    public void perform(@NonNull Run<?, ?> run, @NonNull FilePath workspace, @NonNull Launcher launcher,
+                        @NonNull TaskListener listener) throws InterruptedException, IOException {
+        Logger.debug("Invoking perform callout " + this.getClass().getName());
+        if (!deliver(run, workspace, listener)) {
+            throw new AbortException("[DIMENSIONS] Unable to load build artifacts into Dimensions");
+        }
+    }
+
+    /**
+     * Deliver the artifacts in a workspace. Chooses between the Java API on the controller, the Java API on the agent
+     * and dmcli on the agent.
+     */
+    private boolean deliver(Run<?, ?> build, FilePath workspace, TaskListener listener) {
         boolean bRet;
         boolean isStream = false;
 
         try {
-            if (!(build.getProject().getScm() instanceof DimensionsSCM)) {
+            DimensionsSCM scm = DimensionsSCM.findSCM(build);
+            if (scm == null) {
                 listener.fatalError("[DIMENSIONS] This plugin only works with the Dimensions SCM engine.");
-                build.setResult(Result.FAILURE);
                 throw new IOException("[DIMENSIONS] This plugin only works with a Dimensions SCM engine");
             }
 
-            if (build.getResult() == Result.SUCCESS) {
-                DimensionsSCM scm = (DimensionsSCM) build.getProject().getScm();
+            // A running Pipeline has no result yet, which means it is (so far) successful.
+            Result result = build.getResult();
+            if (result == null || result == Result.SUCCESS) {
+                if (workspace == null) {
+                    throw new IOException("[DIMENSIONS] No workspace is available to load build artifacts from");
+                }
                 DimensionsAPI dmSCM = new DimensionsAPI();
-                String nodeName = build.getBuiltOn().getNodeName();
 
                 Logger.debug("Calculating version of Dimensions...");
 
@@ -164,7 +216,7 @@ public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListen
                 if (key > 0L) {
                     // Get the server version.
                     Logger.debug("Login worked.");
-                    version = dmSCM.getDmVersion();
+                    version = dmSCM.getDmVersion(key);
                     if (version == 0) {
                         version = 2009;
                     }
@@ -174,18 +226,23 @@ public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListen
                     dmSCM.logout(key, build);
                 }
 
-                String projectName = build.getProject().getName();
+                String projectName = build.getParent().getName();
                 int buildNo = build.getNumber();
+                String requests = DimensionsSCM.getParameterFromRun(build, "DM_TARGET_REQUEST");
 
                 boolean master = true;
                 if (isForceAsSlave()) {
                     master = false;
                     Logger.debug("Forced processing as slave...");
-                } else {
+                } else if (build instanceof AbstractBuild) {
                     Logger.debug("Checking if master or slave...");
+                    String nodeName = ((AbstractBuild<?, ?>) build).getBuiltOn().getNodeName();
                     if (nodeName != null && nodeName.length() > 0) {
                         master = false;
                     }
+                } else {
+                    Logger.debug("Checking if workspace is remote...");
+                    master = !workspace.isRemote();
                 }
 
                 if (master) {
@@ -196,16 +253,27 @@ public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListen
                     // Using Java API because this allows the plugin to work on platforms where Dimensions has not
                     // been ported, e.g. MAC OS, which is what I use.
                     CheckInAPITask task = new CheckInAPITask(build, scm, buildNo, projectName, version, this,
-                            workspace, listener);
+                            requests, workspace, listener);
                     bRet = workspace.act(task);
+                } else if (isUseAgentAPI() && !Credentials.isKeystoreDefined(scm.getCredentialsType())) {
+                    // Running on agent using the Java API shipped from the controller, so no dmcli is needed.
+                    listener.getLogger().println("[DIMENSIONS] Running checkin on agent using Java API...");
+                    listener.getLogger().flush();
+
+                    scm.fillInCredentials(build);
+                    CheckInAgentAPITask task = new CheckInAgentAPITask(scm.getUserName(),
+                            Secret.decrypt(scm.getPasswordNN()), scm.getDatabase(), scm.getDbConn(), scm.getServer(),
+                            scm.getProjectName(build, listener), requests, isForceCheckIn(), isForceTip(),
+                            getPatterns(), getPatternType(), getPatternsExc(), buildNo, projectName, getOwningPart(),
+                            listener);
+                    bRet = actHeavy(scm, workspace, task);
                 } else {
                     // Running on slave... Have to use the command line as Java API will not work on remote hosts.
                     // Cannot serialise it...
-                    // VariableResolver does not appear to be serialisable either, so...
-                    VariableResolver<String> myResolver = build.getBuildVariableResolver();
-
-                    String requests = myResolver.resolve("DM_TARGET_REQUEST");
-
+                    if (isUseAgentAPI()) {
+                        listener.getLogger().println("[DIMENSIONS] Java API on agent does not support keystore"
+                                + " credentials, falling back to dmcli...");
+                    }
                     listener.getLogger().println("[DIMENSIONS] Running checkin on slave...");
                     listener.getLogger().flush();
 
@@ -225,28 +293,39 @@ public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListen
                             isForceCheckIn(), isForceTip(), getPatterns(), getPatternType(), version, isStream,
                             buildNo, projectName, getOwningPart(), workspace, scm.getCertificatePath(),
                             scm.getCertificatePasswordSecret(), scm.isSecureAgentAuth(), listener, getPatternsExc());
-                    bRet = workspace.act(task);
+                    bRet = actHeavy(scm, workspace, task);
                 }
             } else {
                 bRet = true;
             }
-            if (!bRet) {
-                build.setResult(Result.FAILURE);
-            }
         } catch (Exception e) {
             String message = Values.exceptionMessage("Unable to load build artifacts into Dimensions", e, "no message");
             listener.fatalError(message);
             Logger.debug(message, e);
-            build.setResult(Result.FAILURE);
             return false;
         }
         return bRet;
     }
 
+    /**
+     * Runs a check-in task on an agent within the controller's limit of heavy commands on the server.
+     */
+    private static boolean actHeavy(DimensionsSCM scm, FilePath workspace, BaseCallable task)
+            throws IOException, InterruptedException {
+        DimensionsBulkhead.Permit permit = DimensionsBulkhead.acquireHeavy(scm.getServer(), scm.getDatabase(),
+                scm.getDbConn());
+        try {
+            return workspace.act(task);
+        } finally {
+            permit.release();
+        }
+    }
+
     /**
      * The ArtifactUploader Descriptor class.
      */
     @Extension
+    @Symbol("dimensionsArtifactUploader")
     public static final class DescriptorImpl extends BuildStepDescriptor<Publisher> {
         /**
          * Loads the descriptor.
@@ -304,8 +383,12 @@ public Notifier newInstance(StaplerRequest req, JSONObject formData) {
 
             String oPart = Values.textOrElse(req.getParameter("artifactuploader.owningPart"), null);
             boolean fAsSlave = Values.booleanOrElse(req.getParameter("artifactuploader.forceAsSlave"), false);
+            boolean useAgentAPI = Values.booleanOrElse(req.getParameter("artifactuploader.useAgentAPI"), false);
 
-            return new ArtifactUploader(pregEx, fTip, fMerge, oPart, fAsSlave, pType, pAnt, pregExExc, pAntExc);
+            ArtifactUploader uploader = new ArtifactUploader(pregEx, fTip, fMerge, oPart, fAsSlave, pType, pAnt,
+                    pregExExc, pAntExc);
+            uploader.setUseAgentAPI(useAgentAPI);
+            return uploader;
         }
     }
 }
@@ -0,0 +1,177 @@
+package hudson.plugins.dimensionsscm;
+
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Saveable;
+import hudson.model.User;
+import hudson.model.listeners.SaveableListener;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bounded cache of the IDs of the Jenkins users that changelog authors resolve to, keyed by Dimensions user ID.
+ * <p>
+ * Resolving a name that is not a Jenkins user ID falls back to scanning every user's full name, and changes pages,
+ * email notifications and culprit calculation resolve the author of every changelog entry, so large changelogs would
+ * otherwise trigger thousands of lookups per page view. Dimensions user IDs can be mapped to Jenkins user IDs in the
+ * global configuration; unmapped IDs are resolved as before. The cache is cleared when the mapping changes, and the
+ * authors that may resolve to a Jenkins user are forgotten when that user is saved, so renamed or reconfigured users
+ * are picked up. Only IDs are held, so a cached author is looked up by ID each time rather than keeping a deleted
+ * user's object alive.
+ */
+final class AuthorCache {
+    /** Maximum number of authors held. */
+    static final int DEFAULT_SIZE = 1000;
+
+    private static final AuthorCache INSTANCE = new AuthorCache(DEFAULT_SIZE, new Resolver() {
+        @Override
+        public User byId(String id, boolean create) {
+            return User.getById(id, create);
+        }
+
+        @Override
+        public User byIdOrFullName(String name) {
+            return User.getOrCreateByIdOrFullName(name);
+        }
+    });
+
+    /**
+     * Looks up Jenkins users.
+     */
+    interface Resolver {
+        User byId(String id, boolean create);
+
+        User byIdOrFullName(String name);
+    }
+
+    private final Resolver resolver;
+    /** The Jenkins user ID by Dimensions user ID. */
+    private final Map<String, String> users;
+    private volatile Map<String, String> mapping = Collections.emptyMap();
+
+    AuthorCache(final int maxSize, Resolver resolver) {
+        this.resolver = resolver;
+        this.users = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    static AuthorCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets the Jenkins user a Dimensions user ID resolves to, from the cache if it has been resolved before.
+     */
+    User resolve(String developer) {
+        String cachedId;
+        synchronized (users) {
+            cachedId = users.get(developer);
+        }
+        if (cachedId != null) {
+            User user = resolver.byId(cachedId, false);
+            if (user != null) {
+                DimensionsMetrics.counter("authors.hit").inc();
+                return user;
+            }
+            // The user has been deleted since.
+            synchronized (users) {
+                users.remove(developer, cachedId);
+            }
+        }
+        DimensionsMetrics.counter("authors.miss").inc();
+        String jenkinsId = mapping.get(developer.toUpperCase(Locale.ROOT));
+        User user = jenkinsId != null ? resolver.byId(jenkinsId, true) : resolver.byIdOrFullName(developer);
+        if (user != null) {
+            synchronized (users) {
+                users.put(developer, user.getId());
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Replaces the mapping from Dimensions user IDs to Jenkins user IDs and clears the cache.
+     *
+     * @param text lines of {@code DIMENSIONS_ID=jenkinsId}; blank lines and lines starting with '#' are ignored
+     */
+    void configure(String text) {
+        mapping = parseMapping(text);
+        invalidate();
+    }
+
+    /**
+     * Forgets every resolved author.
+     */
+    void invalidate() {
+        synchronized (users) {
+            users.clear();
+        }
+    }
+
+    /**
+     * Forgets the authors that resolved to a Jenkins user, and those that may now resolve to it by its full name.
+     */
+    void invalidate(User user) {
+        String id = user.getId();
+        String fullName = user.getFullName();
+        synchronized (users) {
+            for (Iterator<Map.Entry<String, String>> it = users.entrySet().iterator(); it.hasNext();) {
+                Map.Entry<String, String> entry = it.next();
+                if (entry.getValue().equals(id) || entry.getKey().equals(fullName)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    int size() {
+        synchronized (users) {
+            return users.size();
+        }
+    }
+
+    /**
+     * Parses lines of {@code DIMENSIONS_ID=jenkinsId}. Dimensions user IDs are not case-sensitive, so they are kept
+     * in upper case. Lines without a '=' or with an empty side are ignored.
+     */
+    static Map<String, String> parseMapping(String text) {
+        if (!Values.hasText(text)) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> map = new HashMap<String, String>();
+        for (String line : text.split("\\r?\\n")) {
+            line = line.trim();
+            int eq = line.indexOf('=');
+            if (line.startsWith("#") || eq <= 0) {
+                continue;
+            }
+            String dimensionsId = line.substring(0, eq).trim();
+            String jenkinsId = line.substring(eq + 1).trim();
+            if (!dimensionsId.isEmpty() && !jenkinsId.isEmpty()) {
+                map.put(dimensionsId.toUpperCase(Locale.ROOT), jenkinsId);
+            }
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Forgets the authors of a Jenkins user when it is saved, as its full name may have changed.
+     */
+    @Extension
+    public static class UserSavedListener extends SaveableListener {
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof User) {
+                INSTANCE.invalidate((User) o);
+            }
+        }
+    }
+}
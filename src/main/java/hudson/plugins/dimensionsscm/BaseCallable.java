@@ -13,4 +13,28 @@
  */
 abstract class BaseCallable extends MasterToSlaveFileCallable<Boolean> {
     /* This abstract class exists temporarily to make it easier to change the base class of all Callable tasks in this plugin. */
+
+    /** Where the task's trace spans are sent; a remoting proxy when the task runs on an agent. */
+    private DimensionsTraceSink traceSink;
+    private String traceParentId;
+
+    /**
+     * Sends the task's trace spans to the build, as children of the current span.
+     */
+    final void setTrace(DimensionsTraceSink sink, DimensionsTracer.Scope parent) {
+        this.traceSink = sink;
+        this.traceParentId = parent.getId();
+    }
+
+    /**
+     * Starts a span of the task, as a child of the task's current span (or of the span that was current when the task
+     * was created).
+     */
+    final DimensionsTracer.Scope trace(String name) {
+        DimensionsTracer.Scope current = DimensionsTracer.current();
+        if (traceSink == null || current.getSink() == traceSink) {
+            return DimensionsTracer.start(name);
+        }
+        return DimensionsTracer.start(traceSink, traceParentId, name);
+    }
 }
@@ -0,0 +1,301 @@
+package hudson.plugins.dimensionsscm;
+
+import com.serena.dmclient.api.DimensionsResult;
+import hudson.model.TaskListener;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the baseline operations of a build (create, deploy, build, action) as a small dependency graph of steps.
+ * <p>
+ * A step only runs when every step it depends on has succeeded, otherwise it is skipped. The steps are run in waves:
+ * each wave is all the pending steps whose dependencies are complete. With a single thread the steps of a wave run one
+ * after the other in the main session. With more threads the first step of a wave runs in the main session and the
+ * others run concurrently, each in a session of its own (a Dimensions connection must not be shared between threads).
+ * A step that cannot have a session of its own, because the server has none to spare, runs in the main session after
+ * the others instead.
+ */
+final class BaselinePipeline {
+    /**
+     * The Dimensions operation performed by a step.
+     */
+    interface Operation {
+        DimensionsResult perform(long key);
+    }
+
+    /**
+     * Opens and closes the additional Dimensions sessions used by concurrent steps.
+     */
+    interface Sessions {
+        /**
+         * Opens a session without waiting for one to become available.
+         *
+         * @return the key of the session, or -1 if there is none to spare
+         */
+        long open();
+
+        void close(long key);
+    }
+
+    enum Status {
+        PENDING, SUCCEEDED, FAILED, SKIPPED
+    }
+
+    /**
+     * One baseline operation, with its dependencies, log messages and outcome.
+     */
+    static final class Step {
+        private final String name;
+        private final String startMessage;
+        private final String successMessage;
+        private final String failureMessage;
+        private final Operation operation;
+        private final List<Step> dependencies;
+        private volatile Status status = Status.PENDING;
+        private volatile long elapsedMillis;
+        private volatile String output;
+
+        Step(String name, String startMessage, String successMessage, String failureMessage, Operation operation,
+                Step... dependencies) {
+            this.name = name;
+            this.startMessage = startMessage;
+            this.successMessage = successMessage;
+            this.failureMessage = failureMessage;
+            this.operation = operation;
+            this.dependencies = Collections.unmodifiableList(Arrays.asList(dependencies));
+        }
+
+        String getName() {
+            return name;
+        }
+
+        Status getStatus() {
+            return status;
+        }
+
+        long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        private boolean isReady() {
+            for (Step dependency : dependencies) {
+                if (dependency.status != Status.SUCCEEDED) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isBlocked() {
+            for (Step dependency : dependencies) {
+                if (dependency.status == Status.FAILED || dependency.status == Status.SKIPPED) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void run(long key, DimensionsTracer.Scope parent) {
+            long start = System.currentTimeMillis();
+            DimensionsTracer.Scope span = DimensionsTracer.start(parent.getSink(), parent.getId(), "baseline " + name);
+            try {
+                DimensionsResult res = key > 0L ? operation.perform(key) : null;
+                if (res != null) {
+                    output = res.getMessage();
+                    status = Status.SUCCEEDED;
+                } else {
+                    status = Status.FAILED;
+                    span.fail();
+                }
+            } catch (Throwable t) {
+                // Whatever the operation throws, the step must not be left pending, or it would be run again.
+                fail(t);
+                span.fail();
+            } finally {
+                elapsedMillis = System.currentTimeMillis() - start;
+                span.end();
+            }
+        }
+
+        /**
+         * Records that the step failed without its operation returning.
+         */
+        private void fail(Throwable t) {
+            output = Values.exceptionMessage("Exception during baseline " + name, t, "no message");
+            Logger.debug(output, t);
+            status = Status.FAILED;
+        }
+    }
+
+    private final List<Step> steps = new ArrayList<Step>();
+    private final int threads;
+
+    /**
+     * @param threads maximum number of steps to run at the same time (1 to run all steps sequentially)
+     */
+    BaselinePipeline(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Adds a step. Steps must be added after the steps they depend on.
+     */
+    Step add(String name, String startMessage, String successMessage, String failureMessage, Operation operation,
+            Step... dependencies) {
+        for (Step dependency : dependencies) {
+            if (!steps.contains(dependency)) {
+                throw new IllegalArgumentException("Step '" + name + "' depends on an unknown step");
+            }
+        }
+        Step step = new Step(name, startMessage, successMessage, failureMessage, operation, dependencies);
+        steps.add(step);
+        return step;
+    }
+
+    /**
+     * Runs all the steps, and logs their outcome and timing.
+     *
+     * @param key      the main (already logged in) session
+     * @param sessions source of additional sessions for concurrent steps
+     * @param listener build listener
+     * @return true if every step succeeded
+     */
+    boolean run(long key, Sessions sessions, TaskListener listener) throws InterruptedException {
+        PrintStream logger = listener.getLogger();
+        final DimensionsTracer.Scope parent = DimensionsTracer.current();
+        ExecutorService executor = null;
+        try {
+            List<Step> wave;
+            while (!(wave = nextWave()).isEmpty()) {
+                if (threads == 1 || wave.size() == 1) {
+                    for (Step step : wave) {
+                        logStart(step, logger);
+                        step.run(key, parent);
+                        logOutcome(step, logger);
+                    }
+                    continue;
+                }
+                if (executor == null) {
+                    executor = Executors.newFixedThreadPool(threads - 1,
+                            new NamingThreadFactory(new DaemonThreadFactory(), "Dimensions baseline"));
+                }
+                List<Future<?>> futures = new ArrayList<Future<?>>(wave.size() - 1);
+                final List<Step> deferred = Collections.synchronizedList(new ArrayList<Step>());
+                for (final Step step : wave.subList(1, wave.size())) {
+                    logStart(step, logger);
+                    futures.add(executor.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            long stepKey = -1L;
+                            try {
+                                stepKey = sessions.open();
+                                if (stepKey <= 0L) {
+                                    Logger.debug("No spare Dimensions session for baseline " + step.name
+                                            + ", running it in the main session");
+                                    deferred.add(step);
+                                    return;
+                                }
+                                step.run(stepKey, parent);
+                            } catch (Throwable t) {
+                                // The session could not be opened, so the step's operation was not run.
+                                step.fail(t);
+                            } finally {
+                                if (stepKey > 0L) {
+                                    sessions.close(stepKey);
+                                }
+                            }
+                        }
+                    }));
+                }
+                Step first = wave.get(0);
+                logStart(first, logger);
+                first.run(key, parent);
+                for (Future<?> future : futures) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException e) {
+                        Logger.debug("Unexpected exception from baseline step", e);
+                    }
+                }
+                for (Step step : deferred) {
+                    step.run(key, parent);
+                }
+                for (Step step : wave) {
+                    logOutcome(step, logger);
+                }
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+
+        boolean succeeded = true;
+        StringBuilder timings = new StringBuilder("[DIMENSIONS] Baseline step timings:");
+        for (Step step : steps) {
+            timings.append(' ').append(step.name).append('=');
+            if (step.status == Status.SKIPPED) {
+                timings.append("skipped");
+            } else {
+                timings.append(step.elapsedMillis).append("ms");
+            }
+            succeeded &= step.status == Status.SUCCEEDED;
+        }
+        logger.println(timings);
+        logger.flush();
+        return succeeded;
+    }
+
+    List<Step> getSteps() {
+        return Collections.unmodifiableList(steps);
+    }
+
+    /**
+     * Marks blocked steps as skipped, then returns the pending steps that can run now.
+     */
+    private List<Step> nextWave() {
+        List<Step> wave = new ArrayList<Step>();
+        for (Step step : steps) {
+            if (step.status == Status.PENDING) {
+                if (step.isBlocked()) {
+                    step.status = Status.SKIPPED;
+                    Logger.debug("Skipping baseline step " + step.name);
+                } else if (step.isReady()) {
+                    wave.add(step);
+                }
+            }
+        }
+        return wave;
+    }
+
+    private static void logStart(Step step, PrintStream logger) {
+        if (step.startMessage != null) {
+            logger.println(step.startMessage);
+            logger.flush();
+        }
+    }
+
+    private static void logOutcome(Step step, PrintStream logger) {
+        if (step.status == Status.SUCCEEDED) {
+            logger.println(step.successMessage);
+            if (step.output != null) {
+                logger.println("[DIMENSIONS] (" + step.output.replaceAll("\n", "\n[DIMENSIONS] ") + ")");
+            }
+        } else {
+            logger.println(step.failureMessage);
+            if (step.output != null) {
+                logger.println("[DIMENSIONS] (" + step.output.replaceAll("\n", "\n[DIMENSIONS] ") + ")");
+            }
+        }
+        logger.flush();
+    }
+}
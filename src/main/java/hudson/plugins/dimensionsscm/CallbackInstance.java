@@ -1,32 +1,68 @@
 package hudson.plugins.dimensionsscm;
 
 import com.serena.dmclient.api.DimensionsConnection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/**
+ * Chooses the strategy used to calculate changes for a call.
+ * <p>
+ * The strategies are stateless, so one instance of each is shared. Whether a server supports change sets is cached
+ * per server, and the strategy is chosen for each call from that and the call's baseline/request, without any shared
+ * state being changed by the choice.
+ */
 public class CallbackInstance {
 
-    private static DimensionsAPICallback dimensionsAPICallback;
+    private static final DimensionsAPICallback CALLBACK_12 = new DimensionsAPICallback12();
+    private static final DimensionsAPICallback CALLBACK_14 = new DimensionsAPICallback14();
 
-    private CallbackInstance() {
-    }
+    private static final Pattern SERVER_VERSION = Pattern.compile("([\\d]+)(.*)");
 
-    public static DimensionsAPICallback getInstance(DimensionsConnection connection, String baseline, String requests) {
+    /** Whether each server supports change sets, keyed by server and base database. */
+    private static final ConcurrentMap<String, Boolean> CHANGE_SET_SUPPORT = new ConcurrentHashMap<String, Boolean>();
 
-        boolean needCallback12 = !Values.isNullOrEmpty(baseline) || !Values.isNullOrEmpty(requests);
+    private CallbackInstance() {
+    }
 
-        if (dimensionsAPICallback != null && dimensionsAPICallback.isCallback14() && needCallback12)
-            dimensionsAPICallback = new DimensionsAPICallback12();
+    /**
+     * Gets the strategy for a call on a logged in session, using the cached capability of the session's server.
+     */
+    static DimensionsAPICallback getInstance(DimensionsSession session, String baseline, String requests) {
+        if (needCallback12(baseline, requests)) {
+            return CALLBACK_12;
+        }
+        final String serverKey = DimensionsSession.serverKey(session.getServer(), session.getDbName(), session.getDbConn());
+        Boolean supported = CHANGE_SET_SUPPORT.get(serverKey);
+        if (supported == null) {
+            supported = supportsChangeSets(session.getConnection());
+            CHANGE_SET_SUPPORT.put(serverKey, supported);
+            Logger.debug("Server " + serverKey + (supported ? " supports" : " does not support") + " change sets");
+        }
+        return supported ? CALLBACK_14 : CALLBACK_12;
+    }
 
-        if (dimensionsAPICallback != null)
-            return dimensionsAPICallback;
+    /**
+     * Gets the strategy for a call on a connection, querying the server's capability.
+     */
+    public static DimensionsAPICallback getInstance(DimensionsConnection connection, String baseline, String requests) {
+        if (needCallback12(baseline, requests)) {
+            return CALLBACK_12;
+        }
+        return supportsChangeSets(connection) ? CALLBACK_14 : CALLBACK_12;
+    }
 
-        if (supportsChangeSets(connection) && !needCallback12)
-            dimensionsAPICallback = new DimensionsAPICallback14();
-        else
-            dimensionsAPICallback = new DimensionsAPICallback12();
+    /**
+     * Forgets the cached server capabilities.
+     */
+    static void clearCache() {
+        CHANGE_SET_SUPPORT.clear();
+    }
 
-        return dimensionsAPICallback;
+    /* Change sets do not track baselines or requests, so those need the per-item revision strategy. */
+    private static boolean needCallback12(String baseline, String requests) {
+        return !Values.isNullOrEmpty(baseline) || !Values.isNullOrEmpty(requests);
     }
 
     private static boolean supportsChangeSets(DimensionsConnection connection) {
@@ -37,8 +73,7 @@ private static boolean supportsChangeSets(DimensionsConnection connection) {
 
     /*We need only number part of server version*/
     private static String normalizeServerVersion(String version) {
-        Pattern regPattern = Pattern.compile("([\\d]+)(.*)");
-        Matcher matcher = regPattern.matcher(version);
+        Matcher matcher = SERVER_VERSION.matcher(version);
 
         if (matcher.find()) {
             return matcher.group(1);
@@ -0,0 +1,44 @@
+package hudson.plugins.dimensionsscm;
+
+/**
+ * The part of the web client links that is the same for every file and request of a changelog: the web client URL and
+ * the base database. It is written once, as attributes of the changelog's root element, and the links of each file
+ * and request are derived from it and their object spec when they are displayed.
+ */
+final class ChangeLogLinks {
+    private final String webUrl;
+    private final String dbConn;
+    private final String dbName;
+
+    ChangeLogLinks(String webUrl, String dbConn, String dbName) {
+        this.webUrl = Values.textOrElse(webUrl, null);
+        this.dbConn = dbConn;
+        this.dbName = dbName;
+    }
+
+    String getWebUrl() {
+        return webUrl;
+    }
+
+    String getDbConn() {
+        return dbConn;
+    }
+
+    String getDbName() {
+        return dbName;
+    }
+
+    /**
+     * Gets the web client link of an item revision, or null if there is none.
+     */
+    String fileUrl(String spec) {
+        return Values.textOrElse(DimensionsAPI.constructURL(spec, webUrl, dbConn, dbName), null);
+    }
+
+    /**
+     * Gets the web client link of a request, or null if there is none.
+     */
+    String requestUrl(String spec) {
+        return Values.textOrElse(DimensionsAPI.constructRequestURL(spec, webUrl, dbConn, dbName), null);
+    }
+}
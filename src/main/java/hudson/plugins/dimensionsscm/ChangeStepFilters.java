@@ -0,0 +1,136 @@
+package hudson.plugins.dimensionsscm;
+
+import com.serena.dmclient.api.DimensionsChangeSet;
+import com.serena.dmclient.api.Filter;
+import com.serena.dmclient.api.SystemAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Builds the server-side filters for the change steps of change sets, so that only steps that can matter to a job are
+ * transferred.
+ * <p>
+ * Only the queries that fetch the steps of one change set take a filter; the bulk details query of several change sets
+ * does not. The filters are an optimization only: they may let through steps that the job then ignores (the monitored folder
+ * and exclusions are still checked on each step), but must never drop a step that the job would use.
+ */
+final class ChangeStepFilters {
+    /**
+     * Criterion flags for the default comparison, which treats {@code %} and {@code _} as LIKE wildcards (as the
+     * directory criteria of item queries do). Note that {@link Filter.Criterion#EQUALS} is a different flag.
+     */
+    static final int MATCHES = 0;
+
+    private ChangeStepFilters() {
+        /* prevent instantiation. */
+    }
+
+    /**
+     * Creates a filter for the change steps in a monitored folder, leaving out steps in folders that are excluded as a
+     * whole.
+     * <p>
+     * The monitored folder must appear somewhere in the directory, as {@link #accepts} checks. Of the exclusions, only ones of the form {@code folder/**}
+     * without other wildcards can be expressed on the server (as a negated directory prefix); the rest are left to
+     * the path matcher.
+     *
+     * @param monitoredPath the project-relative monitored folder, where null, empty or "/" is the whole project
+     * @param pathMatcher   the job's path matcher, or null if nothing is excluded
+     * @return the filter, or null if nothing can be filtered on the server
+     */
+    static Filter forFolder(String monitoredPath, PathMatcher pathMatcher) {
+        Filter filter = new Filter();
+        List<Filter.Criterion> criteria = filter.criteria();
+        String folder = monitoredPath == null ? "" : PathUtils.normalizeSlashes(monitoredPath.trim());
+        if (!folder.isEmpty()) {
+            // LIKE wildcards in the folder name only widen the match, so they can be left as they are.
+            criteria.add(new Filter.Criterion(SystemAttributes.CHANGE_SET_STEPS_COLUMN_DIRPATH, '%' + folder + '%',
+                    MATCHES));
+        }
+        for (String exclude : excludesOf(pathMatcher)) {
+            String excludedFolder = wholeFolder(exclude);
+            if (excludedFolder != null) {
+                criteria.add(new Filter.Criterion(SystemAttributes.CHANGE_SET_STEPS_COLUMN_DIRPATH,
+                        excludedFolder + "/%", Filter.Criterion.NOT));
+            }
+        }
+        return criteria.isEmpty() ? null : filter;
+    }
+
+    private static Collection<String> excludesOf(PathMatcher pathMatcher) {
+        if (pathMatcher instanceof CompiledPathMatcher) {
+            return ((CompiledPathMatcher) pathMatcher).getExcludes();
+        } else if (pathMatcher instanceof DefaultPathMatcher) {
+            return ((DefaultPathMatcher) pathMatcher).getExcludes();
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Gets the folder excluded by a pattern of the form {@code folder/**}, or null if the pattern is anything else.
+     * Folders containing LIKE wildcards are not returned, as a negated match would then exclude too much.
+     */
+    static String wholeFolder(String pattern) {
+        if (pattern == null) {
+            return null;
+        }
+        String p = PathUtils.normalizeSlashes(pattern.trim());
+        if (!p.endsWith("/**")) {
+            return null;
+        }
+        String folder = p.substring(0, p.length() - 3);
+        if (folder.isEmpty() || folder.indexOf('*') >= 0 || folder.indexOf('?') >= 0 || folder.indexOf('%') >= 0
+                || folder.indexOf('_') >= 0) {
+            return null;
+        }
+        return folder;
+    }
+
+    /**
+     * Is a change step in the monitored folder and not excluded? This is the check that the filters of
+     * {@link #forFolder} approximate on the server. Like the server's criterion, the monitored folder is only looked
+     * for in the step's directory, not in its file name.
+     *
+     * @param projectPath   the project path of the change step
+     * @param monitoredPath the project-relative monitored folder, or null for the whole project
+     * @param pathMatcher   the job's path matcher, or null if nothing is excluded
+     */
+    static boolean accepts(String projectPath, String monitoredPath, PathMatcher pathMatcher) {
+        if (projectPath == null) {
+            return false;
+        }
+        String folder = monitoredPath == null ? "" : PathUtils.normalizeSlashes(monitoredPath);
+        return directoryOf(PathUtils.normalizeSlashes(projectPath)).contains(folder)
+                && (pathMatcher == null || pathMatcher.match(projectPath));
+    }
+
+    /**
+     * Gets the directory part of a path with forward slashes, which is empty for a file at the top of the project.
+     */
+    private static String directoryOf(String path) {
+        int slash = path.lastIndexOf('/');
+        return slash < 0 ? "" : path.substring(0, slash);
+    }
+
+    /**
+     * Gets a copy of a list of change sets with the newest first. Change sets without a date go last.
+     */
+    static List<DimensionsChangeSet> newestFirst(List<DimensionsChangeSet> changeSets) {
+        List<DimensionsChangeSet> sorted = new ArrayList<DimensionsChangeSet>(changeSets);
+        Collections.sort(sorted, new Comparator<DimensionsChangeSet>() {
+            @Override
+            public int compare(DimensionsChangeSet a, DimensionsChangeSet b) {
+                Date da = a.getDate();
+                Date db = b.getDate();
+                if (da == null || db == null) {
+                    return da == null ? (db == null ? 0 : 1) : -1;
+                }
+                return db.compareTo(da);
+            }
+        });
+        return sorted;
+    }
+}
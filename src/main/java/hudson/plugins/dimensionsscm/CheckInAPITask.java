@@ -2,10 +2,9 @@
 
 import com.serena.dmclient.api.DimensionsResult;
 import hudson.FilePath;
-import hudson.model.AbstractBuild;
+import hudson.model.Run;
 import hudson.model.TaskListener;
 import hudson.remoting.VirtualChannel;
-import hudson.util.VariableResolver;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -17,7 +16,7 @@
 public class CheckInAPITask extends GenericAPITask {
     private final boolean isForceTip;
     private final boolean isForceCheckIn;
-    private final VariableResolver<String> myResolver;
+    private final String requests;
 
     private final int buildNo;
 
@@ -30,8 +29,8 @@ public class CheckInAPITask extends GenericAPITask {
     private final String[] patternsExc;
     private final String patternType;
 
-    public CheckInAPITask(AbstractBuild<?, ?> build, DimensionsSCM parent, int buildNo, String jobId, int version,
-            ArtifactUploader artifact, FilePath workspace, TaskListener listener) {
+    public CheckInAPITask(Run<?, ?> build, DimensionsSCM parent, int buildNo, String jobId, int version,
+            ArtifactUploader artifact, String requests, FilePath workspace, TaskListener listener) {
         super(build, parent, workspace, listener);
         Logger.debug("Creating task - " + this.getClass().getName());
 
@@ -46,7 +45,7 @@ public CheckInAPITask(AbstractBuild<?, ?> build, DimensionsSCM parent, int build
         this.patternType = artifact.getPatternType();
 
         // Build details.
-        this.myResolver = build.getBuildVariableResolver();
+        this.requests = requests;
         this.buildNo = buildNo;
         this.jobId = jobId;
     }
@@ -56,88 +55,20 @@ public Boolean execute(File area, VirtualChannel channel) {
         boolean bRet = true;
 
         try {
-            listener.getLogger().println("[DIMENSIONS] Scanning workspace for files to be saved into Dimensions...");
-            listener.getLogger().flush();
-            FilePath wd = new FilePath(area);
-            Logger.debug("Scanning directory for files that match patterns '" + wd.getRemote() + "'");
-            File dir = new File(wd.getRemote());
-
-            File[] validFiles = new File[0];
-
-            if (patternType.equals("regEx")) {
-                listener.getLogger().println("[DIMENSIONS] Running RegEx pattern scanner...");
-                FileScanner fs = new FileScanner(dir, patterns, patternsExc, -1);
-                validFiles = fs.toArray();
-                listener.getLogger().println("[DIMENSIONS] Found " + validFiles.length + " file(s) to check in...");
-            } else if (patternType.equals("Ant")) {
-                listener.getLogger().println("[DIMENSIONS] Running Ant pattern scanner...");
-                FileAntScanner fs = new FileAntScanner(dir, patterns, patternsExc, -1);
-                validFiles = fs.toArray();
-                listener.getLogger().println("[DIMENSIONS] Found " + validFiles.length + " file(s) to check in...");
-            }
-
-            listener.getLogger().flush();
+            File[] validFiles = scanWorkspace(area, patternType, patterns, patternsExc, listener);
 
             if (validFiles.length > 0) {
                 listener.getLogger().println("[DIMENSIONS] Loading files into Dimensions project \"" + projectId
                         + "\"...");
                 listener.getLogger().flush();
 
-                PrintWriter fmtWriter = null;
-                File tmpFile = null;
-
+                File tmpFile = writeUserFilelist(validFiles);
                 try {
-                    tmpFile = File.createTempFile("dmCm" + System.currentTimeMillis(), null, null);
-                    // 'DELIVER/USER_FILELIST=' user filelist in platform-default encoding.
-                    fmtWriter = new PrintWriter(new FileWriter(tmpFile), true);
-
-                    for (File f : validFiles) {
-                        if (!f.isDirectory()) {
-                            Logger.debug("Found file '" + f.getAbsolutePath() + "'");
-                            fmtWriter.println(f.getAbsolutePath());
-                        }
-                    }
-                    fmtWriter.flush();
-                } catch (IOException e) {
-                    throw new IOException(Values.exceptionMessage("Unable to write user filelist: " + tmpFile, e,
-                            "no message"), e);
+                    bRet = uploadFiles(scmAPI, key, area, projectId, tmpFile, jobId, buildNo, requests, isForceCheckIn,
+                            isForceTip, owningPart, listener);
                 } finally {
-                    if (fmtWriter != null) {
-                        fmtWriter.close();
-                    }
-                }
-
-                // Debug for printing out files
-                //String filesToLoad = new String(FileUtils.loadFile(tmpFile));
-                //if (filesToLoad != null) {
-                //    filesToLoad += "\n";
-                //    filesToLoad = filesToLoad.replaceAll("\n\n", "\n");
-                //    listener.getLogger().println(filesToLoad.replaceAll("\n", "\n[DIMENSIONS] - "));
-                //}
-
-                {
-                    String requests = myResolver.resolve("DM_TARGET_REQUEST");
-
-                    if (requests != null) {
-                        requests = requests.replaceAll(" ", "");
-                        requests = requests.toUpperCase(Values.ROOT_LOCALE);
-                    }
-
-                    DimensionsResult res = scmAPI.UploadFiles(key, wd, projectId, tmpFile, jobId, buildNo, requests,
-                            isForceCheckIn, isForceTip, owningPart);
-                    if (res == null) {
-                        listener.getLogger().println("[DIMENSIONS] New artifacts failed to get loaded into Dimensions");
-                        listener.getLogger().flush();
-                        bRet = false;
-                    } else {
-                        listener.getLogger().println("[DIMENSIONS] Build artifacts were successfully loaded into Dimensions");
-                        listener.getLogger().println("[DIMENSIONS] (" + res.getMessage().replaceAll("\n",
-                                "\n[DIMENSIONS] ") + ")");
-                        listener.getLogger().flush();
-                    }
+                    tmpFile.delete();
                 }
-
-                tmpFile.delete();
             } else {
                 listener.getLogger().println("[DIMENSIONS] No build artifacts found for checking in");
             }
@@ -150,4 +81,88 @@ public Boolean execute(File area, VirtualChannel channel) {
         }
         return bRet;
     }
+
+    /**
+     * Scan a workspace directory for the files that match the include patterns but not the exclude patterns.
+     */
+    static File[] scanWorkspace(File area, String patternType, String[] patterns, String[] patternsExc,
+            TaskListener listener) throws IOException {
+        listener.getLogger().println("[DIMENSIONS] Scanning workspace for files to be saved into Dimensions...");
+        listener.getLogger().flush();
+        FilePath wd = new FilePath(area);
+        Logger.debug("Scanning directory for files that match patterns '" + wd.getRemote() + "'");
+        File dir = new File(wd.getRemote());
+
+        File[] validFiles = new File[0];
+
+        if (patternType.equals("regEx")) {
+            listener.getLogger().println("[DIMENSIONS] Running RegEx pattern scanner...");
+            FileScanner fs = new FileScanner(dir, patterns, patternsExc, -1);
+            validFiles = fs.toArray();
+            listener.getLogger().println("[DIMENSIONS] Found " + validFiles.length + " file(s) to check in...");
+        } else if (patternType.equals("Ant")) {
+            listener.getLogger().println("[DIMENSIONS] Running Ant pattern scanner...");
+            FileAntScanner fs = new FileAntScanner(dir, patterns, patternsExc, -1);
+            validFiles = fs.toArray();
+            listener.getLogger().println("[DIMENSIONS] Found " + validFiles.length + " file(s) to check in...");
+        }
+
+        listener.getLogger().flush();
+        DimensionsMetrics.histogram("scanner.files").update(validFiles.length);
+        return validFiles;
+    }
+
+    /**
+     * Write the files (but not directories) to a temporary user filelist for the DELIVER or UPLOAD command.
+     */
+    static File writeUserFilelist(File[] validFiles) throws IOException {
+        PrintWriter fmtWriter = null;
+        File tmpFile = null;
+
+        try {
+            tmpFile = File.createTempFile("dmCm" + System.currentTimeMillis(), null, null);
+            // 'DELIVER/USER_FILELIST=' user filelist in platform-default encoding.
+            fmtWriter = new PrintWriter(new FileWriter(tmpFile), true);
+
+            for (File f : validFiles) {
+                if (!f.isDirectory()) {
+                    Logger.debug("Found file '" + f.getAbsolutePath() + "'");
+                    fmtWriter.println(f.getAbsolutePath());
+                }
+            }
+            fmtWriter.flush();
+        } catch (IOException e) {
+            throw new IOException(Values.exceptionMessage("Unable to write user filelist: " + tmpFile, e,
+                    "no message"), e);
+        } finally {
+            if (fmtWriter != null) {
+                fmtWriter.close();
+            }
+        }
+        return tmpFile;
+    }
+
+    /**
+     * Upload the files in a user filelist using an already logged in Java API session.
+     */
+    static boolean uploadFiles(DimensionsAPI scmAPI, long key, File area, String projectId, File userFilelist,
+            String jobId, int buildNo, String requests, boolean isForceCheckIn, boolean isForceTip, String owningPart,
+            TaskListener listener) {
+        if (requests != null) {
+            requests = requests.replaceAll(" ", "");
+            requests = requests.toUpperCase(Values.ROOT_LOCALE);
+        }
+
+        DimensionsResult res = scmAPI.UploadFiles(key, new FilePath(area), projectId, userFilelist, jobId, buildNo,
+                requests, isForceCheckIn, isForceTip, owningPart);
+        if (res == null) {
+            listener.getLogger().println("[DIMENSIONS] New artifacts failed to get loaded into Dimensions");
+            listener.getLogger().flush();
+            return false;
+        }
+        listener.getLogger().println("[DIMENSIONS] Build artifacts were successfully loaded into Dimensions");
+        listener.getLogger().println("[DIMENSIONS] (" + res.getMessage().replaceAll("\n", "\n[DIMENSIONS] ") + ")");
+        listener.getLogger().flush();
+        return true;
+    }
 }
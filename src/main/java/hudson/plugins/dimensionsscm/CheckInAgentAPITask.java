@@ -0,0 +1,111 @@
+package hudson.plugins.dimensionsscm;
+
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.util.Secret;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Deliver files to Dimensions CM repository using Java API directly on the agent where the workspace is.
+ * <p>
+ * Unlike CheckInAPITask, this task carries only serializable connection details (resolved on the controller), so it
+ * can be sent to an agent. The Dimensions CM Java API classes are loaded on the agent via remoting from the plugin's
+ * classpath, so neither dmcli nor a dmcli parameter file is needed on the agent.
+ */
+public class CheckInAgentAPITask extends BaseCallable {
+    private final String userName;
+    private final Secret passwd;
+    private final String database;
+    private final String dbConn;
+    private final String server;
+
+    private final boolean forceCheckIn;
+    private final boolean forceTip;
+
+    private final int buildNo;
+    private final String jobId;
+
+    private final String projectId;
+    private final String requests;
+    private final String owningPart;
+
+    private final String patternType;
+    private final String[] patterns;
+    private final String[] patternsExc;
+
+    private final TaskListener listener;
+
+    public CheckInAgentAPITask(String userName, Secret passwd, String database, String dbConn, String server,
+                               String projectId, String requests, boolean forceCheckIn, boolean forceTip,
+                               String[] patterns, String patternType, String[] patternsExc, int buildNo, String jobId,
+                               String owningPart, TaskListener listener) {
+        Logger.debug("Creating task - " + this.getClass().getName());
+        this.userName = userName;
+        this.passwd = passwd;
+        this.database = database;
+        this.dbConn = dbConn;
+        this.server = server;
+        this.projectId = projectId;
+        this.requests = requests;
+        this.forceCheckIn = forceCheckIn;
+        this.forceTip = forceTip;
+        this.patterns = patterns;
+        this.patternType = patternType;
+        this.patternsExc = patternsExc;
+        this.buildNo = buildNo;
+        this.jobId = jobId;
+        this.owningPart = owningPart;
+        this.listener = listener;
+    }
+
+    @Override
+    public Boolean invoke(File area, VirtualChannel channel) throws IOException {
+        // This here code is executed on the agent.
+        listener.getLogger().println("[DIMENSIONS] Running checkin with Java API in '" + area.getAbsolutePath()
+                + "'...");
+        listener.getLogger().flush();
+
+        boolean bRet = true;
+        DimensionsAPI scmAPI = new DimensionsAPI();
+        long key = -1L;
+        try {
+            File[] validFiles = CheckInAPITask.scanWorkspace(area, patternType, patterns, patternsExc, listener);
+            if (validFiles.length == 0) {
+                listener.getLogger().println("[DIMENSIONS] No build artifacts found for checking in");
+                listener.getLogger().flush();
+                return true;
+            }
+
+            key = scmAPI.login(userName, passwd, database, dbConn, server);
+            if (key > 0L) {
+                Logger.debug("Login worked.");
+                listener.getLogger().println("[DIMENSIONS] Loading files into Dimensions project \"" + projectId
+                        + "\"...");
+                listener.getLogger().flush();
+
+                File tmpFile = CheckInAPITask.writeUserFilelist(validFiles);
+                try {
+                    bRet = CheckInAPITask.uploadFiles(scmAPI, key, area, projectId, tmpFile, jobId, buildNo, requests,
+                            forceCheckIn, forceTip, owningPart, listener);
+                } finally {
+                    tmpFile.delete();
+                }
+            } else {
+                listener.getLogger().println("[DIMENSIONS] Login to Dimensions failed on the agent");
+                bRet = false;
+            }
+            listener.getLogger().flush();
+        } catch (Exception e) {
+            String message = Values.exceptionMessage("Unable to run checkin callout", e, "no message - try again");
+            listener.fatalError(message);
+            Logger.debug(message, e);
+            bRet = false;
+        } finally {
+            if (key > 0L) {
+                scmAPI.logout(key);
+            }
+        }
+        return bRet;
+    }
+}
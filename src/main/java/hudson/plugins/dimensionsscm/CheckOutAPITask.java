@@ -20,6 +20,7 @@
 public class CheckOutAPITask extends GenericAPITask {
     private final boolean bFreshBuild;
     private final boolean isDelete;
+    private final boolean isDeleteInBackground;
     private final boolean isRevert;
     private final boolean isForce;
     private final boolean isExpand;
@@ -45,6 +46,7 @@ public CheckOutAPITask(Run<?, ?> build, DimensionsSCM parent, FilePath workspace
 
         // Config details.
         this.isDelete = parent.isCanJobDelete();
+        this.isDeleteInBackground = parent.isCanJobDeleteInBackground();
         this.projectId = parent.getProjectVersion(build, listener);
         this.isRevert = parent.isCanJobRevert();
         this.isForce = parent.isCanJobForce();
@@ -72,6 +74,9 @@ public CheckOutAPITask(Run<?, ?> build, DimensionsSCM parent, FilePath workspace
             this.baseline = parent.getParameterFromBuild((WorkflowRun) build, "DM_BASELINE");
             this.request = parent.getParameterFromBuild((WorkflowRun) build, "DM_REQUEST");
         }
+        if (!Values.hasText(this.baseline)) {
+            this.baseline = parent.getBaseline();
+        }
     }
 
     @Override
@@ -93,7 +98,11 @@ public Boolean execute(File area, VirtualChannel channel) throws IOException, In
                 Logger.debug("Deleting '" + wa.toURI() + "'...");
                 listener.getLogger().println("[DIMENSIONS] Removing '" + wa.toURI() + "'...");
                 listener.getLogger().flush();
-                wa.deleteContents();
+                if (isDeleteInBackground) {
+                    WorkspaceWiper.wipe(wa, listener.getLogger());
+                } else {
+                    wa.deleteContents();
+                }
             }
 
             String baseline = this.baseline;
@@ -148,8 +157,13 @@ public Boolean execute(File area, VirtualChannel channel) throws IOException, In
                     Logger.debug("Checking out '" + folderN + "'...");
 
                     // Checkout the folder.
-                    bRet = scmAPI.checkout(key, projectId, dname, wa, cmdOutput, baseline, reqId, isRevert, isExpand,
-                            isNoMetadata, isNoTouch, "DEFAULT", eol);
+                    DimensionsTracer.Scope span = trace("checkout request " + reqId);
+                    try {
+                        bRet = scmAPI.checkout(key, projectId, dname, wa, cmdOutput, baseline, reqId, isRevert, isExpand,
+                                isNoMetadata, isNoTouch, "DEFAULT", eol, listener.getLogger());
+                    } finally {
+                        span.end();
+                    }
                     Logger.debug("SCM checkout returned " + bRet);
 
                     if (!bRet && isForce) {
@@ -176,8 +190,13 @@ public Boolean execute(File area, VirtualChannel channel) throws IOException, In
                     Logger.debug("Checking out '" + folderN + "'...");
 
                     // Checkout the folder.
-                    bRet = scmAPI.checkout(key, projectId, dname, wa, cmdOutput, baseline, requests, isRevert, isExpand,
-                            isNoMetadata, isNoTouch, permissions, eol);
+                    DimensionsTracer.Scope span = trace("checkout folder '" + folderN + "'");
+                    try {
+                        bRet = scmAPI.checkout(key, projectId, dname, wa, cmdOutput, baseline, requests, isRevert, isExpand,
+                                isNoMetadata, isNoTouch, permissions, eol, listener.getLogger());
+                    } finally {
+                        span.end();
+                    }
                     Logger.debug("SCM checkout returned " + bRet);
 
                     if (!bRet && isForce) {
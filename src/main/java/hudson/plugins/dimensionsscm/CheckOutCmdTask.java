@@ -17,6 +17,7 @@
 public class CheckOutCmdTask extends GenericCmdTask {
     private final boolean bFreshBuild;
     private final boolean isDelete;
+    private final boolean isDeleteInBackground;
     private final boolean isRevert;
     private final boolean isForce;
     private final boolean isExpand;
@@ -119,7 +120,7 @@ private File createCmdFile(final String reqId, final String projDir, final File
     }
 
     public CheckOutCmdTask(String userName, Secret passwd, String database, String dbConn, String server, String projectId,
-                           String baselineId, String requestId, boolean isDelete, boolean isRevert, boolean isForce, boolean isExpand,
+                           String baselineId, String requestId, boolean isDelete, boolean isDeleteInBackground, boolean isRevert, boolean isForce, boolean isExpand,
                            boolean isNoMetadata, boolean isNoTouch, boolean freshBuild, List<StringVarStorage> folders, int version,
                            String permissions, String eol, String certificatePath, Secret certificatePassword,
                            boolean isSecureAgentAuth, FilePath workspace, TaskListener listener) {
@@ -127,6 +128,7 @@ public CheckOutCmdTask(String userName, Secret passwd, String database, String d
 
         // Config details.
         this.isDelete = isDelete;
+        this.isDeleteInBackground = isDeleteInBackground;
         this.projectId = projectId;
         this.isRevert = isRevert;
         this.isForce = isForce;
@@ -169,7 +171,16 @@ public Boolean execute(final File exe, final File param, final File area) throws
             Logger.debug("Deleting '" + wa.toURI() + "'...");
             listener.getLogger().println("[DIMENSIONS] Removing '" + wa.toURI() + "'...");
             listener.getLogger().flush();
-            wa.deleteContents();
+            DimensionsTracer.Scope span = trace("wipe workspace");
+            try {
+                if (isDeleteInBackground) {
+                    WorkspaceWiper.wipe(wa, listener.getLogger());
+                } else {
+                    wa.deleteContents();
+                }
+            } finally {
+                span.end();
+            }
         }
 
         if (baseline != null) {
@@ -234,7 +245,12 @@ public Boolean execute(final File exe, final File param, final File area) throws
                 cmd[4] = cmdFile.getAbsolutePath();
 
                 SCMLauncher proc = new SCMLauncher(cmd, listener, wa);
-                bRet = proc.execute();
+                DimensionsTracer.Scope span = trace("dmcli checkout request " + reqId);
+                try {
+                    bRet = proc.execute();
+                } finally {
+                    span.end();
+                }
                 String outputStr = proc.getResults();
                 cmdFile.delete();
 
@@ -291,7 +307,12 @@ public Boolean execute(final File exe, final File param, final File area) throws
                 cmd[4] = cmdFile.getAbsolutePath();
 
                 SCMLauncher proc = new SCMLauncher(cmd, listener, wa);
-                bRet = proc.execute();
+                DimensionsTracer.Scope span = trace("dmcli checkout folder '" + folderN + "'");
+                try {
+                    bRet = proc.execute();
+                } finally {
+                    span.end();
+                }
                 String outputStr = proc.getResults();
                 cmdFile.delete();
 
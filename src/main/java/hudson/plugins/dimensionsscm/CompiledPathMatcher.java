@@ -0,0 +1,217 @@
+package hudson.plugins.dimensionsscm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Path matcher that compiles all its Ant-style include and exclude patterns once, into one automaton per kind.
+ * <p>
+ * Each automaton is a trie of path segments: literal segments are looked up in a hash map, segments with {@code *} or
+ * {@code ?} are matched as globs and {@code **} matches any number of segments. A path is split once and then run
+ * through all the patterns at the same time, so patterns sharing a prefix (such as {@code src/main/...}) share the
+ * work, instead of every pattern re-tokenizing and matching the whole path as
+ * {@link org.apache.tools.ant.types.selectors.SelectorUtils#matchPath(String, String)} does.
+ * <p>
+ * A path matches if it matches no exclude pattern and, when there are include patterns, at least one of them. The
+ * semantics are those of {@link DefaultPathMatcher}, except that both '/' and '\' separate segments.
+ */
+final class CompiledPathMatcher implements PathMatcher {
+    private final Collection<String> excludeStrings;
+    private final Collection<String> includeStrings;
+    private final Node excludes;
+    private final Node includes;
+
+    CompiledPathMatcher(String[] pathsToExclude, String[] pathsToInclude) {
+        excludeStrings = Values.isNullOrEmpty(pathsToExclude) ? Collections.<String>emptyList()
+                : Collections.unmodifiableList(Arrays.asList(pathsToExclude.clone()));
+        includeStrings = Values.isNullOrEmpty(pathsToInclude) ? Collections.<String>emptyList()
+                : Collections.unmodifiableList(Arrays.asList(pathsToInclude.clone()));
+        excludes = compile(excludeStrings);
+        includes = includeStrings.isEmpty() ? null : compile(includeStrings);
+    }
+
+    @Override
+    public boolean match(final String matchText) {
+        final List<String> path = split(matchText == null ? "" : matchText);
+        return !excludes.accepts(path) && (includes == null || includes.accepts(path));
+    }
+
+    /**
+     * Gets the exclusion patterns.
+     */
+    Collection<String> getExcludes() {
+        return excludeStrings;
+    }
+
+    /**
+     * Gets the inclusion patterns.
+     */
+    Collection<String> getIncludes() {
+        return includeStrings;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledPathMatcher(" + Values.toString(excludeStrings) + ", " + Values.toString(includeStrings) + ")";
+    }
+
+    private static Node compile(Collection<String> patterns) {
+        Node root = new Node(null);
+        for (String pattern : patterns) {
+            if (pattern == null) {
+                continue;
+            }
+            Node node = root;
+            for (String segment : split(pattern)) {
+                node = node.child(segment);
+            }
+            node.accepting = true;
+        }
+        return root;
+    }
+
+    /**
+     * Splits a path or pattern into segments, ignoring empty segments. A leading separator becomes an empty first
+     * segment, so that absolute patterns only match absolute paths.
+     */
+    private static List<String> split(String path) {
+        List<String> segments = new ArrayList<String>();
+        if (!path.isEmpty() && isSeparator(path.charAt(0))) {
+            segments.add("");
+        }
+        int start = 0;
+        for (int i = 0; i <= path.length(); i++) {
+            if (i == path.length() || isSeparator(path.charAt(i))) {
+                if (i > start) {
+                    segments.add(path.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return segments;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '/' || c == '\\';
+    }
+
+    /**
+     * Matches a segment against a glob of '*' (any characters) and '?' (any one character).
+     */
+    static boolean globMatch(String glob, String segment) {
+        int g = 0;
+        int s = 0;
+        int starG = -1;
+        int starS = 0;
+        while (s < segment.length()) {
+            if (g < glob.length() && (glob.charAt(g) == '?' || glob.charAt(g) == segment.charAt(s))) {
+                g++;
+                s++;
+            } else if (g < glob.length() && glob.charAt(g) == '*') {
+                starG = g++;
+                starS = s;
+            } else if (starG >= 0) {
+                g = starG + 1;
+                s = ++starS;
+            } else {
+                return false;
+            }
+        }
+        while (g < glob.length() && glob.charAt(g) == '*') {
+            g++;
+        }
+        return g == glob.length();
+    }
+
+    /**
+     * A state of the automaton: the patterns matched so far share the segments leading to it.
+     */
+    private static final class Node {
+        /** The glob that leads to this node, or null if it is reached by a literal segment or {@code **}. */
+        private final String glob;
+        private final Map<String, Node> literals = new HashMap<String, Node>();
+        private final List<Node> globs = new ArrayList<Node>();
+        /** The node reached by {@code **}, which can consume any number of segments. */
+        private Node anyDepth;
+        private boolean loops;
+        private boolean accepting;
+
+        Node(String glob) {
+            this.glob = glob;
+        }
+
+        Node child(String segment) {
+            if ("**".equals(segment)) {
+                if (anyDepth == null) {
+                    anyDepth = new Node(null);
+                    anyDepth.loops = true;
+                }
+                return anyDepth;
+            }
+            if (segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0) {
+                for (Node node : globs) {
+                    if (segment.equals(node.glob)) {
+                        return node;
+                    }
+                }
+                Node node = new Node(segment);
+                globs.add(node);
+                return node;
+            }
+            Node node = literals.get(segment);
+            if (node == null) {
+                node = new Node(null);
+                literals.put(segment, node);
+            }
+            return node;
+        }
+
+        boolean accepts(List<String> path) {
+            Set<Node> states = new LinkedHashSet<Node>();
+            addWithClosure(states, this);
+            for (String segment : path) {
+                Set<Node> next = new LinkedHashSet<Node>();
+                for (Node state : states) {
+                    Node literal = state.literals.get(segment);
+                    if (literal != null) {
+                        addWithClosure(next, literal);
+                    }
+                    for (Node node : state.globs) {
+                        if (globMatch(node.glob, segment)) {
+                            addWithClosure(next, node);
+                        }
+                    }
+                    if (state.loops) {
+                        addWithClosure(next, state);
+                    }
+                }
+                if (next.isEmpty()) {
+                    return false;
+                }
+                states = next;
+            }
+            for (Node state : states) {
+                if (state.accepting) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Adds a state and the states reachable from it without consuming a segment ({@code **} matching nothing).
+         */
+        private static void addWithClosure(Set<Node> states, Node node) {
+            while (node != null && states.add(node)) {
+                node = node.anyDepth;
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package hudson.plugins.dimensionsscm;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.FormValidation;
+import hudson.util.NamingThreadFactory;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.crypto.Mac;
+
+/**
+ * Runs the "Check Connection" tests of the configuration pages, so that they do not log in to Dimensions more often
+ * than needed or hold a request thread while the server is slow to answer.
+ * <p>
+ * Tests are identified by a fingerprint of the connection details they use. While a test is running, checks with the
+ * same fingerprint wait for it rather than starting another login, and its result is then reused for a short time
+ * (longer for a successful test than for a failed one). Tests run on a background thread; a check waits at most
+ * {@link #WAIT_MILLIS} for them, which is enough for a server that answers promptly, and otherwise reports straight
+ * away that the test is still running. The result is then there to be picked up by checking again.
+ */
+final class ConnectionCheck {
+    /** How long a successful test result is reused. */
+    static final long OK_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    /** How long a failed test result is reused. */
+    static final long ERROR_TTL_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    /** How long a check waits for a test before reporting that it is still running. */
+    static final long WAIT_MILLIS = 500L;
+
+    private static final ConcurrentMap<String, Result> RESULTS = new ConcurrentHashMap<String, Result>();
+    private static final ConcurrentMap<String, CompletableFuture<FormValidation>> RUNNING =
+            new ConcurrentHashMap<String, CompletableFuture<FormValidation>>();
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(
+            new NamingThreadFactory(new DaemonThreadFactory(), "Dimensions connection check"));
+
+    private ConnectionCheck() {
+        /* prevent instantiation. */
+    }
+
+    /**
+     * Gets the result of a connection test, reusing a recent or running test with the same fingerprint.
+     *
+     * @param fingerprint identifies the connection details, see {@link #fingerprint(String...)}
+     * @param test        logs in and out, and reports the outcome; it must not throw for a failed login
+     */
+    static FormValidation check(final String fingerprint, final Callable<FormValidation> test) {
+        Result cached = RESULTS.get(fingerprint);
+        if (cached != null && cached.expires > System.currentTimeMillis()) {
+            DimensionsMetrics.counter("connection.check.hit").inc();
+            return cached.validation;
+        }
+        final CompletableFuture<FormValidation> created = new CompletableFuture<FormValidation>();
+        CompletableFuture<FormValidation> future = RUNNING.putIfAbsent(fingerprint, created);
+        if (future == null) {
+            future = created;
+            DimensionsMetrics.counter("connection.check.miss").inc();
+            EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    FormValidation validation = null;
+                    try {
+                        validation = test.call();
+                    } catch (Exception e) {
+                        String message = Values.exceptionMessage("Server connection check error", e, "no message");
+                        Logger.debug(message, e);
+                        validation = FormValidation.error(message);
+                    } finally {
+                        if (validation == null) {
+                            validation = FormValidation.error("Connection test failed");
+                        }
+                        store(fingerprint, validation);
+                        RUNNING.remove(fingerprint, created);
+                        created.complete(validation);
+                    }
+                }
+            });
+        } else {
+            DimensionsMetrics.counter("connection.check.joined").inc();
+        }
+        try {
+            return future.get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return FormValidation.warning("The connection test is still running. Check the connection again shortly to see its result.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return FormValidation.warning("The connection test was interrupted.");
+        } catch (ExecutionException e) {
+            return FormValidation.error(Values.exceptionMessage("Server connection check error", e, "no message"));
+        }
+    }
+
+    /**
+     * Gets a {@linkplain Values#newSecretDigest() keyed digest} of connection details (including passwords), so that
+     * they are not kept in memory as they are.
+     */
+    static String fingerprint(String... parts) {
+        try {
+            Mac mac = Values.newSecretDigest();
+            for (String part : parts) {
+                if (part != null) {
+                    mac.update((byte) 1);
+                    mac.update(part.getBytes(StandardCharsets.UTF_8));
+                }
+                mac.update((byte) 0);
+            }
+            StringBuilder sb = new StringBuilder();
+            for (byte b : mac.doFinal()) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void store(String fingerprint, FormValidation validation) {
+        long now = System.currentTimeMillis();
+        for (Iterator<Map.Entry<String, Result>> it = RESULTS.entrySet().iterator(); it.hasNext(); ) {
+            if (it.next().getValue().expires <= now) {
+                it.remove();
+            }
+        }
+        long ttl = validation.kind == FormValidation.Kind.OK ? OK_TTL_MILLIS : ERROR_TTL_MILLIS;
+        RESULTS.put(fingerprint, new Result(validation, now + ttl));
+    }
+
+    private static final class Result {
+        private final FormValidation validation;
+        private final long expires;
+
+        Result(FormValidation validation, long expires) {
+            this.validation = validation;
+            this.expires = expires;
+        }
+    }
+}
@@ -45,6 +45,13 @@ public boolean match(final String matchText) {
         return !rejected && included;
     }
 
+    /**
+     * Gets the exclusion patterns.
+     */
+    Collection<String> getExcludes() {
+        return excludeStrings;
+    }
+
     @Override
     public String toString() {
         return "DefaultPathMatcher(" + Values.toString(excludeStrings) + ", " + Values.toString(includeStrings) + ")";
@@ -24,34 +24,36 @@
 import hudson.FilePath;
 import hudson.model.Job;
 import hudson.model.Run;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
 import hudson.util.Secret;
 import org.apache.commons.lang.StringUtils;
 
-import javax.net.ssl.KeyManager;
-import javax.net.ssl.KeyManagerFactory;
-import javax.net.ssl.X509KeyManager;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.Serializable;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.security.KeyPairGenerator;
-import java.security.KeyStore;
-import java.security.Provider;
+import java.nio.file.Files;
 import java.security.cert.X509Certificate;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -69,121 +71,36 @@ public class DimensionsAPI implements Serializable {
     // Thread safe key (sequence) generator.
     private static final AtomicLong sequence = new AtomicLong(1);
 
-    // Dimensions server details.
-    private String dmServer;
+    /** Maximum number of extra sessions used to query the items of requests concurrently. */
+    private static final int MAX_POOLED_QUERY_SESSIONS = 3;
 
-    private String dbName;
-    private String dbConn;
+    /** Number of change sets whose change steps are fetched together when polling. */
+    private static final int CHANGE_SET_BATCH_SIZE = 20;
 
-    // Dimensions user details.
-    private String dmUser;
-
-    // Dimensions project details.
-    private String dmProject;
-    private String projectPath;
+    /** Number of changed items whose paths are fetched together when polling. */
+    private static final int POLL_PAGE_SIZE = 100;
 
     private static final String DATE_TYPE = "edit";
-    private boolean allRevisions;
-    private int version = -1;
-    private final ConcurrentMap<Long, DimensionsConnection> conns = new ConcurrentHashMap<Long, DimensionsConnection>();
-    private PrintStream listener;
-    private PathMatcher pathMatcher;
+    private static final boolean ALL_REVISIONS = false;
+    private final ConcurrentMap<Long, DimensionsSession> sessions = new ConcurrentHashMap<Long, DimensionsSession>();
 
     /**
-     * Gets the logger.
+     * Gets the details of a login.
      *
-     * @return the task logger
-     */
-    public final PrintStream getLogger() {
-        return this.listener;
-    }
-
-    /**
-     * Set the logger.
-     */
-    public final void setLogger(PrintStream logger) {
-        this.listener = logger;
-    }
-
-    /**
-     * Get matcher for paths by pattern.
+     * @return the session for the key, or null if the key is not logged in
      */
-    final PathMatcher getPathMatcher() {
-        return pathMatcher;
+    final DimensionsSession getSession(long key) {
+        return sessions.get(key);
     }
 
     /**
-     * Set matcher for paths by pattern.
-     */
-    final void setPathMatcher(PathMatcher pathMatcher) {
-        this.pathMatcher = pathMatcher;
-    }
-
-    /**
-     * Gets the user ID for the connection.
+     * Gets the Dimensions version of the server of a login.
      *
-     * @return the user ID of the user as whom to connect
+     * @return version, or 0 if the key is not logged in
      */
-    public final String getSCMUserID() {
-        return this.dmUser;
-    }
-
-    /**
-     * Gets the Dimensions version if set.
-     *
-     * @return version
-     */
-    public final int getDmVersion() {
-        if (version > 0) {
-            return this.version;
-        } else {
-            return 0;
-        }
-    }
-
-    /**
-     * Gets the base database for the connection.
-     *
-     * @return the name of the base database only
-     */
-    public final String getSCMBaseDb() {
-        return this.dbName;
-    }
-
-    /**
-     * Gets the database connection.
-     *
-     * @return the name of the connection only
-     */
-    public final String getSCMDbConn() {
-        return this.dbConn;
-    }
-
-    /**
-     * Gets the server for the connection.
-     *
-     * @return the name of the server to connect to
-     */
-    public final String getSCMServer() {
-        return this.dmServer;
-    }
-
-    /**
-     * Gets the project ID for the connection.
-     *
-     * @return the project ID
-     */
-    public final String getSCMProject() {
-        return this.dmProject;
-    }
-
-    /**
-     * Gets the project path.
-     *
-     * @return the project path
-     */
-    public final String getSCMPath() {
-        return this.projectPath;
+    public final int getDmVersion(long key) {
+        DimensionsSession session = sessions.get(key);
+        return session != null ? session.getVersion() : 0;
     }
 
     /**
@@ -193,8 +110,9 @@ public final String getSCMPath() {
      */
     public final DimensionsConnection getCon(long key) {
         Logger.debug("Looking for key " + key);
-        DimensionsConnection con = conns.get(key);
-        if (con != null) {
+        DimensionsSession session = sessions.get(key);
+        if (session != null) {
+            DimensionsConnection con = session.getConnection();
             try {
                 DimensionsConnectionManager.unregisterThreadConnection();
             } catch (Exception e) {
@@ -216,16 +134,15 @@ public final DimensionsConnection getCon(long key) {
      * @return A long key for the connection
      * @throws DimensionsRuntimeException, IllegalArgumentException
      */
-    private long login(DimensionsConnectionDetails details, String database, String conn, String server) {
+    private long login(DimensionsConnectionDetails details, String user, String database, String conn, String server) {
         long key = sequence.getAndIncrement();
 
-        dmServer = server;
-        dbName = database;
-        dbConn = conn;
+        String dbName = database;
+        String dbConn = conn;
 
         Logger.debug("Checking Dimensions login parameters...");
 
-        if (dmServer == null || dmServer.length() == 0 || dbName == null || dbName.length() == 0) {
+        if (server == null || server.length() == 0 || dbName == null || dbName.length() == 0) {
             throw new IllegalArgumentException(INVALID_PARAMETERS);
         }
 
@@ -239,68 +156,51 @@ private long login(DimensionsConnectionDetails details, String database, String
             }
         }
 
-        Logger.debug("Logging into Dimensions: " + dmUser + " " + dmServer + " " + dbName + "@" + dbConn);
+        Logger.debug("Logging into Dimensions: " + user + " " + server + " " + dbName + "@" + dbConn);
 
         details.setDbName(dbName);
         details.setDbConn(dbConn);
-        details.setServer(dmServer);
+        details.setServer(server);
 
+        DimensionsBulkhead.Permit permit = DimensionsBulkhead.forServer(
+                DimensionsSession.serverKey(server, dbName, dbConn)).acquire(DimensionsBulkhead.SESSIONS);
         Logger.debug("Getting Dimensions connection...");
-        DimensionsConnection connection = DimensionsConnectionManager.getConnection(details);
+        DimensionsTracer.Scope span = DimensionsTracer.start("login");
+        DimensionsMetrics.Timer.Context login = DimensionsMetrics.timer("login").time();
+        DimensionsConnection connection;
+        try {
+            connection = DimensionsConnectionManager.getConnection(details);
+        } catch (RuntimeException e) {
+            DimensionsMetrics.counter("login.failures").inc();
+            permit.release();
+            span.fail();
+            throw e;
+        } finally {
+            login.stop();
+            span.end();
+        }
         if (connection != null) {
             Logger.debug("Connection map key is " + key);
-            Logger.debug("Connection map size before putIfAbsent is " + conns.size());
-            if (conns.putIfAbsent(key, connection) != null) {
-                Logger.debug("Connection map already contains key " + key);
+            Logger.debug("Connection map size before putIfAbsent is " + sessions.size());
+            DimensionsSession session;
+            try {
+                session = DimensionsSession.open(key, connection, server, dbName, dbConn, user, permit, details);
+            } catch (RuntimeException e) {
+                permit.release();
+                throw e;
             }
-            Logger.debug("Connection map size after putIfAbsent is " + conns.size());
-            if (version < 0) {
-                version = 2009;
-                // Get the server version.
-                List<String> inf = connection.getObjectFactory().getServerVersion(2);
-                if (inf == null) {
-                    Logger.debug("Detection of server information failed");
-                }
-                if (inf != null) {
-                    Logger.debug("Server information detected -" + inf.size());
-                    for (int i = 0; i < inf.size(); ++i) {
-                        String prop = inf.get(i);
-                        Logger.debug(i + " - " + prop);
-                    }
-
-                    // Try and locate the server version.
-                    // If not found, then get the schema version and use that.
-                    String serverx = inf.get(2);
-                    if (serverx == null) {
-                        serverx = inf.get(0);
-                    }
-                    if (serverx != null) {
-                        Logger.debug("Detected server version: " + serverx);
-                        String[] tokens = serverx.split(" ");
-                        serverx = tokens[0];
-                        if (serverx.startsWith("10.")) {
-                            version = 10;
-                        } else if (serverx.startsWith("2009")) {
-                            version = 2009;
-                        } else if (serverx.startsWith("201")) {
-                            version = 2010;
-                        } else if (serverx.startsWith("12.1")) {
-                            version = 2010;
-                        } else if (serverx.startsWith("12.2")) {
-                            version = 2010;
-                        } else {
-                            version = 2009;
-                        }
-                        Logger.debug("Version to process set to " + version);
-                    } else {
-                        Logger.debug("No server information found");
-                    }
-                }
+            if (sessions.putIfAbsent(key, session) != null) {
+                Logger.debug("Connection map already contains key " + key);
+                permit.release();
+            } else {
+                DimensionsMetrics.counter("connections.active").inc();
             }
+            Logger.debug("Connection map size after putIfAbsent is " + sessions.size());
         } else {
             Logger.debug("Dimensions connection was null");
+            permit.release();
         }
-        if (conns.containsKey(key)) {
+        if (sessions.containsKey(key)) {
             return key;
         }
         return -1L;
@@ -308,17 +208,15 @@ private long login(DimensionsConnectionDetails details, String database, String
 
     public final long login(String userID, Secret password, String database, String conn, String server) {
 
-        dmUser = userID;
-
-        if (dmUser == null || dmUser.length() == 0 || password == null) {
+        if (userID == null || userID.length() == 0 || password == null) {
             throw new IllegalArgumentException("Invalid or not user/password parameters have been specified");
         }
 
         DimensionsConnectionDetails details = new DimensionsConnectionDetails();
-        details.setUsername(dmUser);
+        details.setUsername(userID);
         details.setPassword(Secret.toString(password));
 
-        final long key = login(details, database, conn, server);
+        final long key = login(details, userID, database, conn, server);
         Logger.debug("  key: \"" + key + "\"");
         return key;
     }
@@ -338,24 +236,16 @@ public final long login(String server, String database, String conn, String cert
                 throw new IllegalArgumentException("Keystore and certificate passwords  must be specified.");
             }
 
-            KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
-            keyStore.load(new FileInputStream(keystorePath), keystorePassword.getPlainText().toCharArray());
-
-            KeyStore.PrivateKeyEntry pkEntry = (KeyStore.PrivateKeyEntry) keyStore.getEntry(certificateAlias,
-                    new KeyStore.PasswordProtection(certificatePassword.getPlainText().toCharArray()));
-
-            KeyManager keyManager = getKeyManager(keyStore, certificateAlias, certificatePassword.getPlainText());
-
-            X509Certificate x509Certificate = (X509Certificate) pkEntry.getCertificate();
-            KeyPairGenerator kpgen = KeyPairGenerator.getInstance(pkEntry.getPrivateKey().getAlgorithm());
-            Provider kpgenProv = kpgen.getProvider();
+            KeystoreMaterial material = KeystoreMaterial.get(keystorePath, certificateAlias,
+                    keystorePassword.getPlainText(), certificatePassword.getPlainText());
+            X509Certificate x509Certificate = material.getCertificate();
 
             final DimensionsConnectionDetails details = new DimensionsConnectionDetails();
             details.setCertificate(x509Certificate);
-            details.setCertificateProver(new CertificateProver(pkEntry.getPrivateKey(), kpgenProv));
-            details.setKeyManager(keyManager);
+            details.setCertificateProver(material.getProver());
+            details.setKeyManager(material.getKeyManager());
 
-            final long key = login(details, database, conn, server);
+            final long key = login(details, x509Certificate.getSubjectX500Principal().getName(), database, conn, server);
             Logger.debug("  key: \"" + key + "\"");
             return key;
         } catch (Exception e) {
@@ -392,20 +282,6 @@ public final long login(DimensionsSCM scm, Run<?, ?> run) {
         return loginImpl(scm, run != null ? run.getParent() : null);
     }
 
-    private KeyManager getKeyManager(KeyStore keyStore, String alias, String passwd) throws Exception {
-        KeyManagerFactory kmfactory = KeyManagerFactory.getInstance("SunX509");
-        kmfactory.init(keyStore, passwd.toCharArray());
-
-        int n = kmfactory.getKeyManagers().length;
-        if (n > 0) {
-            KeyManager keyManager = kmfactory.getKeyManagers()[0];
-            if (keyManager instanceof X509KeyManager)
-                return new LabeledKeyManager((X509KeyManager) keyManager, alias);
-        }
-
-        return null;
-    }
-
     /**
      * Disconnects from the Dimensions repository
      */
@@ -422,8 +298,16 @@ public final void logout(long key) {
             } catch (DimensionsRuntimeException dre) {
                 Logger.debug("Exception thrown: DimensionsRuntimeException", dre);
             }
-            conns.remove(key);
-            Logger.debug("Now have " + conns.size() + " connections in use...");
+            DimensionsSession session = sessions.remove(key);
+            if (session != null) {
+                DimensionsMetrics.counter("connections.active").dec();
+                session.release();
+                for (Long pooledKey : session.getPooledKeys()) {
+                    logout(pooledKey);
+                    DimensionsMetrics.counter("connections.pooled").dec();
+                }
+            }
+            Logger.debug("Now have " + sessions.size() + " connections in use...");
         }
     }
 
@@ -436,6 +320,54 @@ public final void logout(long key, Run<?, ?> build) {
         logout(key);
     }
 
+    /**
+     * Opens an extra session like an existing one, for an operation run concurrently on its behalf. The caller already
+     * holds one of the server's sessions, so this never waits for the server's session limit (which could wait for the
+     * caller itself); the extra session is logged out with the existing one.
+     *
+     * @param key the existing session
+     * @return the key of the extra session, or -1 if there is none to spare
+     */
+    final long openSpareSession(long key) {
+        DimensionsSession main = sessions.get(key);
+        return main != null ? openPooledSession(main) : -1L;
+    }
+
+    /**
+     * Opens an extra session like an existing one, for queries run concurrently on its behalf. The extra session is
+     * logged out with the existing one. No session is opened if the server's session limit has been reached.
+     *
+     * @return the key of the extra session, or -1 if none could be opened
+     */
+    private long openPooledSession(DimensionsSession main) {
+        if (main.getDetails() == null) {
+            return -1L;
+        }
+        DimensionsBulkhead.Permit permit = main.getBulkhead().tryAcquire(DimensionsBulkhead.SESSIONS);
+        if (permit == null) {
+            Logger.debug("No spare Dimensions session for concurrent queries");
+            return -1L;
+        }
+        long key = sequence.getAndIncrement();
+        DimensionsConnection connection = null;
+        try {
+            connection = DimensionsConnectionManager.getConnection(main.getDetails());
+        } catch (RuntimeException e) {
+            Logger.debug("Unable to open a pooled Dimensions session", e);
+        }
+        if (connection == null) {
+            permit.release();
+            return -1L;
+        }
+        sessions.put(key, DimensionsSession.open(key, connection, main.getServer(), main.getDbName(),
+                main.getDbConn(), main.getUser(), permit, main.getDetails()));
+        main.addPooledKey(key);
+        DimensionsMetrics.counter("connections.active").inc();
+        DimensionsMetrics.counter("connections.pooled").inc();
+        Logger.debug("Opened pooled session " + key + " for session " + main.getKey());
+        return key;
+    }
+
     /**
      * Parses a base database specification.
      * <p>
@@ -475,11 +407,127 @@ public static String[] parseDatabaseString(String database) throws ParseExceptio
         return dbCompts;
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Gets the change steps of the change sets made to a project during a certain time.
+     *
+     * @param monitoredPath the project-relative folder of interest, or null for the whole project
+     * @param pathMatcher   the exclusions to apply, or null for none
+     * @return the change steps, possibly including steps outside the folder or excluded, which the caller must ignore
+     */
     List<DimensionsChangeStep> calcRepoDiffsWithChangesets(DimensionsConnection connection, final String projectName,
-                                                           final Calendar fromDate, final Calendar toDate, final TimeZone tz) {
+                                                           final Calendar fromDate, final Calendar toDate, final TimeZone tz,
+                                                           final String monitoredPath, final PathMatcher pathMatcher) {
         List<DimensionsChangeStep> commonChgSteps = new ArrayList<DimensionsChangeStep>();
 
+        DimensionsTracer.Scope span = DimensionsTracer.start("query change sets");
+        try {
+            List<DimensionsChangeSet> changeSets = queryChangeSets(connection, projectName, fromDate, toDate, tz);
+
+            // Only transfer the steps in the folder of interest.
+            Filter stepFilter = ChangeStepFilters.forFolder(monitoredPath, pathMatcher);
+            Logger.debug("Change step filter: " + (stepFilter != null ? Values.toString(stepFilter) : "none"));
+            DimensionsMetrics.Timer.Context steps = DimensionsMetrics.timer("query.changesteps").time();
+            for (DimensionsChangeSet changeSet : changeSets) {
+
+                changeSet.queryDimensionsChangeSteps(stepFilter, "");
+                List<DimensionsChangeStep> chsSteps = changeSet.getDimensionsChangeSteps();
+
+                if (chsSteps != null)
+                    commonChgSteps.addAll(changeSet.getDimensionsChangeSteps());
+            }
+            steps.stop();
+            DimensionsMetrics.histogram("query.changesteps.rows").update(commonChgSteps.size());
+        } finally {
+            span.end();
+        }
+
+        return commonChgSteps;
+    }
+
+    /**
+     * Finds a change step, made to a project during a certain time, that is in the monitored folder and is not
+     * excluded. This is all that polling needs to know, so unlike
+     * {@link #calcRepoDiffsWithChangesets calcRepoDiffsWithChangesets} it visits the change sets newest first, fetches
+     * their steps a batch of change sets at a time, and stops as soon as a step passes.
+     * <p>
+     * The bulk details query of a batch cannot be given a step filter, so it returns every step of the batch; the
+     * folder and exclusion filter of {@link ChangeStepFilters#forFolder} is only applied on the server when the steps
+     * are fetched one change set at a time, which is the fallback for servers that do not return steps with the bulk
+     * details. Either way every step is checked with {@link ChangeStepFilters#accepts} before it is used.
+     *
+     * @param monitoredPath the project-relative folder of interest, or null for the whole project
+     * @param pathMatcher   the exclusions to apply
+     * @return the first change step found, or null if there is none
+     */
+    DimensionsChangeStep findChangeStep(DimensionsConnection connection, final String projectName,
+                                        final Calendar fromDate, final Calendar toDate, final TimeZone tz,
+                                        final String monitoredPath, final PathMatcher pathMatcher) {
+        DimensionsTracer.Scope span = DimensionsTracer.start("poll change sets");
+        try {
+            List<DimensionsChangeSet> changeSets = ChangeStepFilters.newestFirst(
+                    queryChangeSets(connection, projectName, fromDate, toDate, tz));
+            ChangeSetsQuery changeSetsQuery = connection.getObjectFactory().getChangeSetsQuery();
+            // Only used by the one change set at a time fallback, see above.
+            Filter stepFilter = ChangeStepFilters.forFolder(monitoredPath, pathMatcher);
+            boolean bulk = true;
+            int visited = 0;
+            DimensionsMetrics.Timer.Context steps = DimensionsMetrics.timer("query.changesteps").time();
+            try {
+                for (int start = 0; start < changeSets.size(); start += CHANGE_SET_BATCH_SIZE) {
+                    List<DimensionsChangeSet> batch = changeSets.subList(start,
+                            Math.min(start + CHANGE_SET_BATCH_SIZE, changeSets.size()));
+                    if (bulk) {
+                        try {
+                            // Unfiltered: this query has no step filter.
+                            changeSetsQuery.queryChangeSetsDetails(batch);
+                        } catch (DimensionsRuntimeException e) {
+                            Logger.debug("Cannot fetch the change steps of several change sets at once, "
+                                    + "so fetching them one change set at a time", e);
+                            bulk = false;
+                        }
+                    }
+                    boolean fetched = false;
+                    for (DimensionsChangeSet changeSet : batch) {
+                        visited++;
+                        List<DimensionsChangeStep> chsSteps = bulk ? changeSet.getDimensionsChangeSteps() : null;
+                        fetched |= chsSteps != null;
+                        if (chsSteps == null) {
+                            changeSet.queryDimensionsChangeSteps(stepFilter, "");
+                            chsSteps = changeSet.getDimensionsChangeSteps();
+                        }
+                        if (chsSteps == null) {
+                            continue;
+                        }
+                        for (DimensionsChangeStep changeStep : chsSteps) {
+                            if (ChangeStepFilters.accepts(changeStep.getProjectPath(), monitoredPath, pathMatcher)) {
+                                Logger.debug("Found a change step that passed the " + pathMatcher + " after visiting "
+                                        + visited + " of " + changeSets.size() + " change set(s)");
+                                return changeStep;
+                            }
+                        }
+                    }
+                    if (bulk && !fetched) {
+                        // The server did not return any steps with the details, so stop asking for them.
+                        bulk = false;
+                    }
+                }
+            } finally {
+                steps.stop();
+                DimensionsMetrics.histogram("query.changesets.visited").update(visited);
+            }
+            Logger.debug("Visited all " + visited + " change set(s), and no change step passed the " + pathMatcher);
+            return null;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Gets the change sets made to a project during a certain time.
+     */
+    @SuppressWarnings("unchecked")
+    private List<DimensionsChangeSet> queryChangeSets(DimensionsConnection connection, final String projectName,
+                                                      final Calendar fromDate, final Calendar toDate, final TimeZone tz) {
         Project project = connection.getObjectFactory().getProject(projectName);
         ChangeSetsQuery changeSetsQuery = connection.getObjectFactory().getChangeSetsQuery();
 
@@ -493,18 +541,11 @@ List<DimensionsChangeStep> calcRepoDiffsWithChangesets(DimensionsConnection conn
             filter.criteria().add(new Filter.Criterion(SystemAttributes.CHANGE_SET_FROM_DATE, dateAfter, Filter.Criterion.EQUALS));
         }
 
+        DimensionsMetrics.Timer.Context query = DimensionsMetrics.timer("query.changesets").time();
         List<DimensionsChangeSet> changeSets = changeSetsQuery.queryChangeSets(project, filter, true);
-
-        for (DimensionsChangeSet changeSet : changeSets) {
-
-            changeSet.queryDimensionsChangeSteps(null, "");
-            List<DimensionsChangeStep> chsSteps = changeSet.getDimensionsChangeSteps();
-
-            if (chsSteps != null)
-                commonChgSteps.addAll(changeSet.getDimensionsChangeSteps());
-        }
-
-        return commonChgSteps;
+        query.stop();
+        DimensionsMetrics.histogram("query.changesets.rows").update(changeSets.size());
+        return changeSets;
     }
 
 
@@ -512,7 +553,8 @@ List<DimensionsChangeStep> calcRepoDiffsWithChangesets(DimensionsConnection conn
      * Has the repository had any changes made during a certain time?
      */
     public boolean hasRepositoryBeenUpdated(final long key, final String projectName, final FilePath workspace,
-                                            final Calendar fromDate, final Calendar toDate, final TimeZone tz) throws IOException {
+                                            final Calendar fromDate, final Calendar toDate, final TimeZone tz,
+                                            final PathMatcher pathMatcher) throws IOException {
         DimensionsConnection connection = getCon(key);
         if (fromDate == null) {
             return true;
@@ -521,9 +563,16 @@ public boolean hasRepositoryBeenUpdated(final long key, final String projectName
             throw new IOException("Not connected to an SCM repository");
         }
 
-        DimensionsAPICallback dimensionsAPICallback = CallbackInstance.getInstance(connection, null, null);
+        DimensionsSession session = getSession(key);
+        DimensionsAPICallback dimensionsAPICallback = CallbackInstance.getInstance(session, null, null);
 
-        return dimensionsAPICallback.hasRepositoryBeenUpdated(this, connection, projectName, fromDate, toDate, tz, workspace);
+        DimensionsBulkhead.Permit permit = session.getBulkhead().acquire(DimensionsBulkhead.QUERIES);
+        try {
+            return dimensionsAPICallback.hasRepositoryBeenUpdated(this, session, projectName, fromDate, toDate, tz,
+                    workspace, pathMatcher != null ? pathMatcher : new NullPathMatcher());
+        } finally {
+            permit.release();
+        }
     }
 
     /**
@@ -532,12 +581,13 @@ public boolean hasRepositoryBeenUpdated(final long key, final String projectName
     public boolean checkout(final long key, final String projectName, final FilePath projectDir,
                             final FilePath workspaceName, StringBuffer cmdOutput, final String baseline, final String requests,
                             final boolean doRevert, final boolean doExpand, final boolean doNoMetadata, final boolean doNoTouch,
-                            final String permissions, final String eol) throws IOException {
+                            final String permissions, final String eol, final PrintStream logger) throws IOException {
         boolean bRet = false;
         DimensionsConnection connection = getCon(key);
         if (connection == null) {
             throw new IOException("Not connected to an SCM repository");
         }
+        final int version = getDmVersion(key);
         try {
             String coCmd = "UPDATE /BRIEF ";
             if (version == 10) {
@@ -607,11 +657,11 @@ public boolean checkout(final long key, final String projectName, final FilePath
                 }
 
                 if (requests == null) {
-                    getLogger().println("[DIMENSIONS] Checking out directory '" + (projDir != null ? projDir : "/") + "'...");
-                    getLogger().flush();
+                    logger.println("[DIMENSIONS] Checking out directory '" + (projDir != null ? projDir : "/") + "'...");
+                    logger.flush();
                 }
 
-                DimensionsResult res = run(connection, cmd);
+                DimensionsResult res = runHeavy(key, connection, cmd);
                 if (res != null) {
                     cmdOutput.append(res.getMessage());
                     String outputStr = cmdOutput.toString();
@@ -636,44 +686,46 @@ public boolean checkout(final long key, final String projectName, final FilePath
      */
     public void createChangeSetLogs(final long key, final String projectName, final FilePath projectDir,
                                     final Calendar fromDate, final Calendar toDate, final File changelogFile, final TimeZone tz,
-                                    final String url, final String baseline, final String requests) throws IOException {
+                                    final String url, final String baseline, final String requests,
+                                    final PrintStream logger) throws IOException {
         DimensionsConnection connection = getCon(key);
         if (connection == null) {
             throw new IOException("Not connected to an SCM repository");
         }
 
-        DimensionsAPICallback dimensionsAPICallback = CallbackInstance.getInstance(connection, baseline, requests);
-        dimensionsAPICallback.saveChangesToXmlFile(this, connection, projectName, projectDir, fromDate, toDate, tz, baseline, requests, changelogFile, url);
+        DimensionsSession session = getSession(key);
+        DimensionsAPICallback dimensionsAPICallback = CallbackInstance.getInstance(session, baseline, requests);
+        DimensionsBulkhead.Permit permit = session.getBulkhead().acquire(DimensionsBulkhead.QUERIES);
+        try {
+            dimensionsAPICallback.saveChangesToXmlFile(this, session, logger, projectName, projectDir, fromDate, toDate, tz, baseline, requests, changelogFile, url);
+        } finally {
+            permit.release();
+        }
 
     }
 
     /**
      * Calculate any repository changes made during a certain time.
+     *
+     * @return the changed item revisions, whose attributes may be fetched as they are iterated, or null
      */
-    List<ItemRevision> calcRepoDiffsWithRevisions(DimensionsConnection connection, final String projectName, final String baselineName,
+    Iterable<ItemRevision> calcRepoDiffsWithRevisions(DimensionsConnection connection, final String projectName, final String baselineName,
                                                   final String requests, final FilePath workspace, final Calendar fromDate, final Calendar toDate,
                                                   final TimeZone tz) throws IOException {
 
         if (fromDate == null && baselineName == null && requests == null) {
             return null;
         }
+        DimensionsTracer.Scope span = DimensionsTracer.start("query item revisions");
         try {
             // Get the dates for the last build
             int[] attrs = getItemFileAttributes(true);
             String dateAfter = (fromDate != null) ? formatDatabaseDate(fromDate.getTime(), tz) : "01-JAN-1970 00:00:00";
             String dateBefore = (toDate != null) ? formatDatabaseDate(toDate.getTime(), tz) : formatDatabaseDate(Calendar.getInstance().getTime(), tz);
 
-            Filter filter = new Filter();
-            List<Filter.Criterion> criteria = filter.criteria();
+            Filter filter = changedRevisionsFilter(baselineName != null || !isStream(connection, projectName),
+                    dateAfter, dateBefore);
             List<Filter.Order> orders = filter.orders();
-            if (baselineName != null || !isStream(connection, projectName)) {
-                criteria.add(new Filter.Criterion(SystemAttributes.LAST_UPDATED_DATE, dateAfter, Filter.Criterion.GREATER_EQUAL));
-                criteria.add(new Filter.Criterion(SystemAttributes.LAST_UPDATED_DATE, dateBefore, Filter.Criterion.LESS_EQUAL));
-            } else {
-                criteria.add(new Filter.Criterion(SystemAttributes.CREATION_DATE, dateAfter, Filter.Criterion.GREATER_EQUAL));
-                criteria.add(new Filter.Criterion(SystemAttributes.CREATION_DATE, dateBefore, Filter.Criterion.LESS_EQUAL));
-            }
-            criteria.add(new Filter.Criterion(SystemAttributes.IS_EXTRACTED, "Y", Filter.Criterion.NOT)); //$NON-NLS-1$
             orders.add(new Filter.Order(SystemAttributes.REVISION_COMMENT, Filter.ORDER_ASCENDING));
             orders.add(new Filter.Order(SystemAttributes.ITEMFILE_DIR, Filter.ORDER_ASCENDING));
             orders.add(new Filter.Order(SystemAttributes.ITEMFILE_FILENAME, Filter.ORDER_ASCENDING));
@@ -687,7 +739,7 @@ List<ItemRevision> calcRepoDiffsWithRevisions(DimensionsConnection connection, f
                 projName = projectName.toUpperCase(Values.ROOT_LOCALE);
             }
 
-            List<ItemRevision> items;
+            Iterable<ItemRevision> items;
 
             if (requests != null) {
                 //
@@ -700,34 +752,372 @@ List<ItemRevision> calcRepoDiffsWithRevisions(DimensionsConnection connection, f
                             "no message"), e);
                 }
             } else if (baselineName != null) {
-                // setup filter for baseline Name
-                Filter baselineFilter = new Filter();
-                List<Filter.Criterion> baselineCriteria = baselineFilter.criteria();
-                baselineCriteria.add(new Filter.Criterion(SystemAttributes.OBJECT_SPEC,
-                        baselineName.toUpperCase(Values.ROOT_LOCALE), Filter.Criterion.EQUALS));
+                items = queryItems(connection, findBaseline(connection, baselineName), workspace.getRemote(), filter,
+                        attrs, true, !ALL_REVISIONS);
+            } else {
+                Project projectObj = connection.getObjectFactory().getProject(projName);
+                items = queryItems(connection, projectObj, workspace.getRemote(), filter, attrs, true, !ALL_REVISIONS);
+            }
+            return items;
+        } catch (Exception e) {
+            span.fail();
+            throw new IOException(Values.exceptionMessage("Unable to run calcRepoDiffsWithRevisions", e,
+                    "no message"), e);
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Finds an item revision of a project, changed during a certain time, whose path is not excluded. This is all
+     * that polling needs to know, so unlike {@link #calcRepoDiffsWithRevisions calcRepoDiffsWithRevisions} it does
+     * not sort the revisions, only fetches their {@code FULL_PATH_NAME}, a page at a time, and stops at the first
+     * path that passes.
+     *
+     * @return the first item revision found, or null if there is none
+     */
+    ItemRevision findChangedItem(DimensionsConnection connection, final String projectName, final FilePath workspace,
+                                 final Calendar fromDate, final Calendar toDate, final TimeZone tz,
+                                 final PathMatcher pathMatcher) throws IOException {
+        if (fromDate == null) {
+            return null;
+        }
+        DimensionsTracer.Scope span = DimensionsTracer.start("poll item revisions");
+        try {
+            String dateAfter = formatDatabaseDate(fromDate.getTime(), tz);
+            String dateBefore = (toDate != null) ? formatDatabaseDate(toDate.getTime(), tz) : formatDatabaseDate(Calendar.getInstance().getTime(), tz);
+            Filter filter = changedRevisionsFilter(!isStream(connection, projectName), dateAfter, dateBefore);
+            addItemCriteria(filter, preProcessSrcPath(workspace.getRemote()), true, !ALL_REVISIONS);
+            Logger.debug("Looking between " + dateAfter + " -> " + dateBefore);
 
-                List<Baseline> baselineObjects = connection.getObjectFactory().getBaselines(baselineFilter);
-                Logger.debug("Baseline query for \"" + baselineName + "\" returned " + baselineObjects.size() + " baselines");
-                for (int i = 0; i < baselineObjects.size(); i++) {
-                    Logger.debug("Baseline " + i + " is \"" + baselineObjects.get(i).getName() + "\"");
+            Project projectObj = connection.getObjectFactory().getProject(projectName.toUpperCase(Values.ROOT_LOCALE));
+            ItemRevisionPages items = queryItemPages(projectObj, filter, connection,
+                    new int[]{SystemAttributes.FULL_PATH_NAME}, POLL_PAGE_SIZE);
+
+            int fetched = 0;
+            try {
+                for (ItemRevision itemRevision : items) {
+                    fetched++;
+                    String fullPathName = (String) itemRevision.getAttribute(SystemAttributes.FULL_PATH_NAME);
+                    // Match when fullPathName is not ignored, false otherwise.
+                    if (pathMatcher.match(fullPathName)) {
+                        Logger.debug("Found " + items.size() + " changed item(s), and after checking " + fetched
+                                + " at least one ('" + fullPathName + "') passed the " + pathMatcher);
+                        return itemRevision;
+                    }
                 }
+            } finally {
+                DimensionsMetrics.histogram("query.items.fetched").update(fetched);
+            }
+            Logger.debug("Found " + items.size() + " changed item(s), " + (items.isEmpty() ? "so" : "but")
+                    + " none passed the " + pathMatcher);
+            return null;
+        } catch (Exception e) {
+            span.fail();
+            throw new IOException(Values.exceptionMessage("Unable to run findChangedItem", e, "no message"), e);
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Creates a filter for the item revisions that were changed, and are not extracted, during a certain time.
+     *
+     * @param byUpdate whether to use the date of the last update (projects and baselines) or of creation (streams)
+     */
+    private static Filter changedRevisionsFilter(boolean byUpdate, String dateAfter, String dateBefore) {
+        Filter filter = new Filter();
+        List<Filter.Criterion> criteria = filter.criteria();
+        if (byUpdate) {
+            criteria.add(new Filter.Criterion(SystemAttributes.LAST_UPDATED_DATE, dateAfter, Filter.Criterion.GREATER_EQUAL));
+            criteria.add(new Filter.Criterion(SystemAttributes.LAST_UPDATED_DATE, dateBefore, Filter.Criterion.LESS_EQUAL));
+        } else {
+            criteria.add(new Filter.Criterion(SystemAttributes.CREATION_DATE, dateAfter, Filter.Criterion.GREATER_EQUAL));
+            criteria.add(new Filter.Criterion(SystemAttributes.CREATION_DATE, dateBefore, Filter.Criterion.LESS_EQUAL));
+        }
+        criteria.add(new Filter.Criterion(SystemAttributes.IS_EXTRACTED, "Y", Filter.Criterion.NOT)); //$NON-NLS-1$
+        return filter;
+    }
+
+    /**
+     * Finds a baseline by its spec.
+     *
+     * @throws IOException if there is no baseline, or more than one, with that spec
+     */
+    private static Baseline findBaseline(DimensionsConnection connection, String baselineName) throws IOException {
+        // setup filter for baseline Name
+        Filter baselineFilter = new Filter();
+        List<Filter.Criterion> baselineCriteria = baselineFilter.criteria();
+        baselineCriteria.add(new Filter.Criterion(SystemAttributes.OBJECT_SPEC,
+                baselineName.toUpperCase(Values.ROOT_LOCALE), Filter.Criterion.EQUALS));
+
+        List<Baseline> baselineObjects = connection.getObjectFactory().getBaselines(baselineFilter);
+        Logger.debug("Baseline query for \"" + baselineName + "\" returned " + baselineObjects.size() + " baselines");
+        for (int i = 0; i < baselineObjects.size(); i++) {
+            Logger.debug("Baseline " + i + " is \"" + baselineObjects.get(i).getName() + "\"");
+        }
+
+        if (baselineObjects.size() == 0) {
+            throw new IOException("Could not find baseline \"" + baselineName + "\" in repository");
+        }
+        if (baselineObjects.size() > 1) {
+            throw new IOException("Found more than one baseline named \"" + baselineName + "\" in repository");
+        }
+        return baselineObjects.get(0);
+    }
 
-                if (baselineObjects.size() == 0) {
-                    throw new IOException("Could not find baseline \"" + baselineName + "\" in repository");
+    /**
+     * Attributes fetched for the files of a {@link DimensionsSCMFileSystem}.
+     */
+    static int[] getFileSystemAttributes() {
+        return new int[]{SystemAttributes.OBJECT_SPEC, SystemAttributes.FULL_PATH_NAME,
+                SystemAttributes.LAST_UPDATED_DATE};
+    }
+
+    /**
+     * Finds the revision of the file at a path of a project, baseline or requests: the newest revision related to the
+     * requests if there is one, otherwise the revision in the baseline or the latest revision in the project.
+     *
+     * @param requests comma-separated request IDs, or null
+     * @param path     the path of the file in the project, with '/' separators
+     * @return the item revision, with the attributes of {@link #getFileSystemAttributes()}, or null if there is none
+     */
+    ItemRevision findFileRevision(final long key, final String projectName, final String baselineName,
+                                  final String requests, final String path) throws IOException {
+        DimensionsConnection connection = getCon(key);
+        if (connection == null) {
+            throw new IOException("Not connected to an SCM repository");
+        }
+        int slash = path.lastIndexOf('/');
+        String dir = path.substring(0, slash + 1);
+        String name = path.substring(slash + 1);
+        int[] attrs = getFileSystemAttributes();
+        DimensionsTracer.Scope span = DimensionsTracer.start("find file");
+        try {
+            Project projectObj = connection.getObjectFactory().getProject(projectName.toUpperCase(Values.ROOT_LOCALE));
+            if (requests != null) {
+                List<ItemRevision> items = new ArrayList<ItemRevision>();
+                for (String requestId : requests.split(",")) {
+                    Request request = connection.getObjectFactory().findRequest(requestId.trim().toUpperCase(Values.ROOT_LOCALE));
+                    if (request == null) {
+                        throw new IOException("Could not find request \"" + requestId + "\" in repository");
+                    }
+                    if (!queryItems(connection, request, dir, items, fileFilter(name), projectObj, false, ALL_REVISIONS)) {
+                        throw new IOException("Could not process items for request \"" + requestId + "\"");
+                    }
                 }
-                if (baselineObjects.size() > 1) {
-                    throw new IOException("Found more than one baseline named \"" + baselineName + "\" in repository");
+                if (!items.isEmpty()) {
+                    connection.getObjectFactory().getBulkOperator(items).queryAttribute(attrs);
+                    return newestRevision(items);
                 }
+            }
+            ItemRevisionPages items = baselineName != null
+                    ? queryItems(connection, findBaseline(connection, baselineName), dir, fileFilter(name), attrs,
+                            false, ALL_REVISIONS)
+                    : queryItems(connection, projectObj, dir, fileFilter(name), attrs, false, !ALL_REVISIONS);
+            if (items != null) {
+                for (ItemRevision item : items) {
+                    return item;
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            span.fail();
+            throw e;
+        } catch (Exception e) {
+            span.fail();
+            throw new IOException(Values.exceptionMessage("Unable to find '" + path + "'", e, "no message"), e);
+        } finally {
+            span.end();
+        }
+    }
 
-                items = queryItems(connection, baselineObjects.get(0), workspace.getRemote(), filter, attrs, true, !allRevisions);
-            } else {
-                Project projectObj = connection.getObjectFactory().getProject(projName);
-                items = queryItems(connection, projectObj, workspace.getRemote(), filter, attrs, true, !allRevisions);
+    /**
+     * Creates a filter for the item revisions with a file name.
+     */
+    private static Filter fileFilter(String name) {
+        Filter filter = new Filter();
+        filter.criteria().add(new Filter.Criterion(SystemAttributes.ITEMFILE_FILENAME, name, Filter.Criterion.EQUALS));
+        return filter;
+    }
+
+    /**
+     * Gets the most recently updated of some revisions of a file.
+     */
+    private static ItemRevision newestRevision(List<ItemRevision> items) {
+        ItemRevision newest = null;
+        Date newestDate = null;
+        for (ItemRevision item : items) {
+            Object value = item.getAttribute(SystemAttributes.LAST_UPDATED_DATE);
+            Date date = value != null ? DateUtils.parse(value.toString()) : null;
+            if (newest == null || (date != null && (newestDate == null || date.after(newestDate)))) {
+                newest = item;
+                newestDate = date;
             }
-            return items;
+        }
+        return newest;
+    }
+
+    /**
+     * Lists the files in and below a directory of a project or baseline.
+     *
+     * @param dir the directory in the project, with '/' separators, or "" for the root directory
+     * @return the item revisions, whose attributes of {@link #getFileSystemAttributes()} are fetched as they are
+     * iterated
+     */
+    Iterable<ItemRevision> listFiles(final long key, final String projectName, final String baselineName,
+                                     final String dir) throws IOException {
+        return filesIn(key, projectName, baselineName, dir, true);
+    }
+
+    /**
+     * Tells whether there are any files in or below a directory of a project or baseline. The files directly in the
+     * directory are queried first, which is usually enough; only a directory with nothing but subdirectories in it
+     * needs the files of its whole subtree to be queried (item queries cannot be limited to a number of rows). No
+     * attributes are fetched either way.
+     *
+     * @param dir the directory in the project, with '/' separators, or "" for the root directory
+     */
+    boolean hasFiles(final long key, final String projectName, final String baselineName, final String dir)
+            throws IOException {
+        return !filesIn(key, projectName, baselineName, dir, false).isEmpty()
+                || !filesIn(key, projectName, baselineName, dir, true).isEmpty();
+    }
+
+    private ItemRevisionPages filesIn(final long key, final String projectName, final String baselineName,
+                                      final String dir, final boolean isRecursive) throws IOException {
+        DimensionsConnection connection = getCon(key);
+        if (connection == null) {
+            throw new IOException("Not connected to an SCM repository");
+        }
+        int[] attrs = getFileSystemAttributes();
+        String srcPath = dir.isEmpty() ? "/" : dir;
+        try {
+            if (baselineName != null) {
+                ItemRevisionPages items = queryItems(connection, findBaseline(connection, baselineName), srcPath,
+                        new Filter(), attrs, isRecursive, ALL_REVISIONS);
+                return items != null ? items : ItemRevisionPages.empty();
+            }
+            Project projectObj = connection.getObjectFactory().getProject(projectName.toUpperCase(Values.ROOT_LOCALE));
+            return queryItems(connection, projectObj, srcPath, new Filter(), attrs, isRecursive, !ALL_REVISIONS);
+        } catch (IOException e) {
+            throw e;
         } catch (Exception e) {
-            throw new IOException(Values.exceptionMessage("Unable to run calcRepoDiffsWithRevisions", e,
-                    "no message"), e);
+            throw new IOException(Values.exceptionMessage("Unable to list '" + dir + "'", e, "no message"), e);
+        }
+    }
+
+    /**
+     * Gets the content of an item revision, by fetching it into a temporary file.
+     */
+    byte[] fetchFile(final long key, final String spec) throws IOException {
+        DimensionsConnection connection = getCon(key);
+        if (connection == null) {
+            throw new IOException("Not connected to an SCM repository");
+        }
+        File tmp = File.createTempFile("dmfetch", ".tmp");
+        // Only the unique name is wanted: FI will not overwrite an existing file.
+        tmp.delete();
+        try {
+            run(connection, "FI \"" + spec + "\" /USER_FILENAME=\"" + PathUtils.normalizePath(tmp.getAbsolutePath())
+                    + "\"");
+            return Files.readAllBytes(tmp.toPath());
+        } catch (DimensionsRuntimeException e) {
+            throw new IOException(Values.exceptionMessage("Unable to fetch '" + spec + "'", e, "no message"), e);
+        } finally {
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Gets the last update date of each of some streams, with one bulk query for all of them.
+     *
+     * @param specs stream specs, in upper case
+     * @return the last update date by stream spec, for the specs that are streams ("" if a stream has no date)
+     */
+    Map<String, String> getStreamUpdates(final long key, final Collection<String> specs) throws IOException {
+        DimensionsConnection connection = getCon(key);
+        if (connection == null) {
+            throw new IOException("Not connected to an SCM repository");
+        }
+        DimensionsTracer.Scope span = DimensionsTracer.start("query streams");
+        try {
+            DimensionsObjectFactory fc = connection.getObjectFactory();
+            Map<String, Project> projects = new LinkedHashMap<String, Project>();
+            for (String spec : specs) {
+                Project project = fc.getProject(spec);
+                if (project != null) {
+                    projects.put(spec, project);
+                }
+            }
+            Map<String, String> updates = new LinkedHashMap<String, String>();
+            if (projects.isEmpty()) {
+                return updates;
+            }
+            fc.getBulkOperator(new ArrayList<Project>(projects.values())).queryAttribute(
+                    new int[]{SystemAttributes.WSET_IS_STREAM, SystemAttributes.LAST_UPDATED_DATE});
+            for (Map.Entry<String, Project> entry : projects.entrySet()) {
+                Project project = entry.getValue();
+                if (Boolean.TRUE.equals(project.getAttribute(SystemAttributes.WSET_IS_STREAM))) {
+                    Object updated = project.getAttribute(SystemAttributes.LAST_UPDATED_DATE);
+                    updates.put(entry.getKey(), updated != null ? updated.toString() : "");
+                }
+            }
+            return updates;
+        } catch (Exception e) {
+            span.fail();
+            throw new IOException(Values.exceptionMessage("Unable to query streams", e, "no message"), e);
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Finds the baselines of a product that were created since a date.
+     *
+     * @param product      the product, in upper case, or null for the baselines of all products
+     * @param createdSince the earliest creation date, or null for all baselines
+     * @param tz           the time zone of the server's dates
+     * @return the creation date by baseline spec
+     */
+    Map<String, String> findBaselines(final long key, final String product, final Date createdSince,
+            final TimeZone tz) throws IOException {
+        DimensionsConnection connection = getCon(key);
+        if (connection == null) {
+            throw new IOException("Not connected to an SCM repository");
+        }
+        Filter filter = new Filter();
+        if (product != null) {
+            filter.criteria().add(new Filter.Criterion(SystemAttributes.PRODUCT_NAME, product, Filter.Criterion.EQUALS));
+        }
+        if (createdSince != null) {
+            filter.criteria().add(new Filter.Criterion(SystemAttributes.CREATION_DATE,
+                    formatDatabaseDate(createdSince, tz), Filter.Criterion.GREATER_EQUAL));
+        }
+        DimensionsTracer.Scope span = DimensionsTracer.start("query baselines");
+        try {
+            DimensionsObjectFactory fc = connection.getObjectFactory();
+            List<Baseline> baselines = fc.getBaselines(filter);
+            DimensionsMetrics.histogram("query.baselines.rows").update(baselines.size());
+            Map<String, String> created = new LinkedHashMap<String, String>();
+            if (baselines.isEmpty()) {
+                return created;
+            }
+            fc.getBulkOperator(baselines).queryAttribute(
+                    new int[]{SystemAttributes.OBJECT_SPEC, SystemAttributes.CREATION_DATE});
+            for (Baseline baseline : baselines) {
+                Object spec = baseline.getAttribute(SystemAttributes.OBJECT_SPEC);
+                Object date = baseline.getAttribute(SystemAttributes.CREATION_DATE);
+                if (spec != null) {
+                    created.put(spec.toString(), date != null ? date.toString() : "");
+                }
+            }
+            return created;
+        } catch (Exception e) {
+            span.fail();
+            throw new IOException(Values.exceptionMessage("Unable to query baselines", e, "no message"), e);
+        } finally {
+            span.end();
         }
     }
 
@@ -950,6 +1340,7 @@ public DimensionsResult UploadFiles(long key, FilePath rootDir, String projectId
         if (connection == null) {
             throw new DimensionsRuntimeException("Not connected to an SCM repository");
         }
+        final int version = getDmVersion(key);
         try {
             boolean isStream = false;
 
@@ -984,7 +1375,7 @@ public DimensionsResult UploadFiles(long key, FilePath rootDir, String projectId
                         ciCmd += "/FORCE_TIP ";
                     }
                 }
-                DimensionsResult res = run(connection, ciCmd);
+                DimensionsResult res = runHeavy(key, connection, ciCmd);
                 if (res != null) {
                     Logger.debug("Saving artifacts - " + res.getMessage());
                     return res;
@@ -1178,96 +1569,92 @@ public DimensionsResult actionBaseline(long key, String projectId, Run<?, ?> bui
     /**
      * Construct the change list.
      */
-    Map<String, DimensionsChangeLogEntry> createChangeList(List<ItemRevision> items, TimeZone tz, String url) {
+    Map<String, DimensionsChangeLogEntry> createChangeList(Iterable<ItemRevision> items, TimeZone tz) {
         Map<String, DimensionsChangeLogEntry> entries = new HashMap<String, DimensionsChangeLogEntry>();
+        DimensionsTracer.Scope span = DimensionsTracer.start("change list and request lookups");
+        try {
+            // Internal
+            //int SBM_ID   = 49;
+            //int SBM_LINK = 17;
 
-        // Internal
-        //int SBM_ID   = 49;
-        //int SBM_LINK = 17;
+            int i = 0;
+            for (ItemRevision item : items) {
+                Logger.debug("Processing change " + i++);
+                int x = 0;
 
-        for (int i = 0; i < items.size(); ++i) {
-            Logger.debug("Processing change " + i + "/" + items.size());
-            ItemRevision item = items.get(i);
-            int x = 0;
+                if (item.getAttribute(SystemAttributes.FULL_PATH_NAME) == null) {
+                    // Came from another project or something - not in here.
+                    continue;
+                }
 
-            if (item.getAttribute(SystemAttributes.FULL_PATH_NAME) == null) {
-                // Came from another project or something - not in here.
-                continue;
-            }
+                Integer fileVersion = (Integer) item.getAttribute(SystemAttributes.FILE_VERSION);
+                String operation;
+                if (fileVersion != null) {
+                    x = fileVersion;
+                }
+                if (x < 2) {
+                    operation = "add";
+                } else {
+                    operation = "edit";
+                }
+                String spec = (String) item.getAttribute(SystemAttributes.OBJECT_SPEC);
+                String revision = (String) item.getAttribute(SystemAttributes.REVISION);
+                String fileName = item.getAttribute(SystemAttributes.FULL_PATH_NAME) + ";" + revision;
+                String author = (String) item.getAttribute(SystemAttributes.LAST_UPDATED_USER);
+                String comment = (String) item.getAttribute(SystemAttributes.REVISION_COMMENT);
+                String date = (String) item.getAttribute(getDateTypeAttribute(operation));
 
-            Integer fileVersion = (Integer) item.getAttribute(SystemAttributes.FILE_VERSION);
-            String operation;
-            if (fileVersion != null) {
-                x = fileVersion;
-            }
-            if (x < 2) {
-                operation = "add";
-            } else {
-                operation = "edit";
-            }
-            String spec = (String) item.getAttribute(SystemAttributes.OBJECT_SPEC);
-            String revision = (String) item.getAttribute(SystemAttributes.REVISION);
-            String fileName = item.getAttribute(SystemAttributes.FULL_PATH_NAME) + ";" + revision;
-            String author = (String) item.getAttribute(SystemAttributes.LAST_UPDATED_USER);
-            String comment = (String) item.getAttribute(SystemAttributes.REVISION_COMMENT);
-            String date = (String) item.getAttribute(getDateTypeAttribute(operation));
-
-            if (date == null) {
-                date = (String) item.getAttribute(getDateTypeAttribute("edit"));
-            }
-            String urlString = constructURL(spec, url, getSCMDbConn(), getSCMBaseDb());
-            if (urlString == null) {
-                urlString = "";
-            }
-            if (comment == null) {
-                comment = "(None)";
-            }
-            Logger.debug("Change details -" + comment + " " + revision + " " + fileName + " " + author
-                    + " " + spec + " " + date + " " + operation + " (" + x + ") " + urlString);
+                if (date == null) {
+                    date = (String) item.getAttribute(getDateTypeAttribute("edit"));
+                }
+                if (comment == null) {
+                    comment = "(None)";
+                }
+                Logger.debug("Change details -" + comment + " " + revision + " " + fileName + " " + author
+                        + " " + spec + " " + date + " " + operation + " (" + x + ")");
 
-            Calendar opDate = Calendar.getInstance();
-            opDate.setTime(DateUtils.parse(date, tz));
+                Date opDate = DateUtils.parse(date, tz);
 
 
-            String key = DimensionsAPI.createKeyForChangeMap(author, opDate.getTime());
-            DimensionsChangeLogEntry entry;
+                String key = DimensionsAPI.createKeyForChangeMap(author, opDate);
+                DimensionsChangeLogEntry entry = entries.get(key);
 
-            if (entries.containsKey(key)) {
-                entry = entries.get(key);
-                entry.add(fileName, operation, urlString);
-            } else {
-                entry = new DimensionsChangeLogEntry(fileName, author, operation, revision, comment, urlString, opDate);
-                entries.put(key, entry);
-            }
+                if (entry == null) {
+                    entry = new DimensionsChangeLogEntry(fileName, author, revision, comment, opDate.getTime());
+                    entries.put(key, entry);
+                }
+                entry.addFile(fileName, operation, spec);
 
-            // at this point we have a valid DimensionsChangeLogEntry (entry) that has already been added
-            // to the list (entries).  So now we will add all requests to the DimensionsChangeLogEntry.
-            List<DimensionsRelatedObject> itemRequests = item.getChildRequests(null);
+                // at this point we have a valid DimensionsChangeLogEntry (entry) that has already been added
+                // to the list (entries).  So now we will add all requests to the DimensionsChangeLogEntry.
+                List<DimensionsRelatedObject> itemRequests = item.getChildRequests(null);
 
-            for (DimensionsRelatedObject obj : itemRequests) {
-                DimensionsObject relType = obj.getRelationship();
-                if (SystemRelationship.IN_RESPONSE.equals(relType)) {
-                    Request req = (Request) obj.getObject();
+                for (DimensionsRelatedObject obj : itemRequests) {
+                    DimensionsObject relType = obj.getRelationship();
+                    if (SystemRelationship.IN_RESPONSE.equals(relType)) {
+                        Request req = (Request) obj.getObject();
 
-                    // Which attributes do I want.
-                    req.queryAttribute(new int[]{
-                            SystemAttributes.OBJECT_SPEC,
-                            SystemAttributes.TITLE
-                            /* JENKINS-48645: SystemAttributes.DESCRIPTION */
-                    });
+                        // Which attributes do I want.
+                        req.queryAttribute(new int[]{
+                                SystemAttributes.OBJECT_SPEC,
+                                SystemAttributes.TITLE
+                                /* JENKINS-48645: SystemAttributes.DESCRIPTION */
+                        });
 
-                    String requestId = (String) req.getAttribute(SystemAttributes.OBJECT_SPEC);
-                    String requestUrl = constructRequestURL(requestId, url, getSCMDbConn(), getSCMBaseDb());
-                    String requestTitle = (String) req.getAttribute(SystemAttributes.TITLE);
+                        String requestId = (String) req.getAttribute(SystemAttributes.OBJECT_SPEC);
+                        String requestTitle = (String) req.getAttribute(SystemAttributes.TITLE);
 
-                    entry.addRequest(requestId, requestUrl, requestTitle);
-                    Logger.debug("Child Request Details IRT -" + requestId + " " + requestUrl + " " + requestTitle);
-                } else {
-                    Logger.debug("Child Request Details Ignored");
+                        entry.addRequest(requestId, null, requestTitle);
+                        Logger.debug("Child Request Details IRT -" + requestId + " " + requestTitle);
+                    } else {
+                        Logger.debug("Child Request Details Ignored");
+                    }
                 }
             }
+            return entries;
+        } finally {
+            span.end();
         }
-        return entries;
     }
 
     static String createKeyForChangeMap(String author, Date date) {
@@ -1388,10 +1775,10 @@ private static String encodeUrl(String host, String page, String query) throws U
     }
 
     /**
-     * Find items given a directory spec.
+     * Find items given a directory spec. The attributes of the items are fetched a page at a time as they are iterated.
      */
-    static List<ItemRevision> queryItems(DimensionsConnection connection, Project srcProject, String srcPath, Filter filter,
-                                         int[] attrs, boolean isRecursive, boolean isLatest) {
+    static ItemRevisionPages queryItems(DimensionsConnection connection, Project srcProject, String srcPath, Filter filter,
+                                        int[] attrs, boolean isRecursive, boolean isLatest) {
         // Check srcPath validity check srcPath trailing slash do query.
         if (srcPath == null) {
             throw new IllegalArgumentException(MISSING_SOURCE_PATH);
@@ -1401,6 +1788,38 @@ static List<ItemRevision> queryItems(DimensionsConnection connection, Project sr
         }
 
         String path = preProcessSrcPath(srcPath);
+        addItemCriteria(filter, path, isRecursive, isLatest);
+
+        return queryItemPages(srcProject, filter, connection, attrs, ItemRevisionPages.DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Find the items of a project matching a filter, without fetching their attributes until they are iterated.
+     */
+    static ItemRevisionPages queryItemPages(Project project, Filter filter, DimensionsConnection connection, int[] attrs,
+                                            int pageSize) {
+        // Catch any exceptions that may be thrown by the Java API and for now return no changes.
+        try {
+            DimensionsMetrics.Timer.Context query = DimensionsMetrics.timer("query.items").time();
+            List<DimensionsRelatedObject> rels = project.getChildItems(filter);
+            long elapsed = query.stop();
+            DimensionsMetrics.histogram("query.items.rows").update(rels.size());
+            if (Logger.isDebugEnabled()) {
+                Logger.debug("queryItems() - Project(" + project.getName() + ").getChildItems("
+                        + Values.toString(filter) + ") found " + rels.size() + " rel(s) in " + elapsed + " ms");
+            }
+            return rels.isEmpty() ? ItemRevisionPages.empty() : new ItemRevisionPages(connection, rels, attrs, pageSize);
+        } catch (Exception e) {
+            Logger.debug("Caught exception", e);
+            return ItemRevisionPages.empty();
+        }
+    }
+
+    /**
+     * Restricts a filter to the item revisions in a directory (and optionally its subdirectories), and optionally to
+     * the latest revisions.
+     */
+    private static void addItemCriteria(Filter filter, String path, boolean isRecursive, boolean isLatest) {
         List<Filter.Criterion> criteria = filter.criteria();
         if (!(isRecursive && path.equals(""))) {
             criteria.add(new Filter.Criterion(SystemAttributes.ITEMFILE_DIR,
@@ -1411,8 +1830,6 @@ static List<ItemRevision> queryItems(DimensionsConnection connection, Project sr
             criteria.add(new Filter.Criterion(SystemAttributes.IS_LATEST_REV,
                     Boolean.TRUE, 0));
         }
-
-        return getItemRevisionByFilter(srcProject, filter, connection, attrs);
     }
 
     static List<ItemRevision> getItemRevisionByFilter(Project project, Filter filter, DimensionsConnection connection, int[] attrs) {
@@ -1420,12 +1837,13 @@ static List<ItemRevision> getItemRevisionByFilter(Project project, Filter filter
         // Catch any exceptions that may be thrown by the Java API and for now return no changes.
         // Going forward it would be good to trap all the possible exception types and do something about them.
         try {
-            long time0 = System.currentTimeMillis();
+            DimensionsMetrics.Timer.Context query = DimensionsMetrics.timer("query.items").time();
             List<DimensionsRelatedObject> rels = project.getChildItems(filter);
-            long time1 = System.currentTimeMillis();
+            long elapsed = query.stop();
+            DimensionsMetrics.histogram("query.items.rows").update(rels.size());
             if (Logger.isDebugEnabled()) {
                 Logger.debug("queryItems() - Project(" + project.getName() + ").getChildItems("
-                        + Values.toString(filter) + ") found " + rels.size() + " rel(s) in " + (time1 - time0) + " ms");
+                        + Values.toString(filter) + ") found " + rels.size() + " rel(s) in " + elapsed + " ms");
             }
             if (rels.size() == 0) {
                 return Collections.emptyList();
@@ -1445,10 +1863,11 @@ static List<ItemRevision> getItemRevisionByFilter(Project project, Filter filter
     }
 
     /**
-     * Find items given a baseline/directory spec.
+     * Find items given a baseline/directory spec. The attributes of the items are fetched a page at a time as they are
+     * iterated.
      */
-    static List<ItemRevision> queryItems(DimensionsConnection connection, Baseline srcBaseline, String srcPath, Filter filter,
-                                         int[] attrs, boolean isRecursive, boolean isLatest) {
+    static ItemRevisionPages queryItems(DimensionsConnection connection, Baseline srcBaseline, String srcPath, Filter filter,
+                                        int[] attrs, boolean isRecursive, boolean isLatest) {
         // Check srcPath validity check srcPath trailing slash do query.
         if (srcPath == null) {
             throw new IllegalArgumentException(MISSING_SOURCE_PATH);
@@ -1458,33 +1877,21 @@ static List<ItemRevision> queryItems(DimensionsConnection connection, Baseline s
         }
 
         String path = preProcessSrcPath(srcPath);
-        List<Filter.Criterion> criteria = filter.criteria();
-        if (!(isRecursive && path.equals(""))) {
-            criteria.add(new Filter.Criterion(SystemAttributes.ITEMFILE_DIR,
-                    (isRecursive ? path + '%' : path), 0));
-        }
-
-        if (isLatest) {
-            criteria.add(new Filter.Criterion(SystemAttributes.IS_LATEST_REV,
-                    Boolean.TRUE, 0));
-        }
+        addItemCriteria(filter, path, isRecursive, isLatest);
 
         // Catch any exceptions that may be thrown by the Java API and for now return no changes.
         // Going forward it would be good to trap all the possible exception types and do something about them.
         try {
             Logger.debug("Looking for changed files in '" + path + "' in project: " + srcBaseline.getName());
+            DimensionsMetrics.Timer.Context query = DimensionsMetrics.timer("query.baselineItems").time();
             List<DimensionsRelatedObject> rels = srcBaseline.getChildItems(filter);
+            query.stop();
+            DimensionsMetrics.histogram("query.baselineItems.rows").update(rels.size());
             Logger.debug("Found " + rels.size());
             if (rels.size() == 0) {
                 return null;
             }
-            List<ItemRevision> items = new ArrayList<ItemRevision>(rels.size());
-            for (DimensionsRelatedObject rel : rels) {
-                items.add((ItemRevision) rel.getObject());
-            }
-            BulkOperator bo = connection.getObjectFactory().getBulkOperator(items);
-            bo.queryAttribute(attrs);
-            return items;
+            return new ItemRevisionPages(connection, rels, attrs, ItemRevisionPages.DEFAULT_PAGE_SIZE);
         } catch (Exception e) {
             String message = Values.exceptionMessage("Exception from the Java API querying items", e, "no message");
             Logger.debug(message, e);
@@ -1523,8 +1930,11 @@ static boolean queryItems(DimensionsConnection connection, Request request, Stri
         // Going forward it would be good to trap all the possible exception types and do something about them.
         try {
             Logger.debug("Looking for changed files in '" + path + "' in request: " + request.getName());
+            DimensionsMetrics.Timer.Context query = DimensionsMetrics.timer("query.requestItems").time();
             request.queryChildItems(filter, srcProject);
             List<DimensionsRelatedObject> rels = request.getChildItems(filter);
+            query.stop();
+            DimensionsMetrics.histogram("query.requestItems.rows").update(rels.size());
             Logger.debug("Found " + rels.size());
             if (rels.size() == 0) {
                 return true;
@@ -1549,37 +1959,91 @@ static boolean queryItems(DimensionsConnection connection, Request request, Stri
     }
 
     /**
-     * Flatten the list of related requests.
+     * Fetches the requests that the requests of one level of a request graph depend on.
      */
-    private void addDmChildRequests(Request request, List<? super Request> requestList) {
-        try {
-            request.flushRelatedObjects(Request.class, true);
-            request.queryChildRequests(null);
-            List<DimensionsRelatedObject> rels = request.getChildRequests(null);
-            Logger.debug("Found " + rels.size());
-            if (rels.size() == 0) {
-                return;
-            }
-            for (int i = 0; i < rels.size(); i++) {
-                Logger.debug("Processing " + i + "/" + rels.size());
-                DimensionsRelatedObject child = rels.get(i);
-                if (child != null && child.getObject() instanceof Request) {
-                    Logger.debug("Found a request");
-                    DimensionsObject relType = child.getRelationship();
-                    if (SystemRelationship.DEPENDENT.equals(relType)) {
-                        Logger.debug("Found a dependent request");
-                        requestList.add((Request) child.getObject());
-                        addDmChildRequests((Request) child.getObject(), requestList);
+    private static final RequestGraph.Relations<Request> DEPENDENT_REQUESTS = new RequestGraph.Relations<Request>() {
+        @Override
+        public long uid(Request request) {
+            return request.getUid();
+        }
+
+        @Override
+        public List<Request> dependents(List<Request> level) {
+            List<Request> children = new ArrayList<Request>();
+            try {
+                for (Request request : level) {
+                    request.flushRelatedObjects(Request.class, true);
+                    request.queryChildRequests(null);
+                    List<DimensionsRelatedObject> rels = request.getChildRequests(null);
+                    Logger.debug("Found " + rels.size() + " related objects of request \"" + request.getName() + "\"");
+                    for (DimensionsRelatedObject child : rels) {
+                        if (child != null && child.getObject() instanceof Request) {
+                            DimensionsObject relType = child.getRelationship();
+                            if (SystemRelationship.DEPENDENT.equals(relType)) {
+                                Logger.debug("Found a dependent request");
+                                children.add((Request) child.getObject());
+                            }
+                        } else {
+                            Logger.debug("Related object was null or not a request " + (child != null));
+                        }
                     }
-                } else {
-                    Logger.debug("Related object was null or not a request " + (child != null));
                 }
+            } catch (Exception e) {
+                String message = Values.exceptionMessage("Exception from the Java API querying child requests", e, "no message");
+                Logger.debug(message);
+                throw (DimensionsRuntimeException) new DimensionsRuntimeException(message).initCause(e);
             }
-        } catch (Exception e) {
-            String message = Values.exceptionMessage("Exception from the Java API querying child requests", e, "no message");
-            Logger.debug(message);
-            throw (DimensionsRuntimeException) new DimensionsRuntimeException(message).initCause(e);
+            return children;
+        }
+    };
+
+    /**
+     * Gets the given requests and all the requests they depend on, each once. The result is cached in the session of
+     * the connection, so the graph is only resolved once per build.
+     */
+    private List<Request> resolveRequestGraph(DimensionsConnection connection, String[] requestIds) {
+        StringBuilder cacheKey = new StringBuilder();
+        for (String id : requestIds) {
+            cacheKey.append(id.trim().toUpperCase(Values.ROOT_LOCALE)).append(',');
+        }
+        DimensionsSession session = sessionOf(connection);
+        List<Request> graph = session != null ? session.getRequestGraph(cacheKey.toString()) : null;
+        if (graph != null) {
+            Logger.debug("Using cached request graph for " + cacheKey);
+            return graph;
+        }
+        List<Request> roots = new ArrayList<Request>(requestIds.length);
+        for (String xStr : requestIds) {
+            xStr = xStr.trim();
+            Logger.debug("Request to process is \"" + xStr + "\"");
+            Request requestObj = connection.getObjectFactory().findRequest(xStr.toUpperCase(Values.ROOT_LOCALE));
+            if (requestObj != null) {
+                Logger.debug("Request to process is \"" + requestObj.getName() + "\"");
+                roots.add(requestObj);
+            }
+        }
+        DimensionsTracer.Scope span = DimensionsTracer.start("resolve request graph");
+        try {
+            graph = Collections.unmodifiableList(RequestGraph.resolve(roots, DEPENDENT_REQUESTS));
+        } catch (RuntimeException e) {
+            span.fail();
+            throw e;
+        } finally {
+            span.end();
         }
+        if (session != null) {
+            session.putRequestGraph(cacheKey.toString(), graph);
+        }
+        return graph;
+    }
+
+    private DimensionsSession sessionOf(DimensionsConnection connection) {
+        for (DimensionsSession session : sessions.values()) {
+            if (session.getConnection() == connection) {
+                return session;
+            }
+        }
+        return null;
     }
 
     /**
@@ -1595,13 +2059,36 @@ static DimensionsResult run(DimensionsConnection connection, String cmd) {
             throw new IllegalArgumentException(NO_COMMAND_LINE);
         }
         Logger.debug("Running the command '" + cmd + "'...");
+        final String verb = DimensionsMetrics.commandVerb(cmd);
+        DimensionsTracer.Scope span = DimensionsTracer.start("command " + verb);
+        DimensionsMetrics.Timer.Context command = DimensionsMetrics.timer("command." + verb).time();
         try {
             DimensionsObjectFactory dof = connection.getObjectFactory();
             return dof.runCommand(cmd);
         } catch (Exception e) {
+            DimensionsMetrics.counter("command." + verb + ".failures").inc();
+            span.fail();
             String message = Values.exceptionMessage("Dimensions command '" + cmd + "' failed", e, "no message");
             Logger.debug(message);
             throw (DimensionsRuntimeException) new DimensionsRuntimeException(message).initCause(e);
+        } finally {
+            command.stop();
+            span.end();
+        }
+    }
+
+    /**
+     * Runs a workspace update or delivery command, within the limit of heavy commands on the session's server.
+     */
+    private DimensionsResult runHeavy(long key, DimensionsConnection connection, String cmd) {
+        DimensionsSession session = getSession(key);
+        DimensionsBulkhead.Permit permit = session != null ? session.getBulkhead().acquire(DimensionsBulkhead.HEAVY) : null;
+        try {
+            return run(connection, cmd);
+        } finally {
+            if (permit != null) {
+                permit.release();
+            }
         }
     }
 
@@ -1686,7 +2173,6 @@ private boolean isStream(DimensionsConnection connection, final String projectNa
     public List<ItemRevision> getItemsInRequests(DimensionsConnection connection, final String projectName, final String requests,
                                                  final String dateAfter, final String dateBefore) {
         List<ItemRevision> items = null;
-        int[] attrs = getItemFileAttributes(true);
 
         if (requests != null && connection != null) {
             String[] reqStr;
@@ -1698,62 +2184,172 @@ public List<ItemRevision> getItemsInRequests(DimensionsConnection connection, fi
                 reqStr[0] = requests;
             }
 
-            // Set up filter for requests Name.
-            List<Request> requestList = new ArrayList<Request>(1);
-            items = new ArrayList<ItemRevision>(1);
+            // Streams are filtered on creation date rather than last updated date; look the project type up once.
+            final boolean stream = (dateAfter != null || dateBefore != null) && isStream(connection, projectName);
 
-            Filter filter = new Filter();
-            List<Filter.Criterion> criteria = filter.criteria();
-            List<Filter.Order> orders = filter.orders();
+            // Get all the requests and their children, then their items.
+            List<Request> requestList = resolveRequestGraph(connection, reqStr);
+            Logger.debug("Requests have " + requestList.size() + " elements to process");
+            items = queryItemsInRequests(connection, projectName, requestList, dateAfter, dateBefore, stream);
+            Logger.debug("Requests have " + items.size() + " items to process");
+        }
+        return items;
+    }
 
-            criteria.add(new Filter.Criterion(SystemAttributes.IS_EXTRACTED, "Y", Filter.Criterion.NOT)); //$NON-NLS-1$
-            orders.add(new Filter.Order(SystemAttributes.REVISION_COMMENT, Filter.ORDER_ASCENDING));
-            orders.add(new Filter.Order(SystemAttributes.ITEMFILE_DIR, Filter.ORDER_ASCENDING));
-            orders.add(new Filter.Order(SystemAttributes.ITEMFILE_FILENAME, Filter.ORDER_ASCENDING));
+    /**
+     * Builds the filter for the item revisions of requests.
+     */
+    private static Filter requestItemsFilter(final String dateAfter, final String dateBefore, final boolean stream) {
+        Filter filter = new Filter();
+        List<Filter.Criterion> criteria = filter.criteria();
+        List<Filter.Order> orders = filter.orders();
 
-            if (dateAfter != null) {
-                if (!isStream(connection, projectName)) {
-                    criteria.add(new Filter.Criterion(SystemAttributes.LAST_UPDATED_DATE, dateAfter, Filter.Criterion.GREATER_EQUAL));
-                } else {
-                    criteria.add(new Filter.Criterion(SystemAttributes.CREATION_DATE, dateAfter, Filter.Criterion.GREATER_EQUAL));
+        criteria.add(new Filter.Criterion(SystemAttributes.IS_EXTRACTED, "Y", Filter.Criterion.NOT)); //$NON-NLS-1$
+        orders.add(new Filter.Order(SystemAttributes.REVISION_COMMENT, Filter.ORDER_ASCENDING));
+        orders.add(new Filter.Order(SystemAttributes.ITEMFILE_DIR, Filter.ORDER_ASCENDING));
+        orders.add(new Filter.Order(SystemAttributes.ITEMFILE_FILENAME, Filter.ORDER_ASCENDING));
+
+        int dateAttr = stream ? SystemAttributes.CREATION_DATE : SystemAttributes.LAST_UPDATED_DATE;
+        if (dateAfter != null) {
+            criteria.add(new Filter.Criterion(dateAttr, dateAfter, Filter.Criterion.GREATER_EQUAL));
+        }
+        if (dateBefore != null) {
+            criteria.add(new Filter.Criterion(dateAttr, dateBefore, Filter.Criterion.LESS_EQUAL));
+        }
+        return filter;
+    }
+
+    /**
+     * Queries the item revisions of each request once, and fetches their attributes.
+     * <p>
+     * With several requests, the requests are shared out between the given connection and up to
+     * {@link #MAX_POOLED_QUERY_SESSIONS} pooled sessions of the same login, and the shares are queried concurrently
+     * (a Dimensions connection must not be shared between threads). Pooled sessions are only opened while the server
+     * has sessions to spare; otherwise the requests are queried one after the other.
+     *
+     * @return the item revisions, each once, in request order
+     */
+    private List<ItemRevision> queryItemsInRequests(final DimensionsConnection connection, final String projectName,
+            final List<Request> requestList, final String dateAfter, final String dateBefore, final boolean stream) {
+        if (requestList.isEmpty()) {
+            return new ArrayList<ItemRevision>(0);
+        }
+        final List<Long> pooled = new ArrayList<Long>();
+        DimensionsSession session = requestList.size() > 1 ? sessionOf(connection) : null;
+        if (session != null) {
+            int wanted = Math.min(MAX_POOLED_QUERY_SESSIONS, requestList.size() - 1);
+            for (Long pooledKey : session.getPooledKeys()) {
+                if (pooled.size() < wanted && sessions.containsKey(pooledKey)) {
+                    pooled.add(pooledKey);
                 }
             }
-
-            if (dateBefore != null) {
-                if (!isStream(connection, projectName)) {
-                    criteria.add(new Filter.Criterion(SystemAttributes.LAST_UPDATED_DATE, dateBefore, Filter.Criterion.LESS_EQUAL));
-                } else {
-                    criteria.add(new Filter.Criterion(SystemAttributes.CREATION_DATE, dateBefore, Filter.Criterion.LESS_EQUAL));
+            while (pooled.size() < wanted) {
+                long pooledKey = openPooledSession(session);
+                if (pooledKey < 0L) {
+                    break;
                 }
+                pooled.add(pooledKey);
             }
+        }
 
-            for (String xStr : reqStr) {
-                xStr = xStr.trim();
-                Logger.debug("Request to process is \"" + xStr + "\"");
-                Request requestObj = connection.getObjectFactory().findRequest(xStr.toUpperCase(Values.ROOT_LOCALE));
-
-                if (requestObj != null) {
-                    Logger.debug("Request to process is \"" + requestObj.getName() + "\"");
-                    requestList.add(requestObj);
-                    // Get all the children for this request
-                    addDmChildRequests(requestObj, requestList);
-                    Logger.debug("Request has " + requestList.size() + " elements to process");
-                    Project projectObj = connection.getObjectFactory().getProject(projectName);
-                    for (int i = 0; i < requestList.size(); i++) {
-                        Request req = requestList.get(i);
-                        Logger.debug("Request " + i + " is \"" + req.getName() + "\"");
-                        if (!queryItems(connection, req, "/", items, filter, projectObj, true, allRevisions)) {
-                            throw new DimensionsRuntimeException("Could not process items for request \""
-                                    + req.getName() + "\"");
+        @SuppressWarnings("unchecked")
+        final List<ItemRevision>[] found = new List[requestList.size()];
+        final int shares = pooled.size() + 1;
+        if (shares > 1) {
+            Logger.debug("Querying the items of " + requestList.size() + " requests in " + shares + " sessions");
+            final DimensionsTracer.Scope parent = DimensionsTracer.current();
+            ExecutorService executor = Executors.newFixedThreadPool(pooled.size(),
+                    new NamingThreadFactory(new DaemonThreadFactory(), "Dimensions request items"));
+            try {
+                List<Future<?>> futures = new ArrayList<Future<?>>(pooled.size());
+                for (int share = 1; share < shares; share++) {
+                    final int thisShare = share;
+                    final long pooledKey = pooled.get(share - 1);
+                    futures.add(executor.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            DimensionsTracer.Scope span = DimensionsTracer.start(parent.getSink(), parent.getId(),
+                                    "request items on pooled session");
+                            try {
+                                queryItemsInRequests(getCon(pooledKey), projectName, requestList, thisShare, shares,
+                                        true, requestItemsFilter(dateAfter, dateBefore, stream), found);
+                            } catch (RuntimeException e) {
+                                span.fail();
+                                throw e;
+                            } finally {
+                                span.end();
+                            }
                         }
+                    }));
+                }
+                queryItemsInRequests(connection, projectName, requestList, 0, shares, false,
+                        requestItemsFilter(dateAfter, dateBefore, stream), found);
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof DimensionsRuntimeException) {
+                    throw (DimensionsRuntimeException) e.getCause();
+                }
+                throw (DimensionsRuntimeException) new DimensionsRuntimeException(Values.exceptionMessage(
+                        "Exception querying the items of requests", e, "no message")).initCause(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw (DimensionsRuntimeException) new DimensionsRuntimeException(
+                        "Interrupted while querying the items of requests").initCause(e);
+            } finally {
+                executor.shutdownNow();
+            }
+        } else {
+            queryItemsInRequests(connection, projectName, requestList, 0, 1, false,
+                    requestItemsFilter(dateAfter, dateBefore, stream), found);
+        }
+
+        // The same item revision can be in more than one request.
+        Map<Long, ItemRevision> unique = new LinkedHashMap<Long, ItemRevision>();
+        for (List<ItemRevision> requestItems : found) {
+            if (requestItems != null) {
+                for (ItemRevision item : requestItems) {
+                    if (!unique.containsKey(item.getUid())) {
+                        unique.put(item.getUid(), item);
                     }
+                }
+            }
+        }
+        return new ArrayList<ItemRevision>(unique.values());
+    }
 
-                    Logger.debug("Request has " + items.size() + " items to process");
-                    BulkOperator bo = connection.getObjectFactory().getBulkOperator(items);
-                    bo.queryAttribute(attrs);
+    /**
+     * Queries the item revisions of one share of the requests (every {@code shares}th request, starting at
+     * {@code share}) on one connection, then fetches their attributes in bulk.
+     *
+     * @param lookup whether the requests belong to another connection and must be looked up on this one
+     */
+    private void queryItemsInRequests(DimensionsConnection connection, String projectName, List<Request> requestList,
+            int share, int shares, boolean lookup, Filter filter, List<ItemRevision>[] found) {
+        Project projectObj = connection.getObjectFactory().getProject(projectName);
+        List<ItemRevision> shareItems = new ArrayList<ItemRevision>();
+        for (int i = share; i < requestList.size(); i += shares) {
+            Request req = requestList.get(i);
+            if (lookup) {
+                req = connection.getObjectFactory().findRequest(req.getName());
+                if (req == null) {
+                    throw new DimensionsRuntimeException("Could not find request \"" + requestList.get(i).getName()
+                            + "\"");
                 }
             }
+            Logger.debug("Request " + i + " is \"" + req.getName() + "\"");
+            List<ItemRevision> requestItems = new ArrayList<ItemRevision>();
+            if (!queryItems(connection, req, "/", requestItems, filter, projectObj, true, ALL_REVISIONS)) {
+                throw new DimensionsRuntimeException("Could not process items for request \""
+                        + req.getName() + "\"");
+            }
+            found[i] = requestItems;
+            shareItems.addAll(requestItems);
+        }
+        if (!shareItems.isEmpty()) {
+            BulkOperator bo = connection.getObjectFactory().getBulkOperator(shareItems);
+            bo.queryAttribute(getItemFileAttributes(true));
         }
-        return items;
     }
 }
@@ -1,9 +1,9 @@
 package hudson.plugins.dimensionsscm;
 
-import com.serena.dmclient.api.DimensionsConnection;
 import hudson.FilePath;
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.util.Calendar;
 import java.util.TimeZone;
 
@@ -11,10 +11,11 @@ interface DimensionsAPICallback {
 
     boolean isCallback14();
 
-    boolean hasRepositoryBeenUpdated(DimensionsAPI dimensionsAPI, DimensionsConnection connection,
-                                     String projectName, Calendar fromDate, Calendar toDate, TimeZone tz, FilePath workspace) throws IOException;
+    boolean hasRepositoryBeenUpdated(DimensionsAPI dimensionsAPI, DimensionsSession session,
+                                     String projectName, Calendar fromDate, Calendar toDate, TimeZone tz, FilePath workspace,
+                                     PathMatcher pathMatcher) throws IOException;
 
-    void saveChangesToXmlFile(DimensionsAPI dimensionsAPI, DimensionsConnection connection, final String projectName, final FilePath projectDir,
+    void saveChangesToXmlFile(DimensionsAPI dimensionsAPI, DimensionsSession session, PrintStream logger, final String projectName, final FilePath projectDir,
                               final Calendar fromDate, final Calendar toDate, final TimeZone tz,
                               final String baseline, final String requests, final File changelogFile, final String url) throws IOException;
 }
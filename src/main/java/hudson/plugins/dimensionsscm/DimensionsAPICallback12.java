@@ -2,13 +2,12 @@
 
 import com.serena.dmclient.api.DimensionsConnection;
 import com.serena.dmclient.api.ItemRevision;
-import com.serena.dmclient.api.SystemAttributes;
 import hudson.FilePath;
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
 
@@ -20,25 +19,15 @@ public boolean isCallback14() {
     }
 
     @Override
-    public boolean hasRepositoryBeenUpdated(DimensionsAPI dimensionsAPI, DimensionsConnection connection, String projectName,
-                                            Calendar fromDate, Calendar toDate, TimeZone tz, FilePath workspace) throws IOException {
+    public boolean hasRepositoryBeenUpdated(DimensionsAPI dimensionsAPI, DimensionsSession session, String projectName,
+                                            Calendar fromDate, Calendar toDate, TimeZone tz, FilePath workspace,
+                                            PathMatcher pathMatcher) throws IOException {
+        final DimensionsConnection connection = session.getConnection();
 
         try {
-            List<ItemRevision> itemRevisions = dimensionsAPI.calcRepoDiffsWithRevisions(connection, projectName, null, null, workspace, fromDate, toDate, tz);
-            if (itemRevisions != null) {
-                PathMatcher pathMatcher = dimensionsAPI.getPathMatcher();
-                for (ItemRevision itemRevision : itemRevisions) {
-                    String fullPathName = (String) itemRevision.getAttribute(SystemAttributes.FULL_PATH_NAME);
-                    // Match when fullPathName is not ignored, false otherwise.
-                    if (pathMatcher.match(fullPathName)) {
-                        Logger.debug("Found " + itemRevisions.size() + " changed item(s), "
-                                + "and at least one ('" + fullPathName + "') passed the " + pathMatcher);
-                        return true;
-                    }
-                }
+            if (dimensionsAPI.findChangedItem(connection, projectName, workspace, fromDate, toDate, tz, pathMatcher) != null) {
+                return true;
             }
-            Logger.debug("Found " + (itemRevisions == null ? "nil" : itemRevisions.size()) + " changed item(s), "
-                    + ((itemRevisions == null || itemRevisions.isEmpty()) ? "so" : "but") + " none passed the " + dimensionsAPI.getPathMatcher());
         } catch (Exception e) {
             String message = Values.exceptionMessage("Unable to run hasRepositoryBeenUpdated", e, "no message");
             Logger.debug(message, e);
@@ -49,31 +38,34 @@ public boolean hasRepositoryBeenUpdated(DimensionsAPI dimensionsAPI, DimensionsC
     }
 
     @Override
-    public void saveChangesToXmlFile(DimensionsAPI dimensionsAPI, DimensionsConnection connection, final String projectName, final FilePath projectDir,
+    public void saveChangesToXmlFile(DimensionsAPI dimensionsAPI, DimensionsSession session, PrintStream logger, final String projectName, final FilePath projectDir,
                                      final Calendar fromDate, final Calendar toDate, final TimeZone tz,
                                      final String baseline, final String requests, final File changelogFile, final String url) throws IOException {
+        final DimensionsConnection connection = session.getConnection();
 
         try {
-            List<ItemRevision> items = dimensionsAPI.calcRepoDiffsWithRevisions(connection, projectName, baseline, requests, projectDir, fromDate, toDate, tz);
+            Iterable<ItemRevision> items = dimensionsAPI.calcRepoDiffsWithRevisions(connection, projectName, baseline, requests, projectDir, fromDate, toDate, tz);
 
             Logger.debug("CM Url : " + (url != null ? url : "(null)"));
             if (requests != null) {
-                dimensionsAPI.getLogger().println("[DIMENSIONS] Calculating changes for request(s) '" + requests + "'...");
+                logger.println("[DIMENSIONS] Calculating changes for request(s) '" + requests + "'...");
             } else {
-                dimensionsAPI.getLogger().println("[DIMENSIONS] Calculating changes for directory '"
+                logger.println("[DIMENSIONS] Calculating changes for directory '"
                         + (projectDir != null ? projectDir.getRemote() : "/") + "'...");
             }
-            dimensionsAPI.getLogger().flush();
+            logger.flush();
 
             if (items != null) {
                 // Write the list of changes into a changelog file.
-                Map<String, DimensionsChangeLogEntry> changeMap = dimensionsAPI.createChangeList(items, tz, url);
+                Map<String, DimensionsChangeLogEntry> changeMap = dimensionsAPI.createChangeList(items, tz);
                 Logger.debug("Writing " + changeMap.size() + " changes to changelog file '" + changelogFile.getPath() + "'");
-                DimensionsChangeLogWriter.writeLog(new ArrayList<DimensionsChangeLogEntry>(changeMap.values()), changelogFile);
+                DimensionsChangeLogWriter.writeLog(new ArrayList<DimensionsChangeLogEntry>(changeMap.values()), changelogFile,
+                        new ChangeLogLinks(url, session.getDbConn(), session.getDbName()));
             } else {
                 // No changes, so create an empty changelog file.
                 Logger.debug("Writing null changes to changelog file '" + changelogFile.getPath() + "'");
-                DimensionsChangeLogWriter.writeLog(null, changelogFile);
+                DimensionsChangeLogWriter.writeLog(null, changelogFile,
+                        new ChangeLogLinks(url, session.getDbConn(), session.getDbName()));
             }
         } catch (Exception e) {
             throw new IOException(Values.exceptionMessage("Exception calculating changes", e,
@@ -12,6 +12,7 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
@@ -30,27 +31,19 @@ public boolean isCallback14() {
     }
 
     @Override
-    public boolean hasRepositoryBeenUpdated(DimensionsAPI dimensionsAPI, DimensionsConnection connection, String projectName,
-                                            Calendar fromDate, Calendar toDate, TimeZone tz, FilePath workspace) throws IOException {
+    public boolean hasRepositoryBeenUpdated(DimensionsAPI dimensionsAPI, DimensionsSession session, String projectName,
+                                            Calendar fromDate, Calendar toDate, TimeZone tz, FilePath workspace,
+                                            PathMatcher pathMatcher) throws IOException {
+        final DimensionsConnection connection = session.getConnection();
 
         try {
-            List<DimensionsChangeStep> changeSteps = dimensionsAPI.calcRepoDiffsWithChangesets(connection, projectName, fromDate, toDate, tz);
-            if (changeSteps != null) {
-                PathMatcher pathMatcher = dimensionsAPI.getPathMatcher();
-                for (DimensionsChangeStep changeStep : changeSteps) {
-                    String projectPath = PathUtils.normalizeSlashes(changeStep.getProjectPath());
-                    String monitoredPath = PathUtils.normalizeSlashes(workspace.getRemote());
-                    String fullPathName = changeStep.getProjectPath();
-                    // Match when fullPathName is not ignored, false otherwise.
-                    if (pathMatcher.match(fullPathName) && projectPath.contains(monitoredPath)) {
-                        Logger.debug("Found " + changeSteps.size() + " changed item(s), "
-                                + "and at least one ('" + fullPathName + "') passed the " + pathMatcher);
-                        return true;
-                    }
-                }
+            DimensionsChangeStep changeStep = dimensionsAPI.findChangeStep(connection, projectName, fromDate, toDate, tz,
+                    workspace.getRemote(), pathMatcher);
+            if (changeStep != null) {
+                Logger.debug("Found at least one changed item ('" + changeStep.getProjectPath() + "') that passed the "
+                        + pathMatcher);
+                return true;
             }
-            Logger.debug("Found " + (changeSteps == null ? "nil" : changeSteps.size()) + " changed item(s), "
-                    + ((changeSteps == null || changeSteps.isEmpty()) ? "so" : "but") + " none passed the " + dimensionsAPI.getPathMatcher());
         } catch (Exception e) {
             String message = Values.exceptionMessage("Unable to run hasRepositoryBeenUpdated", e, "no message");
             Logger.debug(message, e);
@@ -63,15 +56,17 @@ public boolean hasRepositoryBeenUpdated(DimensionsAPI dimensionsAPI, DimensionsC
 
     @SuppressWarnings("unchecked")
     @Override
-    public void saveChangesToXmlFile(DimensionsAPI dimensionsAPI, DimensionsConnection connection, String projectName,
+    public void saveChangesToXmlFile(DimensionsAPI dimensionsAPI, DimensionsSession session, PrintStream logger, String projectName,
                                      FilePath projectDir, Calendar fromDate, Calendar toDate, TimeZone tz,
                                      String baseline, String requests, final File changelogFile, final String url) throws IOException {
+        final DimensionsConnection connection = session.getConnection();
 
         try {
             // $GENERIC:$GLOBAL needed for case when we got: added/updated change step and deleted change step for the same file
             Project project = connection.getObjectFactory().getProject("$GENERIC:$GLOBAL");
 
-            List<DimensionsChangeStep> changeSteps = dimensionsAPI.calcRepoDiffsWithChangesets(connection, projectName, fromDate, toDate, tz);
+            List<DimensionsChangeStep> changeSteps = dimensionsAPI.calcRepoDiffsWithChangesets(connection, projectName, fromDate, toDate, tz,
+                    projectDir != null ? projectDir.getRemote() : null, null);
             Set<Long> stepUIDs = new HashSet<Long>();
 
             for (DimensionsChangeStep changeStep : changeSteps) {
@@ -99,28 +94,35 @@ public void saveChangesToXmlFile(DimensionsAPI dimensionsAPI, DimensionsConnecti
             Logger.debug("CM Url : " + (url != null ? url : "(null)"));
 
             if (requests != null) {
-                dimensionsAPI.getLogger().println("[DIMENSIONS] Calculating changes for request(s) '" + requests + "'...");
+                logger.println("[DIMENSIONS] Calculating changes for request(s) '" + requests + "'...");
             } else {
-                dimensionsAPI.getLogger().println("[DIMENSIONS] Calculating changes for directory '"
+                logger.println("[DIMENSIONS] Calculating changes for directory '"
                         + (projectDir != null ? projectDir.getRemote() : "/") + "'...");
             }
-            dimensionsAPI.getLogger().flush();
+            logger.flush();
 
             Map<String, DimensionsChangeLogEntry> changeLogEntryMap = new HashMap<String, DimensionsChangeLogEntry>();
 
             if (!changeSteps.isEmpty()) {
-                createChangeListFromChangeSteps(dimensionsAPI, projectDir, changeSteps, tz, url, changeLogEntryMap, items);
+                DimensionsTracer.Scope span = DimensionsTracer.start("change list and request lookups");
+                try {
+                    createChangeListFromChangeSteps(projectDir, changeSteps, tz, changeLogEntryMap, items);
+                } finally {
+                    span.end();
+                }
             }
 
             if (!changeLogEntryMap.isEmpty()) {
                 // Write the list of changes into a changelog file.
                 List<DimensionsChangeLogEntry> entries = new ArrayList<DimensionsChangeLogEntry>(changeLogEntryMap.values());
                 Logger.debug("Writing " + entries.size() + " changes to changelog file '" + changelogFile.getPath() + "'");
-                DimensionsChangeLogWriter.writeLog(entries, changelogFile);
+                DimensionsChangeLogWriter.writeLog(entries, changelogFile,
+                        new ChangeLogLinks(url, session.getDbConn(), session.getDbName()));
             } else {
                 // No changes, so create an empty changelog file.
                 Logger.debug("Writing null changes to changelog file '" + changelogFile.getPath() + "'");
-                DimensionsChangeLogWriter.writeLog(null, changelogFile);
+                DimensionsChangeLogWriter.writeLog(null, changelogFile,
+                        new ChangeLogLinks(url, session.getDbConn(), session.getDbName()));
             }
         } catch (Exception e) {
             throw new IOException(Values.exceptionMessage("Exception calculating changes", e,
@@ -132,7 +134,7 @@ private boolean notMoveOrDeleteOpType(STEP_TYPE stepType) {
         return !stepType.equals(STEP_TYPE.REMOVE) && !stepType.equals(STEP_TYPE.MOVE);
     }
 
-    private void createChangeListFromChangeSteps(DimensionsAPI dimensionsAPI, FilePath projectDir, List<DimensionsChangeStep> dimensionsChangeSteps, TimeZone tz, final String url, Map<String, DimensionsChangeLogEntry> entries, List<ItemRevision> items) {
+    private void createChangeListFromChangeSteps(FilePath projectDir, List<DimensionsChangeStep> dimensionsChangeSteps, TimeZone tz, Map<String, DimensionsChangeLogEntry> entries, List<ItemRevision> items) {
 
         Map<Long, ItemRevision> itemRevisionToUidMap = createItemRevisionMap(items);
 
@@ -148,8 +150,6 @@ private void createChangeListFromChangeSteps(DimensionsAPI dimensionsAPI, FilePa
             String author = changeStep.getChangeSet().getUserName();
             String comment = changeStep.getChangeSet().getComment();
             Date date = DateUtils.parse(DateUtils.format(changeStep.getChangeSet().getDate()), tz);
-            Calendar calendar = Calendar.getInstance();
-            calendar.setTime(date);
             String operation = getOperationType(changeStep.getType().name());
 
             Long uid = changeStep.getObjUid();
@@ -160,26 +160,17 @@ private void createChangeListFromChangeSteps(DimensionsAPI dimensionsAPI, FilePa
                 spec = (String) itemRevision.getAttribute(SystemAttributes.OBJECT_SPEC);
             }
 
-            String fileUrl = DimensionsAPI.constructURL(spec, url, dimensionsAPI.getSCMDbConn(), dimensionsAPI.getSCMBaseDb());
-
-            if (fileUrl == null) {
-                fileUrl = "";
-            }
-
             Logger.debug("Change details -" + comment + " " + revision + " " + fileName + " " + author
-                    + " " + spec + " " + calendar + " " + operation + " " + fileUrl);
-
-            DimensionsChangeLogEntry entry;
+                    + " " + spec + " " + date + " " + operation);
 
-            String key = DimensionsAPI.createKeyForChangeMap(author, calendar.getTime());
+            String key = DimensionsAPI.createKeyForChangeMap(author, date);
+            DimensionsChangeLogEntry entry = entries.get(key);
 
-            if (entries.containsKey(key)) {
-                entry = entries.get(key);
-                entry.add(fileName, operation, fileUrl);
-            } else {
-                entry = new DimensionsChangeLogEntry(fileName, author, operation, revision, comment, fileUrl, calendar);
+            if (entry == null) {
+                entry = new DimensionsChangeLogEntry(fileName, author, revision, comment, date.getTime());
                 entries.put(key, entry);
             }
+            entry.addFile(fileName, operation, spec);
 
             for (Request request : changeStep.getRequests()) {
 
@@ -189,11 +180,10 @@ private void createChangeListFromChangeSteps(DimensionsAPI dimensionsAPI, FilePa
                 });
 
                 String requestId = (String) request.getAttribute(SystemAttributes.OBJECT_SPEC);
-                String requestUrl = DimensionsAPI.constructRequestURL(requestId, url, dimensionsAPI.getSCMDbConn(), dimensionsAPI.getSCMBaseDb());
                 String requestTitle = (String) request.getAttribute(SystemAttributes.TITLE);
 
-                entry.addRequest(requestId, requestUrl, requestTitle);
-                Logger.debug("Child Request Details IRT -" + requestId + " " + requestUrl + " " + requestTitle);
+                entry.addRequest(requestId, null, requestTitle);
+                Logger.debug("Child Request Details IRT -" + requestId + " " + requestTitle);
             }
         }
     }
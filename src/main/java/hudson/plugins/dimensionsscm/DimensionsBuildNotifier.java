@@ -14,14 +14,25 @@
 import hudson.util.VariableResolver;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 import net.sf.json.JSONObject;
+import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.StaplerRequest;
 
 /**
  * A Notifier that can create, deploy, build or action a baseline (from the SCM project) as a post-build step in a Jenkins build.
+ * <p>
+ * The baseline operations are run by a {@link BaselinePipeline} using sessions dedicated to the build.
  */
 public class DimensionsBuildNotifier extends Notifier implements Serializable {
-    private DimensionsSCM scm;
+    /**
+     * No longer used: each build now uses the job's own SCM. Still read from job configurations saved by older
+     * versions, so that they load without an unreadable data warning, and dropped when the job is next saved.
+     */
+    @Deprecated
+    private transient DimensionsSCM scm;
+
     private boolean canBaselineDeploy;
     private boolean canBaselineAction;
 
@@ -45,6 +56,8 @@ public class DimensionsBuildNotifier extends Notifier implements Serializable {
     private final boolean buildClean;
     private final boolean capture;
 
+    private boolean concurrentSteps;
+
     /**
      * Gets the baseline part spec.
      */
@@ -122,6 +135,21 @@ public boolean isCapture() {
         return this.capture;
     }
 
+    /**
+     * Gets the flag to run independent baseline steps (deploy and build) concurrently.
+     */
+    public boolean isConcurrentSteps() {
+        return this.concurrentSteps;
+    }
+
+    /**
+     * Sets the flag to run independent baseline steps (deploy and build) concurrently.
+     */
+    @DataBoundSetter
+    public void setConcurrentSteps(boolean concurrentSteps) {
+        this.concurrentSteps = concurrentSteps;
+    }
+
     /**
      * Gets the action state name.
      */
@@ -194,13 +222,24 @@ public DimensionsBuildNotifier(boolean canDeploy, String deployState, boolean ca
         this.capture = capture;
     }
 
+    /**
+     * Drops the SCM that older versions saved with the notifier.
+     */
+    protected Object readResolve() {
+        scm = null;
+        return this;
+    }
+
     /**
      * Changes the build result if baseline operation fails. (So cannot override {@linkplain #needsToRunAfterFinalized()}).
      */
     @Override
-    public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) {
+    public boolean perform(final AbstractBuild<?, ?> build, Launcher launcher, final BuildListener listener) {
         Logger.debug("Invoking perform callout " + this.getClass().getName());
+        // A dedicated API instance (and so dedicated sessions) for this build, rather than the SCM's shared instance.
+        final DimensionsAPI api = new DimensionsAPI();
         long key = -1L;
+        DimensionsTracer.Scope span = DimensionsTracer.start(build, "tag baseline");
         try {
             if (!(build.getProject().getScm() instanceof DimensionsSCM)) {
                 final String message = "[DIMENSIONS] This plugin only works with the Dimensions SCM engine.";
@@ -211,16 +250,13 @@ public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListen
             // Create baseline if SUCCESS or UNSTABLE (could be just some Checkstyle violations).
             Result result = build.getResult();
             if (result != null && result.isBetterThan(Result.FAILURE)) {
-                if (scm == null) {
-                    scm = (DimensionsSCM) build.getProject().getScm();
-                }
+                final DimensionsSCM scm = (DimensionsSCM) build.getProject().getScm();
                 Logger.debug("Dimensions user is " + scm.getUserName() + " , Dimensions installation is " + scm.getServer());
-                key = scm.getAPI().login(scm, build);
+                key = api.login(scm, build);
                 if (key > 0L) {
                     VariableResolver<String> myResolver = build.getBuildVariableResolver();
                     String requests = myResolver.resolve("DM_TARGET_REQUEST");
                     String blnId = myResolver.resolve("DM_BASELINE");
-                    StringBuffer cblId = new StringBuffer();
 
                     if (requests != null) {
                         requests = requests.replaceAll(" ", "");
@@ -235,67 +271,22 @@ public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListen
                         }
                     }
 
-                    {
-                        DimensionsResult res = scm.getAPI().createBaseline(key, scm.getProjectVersion(build, listener), build,
-                                blnScope, blnTemplate, blnOwningPart, blnType, requests, blnId, blnName, cblId);
-                        if (res == null) {
-                            listener.getLogger().println("[DIMENSIONS] The build failed to be tagged in Dimensions");
-                            listener.getLogger().flush();
-                            build.setResult(Result.FAILURE);
-                            canBaselineDeploy = canBaselineAction = canBaselineBuild = false;
-                        } else {
-                            listener.getLogger().println("[DIMENSIONS] Build was successfully tagged in Dimensions as a baseline");
-                            listener.getLogger().println("[DIMENSIONS] (" + res.getMessage().replaceAll("\n", "\n[DIMENSIONS] ") + ")");
-                            listener.getLogger().flush();
-                        }
-                    }
-                    if (canBaselineDeploy) {
-                        listener.getLogger().println("[DIMENSIONS] Submitting a deployment job to Dimensions...");
-                        listener.getLogger().flush();
-                        DimensionsResult res = scm.getAPI().deployBaseline(key, scm.getProjectName(build, listener), build, deployState, cblId.toString());
-                        if (res == null) {
-                            listener.getLogger().println("[DIMENSIONS] The build baseline failed to be deployed in Dimensions");
-                            listener.getLogger().flush();
-                            build.setResult(Result.FAILURE);
-                            canBaselineDeploy = canBaselineAction = canBaselineBuild = false;
-                        } else {
-                            listener.getLogger().println("[DIMENSIONS] Build baseline was successfully deployed in Dimensions");
-                            listener.getLogger().println("[DIMENSIONS] (" + res.getMessage().replaceAll("\n", "\n[DIMENSIONS] ") + ")");
-                            listener.getLogger().flush();
-                        }
-                    }
-
-                    // This will active the build baseline functionality
-                    if (canBaselineBuild) {
-                        listener.getLogger().println("[DIMENSIONS] Submitting a build job to Dimensions...");
-                        listener.getLogger().flush();
-                        DimensionsResult res = scm.getAPI().buildBaseline(key, area, scm.getProjectName(build, listener), batch,
-                                buildClean, buildConfig, buildOptions, capture, requests, buildTargets, build, cblId.toString());
-                        if (res == null) {
-                            listener.getLogger().println("[DIMENSIONS] The build baseline failed to be built in Dimensions");
-                            listener.getLogger().flush();
-                            build.setResult(Result.FAILURE);
-                            canBaselineDeploy = canBaselineAction = canBaselineBuild = false;
-                        } else {
-                            listener.getLogger().println("[DIMENSIONS] Build baseline was successfully built in Dimensions");
-                            listener.getLogger().println("[DIMENSIONS] (" + res.getMessage().replaceAll("\n", "\n[DIMENSIONS] ") + ")");
-                            listener.getLogger().flush();
+                    BaselinePipeline pipeline = createPipeline(api, scm, build, listener, requests, blnId);
+                    final long mainKey = key;
+                    boolean ok = pipeline.run(key, new BaselinePipeline.Sessions() {
+                        @Override
+                        public long open() {
+                            return api.openSpareSession(mainKey);
                         }
-                    }
 
-                    if (canBaselineAction) {
-                        listener.getLogger().println("[DIMENSIONS] Actioning the build baseline in Dimensions...");
-                        listener.getLogger().flush();
-                        DimensionsResult res = scm.getAPI().actionBaseline(key, scm.getProjectName(build, listener), build, actionState, cblId.toString());
-                        if (res == null) {
-                            listener.getLogger().println("[DIMENSIONS] The build baseline failed to be actioned in Dimensions");
-                            build.setResult(Result.FAILURE);
-                            listener.getLogger().flush();
-                        } else {
-                            listener.getLogger().println("[DIMENSIONS] Build baseline was successfully actioned in Dimensions");
-                            listener.getLogger().println("[DIMENSIONS] (" + res.getMessage().replaceAll("\n", "\n[DIMENSIONS] ") + ")");
-                            listener.getLogger().flush();
+                        @Override
+                        public void close(long stepKey) {
+                            // Spare sessions are logged out with the main session.
                         }
+                    }, listener);
+                    if (!ok) {
+                        span.fail();
+                        build.setResult(Result.FAILURE);
                     }
                 } else {
                     listener.fatalError("[DIMENSIONS] Login to Dimensions failed.");
@@ -307,16 +298,82 @@ public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListen
             String message = Values.exceptionMessage("Unable to tag build in Dimensions", e, "no message");
             listener.fatalError(message);
             Logger.debug(message, e);
+            span.fail();
             build.setResult(Result.FAILURE);
             return false;
         } finally {
-            if (scm != null) {
-                scm.getAPI().logout(key, build);
+            if (key > 0L) {
+                api.logout(key, build);
             }
+            span.end();
         }
         return true;
     }
 
+    /**
+     * Builds the baseline steps configured for this job. Deploy and build both depend only on the baseline having
+     * been created, so may run concurrently. Action depends on every other configured step.
+     */
+    private BaselinePipeline createPipeline(final DimensionsAPI api, final DimensionsSCM scm,
+            final AbstractBuild<?, ?> build, final BuildListener listener, final String requests, final String blnId) {
+        final StringBuffer cblId = new StringBuffer();
+        BaselinePipeline pipeline = new BaselinePipeline(concurrentSteps ? 2 : 1);
+        BaselinePipeline.Step create = pipeline.add("create", null,
+                "[DIMENSIONS] Build was successfully tagged in Dimensions as a baseline",
+                "[DIMENSIONS] The build failed to be tagged in Dimensions",
+                new BaselinePipeline.Operation() {
+                    @Override
+                    public DimensionsResult perform(long key) {
+                        return api.createBaseline(key, scm.getProjectVersion(build, listener), build, blnScope,
+                                blnTemplate, blnOwningPart, blnType, requests, blnId, blnName, cblId);
+                    }
+                });
+        List<BaselinePipeline.Step> actionDependencies = new ArrayList<BaselinePipeline.Step>();
+        actionDependencies.add(create);
+        if (canBaselineDeploy) {
+            actionDependencies.add(pipeline.add("deploy",
+                    "[DIMENSIONS] Submitting a deployment job to Dimensions...",
+                    "[DIMENSIONS] Build baseline was successfully deployed in Dimensions",
+                    "[DIMENSIONS] The build baseline failed to be deployed in Dimensions",
+                    new BaselinePipeline.Operation() {
+                        @Override
+                        public DimensionsResult perform(long key) {
+                            return api.deployBaseline(key, scm.getProjectName(build, listener), build, deployState,
+                                    cblId.toString());
+                        }
+                    }, create));
+        }
+        // This will active the build baseline functionality
+        if (canBaselineBuild) {
+            actionDependencies.add(pipeline.add("build",
+                    "[DIMENSIONS] Submitting a build job to Dimensions...",
+                    "[DIMENSIONS] Build baseline was successfully built in Dimensions",
+                    "[DIMENSIONS] The build baseline failed to be built in Dimensions",
+                    new BaselinePipeline.Operation() {
+                        @Override
+                        public DimensionsResult perform(long key) {
+                            return api.buildBaseline(key, area, scm.getProjectName(build, listener), batch,
+                                    buildClean, buildConfig, buildOptions, capture, requests, buildTargets, build,
+                                    cblId.toString());
+                        }
+                    }, create));
+        }
+        if (canBaselineAction) {
+            pipeline.add("action",
+                    "[DIMENSIONS] Actioning the build baseline in Dimensions...",
+                    "[DIMENSIONS] Build baseline was successfully actioned in Dimensions",
+                    "[DIMENSIONS] The build baseline failed to be actioned in Dimensions",
+                    new BaselinePipeline.Operation() {
+                        @Override
+                        public DimensionsResult perform(long key) {
+                            return api.actionBaseline(key, scm.getProjectName(build, listener), build, actionState,
+                                    cblId.toString());
+                        }
+                    }, actionDependencies.toArray(new BaselinePipeline.Step[0]));
+        }
+        return pipeline;
+    }
+
     @Override
     public DescriptorImpl getDescriptor() {
         // see Descriptor javadoc for more about what a descriptor is.
@@ -362,9 +419,12 @@ public Notifier newInstance(StaplerRequest req, JSONObject formData) {
             String blnOwningPart = Values.textOrElse(req.getParameter("dimensionsbuildnotifier.blnOwningPart"), null);
             String blnType = Values.textOrElse(req.getParameter("dimensionsbuildnotifier.blnType"), null);
             String blnName = Values.textOrElse(req.getParameter("dimensionsbuildnotifier.blnName"), null);
-            return new DimensionsBuildNotifier(canDeploy, deploy, canAction, action, canBuild,
+            boolean concurrentSteps = Values.booleanOrElse(req.getParameter("dimensionsbuildnotifier.concurrentSteps"), false);
+            DimensionsBuildNotifier notifier = new DimensionsBuildNotifier(canDeploy, deploy, canAction, action, canBuild,
                     area, buildConfig, buildOptions, buildTargets, blnScope, blnTemplate, blnOwningPart, blnType,
                     blnName, batch, buildClean, capture);
+            notifier.setConcurrentSteps(concurrentSteps);
+            return notifier;
         }
 
         /**
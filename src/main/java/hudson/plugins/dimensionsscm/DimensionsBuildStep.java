@@ -0,0 +1,284 @@
+package hudson.plugins.dimensionsscm;
+
+import com.serena.dmclient.api.DimensionsResult;
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+/**
+ * A Pipeline step to launch a Serena Build command on the project of an earlier {@code dimensionsscm} checkout.
+ * <p>
+ * The build is submitted through the {@link DimensionsBuildTracker}, and the step completes when the Dimensions build
+ * completes. The step does not need a workspace, so when it is used outside a {@code node} block no executor is held
+ * while Dimensions is building.
+ */
+public final class DimensionsBuildStep extends Step {
+    private String area;
+    private String buildConfig;
+    private String buildOptions;
+    private String buildTargets;
+    private String buildType;
+    private String buildStage;
+    private boolean buildClean;
+    private boolean capture;
+    private boolean audit;
+    private boolean populate;
+    private boolean touch;
+    private boolean waitForCompletion = true;
+
+    @DataBoundConstructor
+    public DimensionsBuildStep() {
+        /* all parameters are optional. */
+    }
+
+    public String getArea() {
+        return area;
+    }
+
+    @DataBoundSetter
+    public void setArea(String area) {
+        this.area = Values.textOrElse(area, null);
+    }
+
+    public String getBuildConfig() {
+        return buildConfig;
+    }
+
+    @DataBoundSetter
+    public void setBuildConfig(String buildConfig) {
+        this.buildConfig = Values.textOrElse(buildConfig, null);
+    }
+
+    public String getBuildOptions() {
+        return buildOptions;
+    }
+
+    @DataBoundSetter
+    public void setBuildOptions(String buildOptions) {
+        this.buildOptions = Values.textOrElse(buildOptions, null);
+    }
+
+    public String getBuildTargets() {
+        return buildTargets;
+    }
+
+    @DataBoundSetter
+    public void setBuildTargets(String buildTargets) {
+        this.buildTargets = Values.textOrElse(buildTargets, null);
+    }
+
+    public String getBuildType() {
+        return buildType;
+    }
+
+    @DataBoundSetter
+    public void setBuildType(String buildType) {
+        this.buildType = Values.textOrElse(buildType, null);
+    }
+
+    public String getBuildStage() {
+        return buildStage;
+    }
+
+    @DataBoundSetter
+    public void setBuildStage(String buildStage) {
+        this.buildStage = Values.textOrElse(buildStage, null);
+    }
+
+    public boolean isBuildClean() {
+        return buildClean;
+    }
+
+    @DataBoundSetter
+    public void setBuildClean(boolean buildClean) {
+        this.buildClean = buildClean;
+    }
+
+    public boolean isCapture() {
+        return capture;
+    }
+
+    @DataBoundSetter
+    public void setCapture(boolean capture) {
+        this.capture = capture;
+    }
+
+    public boolean isAudit() {
+        return audit;
+    }
+
+    @DataBoundSetter
+    public void setAudit(boolean audit) {
+        this.audit = audit;
+    }
+
+    public boolean isPopulate() {
+        return populate;
+    }
+
+    @DataBoundSetter
+    public void setPopulate(boolean populate) {
+        this.populate = populate;
+    }
+
+    public boolean isTouch() {
+        return touch;
+    }
+
+    @DataBoundSetter
+    public void setTouch(boolean touch) {
+        this.touch = touch;
+    }
+
+    public boolean isWaitForCompletion() {
+        return waitForCompletion;
+    }
+
+    /**
+     * If false, the build is submitted with /NOWAIT and the step completes as soon as Dimensions accepts the job.
+     */
+    @DataBoundSetter
+    public void setWaitForCompletion(boolean waitForCompletion) {
+        this.waitForCompletion = waitForCompletion;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) throws Exception {
+        return new Execution(this, context);
+    }
+
+    /**
+     * Submits the build to the tracker and completes the step from the tracker's callback.
+     */
+    private static final class Execution extends StepExecution {
+        private static final long serialVersionUID = 1L;
+
+        private final transient DimensionsBuildStep step;
+        private String jobId;
+
+        Execution(DimensionsBuildStep step, StepContext context) {
+            super(context);
+            this.step = step;
+        }
+
+        @Override
+        public boolean start() throws Exception {
+            final Run<?, ?> run = getContext().get(Run.class);
+            final TaskListener listener = getContext().get(TaskListener.class);
+            final DimensionsSCM scm = DimensionsSCM.findSCM(run);
+            if (scm == null) {
+                throw new AbortException("[DIMENSIONS] The dimensionsBuild step needs an earlier dimensionsscm checkout in this run.");
+            }
+            String targetRequests = DimensionsSCM.getParameterFromRun(run, "DM_TARGET_REQUEST");
+            if (targetRequests != null) {
+                targetRequests = targetRequests.replaceAll(" ", "").toUpperCase(Values.ROOT_LOCALE);
+            }
+            final String requests = targetRequests;
+            final String projectName = scm.getProjectName(run, listener);
+            final String type = "NONE".equals(step.buildType) ? null : step.buildType;
+            final DimensionsBuildStep s = step;
+
+            listener.getLogger().println("[DIMENSIONS] Submitting a build job to Dimensions...");
+            listener.getLogger().flush();
+            DimensionsBuildTracker.Job job = DimensionsBuildTracker.submit(projectName + " for " + run.getFullDisplayName(),
+                    new Callable<DimensionsResult>() {
+                        @Override
+                        public DimensionsResult call() {
+                            DimensionsAPI api = scm.getAPI();
+                            long key = api.login(scm, run);
+                            try {
+                                if (key <= 0L) {
+                                    throw new IllegalStateException("[DIMENSIONS] Login to Dimensions failed.");
+                                }
+                                return api.buildProject(key, s.area, projectName, !s.waitForCompletion, s.buildClean,
+                                        s.buildConfig, s.buildOptions, s.capture, requests, s.buildTargets,
+                                        s.buildStage, type, s.audit, s.populate, s.touch, run);
+                            } finally {
+                                if (key > 0L) {
+                                    api.logout(key, run);
+                                }
+                            }
+                        }
+                    }, new DimensionsBuildTracker.Callback() {
+                        @Override
+                        public void onSuccess(DimensionsBuildTracker.Job job, DimensionsResult result) {
+                            if (result == null) {
+                                listener.getLogger().println("[DIMENSIONS] The project failed to be built in Dimensions");
+                                listener.getLogger().flush();
+                                getContext().onFailure(new AbortException("[DIMENSIONS] The project failed to be built in Dimensions"));
+                                return;
+                            }
+                            listener.getLogger().println("[DIMENSIONS] Build step was successfully run in Dimensions");
+                            listener.getLogger().println("[DIMENSIONS] (" + result.getMessage().replaceAll("\n",
+                                    "\n[DIMENSIONS] ") + ")");
+                            listener.getLogger().flush();
+                            getContext().onSuccess(result.getMessage());
+                        }
+
+                        @Override
+                        public void onFailure(DimensionsBuildTracker.Job job, Throwable cause) {
+                            getContext().onFailure(cause);
+                        }
+                    });
+            jobId = job.getId();
+            listener.getLogger().println("[DIMENSIONS] Tracking Dimensions build job " + jobId);
+            listener.getLogger().flush();
+            return false;
+        }
+
+        @Override
+        public void stop(@NonNull Throwable cause) throws Exception {
+            DimensionsBuildTracker.Job job = DimensionsBuildTracker.get(jobId);
+            if (job != null) {
+                job.cancel();
+            }
+            getContext().onFailure(cause);
+        }
+
+        @Override
+        public void onResume() {
+            if (DimensionsBuildTracker.get(jobId) == null) {
+                getContext().onFailure(new AbortException("[DIMENSIONS] Dimensions build job " + jobId
+                        + " was no longer tracked after Jenkins restarted; check its outcome in Dimensions."));
+            }
+        }
+
+        @Override
+        public String getStatus() {
+            DimensionsBuildTracker.Job job = DimensionsBuildTracker.get(jobId);
+            return job != null ? job.toString() : "Dimensions build job " + jobId + " is not being tracked";
+        }
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends StepDescriptor {
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Collections.unmodifiableSet(new HashSet<Class<?>>(Arrays.asList(Run.class, TaskListener.class)));
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "dimensionsBuild";
+        }
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return "Launch a Dimensions build of the checked out project";
+        }
+    }
+}
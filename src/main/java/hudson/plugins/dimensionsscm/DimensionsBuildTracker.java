@@ -0,0 +1,207 @@
+package hudson.plugins.dimensionsscm;
+
+import com.serena.dmclient.api.DimensionsResult;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks Dimensions build jobs that have been submitted to Dimensions Build.
+ * <p>
+ * A BLD or BLDB command run with /WAIT does not return until the Dimensions build completes. Submitting it here runs
+ * it on a thread owned by the plugin, and hands back a {@link Job} handle straight away, so that the caller (e.g. a
+ * Pipeline step) does not need to hold a Jenkins executor while Dimensions is building. Each job has a thread of its
+ * own for as long as it runs, so that a job is never held back from the server by the jobs before it; how many
+ * commands are sent to a server at the same time is up to its {@link DimensionsBulkhead}.
+ */
+final class DimensionsBuildTracker {
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(
+            new NamingThreadFactory(new DaemonThreadFactory(), "Dimensions build tracker"));
+
+    private static final AtomicLong SEQUENCE = new AtomicLong(1L);
+
+    private static final ConcurrentMap<String, Job> JOBS = new ConcurrentHashMap<String, Job>();
+
+    private DimensionsBuildTracker() {
+        /* prevent instantiation. */
+    }
+
+    enum State {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED
+    }
+
+    /**
+     * Notified on the tracker's thread when a job completes.
+     */
+    interface Callback {
+        void onSuccess(Job job, DimensionsResult result);
+
+        void onFailure(Job job, Throwable cause);
+    }
+
+    /**
+     * Handle to a submitted Dimensions build job.
+     */
+    static final class Job {
+        private final String id;
+        private final String description;
+        private final long submitted = System.currentTimeMillis();
+        private volatile State state = State.QUEUED;
+        private volatile long finished;
+        private FutureTask<DimensionsResult> task;
+
+        private Job(String id, String description) {
+            this.id = id;
+            this.description = description;
+        }
+
+        String getId() {
+            return id;
+        }
+
+        String getDescription() {
+            return description;
+        }
+
+        State getState() {
+            return state;
+        }
+
+        long getSubmitted() {
+            return submitted;
+        }
+
+        boolean isDone() {
+            return state != State.QUEUED && state != State.RUNNING;
+        }
+
+        /**
+         * Waits for the job to complete, cancelling it if the waiting thread is interrupted.
+         *
+         * @return the result of the Dimensions command, or null if the command failed
+         */
+        DimensionsResult await() throws InterruptedException {
+            try {
+                return task.get();
+            } catch (InterruptedException e) {
+                cancel();
+                throw e;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException(Values.exceptionMessage("Dimensions build job " + id, cause,
+                        "no message"), cause);
+            }
+        }
+
+        /**
+         * Stops tracking the job. The build in Dimensions may still complete, and the job still logs out of the
+         * session it built in when it does, but nothing will wait for it and its callback is not notified.
+         */
+        void cancel() {
+            if (task.cancel(true)) {
+                finish(State.CANCELLED);
+            }
+        }
+
+        /**
+         * Records the outcome of the job, unless it already has one.
+         *
+         * @return false if the job already had an outcome (for example it was cancelled)
+         */
+        private synchronized boolean finish(State outcome) {
+            if (isDone()) {
+                return false;
+            }
+            state = outcome;
+            finished = System.currentTimeMillis();
+            JOBS.remove(id, this);
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            String text = "Dimensions build job " + id + " (" + description + ") " + state;
+            if (isDone()) {
+                text += " after " + (finished - submitted) + "ms";
+            }
+            return text;
+        }
+    }
+
+    /**
+     * Submits a Dimensions build command to run in the background.
+     *
+     * @param description human-readable description used in logs and status
+     * @param work        runs the Dimensions command (including login and logout, as it may still be running after
+     *                    the job has been cancelled) and returns its result
+     * @param callback    notified when the job completes, may be null
+     * @return a handle to the job
+     */
+    static Job submit(String description, final Callable<DimensionsResult> work, final Callback callback) {
+        final Job job = new Job(Long.toString(SEQUENCE.getAndIncrement()), description);
+        job.task = new FutureTask<DimensionsResult>(new Callable<DimensionsResult>() {
+            @Override
+            public DimensionsResult call() throws Exception {
+                synchronized (job) {
+                    if (job.isDone()) {
+                        return null;
+                    }
+                    job.state = State.RUNNING;
+                }
+                Logger.debug("Running " + job);
+                DimensionsResult result = null;
+                Throwable failure = null;
+                try {
+                    result = work.call();
+                    return result;
+                } catch (Exception e) {
+                    failure = e;
+                    throw e;
+                } finally {
+                    boolean finished = job.finish((failure == null && result != null) ? State.SUCCEEDED : State.FAILED);
+                    Logger.debug("Completed " + job);
+                    if (finished && callback != null) {
+                        if (failure == null) {
+                            callback.onSuccess(job, result);
+                        } else {
+                            callback.onFailure(job, failure);
+                        }
+                    }
+                }
+            }
+        });
+        JOBS.put(job.id, job);
+        EXECUTOR.execute(job.task);
+        return job;
+    }
+
+    /**
+     * Gets a job that has not yet completed.
+     */
+    static Job get(String id) {
+        return id == null ? null : JOBS.get(id);
+    }
+
+    /**
+     * Gets all the jobs that have not yet completed.
+     */
+    static Collection<Job> getJobs() {
+        return Collections.unmodifiableCollection(new ArrayList<Job>(JOBS.values()));
+    }
+}
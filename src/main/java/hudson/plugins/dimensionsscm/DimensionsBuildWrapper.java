@@ -55,12 +55,14 @@ public Environment setUp(@SuppressWarnings("rawtypes") final AbstractBuild build
             }
             Logger.debug("Dimensions user is " + scm.getUserName() + " , Dimensions installation is "
                     + scm.getServer());
+            DimensionsTracer.Scope span = DimensionsTracer.start(build, "lock project");
             try {
                 key = scm.getAPI().login(scm, build);
                 if (key > 0L) {
                     DimensionsResult res = scm.getAPI().lockProject(key, scm.getProjectName(build, listener));
                     if (res == null) {
                         listener.getLogger().println("[DIMENSIONS] Locking the project in Dimensions failed");
+                        span.fail();
                         build.setResult(Result.FAILURE);
                         listener.getLogger().flush();
                     } else {
@@ -72,8 +74,10 @@ public Environment setUp(@SuppressWarnings("rawtypes") final AbstractBuild build
                 String message = Values.exceptionMessage("Unable to lock Dimensions project", e, "no message");
                 listener.fatalError(message);
                 Logger.debug(message, e);
+                span.fail();
             } finally {
                 scm.getAPI().logout(key, build);
+                span.end();
             }
         } else {
             String message = "[DIMENSIONS] This plugin only works with a Dimensions SCM engine";
@@ -166,6 +170,7 @@ public boolean tearDown(@SuppressWarnings("rawtypes") AbstractBuild build, Build
                 Logger.debug("Invoking build tearDown callout " + this.getClass().getName());
                 Logger.debug("Dimensions user is " + scm.getUserName() + " , Dimensions installation is "
                         + scm.getServer());
+                DimensionsTracer.Scope span = DimensionsTracer.start(build, "unlock project");
                 try {
                     key = scm.getAPI().login(scm, build);
                     if (key > 0L) {
@@ -173,6 +178,7 @@ public boolean tearDown(@SuppressWarnings("rawtypes") AbstractBuild build, Build
                         DimensionsResult res = scm.getAPI().unlockProject(key, scm.getProjectName(build, listener));
                         if (res == null) {
                             listener.getLogger().println("[DIMENSIONS] Unlocking the project in Dimensions failed");
+                            span.fail();
                             build.setResult(Result.FAILURE);
                             listener.getLogger().flush();
                         } else {
@@ -181,6 +187,7 @@ public boolean tearDown(@SuppressWarnings("rawtypes") AbstractBuild build, Build
                         }
                     } else {
                         listener.fatalError("[DIMENSIONS] Login to Dimensions failed.");
+                        span.fail();
                         build.setResult(Result.FAILURE);
                         return false;
                     }
@@ -188,10 +195,12 @@ public boolean tearDown(@SuppressWarnings("rawtypes") AbstractBuild build, Build
                     String message = Values.exceptionMessage("Unable to unlock Dimensions project", e, "no message");
                     listener.fatalError(message);
                     Logger.debug(message, e);
+                    span.fail();
                     build.setResult(Result.FAILURE);
                     return false;
                 } finally {
                     scm.getAPI().logout(key, build);
+                    span.end();
                 }
             }
             return true;
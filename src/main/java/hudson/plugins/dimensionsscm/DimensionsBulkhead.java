@@ -0,0 +1,290 @@
+package hudson.plugins.dimensionsscm;
+
+import com.serena.dmclient.api.DimensionsRuntimeException;
+import java.text.ParseException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits the number of concurrent Dimensions operations against each server.
+ * <p>
+ * Each server (keyed by server and base database, as {@link DimensionsSession#serverKey}) has three pools of permits:
+ * logged in sessions, change queries (polling and changelog generation) and heavy commands ({@code UPDATE},
+ * {@code DELIVER} and their Dimensions 10 equivalents, including those run on agents, see {@link #acquireHeavy}). A
+ * pool with a limit of zero is unlimited. Callers that have
+ * to wait are queued first-come first-served, except that callers on a polling thread are only given a permit when
+ * no build is waiting for one, so that polling can never starve checkouts.
+ * <p>
+ * The limits are set from the global configuration by {@link DimensionsSCM.DescriptorImpl}.
+ */
+final class DimensionsBulkhead {
+    /** Pool of logged in sessions. */
+    static final String SESSIONS = "sessions";
+    /** Pool of change queries. */
+    static final String QUERIES = "queries";
+    /** Pool of heavy (workspace update and delivery) commands. */
+    static final String HEAVY = "heavy";
+
+    /** Default time to wait for a permit, in seconds. */
+    static final int DEFAULT_TIMEOUT = 600;
+
+    private static final ConcurrentMap<String, DimensionsBulkhead> SERVERS =
+            new ConcurrentHashMap<String, DimensionsBulkhead>();
+
+    private static final ThreadLocal<Priority> PRIORITY = new ThreadLocal<Priority>();
+
+    private static volatile int maxSessions;
+    private static volatile int maxQueries;
+    private static volatile int maxHeavy;
+    private static volatile int timeoutSeconds = DEFAULT_TIMEOUT;
+
+    /**
+     * Who is asking for a permit. Builds are always served before polls.
+     */
+    enum Priority {
+        BUILD, POLL
+    }
+
+    private final String server;
+    private final Pool sessions = new Pool(SESSIONS);
+    private final Pool queries = new Pool(QUERIES);
+    private final Pool heavy = new Pool(HEAVY);
+
+    private DimensionsBulkhead(String server) {
+        this.server = server;
+    }
+
+    /**
+     * Gets the bulkhead of a server.
+     */
+    static DimensionsBulkhead forServer(String serverKey) {
+        DimensionsBulkhead bulkhead = SERVERS.get(serverKey);
+        if (bulkhead == null) {
+            DimensionsBulkhead created = new DimensionsBulkhead(serverKey);
+            bulkhead = SERVERS.putIfAbsent(serverKey, created);
+            if (bulkhead == null) {
+                bulkhead = created;
+            }
+        }
+        return bulkhead;
+    }
+
+    /**
+     * Sets the per-server limits. A limit of zero or less is unlimited, and a timeout of zero or less is the default.
+     */
+    static void configure(int sessions, int queries, int heavy, int timeout) {
+        maxSessions = Math.max(0, sessions);
+        maxQueries = Math.max(0, queries);
+        maxHeavy = Math.max(0, heavy);
+        timeoutSeconds = timeout > 0 ? timeout : DEFAULT_TIMEOUT;
+        for (DimensionsBulkhead bulkhead : SERVERS.values()) {
+            bulkhead.sessions.wake();
+            bulkhead.queries.wake();
+            bulkhead.heavy.wake();
+        }
+    }
+
+    /**
+     * Sets the priority of the current thread's requests for permits.
+     *
+     * @return the previous priority, to be restored in a {@code finally} block
+     */
+    static Priority setPriority(Priority priority) {
+        Priority previous = getPriority();
+        if (priority == null || priority == Priority.BUILD) {
+            PRIORITY.remove();
+        } else {
+            PRIORITY.set(priority);
+        }
+        return previous;
+    }
+
+    static Priority getPriority() {
+        Priority priority = PRIORITY.get();
+        return priority == null ? Priority.BUILD : priority;
+    }
+
+    /**
+     * Acquires a permit from one of the pools of this server, waiting in line if the pool is full.
+     *
+     * @param pool {@link #SESSIONS}, {@link #QUERIES} or {@link #HEAVY}
+     * @return the permit, which must be released in a {@code finally} block
+     * @throws DimensionsRuntimeException if the wait timed out or was interrupted
+     */
+    Permit acquire(String pool) {
+        return pool(pool).acquire(getPriority(), TimeUnit.SECONDS.toMillis(timeoutSeconds));
+    }
+
+    /**
+     * Acquires a permit for a heavy command that an agent runs with its own Dimensions session. The agent cannot see
+     * this controller's limits, so the permit is held on the controller while the agent runs the command.
+     *
+     * @param database base database name, or {@code dbName@dbConn} if {@code dbConn} is empty
+     * @return the permit, which must be released in a {@code finally} block
+     * @throws DimensionsRuntimeException if the wait timed out or was interrupted
+     */
+    static Permit acquireHeavy(String server, String database, String dbConn) {
+        String dbName = database;
+        if (dbConn == null || dbConn.isEmpty()) {
+            try {
+                String[] dbCompts = DimensionsAPI.parseDatabaseString(database);
+                dbName = dbCompts[0];
+                dbConn = dbCompts[1];
+            } catch (ParseException e) {
+                Logger.debug("Unable to parse base database '" + database + "'", e);
+            }
+        }
+        return forServer(DimensionsSession.serverKey(server, dbName, dbConn)).acquire(HEAVY);
+    }
+
+    /**
+     * Takes a permit from one of the pools of this server only if one is free and nobody is waiting for it.
+     *
+     * @return the permit, or null if there was none to spare
+     */
+    Permit tryAcquire(String pool) {
+        return pool(pool).tryAcquire(getPriority());
+    }
+
+    int getInUse(String pool) {
+        return pool(pool).inUse;
+    }
+
+    int getWaiting(String pool) {
+        Pool p = pool(pool);
+        synchronized (p) {
+            return p.builds.size() + p.polls.size();
+        }
+    }
+
+    private Pool pool(String pool) {
+        if (SESSIONS.equals(pool)) {
+            return sessions;
+        } else if (QUERIES.equals(pool)) {
+            return queries;
+        } else if (HEAVY.equals(pool)) {
+            return heavy;
+        }
+        throw new IllegalArgumentException("Unknown Dimensions bulkhead pool: " + pool);
+    }
+
+    private static int limitOf(String pool) {
+        if (SESSIONS.equals(pool)) {
+            return maxSessions;
+        } else if (QUERIES.equals(pool)) {
+            return maxQueries;
+        }
+        return maxHeavy;
+    }
+
+    /**
+     * A permit held from a pool. Releasing it more than once has no effect.
+     */
+    static final class Permit {
+        private final Pool pool;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Pool pool) {
+            this.pool = pool;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                pool.release();
+            }
+        }
+    }
+
+    /**
+     * One pool of permits, with a queue per priority.
+     */
+    private final class Pool {
+        private final String name;
+        private final Deque<Object> builds = new ArrayDeque<Object>();
+        private final Deque<Object> polls = new ArrayDeque<Object>();
+        private volatile int inUse;
+
+        Pool(String name) {
+            this.name = name;
+        }
+
+        Permit acquire(Priority priority, long timeoutMillis) {
+            final Object ticket = new Object();
+            final Deque<Object> queue = priority == Priority.POLL ? polls : builds;
+            DimensionsTracer.Scope span = null;
+            DimensionsMetrics.Timer.Context wait = null;
+            synchronized (this) {
+                if (queue.isEmpty() && canEnter(priority)) {
+                    inUse++;
+                    return new Permit(this);
+                }
+                span = DimensionsTracer.start("wait for " + name + " permit");
+                wait = DimensionsMetrics.timer("bulkhead." + name + ".queue." + priority.name().toLowerCase(Locale.ROOT)).time();
+                queue.addLast(ticket);
+                final long deadline = System.currentTimeMillis() + timeoutMillis;
+                try {
+                    while (!(queue.peekFirst() == ticket && canEnter(priority))) {
+                        long remaining = deadline - System.currentTimeMillis();
+                        if (remaining <= 0L) {
+                            DimensionsMetrics.counter("bulkhead." + name + ".timeouts").inc();
+                            span.fail();
+                            throw new DimensionsRuntimeException("Timed out after " + (timeoutMillis / 1000L)
+                                    + " seconds waiting for a Dimensions " + name + " permit on " + server);
+                        }
+                        wait(remaining);
+                    }
+                    inUse++;
+                    Logger.debug("Acquired Dimensions " + name + " permit on " + server + " after waiting "
+                            + wait.stop() + " ms");
+                    wait = null;
+                    return new Permit(this);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    span.fail();
+                    throw (DimensionsRuntimeException) new DimensionsRuntimeException("Interrupted while waiting for a "
+                            + "Dimensions " + name + " permit on " + server).initCause(e);
+                } finally {
+                    queue.remove(ticket);
+                    if (wait != null) {
+                        wait.stop();
+                    }
+                    span.end();
+                    notifyAll();
+                }
+            }
+        }
+
+        synchronized Permit tryAcquire(Priority priority) {
+            if (builds.isEmpty() && polls.isEmpty() && canEnter(priority)) {
+                inUse++;
+                return new Permit(this);
+            }
+            return null;
+        }
+
+        /**
+         * Can a caller at the head of the queue of this priority take a permit now?
+         */
+        private boolean canEnter(Priority priority) {
+            int limit = limitOf(name);
+            if (limit > 0 && inUse >= limit) {
+                return false;
+            }
+            return priority != Priority.POLL || builds.isEmpty();
+        }
+
+        synchronized void release() {
+            inUse--;
+            notifyAll();
+        }
+
+        synchronized void wake() {
+            notifyAll();
+        }
+    }
+}
@@ -6,11 +6,16 @@
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import static java.util.Comparator.*;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.TimeZone;
 import java.util.stream.Collectors;
 import org.kohsuke.stapler.export.Exported;
@@ -18,16 +23,30 @@
 
 /**
  * Represents an individual change in the changelog.
+ * <p>
+ * Jenkins keeps the changelogs of recent builds in memory, so entries are kept compact: the date is held as epoch
+ * milliseconds, developers, operations and directories are interned, and files and requests hold their object spec
+ * rather than a web client link. The links are derived from the spec and the {@link ChangeLogLinks} of the changelog
+ * when they are displayed.
+ * <p>
+ * The sorted views of the files, requests and paths are computed once and then returned as they are, until the entry
+ * changes. Once the entry is part of a {@link DimensionsChangeLogSet} it is {@linkplain #freeze() frozen}.
  */
 @ExportedBean(defaultVisibility = 999)
 public class DimensionsChangeLogEntry extends ChangeLogSet.Entry {
     private String developer;
     private String message;
     private final String identifier;
-    private Calendar date;
+    private long timestamp;
     private String version;
     private final List<FileChange> fileChanges;
     private final List<IRTRequest> irtRequests;
+    /** The identifiers of the requests added so far, to ignore duplicates. */
+    private final Set<String> requestIds = new HashSet<>();
+    private List<FileChange> filesView;
+    private List<IRTRequest> requestsView;
+    private List<String> pathsView;
+    private boolean frozen;
 
     // Digester class seems to need a no-parameter constructor else it crashes
     public DimensionsChangeLogEntry() {
@@ -41,17 +60,34 @@ public DimensionsChangeLogEntry() {
     public DimensionsChangeLogEntry(final String file, final String developer,
             final String op, final String revision, final String comment,
             final String url, final Calendar date) {
-        this.identifier = file;
-        this.developer = developer;
-        this.message = comment;
-        this.date = date;
-        this.version = revision;
-        this.fileChanges = new ArrayList<>();
+        this(file, developer, revision, comment, date != null ? date.getTimeInMillis() : 0L);
         if ((file != null && !file.isEmpty()) || (op != null && !op.isEmpty())
                 || (url != null && !url.isEmpty())) {
             add(file, op, url);
         }
-        this.irtRequests = new ArrayList<>();
+    }
+
+    /**
+     * Creates an entry without any file-changes, which are then added with {@link #addFile}.
+     * Note that `file` is the path name and revision of the first changed file, which identifies the entry.
+     */
+    DimensionsChangeLogEntry(final String file, final String developer, final String revision, final String comment,
+            final long timestamp) {
+        this.identifier = file;
+        this.developer = intern(developer);
+        this.message = comment;
+        this.timestamp = timestamp;
+        this.version = revision;
+        this.fileChanges = new ArrayList<>(1);
+        this.irtRequests = new ArrayList<>(0);
+    }
+
+    /**
+     * Gets the web client links of the changelog this entry belongs to, or null if it has none.
+     */
+    ChangeLogLinks getLinks() {
+        final ChangeLogSet<?> parent = getParent();
+        return parent instanceof DimensionsChangeLogSet ? ((DimensionsChangeLogSet) parent).getLinks() : null;
     }
 
     @Override
@@ -60,7 +96,12 @@ public void setParent(@SuppressWarnings("rawtypes") final ChangeLogSet parent) {
     }
 
     public Date getDate() {
-        return this.date.getTime();
+        return new Date(this.timestamp);
+    }
+
+    @Override
+    public long getTimestamp() {
+        return this.timestamp;
     }
 
     public String getDeveloper() {
@@ -72,23 +113,48 @@ public String getSCMComment() {
     }
 
     public void setDateString(final String dateString) {
-        this.date = Calendar.getInstance();
         final TimeZone tz = TimeZone.getTimeZone("UTC");
-        this.date.setTime(DateUtils.parse(dateString, tz));
+        final Date date = DateUtils.parse(dateString, tz);
+        this.timestamp = date != null ? date.getTime() : 0L;
     }
 
     public Collection<FileChange> getFiles() {
-        return this.fileChanges.stream()
-                .filter(Objects::nonNull)
-                .sorted()
-                .collect(Collectors.toList());
+        List<FileChange> view = this.filesView;
+        if (view == null) {
+            view = Collections.unmodifiableList(this.fileChanges.stream()
+                    .filter(Objects::nonNull)
+                    .sorted()
+                    .collect(Collectors.toList()));
+            this.filesView = view;
+        }
+        return view;
     }
 
     public Collection<IRTRequest> getRequests() {
-        return this.irtRequests.stream()
-                .filter(Objects::nonNull)
-                .sorted()
-                .collect(Collectors.toList());
+        List<IRTRequest> view = this.requestsView;
+        if (view == null) {
+            // Requests read from a changelog get their identifier after they were added, so check for duplicates again.
+            final Map<String, IRTRequest> byIdentifier = new LinkedHashMap<>();
+            final List<IRTRequest> unidentified = new ArrayList<>(0);
+            for (IRTRequest request : this.irtRequests) {
+                if (request == null) {
+                    continue;
+                }
+                final String id = request.getIdentifier();
+                if (id == null) {
+                    unidentified.add(request);
+                } else {
+                    byIdentifier.putIfAbsent(id, request);
+                }
+            }
+            final List<IRTRequest> sorted = new ArrayList<>(byIdentifier.size() + unidentified.size());
+            sorted.addAll(byIdentifier.values());
+            sorted.addAll(unidentified);
+            Collections.sort(sorted);
+            view = Collections.unmodifiableList(sorted);
+            this.requestsView = view;
+        }
+        return view;
     }
 
     @Override
@@ -98,13 +164,43 @@ public Collection<FileChange> getAffectedFiles() {
 
     @Override
     public Collection<String> getAffectedPaths() {
-        return this.fileChanges.stream()
-                .filter(Objects::nonNull)
-                .map(FileChange::getFile)
-                .filter(Objects::nonNull)
-                .sorted()
-                .distinct()
-                .collect(Collectors.toList());
+        List<String> view = this.pathsView;
+        if (view == null) {
+            view = Collections.unmodifiableList(getFiles().stream()
+                    .map(FileChange::getFile)
+                    .filter(Objects::nonNull)
+                    .sorted()
+                    .distinct()
+                    .collect(Collectors.toList()));
+            this.pathsView = view;
+        }
+        return view;
+    }
+
+    /**
+     * Computes the views of this entry once its contents are complete, so that they are never computed again.
+     * No files or requests can be added afterwards.
+     */
+    void freeze() {
+        if (!this.frozen) {
+            changed();
+            getFiles();
+            getRequests();
+            getAffectedPaths();
+            this.frozen = true;
+        }
+    }
+
+    /**
+     * Forgets the views when the contents change.
+     */
+    private void changed() {
+        if (this.frozen) {
+            throw new IllegalStateException("Changelog entry " + this.identifier + " can no longer be changed");
+        }
+        this.filesView = null;
+        this.requestsView = null;
+        this.pathsView = null;
     }
 
     @Override
@@ -112,7 +208,7 @@ public User getAuthor() {
         if (this.developer == null) {
             throw new RuntimeException("Unable to determine change's developer");
         }
-        return User.getOrCreateByIdOrFullName(this.developer);
+        return AuthorCache.get().resolve(this.developer);
     }
 
     @Override
@@ -133,7 +229,7 @@ public String getVersion() {
     }
 
     public void setUser(final String developer) {
-        this.developer = developer;
+        this.developer = intern(developer);
     }
 
     public String getUser() {
@@ -149,6 +245,10 @@ public String getComment() {
     }
 
     public void add(final FileChange fileChange) {
+        changed();
+        if (fileChange != null) {
+            fileChange.entry = this;
+        }
         this.fileChanges.add(fileChange);
     }
 
@@ -156,11 +256,20 @@ public void add(final String file, final String operation, final String url) {
         add(new FileChange(file, operation, url));
     }
 
+    /**
+     * Adds a file-change whose web client link is derived from its object spec.
+     */
+    void addFile(final String file, final String operation, final String spec) {
+        final FileChange fileChange = new FileChange(file, operation, null);
+        fileChange.setSpec(spec);
+        add(fileChange);
+    }
+
     public void addRequest(final IRTRequest irtRequest) {
-        if (!this.irtRequests.stream()
-                .filter(Objects::nonNull)
-                .map(IRTRequest::getIdentifier)
-                .anyMatch(irtRequest.identifier::equals)) {
+        final String id = irtRequest.getIdentifier();
+        if (id == null || this.requestIds.add(id)) {
+            changed();
+            irtRequest.entry = this;
             this.irtRequests.add(irtRequest);
         }
     }
@@ -169,14 +278,24 @@ public void addRequest(final String identifier, final String url, final String t
         addRequest(new IRTRequest(identifier, url, title));
     }
 
+    private static String intern(final String s) {
+        return s == null ? null : s.intern();
+    }
+
     /**
      * An individual file-change made in the repository for this entry.
      */
     @ExportedBean(defaultVisibility = 999)
     public static final class FileChange implements ChangeLogSet.AffectedFile, Comparable<FileChange> {
-        private String file;
+        /** The directory part of the path, including its trailing '/', shared between files of the same directory. */
+        private String directory;
+        /** The file name and revision, separated by ';'. */
+        private String name;
         private String operation;
+        private String spec;
+        /** The web client link written by older versions, which did not store the object spec. */
         private String url;
+        private DimensionsChangeLogEntry entry;
 
         public FileChange() {
             this("", "", "");
@@ -186,9 +305,9 @@ public FileChange() {
          * `file` is path name and revision separated by ';' character.
          */
         public FileChange(final String file, final String operation, final String url) {
-            this.file = file;
+            setFile(file);
             this.url = url;
-            this.operation = operation;
+            this.operation = intern(operation);
         }
 
         @Override
@@ -199,29 +318,45 @@ public boolean equals(final Object obj) {
                 return false;
             } else {
                 final FileChange that = (FileChange) obj;
-                return Objects.equals(this.file, that.file)
+                return Objects.equals(this.directory, that.directory)
+                        && Objects.equals(this.name, that.name)
                         && Objects.equals(this.operation, that.operation)
+                        && Objects.equals(this.spec, that.spec)
                         && Objects.equals(this.url, that.url);
             }
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(file, operation, url);
+            return Objects.hash(directory, name, operation, spec, url);
         }
 
         private static final Comparator<FileChange> COMPARATOR = nullsFirst(
                 comparing(FileChange::getFile, nullsFirst(naturalOrder()))
                         .thenComparing(FileChange::getOperation, nullsFirst(naturalOrder()))
-                        .thenComparing(FileChange::getUrl, nullsFirst(naturalOrder())));
+                        .thenComparing(FileChange::getSpec, nullsFirst(naturalOrder()))
+                        .thenComparing(FileChange::getStoredUrl, nullsFirst(naturalOrder())));
 
         @Override
         public int compareTo(final FileChange that) {
             return COMPARATOR.compare(this, that);
         }
 
+        /**
+         * Returns the web client link of the changed file, derived from its object spec, or the link stored in the
+         * changelog by older versions.
+         */
         @Exported
         public String getUrl() {
+            final String stored = getStoredUrl();
+            if (stored != null) {
+                return stored;
+            }
+            final ChangeLogLinks links = entry != null ? entry.getLinks() : null;
+            return links != null ? links.fileUrl(this.spec) : null;
+        }
+
+        String getStoredUrl() {
             return this.url == null || this.url.length() == 0 ? null : this.url;
         }
 
@@ -231,26 +366,55 @@ public String getOperation() {
         }
 
         public void setOperation(final String operation) {
-            this.operation = operation;
+            this.operation = intern(operation);
         }
 
         public void setUrl(final String url) {
             this.url = url;
         }
 
+        /**
+         * Returns the object spec of the changed item revision.
+         */
+        public String getSpec() {
+            return this.spec == null || this.spec.length() == 0 ? null : this.spec;
+        }
+
+        public void setSpec(final String spec) {
+            this.spec = spec;
+        }
+
         /**
          * Returns the path name and revision (separated by ';') of the changed file.
          */
         @Exported
         public String getFile() {
-            return this.file == null || this.file.length() == 0 ? null : this.file;
+            if (this.name == null) {
+                return null;
+            }
+            final String file = this.directory != null ? this.directory + this.name : this.name;
+            return file.length() == 0 ? null : file;
         }
 
         /**
          * Set the `file`, which is the path name and revision, separated by ';'.
          */
         public void setFile(final String file) {
-            this.file = file;
+            if (file == null) {
+                this.directory = null;
+                this.name = null;
+                return;
+            }
+            // Only look for the directory before the revision, which may itself contain '/'.
+            final int sc = file.lastIndexOf(';');
+            final int slash = file.lastIndexOf('/', sc >= 0 ? sc : file.length() - 1);
+            if (slash < 0) {
+                this.directory = null;
+                this.name = file;
+            } else {
+                this.directory = intern(file.substring(0, slash + 1));
+                this.name = file.substring(slash + 1);
+            }
         }
 
         @Override
@@ -270,7 +434,7 @@ public EditType getEditType() {
          */
         @Override
         public String getPath() {
-            return strip(file);
+            return strip(getFile());
         }
 
         /**
@@ -298,8 +462,10 @@ static String strip(final String file) {
     @ExportedBean(defaultVisibility = 999)
     public static final class IRTRequest implements Comparable<IRTRequest> {
         private String identifier;
+        /** The web client link written by older versions; it is now derived from the identifier. */
         private String url;
         private String title;
+        private DimensionsChangeLogEntry entry;
 
         public IRTRequest() {
             this("", "", "");
@@ -331,22 +497,34 @@ public int hashCode() {
         private static final Comparator<IRTRequest> COMPARATOR = nullsFirst(
                 comparing(IRTRequest::getIdentifier, nullsFirst(naturalOrder()))
                         .thenComparing(IRTRequest::getTitle, nullsFirst(naturalOrder()))
-                        .thenComparing(IRTRequest::getUrl, nullsFirst(naturalOrder())));
+                        .thenComparing(IRTRequest::getStoredUrl, nullsFirst(naturalOrder())));
 
         @Override
         public int compareTo(final IRTRequest that) {
             return COMPARATOR.compare(this, that);
         }
 
+        /**
+         * Returns the web client link of the request, derived from its identifier, or the link stored in the
+         * changelog by older versions.
+         */
         @Exported
         public String getUrl() {
-            return this.url == null || this.url.length() == 0 ? null : this.url;
+            if (this.url != null && this.url.length() != 0) {
+                return this.url;
+            }
+            final ChangeLogLinks links = entry != null ? entry.getLinks() : null;
+            return links != null ? links.requestUrl(getIdentifier()) : null;
         }
 
         public void setUrl(final String url) {
             this.url = url;
         }
 
+        String getStoredUrl() {
+            return this.url == null || this.url.length() == 0 ? null : this.url;
+        }
+
         @Exported
         public String getIdentifier() {
             return this.identifier == null || this.identifier.length() == 0 ? null : this.identifier;
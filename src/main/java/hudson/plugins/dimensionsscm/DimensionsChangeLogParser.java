@@ -23,17 +23,53 @@
 public class DimensionsChangeLogParser extends ChangeLogParser {
     @Override
     public DimensionsChangeLogSet parse(final Run run, final RepositoryBrowser<?> browser, final File changelogFile) throws IOException, SAXException {
-        return new DimensionsChangeLogSet(run, browser, digest(changelogFile));
+        final Changelog changelog = digest(changelogFile);
+        return new DimensionsChangeLogSet(run, browser, changelog.getEntries(), changelog.getLinks());
     }
 
-    private List<DimensionsChangeLogEntry> digest(final File changelogFile) throws IOException, SAXException {
+    /**
+     * What is read from a changelog file: its entries and, from the attributes of its root element, the web client
+     * links that the entries' links are derived from.
+     */
+    public static final class Changelog {
+        private final List<DimensionsChangeLogEntry> entries = new ArrayList<>();
+        private String webUrl;
+        private String dbConn;
+        private String dbName;
+
+        public void add(final DimensionsChangeLogEntry entry) {
+            entries.add(entry);
+        }
+
+        public void setWebUrl(final String webUrl) {
+            this.webUrl = webUrl;
+        }
+
+        public void setDbConn(final String dbConn) {
+            this.dbConn = dbConn;
+        }
+
+        public void setDbName(final String dbName) {
+            this.dbName = dbName;
+        }
+
+        List<DimensionsChangeLogEntry> getEntries() {
+            return entries;
+        }
+
+        ChangeLogLinks getLinks() {
+            return Values.hasText(webUrl) ? new ChangeLogLinks(webUrl, dbConn, dbName) : null;
+        }
+    }
+
+    private Changelog digest(final File changelogFile) throws IOException, SAXException {
         Logger.debug("Looking for '" + changelogFile.getPath() + "'");
         if (!changelogFile.canRead()) {
             final String message = "Specified changelog file does not exist or is not readable: " + changelogFile.getPath();
             Logger.debug(message);
             throw new FileNotFoundException(message);
         }
-        List<DimensionsChangeLogEntry> entries;
+        Changelog entries;
         try {
             // Try to parse as UTF-8 initially, changelog files created by > 0.8.11 use UTF-8 encoding.
             entries = digest(changelogFile, "UTF-8");
@@ -45,7 +81,7 @@ private List<DimensionsChangeLogEntry> digest(final File changelogFile) throws I
         return entries;
     }
 
-    private List<DimensionsChangeLogEntry> digest(final File changelogFile, final String charEncoding) throws IOException, SAXException {
+    private Changelog digest(final File changelogFile, final String charEncoding) throws IOException, SAXException {
         try (final Reader reader = (charEncoding != null)
                 ? new InputStreamReader(new FileInputStream(changelogFile), charEncoding)
                 : new FileReader(changelogFile)) {
@@ -53,11 +89,11 @@ private List<DimensionsChangeLogEntry> digest(final File changelogFile, final St
         }
     }
 
-    private List<DimensionsChangeLogEntry> digest(final Reader reader) throws IOException, SAXException {
-        final List<DimensionsChangeLogEntry> entries = new ArrayList<>();
-        final Digester digester = createDigester(entries);
+    private Changelog digest(final Reader reader) throws IOException, SAXException {
+        final Changelog changelog = new Changelog();
+        final Digester digester = createDigester(changelog);
         digester.parse(reader);
-        return entries;
+        return changelog;
     }
 
     private static boolean isUnsafeParser() {
@@ -80,6 +116,7 @@ private Digester createDigester(final Object top) throws SAXException {
         // Object creation rules fail with ClassNotFoundException if use default ClassLoader
         digester.setClassLoader(DimensionsChangeLogEntry.class.getClassLoader());
         digester.push(top);
+        digester.addSetProperties("changelog");
         digester.addObjectCreate("*/changeset", DimensionsChangeLogEntry.class);
         digester.addSetProperties("*/changeset");
         digester.addBeanPropertySetter("*/changeset/date", "dateString");
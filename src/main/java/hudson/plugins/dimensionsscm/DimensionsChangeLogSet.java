@@ -13,16 +13,33 @@
  */
 public final class DimensionsChangeLogSet extends ChangeLogSet<DimensionsChangeLogEntry> {
     private final List<DimensionsChangeLogEntry> entries;
+    private final ChangeLogLinks links;
 
     DimensionsChangeLogSet(final Run<?, ?> run, final RepositoryBrowser<?> browser, final List<DimensionsChangeLogEntry> entries) {
+        this(run, browser, entries, null);
+    }
+
+    DimensionsChangeLogSet(final Run<?, ?> run, final RepositoryBrowser<?> browser, final List<DimensionsChangeLogEntry> entries,
+            final ChangeLogLinks links) {
         super(run, browser);
+        this.links = links;
         final List<DimensionsChangeLogEntry> list = new ArrayList<>(entries.size());
         list.addAll(entries);
         Collections.reverse(list);
-        list.forEach(entry -> entry.setParent(this));
+        list.forEach(entry -> {
+            entry.setParent(this);
+            entry.freeze();
+        });
         this.entries = list;
     }
 
+    /**
+     * Gets the web client links shared by the files and requests of this changelog, or null if it has none.
+     */
+    ChangeLogLinks getLinks() {
+        return links;
+    }
+
     @Override
     public boolean isEmptySet() {
         return entries.isEmpty();
@@ -20,17 +20,34 @@ private DimensionsChangeLogWriter() {
      * Save the list of changes to the changelogFile.
      */
     static void writeLog(List<? extends DimensionsChangeLogEntry> entries, File changelogFile) throws IOException {
+        writeLog(entries, changelogFile, null);
+    }
+
+    /**
+     * Save the list of changes to the changelogFile, with the web client links of its files and requests.
+     *
+     * @param links the links to record once in a new changelog, from which the links of each file and request are
+     *              derived, or null if there are none
+     */
+    static void writeLog(List<? extends DimensionsChangeLogEntry> entries, File changelogFile, ChangeLogLinks links)
+            throws IOException {
         boolean appendFile = false;
         if (changelogFile.exists()) {
             if (changelogFile.length() > 0) {
                 appendFile = true;
             }
         }
+        final long lengthBefore = appendFile ? changelogFile.length() : 0L;
+        DimensionsMetrics.Timer.Context timing = DimensionsMetrics.timer("changelog.write").time();
+        DimensionsTracer.Scope span = DimensionsTracer.start("write changelog XML");
         PrintWriter writer = null;
         try {
             writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(changelogFile, appendFile), "UTF-8"));
-            write(entries, writer, appendFile);
+            write(entries, writer, appendFile, links);
             writer.flush();
+            timing.stop();
+            DimensionsMetrics.histogram("changelog.entries").update(entries != null ? entries.size() : 0);
+            DimensionsMetrics.histogram("changelog.bytes").update(changelogFile.length() - lengthBefore);
         } catch (IOException e) {
             String message = Values.exceptionMessage("Unable to write changelog file: " + changelogFile, e, "no message");
             Logger.debug(message, e);
@@ -39,18 +56,26 @@ static void writeLog(List<? extends DimensionsChangeLogEntry> entries, File chan
             if (writer != null) {
                 writer.close();
             }
+            span.end();
         }
     }
 
     /**
      * Write the list of changes to the PrintWriter.
      */
-    private static void write(List<? extends DimensionsChangeLogEntry> entries, PrintWriter pw, boolean appendFile) {
+    private static void write(List<? extends DimensionsChangeLogEntry> entries, PrintWriter pw, boolean appendFile,
+            ChangeLogLinks links) {
         Logger.debug("Writing logfile in append mode = " + appendFile);
         String logStr = "";
         if (!appendFile) {
             pw.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
-            pw.println("<changelog>");
+            if (links != null && links.getWebUrl() != null) {
+                pw.println(String.format("<changelog webUrl=\"%s\" dbConn=\"%s\" dbName=\"%s\">",
+                        escapeXML(links.getWebUrl()), escapeXML(Values.textOrElse(links.getDbConn(), "")),
+                        escapeXML(Values.textOrElse(links.getDbName(), ""))));
+            } else {
+                pw.println("<changelog>");
+            }
         }
         if (entries != null) {
             for (DimensionsChangeLogEntry entry : entries) {
@@ -60,14 +85,24 @@ private static void write(List<? extends DimensionsChangeLogEntry> entries, Prin
                 logStr += String.format("\t\t<comment>%s</comment>\n", escapeXML(entry.getSCMComment()));
                 logStr += "\t\t<items>\n";
                 for (DimensionsChangeLogEntry.FileChange item : entry.getFiles()) {
-                    logStr += String.format("\t\t\t<item operation=\"%s\" url=\"%s\">%s</item>\n", item.getOperation(),
-                            escapeXML(item.getUrl()), escapeXML(item.getFile()));
+                    if (item.getSpec() != null) {
+                        logStr += String.format("\t\t\t<item operation=\"%s\" spec=\"%s\">%s</item>\n", item.getOperation(),
+                                escapeXML(item.getSpec()), escapeXML(item.getFile()));
+                    } else {
+                        logStr += String.format("\t\t\t<item operation=\"%s\" url=\"%s\">%s</item>\n", item.getOperation(),
+                                escapeXML(item.getStoredUrl()), escapeXML(item.getFile()));
+                    }
                 }
                 logStr += "\t\t</items>\n";
                 logStr += "\t\t<requests>\n";
                 for (DimensionsChangeLogEntry.IRTRequest req : entry.getRequests()) {
-                    logStr += String.format("\t\t\t<request url=\"%s\" title=\"%s\">%s</request>\n",
-                            escapeXML(req.getUrl()), escapeXML(req.getTitle()), escapeXML(req.getIdentifier()));
+                    if (req.getStoredUrl() != null) {
+                        logStr += String.format("\t\t\t<request url=\"%s\" title=\"%s\">%s</request>\n",
+                                escapeXML(req.getStoredUrl()), escapeXML(req.getTitle()), escapeXML(req.getIdentifier()));
+                    } else {
+                        logStr += String.format("\t\t\t<request title=\"%s\">%s</request>\n",
+                                escapeXML(req.getTitle()), escapeXML(req.getIdentifier()));
+                    }
                 }
                 logStr += "\t\t</requests>\n";
                 logStr += "\t</changeset>\n";
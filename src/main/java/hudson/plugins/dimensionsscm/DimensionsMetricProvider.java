@@ -0,0 +1,73 @@
+package hudson.plugins.dimensionsscm;
+
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import java.util.HashMap;
+import java.util.Map;
+import jenkins.metrics.api.MetricProvider;
+import jenkins.metrics.api.Metrics;
+
+/**
+ * Publishes {@link DimensionsMetrics} as {@code dimensionsscm.*} gauges when the Metrics plugin is installed.
+ * <p>
+ * The Metrics plugin reads the metric set once, so metrics that are first used later (e.g. the timer of a command
+ * verb that had not been run yet) are added to its registry as they are created.
+ */
+@Extension(optional = true)
+public class DimensionsMetricProvider extends MetricProvider {
+    private static final String PREFIX = "dimensionsscm";
+
+    /** Set once the Metrics plugin has read the metric set, after which new metrics are registered directly. */
+    private volatile boolean published;
+
+    public DimensionsMetricProvider() {
+        DimensionsMetrics.addListener(new DimensionsMetrics.Listener() {
+            @Override
+            public void metricAdded(String name, Object metric) {
+                MetricRegistry registry = published ? Metrics.metricRegistry() : null;
+                if (registry == null) {
+                    return;
+                }
+                for (Map.Entry<String, Metric> gauge : toGauges(name, metric).entrySet()) {
+                    try {
+                        registry.register(gauge.getKey(), gauge.getValue());
+                    } catch (IllegalArgumentException e) {
+                        Logger.debug("Metric '" + gauge.getKey() + "' is already registered");
+                    }
+                }
+            }
+        });
+    }
+
+    @NonNull
+    @Override
+    public MetricSet getMetricSet() {
+        final Map<String, Metric> metrics = new HashMap<String, Metric>();
+        for (Map.Entry<String, Object> metric : DimensionsMetrics.getMetrics().entrySet()) {
+            metrics.putAll(toGauges(metric.getKey(), metric.getValue()));
+        }
+        published = true;
+        return new MetricSet() {
+            @Override
+            public Map<String, Metric> getMetrics() {
+                return metrics;
+            }
+        };
+    }
+
+    private static Map<String, Metric> toGauges(String name, Object metric) {
+        Map<String, Metric> gauges = new HashMap<String, Metric>();
+        for (final Map.Entry<String, DimensionsMetrics.Gauge> value : DimensionsMetrics.values(name, metric).entrySet()) {
+            gauges.put(MetricRegistry.name(PREFIX, value.getKey()), new com.codahale.metrics.Gauge<Long>() {
+                @Override
+                public Long getValue() {
+                    return value.getValue().getValue();
+                }
+            });
+        }
+        return gauges;
+    }
+}
@@ -0,0 +1,380 @@
+package hudson.plugins.dimensionsscm;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Plugin-wide counters, timers and histograms for Dimensions operations.
+ * <p>
+ * Metrics are created on first use and live for the life of the JVM. They are exposed through JMX as
+ * {@value #OBJECT_NAME} and, when the Metrics plugin is installed, as {@code dimensionsscm.*} gauges in its registry
+ * (see {@link DimensionsMetricProvider}). Metrics recorded by tasks that run on an agent stay in the agent's JVM.
+ */
+final class DimensionsMetrics {
+    static final String OBJECT_NAME = "hudson.plugins.dimensionsscm:type=DimensionsMetrics";
+
+    private static final ConcurrentMap<String, Object> METRICS = new ConcurrentHashMap<String, Object>();
+
+    private static final List<Listener> LISTENERS = new CopyOnWriteArrayList<Listener>();
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MXBeanImpl(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            Logger.debug("Dimensions metrics MBean is already registered");
+        } catch (JMException e) {
+            Logger.debug("Unable to register the Dimensions metrics MBean", e);
+        } catch (RuntimeException e) {
+            Logger.debug("Unable to register the Dimensions metrics MBean", e);
+        }
+    }
+
+    private DimensionsMetrics() {
+        /* prevent instantiation. */
+    }
+
+    /**
+     * A value read when the metrics are reported.
+     */
+    interface Gauge {
+        long getValue();
+    }
+
+    /**
+     * Notified when a metric is first created.
+     */
+    interface Listener {
+        void metricAdded(String name, Object metric);
+    }
+
+    /**
+     * A count that can go up and down.
+     */
+    static final class Counter {
+        private final AtomicLong count = new AtomicLong();
+
+        void inc() {
+            count.incrementAndGet();
+        }
+
+        void inc(long n) {
+            count.addAndGet(n);
+        }
+
+        void dec() {
+            count.decrementAndGet();
+        }
+
+        long getCount() {
+            return count.get();
+        }
+
+        private void reset() {
+            count.set(0L);
+        }
+    }
+
+    /**
+     * The count, total, minimum and maximum of a series of values.
+     */
+    static final class Histogram {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+        void update(long value) {
+            count.incrementAndGet();
+            total.addAndGet(value);
+            long current;
+            while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+                /* retry. */
+            }
+            while (value < (current = min.get()) && !min.compareAndSet(current, value)) {
+                /* retry. */
+            }
+        }
+
+        long getCount() {
+            return count.get();
+        }
+
+        long getTotal() {
+            return total.get();
+        }
+
+        long getMean() {
+            long n = count.get();
+            return n == 0L ? 0L : total.get() / n;
+        }
+
+        long getMax() {
+            return count.get() == 0L ? 0L : max.get();
+        }
+
+        long getMin() {
+            return count.get() == 0L ? 0L : min.get();
+        }
+
+        private void reset() {
+            count.set(0L);
+            total.set(0L);
+            max.set(Long.MIN_VALUE);
+            min.set(Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * A histogram of durations, in nanoseconds.
+     */
+    static final class Timer {
+        private final Histogram nanos = new Histogram();
+
+        Context time() {
+            return new Context(this);
+        }
+
+        void update(long elapsedNanos) {
+            nanos.update(elapsedNanos);
+        }
+
+        long getCount() {
+            return nanos.getCount();
+        }
+
+        Histogram getNanos() {
+            return nanos;
+        }
+
+        /**
+         * One timing, started when it is created.
+         */
+        static final class Context {
+            private final Timer timer;
+            private final long start = System.nanoTime();
+
+            private Context(Timer timer) {
+                this.timer = timer;
+            }
+
+            /**
+             * Records the time since the context was created.
+             *
+             * @return the elapsed time in milliseconds
+             */
+            long stop() {
+                long elapsed = System.nanoTime() - start;
+                timer.update(elapsed);
+                return TimeUnit.NANOSECONDS.toMillis(elapsed);
+            }
+        }
+    }
+
+    static Counter counter(String name) {
+        return get(name, Counter.class);
+    }
+
+    static Histogram histogram(String name) {
+        return get(name, Histogram.class);
+    }
+
+    static Timer timer(String name) {
+        return get(name, Timer.class);
+    }
+
+    /**
+     * Registers a gauge, unless a metric with the same name already exists.
+     */
+    static void gauge(String name, Gauge gauge) {
+        if (METRICS.putIfAbsent(name, gauge) == null) {
+            fireAdded(name, gauge);
+        }
+    }
+
+    static void addListener(Listener listener) {
+        LISTENERS.add(listener);
+    }
+
+    static void removeListener(Listener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Gets all the metrics, sorted by name.
+     */
+    static Map<String, Object> getMetrics() {
+        return Collections.unmodifiableMap(new TreeMap<String, Object>(METRICS));
+    }
+
+    /**
+     * Gets the values reported for a metric, keyed by reported name. Counters and gauges report a single value;
+     * histograms report {@code .count}, {@code .mean}, {@code .min}, {@code .max} and {@code .total}; timers report
+     * {@code .count}, {@code .mean_ms}, {@code .max_ms} and {@code .total_ms}.
+     */
+    static Map<String, Gauge> values(String name, final Object metric) {
+        Map<String, Gauge> values = new LinkedHashMap<String, Gauge>();
+        if (metric instanceof Counter) {
+            values.put(name, new Gauge() {
+                @Override
+                public long getValue() {
+                    return ((Counter) metric).getCount();
+                }
+            });
+        } else if (metric instanceof Gauge) {
+            values.put(name, (Gauge) metric);
+        } else if (metric instanceof Histogram) {
+            final Histogram h = (Histogram) metric;
+            values.put(name + ".count", new Gauge() {
+                @Override
+                public long getValue() {
+                    return h.getCount();
+                }
+            });
+            values.put(name + ".mean", new Gauge() {
+                @Override
+                public long getValue() {
+                    return h.getMean();
+                }
+            });
+            values.put(name + ".min", new Gauge() {
+                @Override
+                public long getValue() {
+                    return h.getMin();
+                }
+            });
+            values.put(name + ".max", new Gauge() {
+                @Override
+                public long getValue() {
+                    return h.getMax();
+                }
+            });
+            values.put(name + ".total", new Gauge() {
+                @Override
+                public long getValue() {
+                    return h.getTotal();
+                }
+            });
+        } else if (metric instanceof Timer) {
+            final Histogram h = ((Timer) metric).getNanos();
+            values.put(name + ".count", new Gauge() {
+                @Override
+                public long getValue() {
+                    return h.getCount();
+                }
+            });
+            values.put(name + ".mean_ms", new Gauge() {
+                @Override
+                public long getValue() {
+                    return TimeUnit.NANOSECONDS.toMillis(h.getMean());
+                }
+            });
+            values.put(name + ".max_ms", new Gauge() {
+                @Override
+                public long getValue() {
+                    return TimeUnit.NANOSECONDS.toMillis(h.getMax());
+                }
+            });
+            values.put(name + ".total_ms", new Gauge() {
+                @Override
+                public long getValue() {
+                    return TimeUnit.NANOSECONDS.toMillis(h.getTotal());
+                }
+            });
+        }
+        return values;
+    }
+
+    /**
+     * Resets all counters, histograms and timers. Gauges are not affected.
+     */
+    static void reset() {
+        for (Object metric : METRICS.values()) {
+            if (metric instanceof Counter) {
+                ((Counter) metric).reset();
+            } else if (metric instanceof Histogram) {
+                ((Histogram) metric).reset();
+            } else if (metric instanceof Timer) {
+                ((Timer) metric).getNanos().reset();
+            }
+        }
+    }
+
+    /**
+     * Gets the verb of a Dimensions command line (e.g. {@code UPDATE} for {@code UPDATE /BRIEF /DIR=...}), to name
+     * its timer.
+     */
+    static String commandVerb(String cmd) {
+        String verb = cmd.trim();
+        for (int i = 0; i < verb.length(); ++i) {
+            char c = verb.charAt(i);
+            if (Character.isWhitespace(c) || c == '/' || c == '"') {
+                verb = verb.substring(0, i);
+                break;
+            }
+        }
+        return verb.length() == 0 ? "UNKNOWN" : verb.toUpperCase(Values.ROOT_LOCALE);
+    }
+
+    private static <T> T get(String name, Class<T> type) {
+        Object metric = METRICS.get(name);
+        if (metric == null) {
+            try {
+                T created = type.newInstance();
+                metric = METRICS.putIfAbsent(name, created);
+                if (metric == null) {
+                    fireAdded(name, created);
+                    return created;
+                }
+            } catch (InstantiationException e) {
+                throw new IllegalStateException(e);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        if (!type.isInstance(metric)) {
+            throw new IllegalArgumentException("Metric '" + name + "' is a " + metric.getClass().getSimpleName()
+                    + ", not a " + type.getSimpleName());
+        }
+        return type.cast(metric);
+    }
+
+    private static void fireAdded(String name, Object metric) {
+        for (Listener listener : LISTENERS) {
+            try {
+                listener.metricAdded(name, metric);
+            } catch (RuntimeException e) {
+                Logger.debug("Metrics listener failed for '" + name + "'", e);
+            }
+        }
+    }
+
+    private static final class MXBeanImpl implements DimensionsMetricsMXBean {
+        @Override
+        public Map<String, Long> getValues() {
+            Map<String, Long> values = new TreeMap<String, Long>();
+            for (Map.Entry<String, Object> metric : METRICS.entrySet()) {
+                for (Map.Entry<String, Gauge> value : values(metric.getKey(), metric.getValue()).entrySet()) {
+                    values.put(value.getKey(), value.getValue().getValue());
+                }
+            }
+            return values;
+        }
+
+        @Override
+        public void reset() {
+            DimensionsMetrics.reset();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package hudson.plugins.dimensionsscm;
+
+import java.util.Map;
+
+/**
+ * JMX view of the plugin's Dimensions operation metrics.
+ */
+public interface DimensionsMetricsMXBean {
+    /**
+     * Gets the current value of every metric, keyed by reported name.
+     */
+    Map<String, Long> getValues();
+
+    /**
+     * Resets all counters, histograms and timers.
+     */
+    void reset();
+}
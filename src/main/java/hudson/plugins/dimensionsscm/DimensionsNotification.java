@@ -0,0 +1,141 @@
+package hudson.plugins.dimensionsscm;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A change notification sent by a Dimensions server (or a script standing in for one) to
+ * {@link DimensionsNotifyAction}: a change set or delivery to a project, optionally naming the server, base database
+ * and the paths that changed.
+ */
+final class DimensionsNotification {
+    private final String server;
+    private final String dbName;
+    private final String dbConn;
+    private final String project;
+    private final List<String> paths;
+
+    /**
+     * @param server   Dimensions server, or null to match any server
+     * @param database base database as "NAME" or "NAME@CONNECTION", or null to match any database
+     * @param dbConn   database connection, or null if it is part of {@code database} or to match any connection
+     * @param project  project or stream spec, e.g. "QLARIUS:QLARIUS_JAVA_BRANCHA_STR" (a version suffix is ignored)
+     * @param paths    project-relative paths that changed, or empty if not known
+     */
+    DimensionsNotification(String server, String database, String dbConn, String project, List<String> paths) {
+        String name = Values.textOrElse(trim(database), null);
+        String conn = Values.textOrElse(trim(dbConn), null);
+        if (conn == null && name != null && name.indexOf('@') >= 0) {
+            try {
+                String[] parts = DimensionsAPI.parseDatabaseString(name);
+                name = parts[0];
+                conn = parts[1];
+            } catch (ParseException e) {
+                throw new IllegalArgumentException("Invalid database: " + database, e);
+            }
+        }
+        if (!Values.hasText(project)) {
+            throw new IllegalArgumentException("No project was given");
+        }
+        this.server = Values.textOrElse(trim(server), null);
+        this.dbName = name;
+        this.dbConn = conn;
+        this.project = stripVersion(project.trim());
+        List<String> normalized = new ArrayList<String>();
+        if (paths != null) {
+            for (String path : paths) {
+                if (Values.hasText(path)) {
+                    normalized.add(normalize(path));
+                }
+            }
+        }
+        this.paths = Collections.unmodifiableList(normalized);
+    }
+
+    String getProject() {
+        return project;
+    }
+
+    List<String> getPaths() {
+        return paths;
+    }
+
+    /**
+     * Does the notification affect a job with the given repository settings?
+     * <p>
+     * The server, database and project must be the same (ignoring case). If the notification names paths, at least
+     * one of them must be inside one of the job's folders and not be excluded by the job's path matcher.
+     *
+     * @param jobProject the job's unexpanded project spec; a spec containing variables never matches
+     * @param folders    the job's folders, where null or empty means the whole project
+     * @param matcher    the job's exclusions
+     */
+    boolean matches(String jobServer, String jobDbName, String jobDbConn, String jobProject, String[] folders,
+            PathMatcher matcher) {
+        if (jobProject == null || jobProject.indexOf('$') >= 0) {
+            return false;
+        }
+        if (!sameAs(server, jobServer) || !sameAs(dbName, jobDbName) || !sameAs(dbConn, jobDbConn)) {
+            return false;
+        }
+        if (!project.equalsIgnoreCase(stripVersion(jobProject.trim()))) {
+            return false;
+        }
+        if (paths.isEmpty()) {
+            return true;
+        }
+        for (String path : paths) {
+            if (inFolders(path, folders) && (matcher == null || matcher.match(path))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return project + (server != null ? " on " + server : "") + (dbName != null ? " " + dbName : "")
+                + (dbConn != null ? "@" + dbConn : "") + " " + Values.toString(paths);
+    }
+
+    private static boolean inFolders(String path, String[] folders) {
+        if (Values.isNullOrEmpty(folders)) {
+            return true;
+        }
+        for (String folder : folders) {
+            String dir = normalize(folder == null ? "" : folder);
+            if (dir.endsWith("/")) {
+                dir = dir.substring(0, dir.length() - 1);
+            }
+            if (dir.isEmpty() || dir.equals(".") || path.equalsIgnoreCase(dir)
+                    || path.toLowerCase(Locale.ROOT).startsWith(dir.toLowerCase(Locale.ROOT) + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean sameAs(String notified, String configured) {
+        return notified == null || (configured != null && notified.equalsIgnoreCase(configured.trim()));
+    }
+
+    private static String stripVersion(String spec) {
+        final int sc = spec.lastIndexOf(';');
+        return sc >= 0 ? spec.substring(0, sc) : spec;
+    }
+
+    private static String normalize(String path) {
+        String p = path.trim().replace('\\', '/');
+        while (p.startsWith("/")) {
+            p = p.substring(1);
+        }
+        return p;
+    }
+
+    private static String trim(String value) {
+        return value == null ? null : value.trim();
+    }
+}
@@ -0,0 +1,180 @@
+package hudson.plugins.dimensionsscm;
+
+import hudson.Extension;
+import hudson.model.Cause;
+import hudson.model.CauseAction;
+import hudson.model.Job;
+import hudson.model.UnprotectedRootAction;
+import hudson.scm.SCM;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.security.csrf.CrumbExclusion;
+import hudson.util.Secret;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import jenkins.model.Jenkins;
+import jenkins.triggers.SCMTriggerItem;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+/**
+ * Endpoint for Dimensions change notifications, so that jobs can be built when their project changes instead of
+ * polling for changes.
+ * <p>
+ * A notification is a POST to {@code <Jenkins URL>/dimensions-notify/} with the parameters {@code project} and
+ * optionally {@code server}, {@code database}, {@code dbConn} and {@code path} (repeated, or separated by commas or
+ * new lines). It must carry the notification token from the global configuration, either as the
+ * {@code X-Dimensions-Token} header or as the {@code token} parameter. Every job whose Dimensions project, folders and
+ * exclusions match the notification is scheduled. The endpoint is disabled until a token has been configured.
+ */
+@Extension
+public class DimensionsNotifyAction implements UnprotectedRootAction {
+    static final String URL_NAME = "dimensions-notify";
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return URL_NAME;
+    }
+
+    /**
+     * Receives a notification and schedules the matching jobs.
+     */
+    @RequirePOST
+    public void doIndex(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        Secret expected = DimensionsSCM.DM_DESCRIPTOR.getNotifyToken();
+        if (expected == null || expected.getPlainText().isEmpty()) {
+            rsp.sendError(HttpServletResponse.SC_NOT_FOUND, "Dimensions change notifications are not enabled");
+            return;
+        }
+        String token = Values.textOrElse(req.getHeader("X-Dimensions-Token"), req.getParameter("token"));
+        if (token == null || !MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                expected.getPlainText().getBytes(StandardCharsets.UTF_8))) {
+            rsp.sendError(HttpServletResponse.SC_FORBIDDEN, "Invalid Dimensions notification token");
+            return;
+        }
+
+        DimensionsNotification notification;
+        try {
+            notification = new DimensionsNotification(req.getParameter("server"), req.getParameter("database"),
+                    req.getParameter("dbConn"), req.getParameter("project"), splitPaths(req.getParameterValues("path")));
+        } catch (IllegalArgumentException e) {
+            rsp.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        DimensionsMetrics.counter("notify.received").inc();
+        Logger.debug("Received Dimensions change notification: " + notification);
+
+        List<String> scheduled = schedule(notification);
+        DimensionsMetrics.histogram("notify.scheduled").update(scheduled.size());
+
+        rsp.setContentType("text/plain;charset=UTF-8");
+        PrintWriter w = rsp.getWriter();
+        w.println("Scheduled " + scheduled.size() + " job(s) for " + notification.getProject());
+        for (String name : scheduled) {
+            w.println(name);
+        }
+        w.flush();
+    }
+
+    /**
+     * Schedules a build of every job that uses Dimensions and is affected by the notification.
+     *
+     * @return the full names of the scheduled jobs
+     */
+    static List<String> schedule(DimensionsNotification notification) {
+        List<String> scheduled = new ArrayList<String>();
+        try (ACLContext ctx = ACL.as2(ACL.SYSTEM2)) {
+            for (Job<?, ?> job : Jenkins.get().allItems(Job.class)) {
+                SCMTriggerItem item = SCMTriggerItem.SCMTriggerItems.asSCMTriggerItem(job);
+                if (item == null) {
+                    continue;
+                }
+                for (SCM scm : item.getSCMs()) {
+                    if (scm instanceof DimensionsSCM && matches(notification, (DimensionsSCM) scm)) {
+                        if (item.scheduleBuild2(item.getQuietPeriod(),
+                                new CauseAction(new NotifyCause(notification.getProject()))) != null) {
+                            Logger.debug("Scheduled " + job.getFullName() + " for Dimensions change notification");
+                            scheduled.add(job.getFullName());
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        return scheduled;
+    }
+
+    private static boolean matches(DimensionsNotification notification, DimensionsSCM scm) {
+        return notification.matches(scm.getServer(), scm.getDatabase(), scm.getDbConn(), scm.getProject(),
+                Values.convertListToArray(scm.getFolders()), scm.createPathMatcher());
+    }
+
+    private static List<String> splitPaths(String[] values) {
+        List<String> paths = new ArrayList<String>();
+        if (values != null) {
+            for (String value : values) {
+                if (value != null) {
+                    paths.addAll(Arrays.asList(value.split("[,\\r\\n]+")));
+                }
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Cause of a build started by a Dimensions change notification.
+     */
+    public static class NotifyCause extends Cause {
+        private final String project;
+
+        public NotifyCause(String project) {
+            this.project = project;
+        }
+
+        public String getProject() {
+            return project;
+        }
+
+        @Override
+        public String getShortDescription() {
+            return "Started by Dimensions change notification for " + project;
+        }
+    }
+
+    /**
+     * Notifications come from outside Jenkins, so they cannot carry a crumb; the token protects the endpoint instead.
+     */
+    @Extension
+    public static class CrumbExclusionImpl extends CrumbExclusion {
+        @Override
+        public boolean process(HttpServletRequest req, HttpServletResponse resp, FilterChain chain)
+                throws IOException, ServletException {
+            String pathInfo = req.getPathInfo();
+            if (pathInfo != null && (pathInfo.equals("/" + URL_NAME) || pathInfo.startsWith("/" + URL_NAME + "/"))) {
+                chain.doFilter(req, resp);
+                return true;
+            }
+            return false;
+        }
+    }
+}
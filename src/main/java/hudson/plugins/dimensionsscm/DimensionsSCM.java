@@ -51,6 +51,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.Callable;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import jenkins.model.Jenkins;
@@ -72,6 +73,7 @@ public class DimensionsSCM extends SCM implements Serializable {
 
     private transient String jobPasswd;
     private transient DimensionsAPI cachedAPI;
+    private transient volatile PathMatcher pathMatcher;
     private transient DimensionsSCMRepositoryBrowser browser;
 
     private String credentialsId;
@@ -96,14 +98,18 @@ public class DimensionsSCM extends SCM implements Serializable {
     private String[] pathsToExclude;
     private List<StringVarStorage> foldersList;
     private List<StringVarStorage> pathsToExcludeList;
+    private List<StringVarStorage> pathsToInclude;
     private boolean canJobUpdate;
     private boolean canJobDelete;
+    private boolean canJobDeleteInBackground;
+    private boolean canJobPrefetch;
     private boolean canJobForce;
     private boolean canJobRevert;
     private boolean canJobExpand;
     private boolean canJobNoMetadata;
     private boolean canJobNoTouch;
     private boolean secureAgentAuth;
+    private String baseline;
 
     @DataBoundConstructor
     public DimensionsSCM(final String project, final String credentialsType, final String userName, final String password,
@@ -158,7 +164,7 @@ public DimensionsSCM(final String project, final String credentialsType, final S
                 + ", connecting to " + getServer() + "-" + getUserName() + ":" + getDatabase());
     }
 
-    private static DimensionsAPI newDimensionsAPIWithCheck() {
+    static DimensionsAPI newDimensionsAPIWithCheck() {
         try {
             return new DimensionsAPI();
         } catch (NoClassDefFoundError e) {
@@ -232,6 +238,9 @@ public boolean isChecked(final String type) {
      * That lead to a NoClassDefFoundError, which broke the job configuration
      * page. The trivial workaround was to make this method non-public.
      * If it needs to be public in future, renaming it may be enough.
+     * <p>
+     * The API keeps the details of each login in a {@link DimensionsSession} of its own, and is given the logger and
+     * path matcher by each operation, so the cached instance is shared safely by concurrent builds and polls.
      */
     DimensionsAPI getAPI() {
         DimensionsAPI api = this.cachedAPI;
@@ -337,6 +346,13 @@ public List<StringVarStorage> getPathsToExclude() {
         return pathsToExcludeList;
     }
 
+    /**
+     * Gets the only paths to monitor, or an empty list to monitor all paths that are not excluded.
+     */
+    public List<StringVarStorage> getPathsToInclude() {
+        return pathsToInclude != null ? pathsToInclude : EMPTY_STRING_LIST;
+    }
+
     /**
      * Gets the user ID for the connection.
      */
@@ -615,6 +631,20 @@ public boolean isCanJobDelete() {
         return this.canJobDelete;
     }
 
+    /**
+     * Gets the flag to delete the old contents of a workspace in the background when it is cleared.
+     */
+    public boolean isCanJobDeleteInBackground() {
+        return this.canJobDeleteInBackground;
+    }
+
+    /**
+     * Gets the flag to update the workspace in the background when polling finds changes.
+     */
+    public boolean isCanJobPrefetch() {
+        return this.canJobPrefetch;
+    }
+
     /**
      * Gets the force flag.
      */
@@ -629,6 +659,13 @@ public boolean isCanJobRevert() {
         return this.canJobRevert;
     }
 
+    /**
+     * Gets the baseline that is checked out when a build has no {@code DM_BASELINE} parameter, or null.
+     */
+    public String getBaseline() {
+        return Values.textOrElse(this.baseline, null);
+    }
+
     @DataBoundSetter
     public void setFolders(final List<StringVarStorage> folders) {
         this.foldersList = Values.notBlankOrElseList(folders, DEFAULT_FOLDERS);
@@ -637,6 +674,13 @@ public void setFolders(final List<StringVarStorage> folders) {
     @DataBoundSetter
     public void setPathsToExclude(final List<StringVarStorage> pathsToExclude) {
         this.pathsToExcludeList = Values.notBlankOrElseList(pathsToExclude, EMPTY_STRING_LIST);
+        this.pathMatcher = null;
+    }
+
+    @DataBoundSetter
+    public void setPathsToInclude(final List<StringVarStorage> pathsToInclude) {
+        this.pathsToInclude = Values.notBlankOrElseList(pathsToInclude, EMPTY_STRING_LIST);
+        this.pathMatcher = null;
     }
 
     @DataBoundSetter
@@ -670,6 +714,16 @@ public void setCanJobDelete(final boolean canJobDelete) {
         this.canJobDelete = canJobDelete;
     }
 
+    @DataBoundSetter
+    public void setCanJobDeleteInBackground(final boolean canJobDeleteInBackground) {
+        this.canJobDeleteInBackground = canJobDeleteInBackground;
+    }
+
+    @DataBoundSetter
+    public void setCanJobPrefetch(final boolean canJobPrefetch) {
+        this.canJobPrefetch = canJobPrefetch;
+    }
+
     @DataBoundSetter
     public void setCanJobForce(final boolean canJobForce) {
         this.canJobForce = canJobForce;
@@ -695,6 +749,14 @@ public void setCanJobNoTouch(final boolean canJobNoTouch) {
         this.canJobNoTouch = canJobUpdate && canJobNoTouch;
     }
 
+    /**
+     * Sets a baseline to check out instead of the project, as for the baselines found by a {@link DimensionsSCMSource}.
+     */
+    @DataBoundSetter
+    public void setBaseline(final String baseline) {
+        this.baseline = Values.textOrElse(baseline, null);
+    }
+
     /**
      * Does this SCM plugin require a workspace for polling?
      * <p>
@@ -758,6 +820,43 @@ public String getParameterFromBuild(final WorkflowRun build, final String parame
         return parValue;
     }
 
+    /**
+     * Get a build parameter for either a freestyle build or a Pipeline run.
+     */
+    @CheckForNull
+    static String getParameterFromRun(final Run<?, ?> run, final String parameterName) {
+        if (run instanceof AbstractBuild) {
+            return ((AbstractBuild<?, ?>) run).getBuildVariableResolver().resolve(parameterName);
+        }
+        for (ParametersAction parametersAction : run.getActions(ParametersAction.class)) {
+            ParameterValue parameterValue = parametersAction.getParameter(parameterName);
+            if (parameterValue != null) {
+                return String.valueOf(parameterValue.getValue());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Find the Dimensions SCM used by a build. For a freestyle build this is the job's SCM, for a Pipeline run it is
+     * the first Dimensions SCM that has been checked out by the run so far.
+     */
+    @CheckForNull
+    static DimensionsSCM findSCM(final Run<?, ?> run) {
+        if (run instanceof AbstractBuild) {
+            SCM scm = ((AbstractBuild<?, ?>) run).getProject().getScm();
+            return scm instanceof DimensionsSCM ? (DimensionsSCM) scm : null;
+        }
+        if (run instanceof WorkflowRun) {
+            for (SCM scm : ((WorkflowRun) run).getSCMs()) {
+                if (scm instanceof DimensionsSCM) {
+                    return (DimensionsSCM) scm;
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      * Checkout method for the plugin.
      * <p>
@@ -782,19 +881,45 @@ public void checkout(@NonNull final Run<?, ?> build, @NonNull final Launcher lau
             listener.fatalError("\n[DIMENSIONS] Please review online help to determine valid plugin uses.");
             throw new IOException("Error: you have selected wrong plugin combinations.");
         }
+        final DimensionsTracer.Scope span = DimensionsTracer.start(build, "checkout");
+        try {
+            checkoutAndGenerateChangeSet(build, workspace, listener, changelogFile);
+        } catch (IOException e) {
+            span.fail();
+            throw e;
+        } catch (InterruptedException e) {
+            span.fail();
+            throw e;
+        } catch (RuntimeException e) {
+            span.fail();
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    private void checkoutAndGenerateChangeSet(final Run<?, ?> build, final FilePath workspace,
+                                              final TaskListener listener, final File changelogFile)
+            throws IOException, InterruptedException {
         if (isCanJobUpdate()) {
             final DimensionsAPI dmSCM = getAPI();
             int version = 2009;
-            final long key = dmSCM.login(this, build);
-            if (key > 0L) {
-                // Get the server version.
-                Logger.debug("Login worked.");
-                version = dmSCM.getDmVersion();
-                if (version == 0) {
-                    version = 2009;
+            final DimensionsTracer.Scope login = DimensionsTracer.start("login and version detection");
+            try {
+                final long key = dmSCM.login(this, build);
+                if (key > 0L) {
+                    // Get the server version.
+                    Logger.debug("Login worked.");
+                    version = dmSCM.getDmVersion(key);
+                    if (version == 0) {
+                        version = 2009;
+                    }
+                    dmSCM.logout(key, build);
                 }
-                dmSCM.logout(key, build);
+            } finally {
+                login.end();
             }
+            WorkspacePrefetcher.beforeCheckout(build.getParent(), workspace, listener);
             if (!workspace.isRemote()) {
                 // Running on master...
                 Logger.debug("Checking if master or slave...");
@@ -803,7 +928,7 @@ public void checkout(@NonNull final Run<?, ?> build, @NonNull final Launcher lau
                 // Using Java API because this allows the plugin to work on platforms where Dimensions has not
                 // been ported, e.g. MAC OS, which is what I use.
                 final CheckOutAPITask task = new CheckOutAPITask(build, this, workspace, listener, version);
-                workspace.act(task);
+                actTraced(build, workspace, task, "checkout on master");
             } else {
                 // Running on slave... Have to use the command line as Java API will not work on remote hosts.
                 // Cannot serialise it...
@@ -819,6 +944,9 @@ public void checkout(@NonNull final Run<?, ?> build, @NonNull final Launcher lau
                     baseline = getParameterFromBuild((WorkflowRun) build, "DM_BASELINE");
                     request = getParameterFromBuild((WorkflowRun) build, "DM_REQUEST");
                 }
+                if (!Values.hasText(baseline)) {
+                    baseline = getBaseline();
+                }
                 listener.getLogger().println("[DIMENSIONS] Running checkout on slave...");
                 listener.getLogger().flush();
                 if (Credentials.isKeystoreDefined(getCredentialsType())) {
@@ -832,22 +960,77 @@ public void checkout(@NonNull final Run<?, ?> build, @NonNull final Launcher lau
                 fillInCredentials(build);
                 final CheckOutCmdTask task = new CheckOutCmdTask(getUserName(), Secret.decrypt(getPasswordNN()), getDatabase(),
                         getDbConn(), getServer(), getProjectVersion(build, listener), baseline, request, isCanJobDelete(),
-                        isCanJobRevert(), isCanJobForce(), isCanJobExpand(), isCanJobNoMetadata(),
+                        isCanJobDeleteInBackground(), isCanJobRevert(), isCanJobForce(), isCanJobExpand(), isCanJobNoMetadata(),
                         isCanJobNoTouch(), (build.getPreviousBuild() == null), getFolders(), version,
                         permissions, eol, getCertificatePath(), getRemoteCertificatePasswordSecret(),
                         isSecureAgentAuth(), workspace, listener);
-                workspace.act(task);
+                final DimensionsBulkhead.Permit permit = DimensionsBulkhead.acquireHeavy(getServer(), getDatabase(),
+                        getDbConn());
+                try {
+                    actTraced(build, workspace, task, "checkout on agent");
+                } finally {
+                    permit.release();
+                }
             }
         }
         generateChangeSet(build, listener, changelogFile);
     }
 
+    /**
+     * Creates a task that updates a workspace on an agent with the latest content of the project, as the checkout of a
+     * build without baseline or request parameters would, for {@link WorkspacePrefetcher}.
+     *
+     * @return the task, or null if the workspace cannot be updated ahead of a build
+     */
+    BaseCallable createPrefetchTask(final Run<?, ?> lastBuild, final int version, final FilePath workspace) {
+        if (lastBuild == null || getBaseline() != null) {
+            return null;
+        }
+        if (Credentials.isKeystoreDefined(getCredentialsType())
+                && (StringUtils.isBlank(getCertificatePath()) || getRemoteCertificatePasswordSecret() == null)) {
+            return null;
+        }
+        // Polling threads share this SCM with builds, so the credentials are looked up without filling them in.
+        String userName = getUserName();
+        Secret password = Secret.decrypt(getPasswordNN());
+        if (Credentials.isPluginDefined(credentialsType) && credentialsId != null) {
+            final UsernamePasswordCredentials credentials = credentialsFromId(credentialsId, lastBuild.getParent());
+            if (credentials == null) {
+                return null;
+            }
+            userName = credentials.getUsername();
+            password = credentials.getPassword();
+        }
+        return new CheckOutCmdTask(userName, password, getDatabase(), getDbConn(),
+                getServer(), getProjectVersion(lastBuild, TaskListener.NULL), null, null, false, false,
+                isCanJobRevert(), false, isCanJobExpand(), isCanJobNoMetadata(), isCanJobNoTouch(), false,
+                getFolders(), version, permissions, eol, getCertificatePath(), getRemoteCertificatePasswordSecret(),
+                isSecureAgentAuth(), workspace, TaskListener.NULL);
+    }
+
+    /**
+     * Runs a checkout task in the workspace, recording its spans (including spans recorded on an agent) in the build.
+     */
+    private static void actTraced(Run<?, ?> build, FilePath workspace, BaseCallable task, String name)
+            throws IOException, InterruptedException {
+        final DimensionsTracer.Scope span = DimensionsTracer.start(name);
+        try {
+            task.setTrace(DimensionsTracer.sinkFor(build, workspace), span);
+            if (!Boolean.TRUE.equals(workspace.act(task))) {
+                span.fail();
+            }
+        } finally {
+            span.end();
+        }
+    }
+
     /**
      * Generate the changeset.
      */
     private void generateChangeSet(final Run<?, ?> build, final TaskListener listener, final File changelogFile) throws IOException {
         long key = -1L;
         final DimensionsAPI dmSCM = newDimensionsAPIWithCheck();
+        final DimensionsTracer.Scope span = DimensionsTracer.start("changelog");
         try {
             // When are we building files for?
             // Looking for the last successful build and then go forward from there - could use the last build as well.
@@ -859,7 +1042,6 @@ private void generateChangeSet(final Run<?, ?> build, final TaskListener listene
                 Logger.debug("Job timezone setting is " + getTimeZone());
             }
             Logger.debug("Log updates between " + (lastBuildCal != null ? DateUtils.getStrDate(lastBuildCal, tz) : "0") + " -> " + DateUtils.getStrDate(nowDateCal, tz) + " (" + tz.getID() + ")");
-            dmSCM.setLogger(listener.getLogger());
             // Connect to Dimensions...
             key = dmSCM.login(this, build);
             if (key > 0L) {
@@ -874,6 +1056,9 @@ private void generateChangeSet(final Run<?, ?> build, final TaskListener listene
                     baseline = getParameterFromBuild((WorkflowRun) build, "DM_BASELINE");
                     request = getParameterFromBuild((WorkflowRun) build, "DM_REQUEST");
                 }
+                if (!Values.hasText(baseline)) {
+                    baseline = getBaseline();
+                }
                 if (baseline != null) {
                     baseline = baseline.trim();
                     baseline = baseline.toUpperCase(Values.ROOT_LOCALE);
@@ -897,8 +1082,13 @@ private void generateChangeSet(final Run<?, ?> build, final TaskListener listene
                     final FilePath dname = new FilePath(fileName);
                     Logger.debug("Looking for changes in '" + folderN + "'...");
                     // Check out the folder.
-                    dmSCM.createChangeSetLogs(key, getProjectName(build, listener), dname, lastBuildCal, nowDateCal,
-                            changelogFile, tz, jobWebUrl, baseline, request);
+                    final DimensionsTracer.Scope folderSpan = DimensionsTracer.start("changes in '" + folderN + "'");
+                    try {
+                        dmSCM.createChangeSetLogs(key, getProjectName(build, listener), dname, lastBuildCal, nowDateCal,
+                                changelogFile, tz, jobWebUrl, baseline, request, listener.getLogger());
+                    } finally {
+                        folderSpan.end();
+                    }
                     if (request != null) {
                         break;
                     }
@@ -923,9 +1113,11 @@ private void generateChangeSet(final Run<?, ?> build, final TaskListener listene
             final String message = Values.exceptionMessage("Unable to run changelog callout", e, "no message - try again");
             listener.fatalError(message);
             Logger.debug(message, e);
+            span.fail();
             throw new IOException(e);
         } finally {
             dmSCM.logout(key, build);
+            span.end();
         }
     }
 
@@ -949,12 +1141,20 @@ public PollingResult compareRemoteRevisionWith(final Job<?, ?> project, final La
                                                    final TaskListener listener, final SCMRevisionState baseline) throws IOException, InterruptedException {
         // New polling function - to use old polling function for the moment.
         final Change change = Change.NONE;
+        if (getBaseline() != null) {
+            // A baseline does not change once created.
+            return new PollingResult(change);
+        }
+        // Polls queue behind builds for the server's Dimensions sessions and queries.
+        DimensionsBulkhead.Priority priority = DimensionsBulkhead.setPriority(DimensionsBulkhead.Priority.POLL);
         try {
             if (pollCMChanges(project, launcher, workspace, listener)) {
                 return PollingResult.BUILD_NOW;
             }
         } catch (Exception e) {
             /* swallow exception. */
+        } finally {
+            DimensionsBulkhead.setPriority(priority);
         }
         return new PollingResult(change);
     }
@@ -1000,10 +1200,10 @@ private boolean pollCMChanges(final Job<?, ?> project, final Launcher launcher,
             Logger.debug("Checking for any updates between " + (lastBuildCal != null
                     ? DateUtils.getStrDate(lastBuildCal, tz) : "0") + " -> " + DateUtils.getStrDate(nowDateCal, tz)
                     + " (" + tz.getID() + ")");
-            dmSCM.setLogger(listener.getLogger());
             // Connect to Dimensions...
             key = dmSCM.login(this, project);
             if (key > 0L) {
+                final PathMatcher pathMatcher = createPathMatcher();
                 List<StringVarStorage> folders = getFolders();
                 // Iterate through the project folders and process them in Dimensions
                 for (StringVarStorage folderStrg : folders) {
@@ -1013,11 +1213,8 @@ private boolean pollCMChanges(final Job<?, ?> project, final Launcher launcher,
                     }
                     final File fileName = new File(folderN);
                     final FilePath dname = new FilePath(fileName);
-                    if (dmSCM.getPathMatcher() == null) {
-                        dmSCM.setPathMatcher(createPathMatcher());
-                    }
                     bChanged = dmSCM.hasRepositoryBeenUpdated(key, getProjectName(project.getLastBuild(), listener), dname,
-                            lastBuildCal, nowDateCal, tz);
+                            lastBuildCal, nowDateCal, tz, pathMatcher);
                     if (Logger.isDebugEnabled()) {
                         Logger.debug("Polled folder '" + dname.getRemote() + "' between lastBuild="
                                 + Values.toString(lastBuildCal) + " and now=" + Values.toString(nowDateCal)
@@ -1029,6 +1226,9 @@ private boolean pollCMChanges(final Job<?, ?> project, final Launcher launcher,
                     Logger.debug(bChanged ? "Found changes in at least one of the folders, so returning true"
                             : "No changes in any of the folders, so returning false");
                 }
+                if (bChanged && isCanJobPrefetch() && isCanJobUpdate() && !isCanJobDelete()) {
+                    WorkspacePrefetcher.prefetch(this, project, dmSCM.getDmVersion(key), listener);
+                }
             }
         } catch (Exception e) {
             final String message = Values.exceptionMessage("Unable to run pollChanges callout", e, "no message - try again");
@@ -1042,14 +1242,20 @@ private boolean pollCMChanges(final Job<?, ?> project, final Launcher launcher,
     }
 
     /**
-     * Creates path matcher to ignore changes on certain paths.
+     * Creates path matcher to ignore changes on certain paths. The patterns are compiled once per job configuration.
      *
      * @return path matcher
      */
     public PathMatcher createPathMatcher() {
-        final String[] pathToExcludeArr = Values.convertListToArray(getPathsToExclude());
-        return Values.isNullOrEmpty(pathToExcludeArr) ? new NullPathMatcher()
-                : new DefaultPathMatcher(pathToExcludeArr, null);
+        PathMatcher matcher = pathMatcher;
+        if (matcher == null) {
+            final String[] pathToExcludeArr = Values.convertListToArray(getPathsToExclude());
+            final String[] pathToIncludeArr = Values.convertListToArray(getPathsToInclude());
+            matcher = Values.isNullOrEmpty(pathToExcludeArr) && Values.isNullOrEmpty(pathToIncludeArr)
+                    ? new NullPathMatcher() : new CompiledPathMatcher(pathToExcludeArr, pathToIncludeArr);
+            pathMatcher = matcher;
+        }
+        return matcher;
     }
 
     /**
@@ -1111,6 +1317,12 @@ public static class DescriptorImpl extends SCMDescriptor<DimensionsSCM> implemen
         private String credentialsType;
         private boolean canUpdate;
         private boolean secureAgentAuth;
+        private int maxSessions;
+        private int maxQueries;
+        private int maxHeavyCommands;
+        private int queueTimeout;
+        private Secret notifyToken;
+        private String userMapping;
 
         /**
          * Loads the SCM descriptor.
@@ -1118,6 +1330,8 @@ public static class DescriptorImpl extends SCMDescriptor<DimensionsSCM> implemen
         public DescriptorImpl() {
             super(DimensionsSCM.class, DimensionsSCMRepositoryBrowser.class);
             load();
+            DimensionsBulkhead.configure(maxSessions, maxQueries, maxHeavyCommands, queueTimeout);
+            AuthorCache.get().configure(userMapping);
             Logger.debug("Loading " + this.getClass().getName());
         }
 
@@ -1192,6 +1406,15 @@ public boolean configure(final StaplerRequest req, final JSONObject jobj) throws
             if (this.webUrl != null) {
                 this.webUrl = this.webUrl.trim();
             }
+            this.maxSessions = parseLimit(req.getParameter("dimensionsscm.maxSessions"));
+            this.maxQueries = parseLimit(req.getParameter("dimensionsscm.maxQueries"));
+            this.maxHeavyCommands = parseLimit(req.getParameter("dimensionsscm.maxHeavyCommands"));
+            this.queueTimeout = parseLimit(req.getParameter("dimensionsscm.queueTimeout"));
+            DimensionsBulkhead.configure(maxSessions, maxQueries, maxHeavyCommands, queueTimeout);
+            String token = Values.textOrElse(req.getParameter("dimensionsscm.notifyToken"), null);
+            this.notifyToken = token != null ? Secret.fromString(token.trim()) : null;
+            this.userMapping = Values.textOrElse(req.getParameter("dimensionsscm.userMapping"), null);
+            AuthorCache.get().configure(userMapping);
             req.bindJSON(DM_DESCRIPTOR, jobj);
             this.save();
             return super.configure(req, jobj);
@@ -1398,6 +1621,60 @@ public String getCertificatePath() {
             return certificatePath;
         }
 
+        /**
+         * Gets the maximum number of concurrent sessions per Dimensions server (zero is unlimited).
+         */
+        public int getMaxSessions() {
+            return maxSessions;
+        }
+
+        /**
+         * Gets the maximum number of concurrent change queries per Dimensions server (zero is unlimited).
+         */
+        public int getMaxQueries() {
+            return maxQueries;
+        }
+
+        /**
+         * Gets the maximum number of concurrent UPDATE and DELIVER commands per Dimensions server (zero is unlimited).
+         */
+        public int getMaxHeavyCommands() {
+            return maxHeavyCommands;
+        }
+
+        /**
+         * Gets how long to wait for a session, query or command to be allowed to run, in seconds.
+         */
+        public int getQueueTimeout() {
+            return queueTimeout > 0 ? queueTimeout : DimensionsBulkhead.DEFAULT_TIMEOUT;
+        }
+
+        /**
+         * Gets the token that change notifications must carry (see {@link DimensionsNotifyAction}).
+         *
+         * @return the token (as a Secret instance), or null if change notifications are disabled
+         */
+        public Secret getNotifyToken() {
+            return notifyToken;
+        }
+
+        /**
+         * Gets the mapping from Dimensions user IDs to Jenkins user IDs used to resolve changelog authors.
+         *
+         * @return lines of {@code DIMENSIONS_ID=jenkinsId}, or null if there is no mapping
+         */
+        public String getUserMapping() {
+            return userMapping;
+        }
+
+        private static int parseLimit(String value) {
+            try {
+                return Values.hasText(value) ? Math.max(0, Integer.parseInt(value.trim())) : 0;
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+
         /**
          * Gets the update.
          *
@@ -1560,24 +1837,32 @@ public FormValidation doCheckServerKeystore(final StaplerRequest req, final Stap
             } else {
                 item.checkPermission(Item.CONFIGURE);
             }
-            try {
-                Logger.debug("Server connection check to keystore [" + keystorePath + "], certificate [" + certificateAlias + "]");
-                final Secret keystorePassSecret = Secret.fromString(keystorePassword);
-                final Secret certPassSecret = Secret.fromString(certificatePassword);
-                final DimensionsAPI connectionCheck = newDimensionsAPIWithCheck();
-                final long key = connectionCheck.login(keystoreServer, keystoreDatabase, keystoreDbConn, certificateAlias, certPassSecret, keystorePath, keystorePassSecret);
-                Logger.debug("Server connection check returned key [" + key + "]");
-                if (key < 1L) {
-                    return FormValidation.error("Connection test failed");
-                } else {
-                    connectionCheck.logout(key);
-                    return FormValidation.ok("Connection test succeeded!");
+            Logger.debug("Server connection check to keystore [" + keystorePath + "], certificate [" + certificateAlias + "]");
+            final String fingerprint = ConnectionCheck.fingerprint("keystore", keystorePath,
+                    String.valueOf(new File(keystorePath == null ? "" : keystorePath).lastModified()), keystorePassword,
+                    certificateAlias, certificatePassword, keystoreServer, keystoreDatabase, keystoreDbConn);
+            return ConnectionCheck.check(fingerprint, new Callable<FormValidation>() {
+                @Override
+                public FormValidation call() {
+                    try {
+                        final Secret keystorePassSecret = Secret.fromString(keystorePassword);
+                        final Secret certPassSecret = Secret.fromString(certificatePassword);
+                        final DimensionsAPI connectionCheck = newDimensionsAPIWithCheck();
+                        final long key = connectionCheck.login(keystoreServer, keystoreDatabase, keystoreDbConn, certificateAlias, certPassSecret, keystorePath, keystorePassSecret);
+                        Logger.debug("Server connection check returned key [" + key + "]");
+                        if (key < 1L) {
+                            return FormValidation.error("Connection test failed");
+                        } else {
+                            connectionCheck.logout(key);
+                            return FormValidation.ok("Connection test succeeded!");
+                        }
+                    } catch (Exception e) {
+                        final String message = Values.exceptionMessage("Server connection check error", e, "no message");
+                        Logger.debug(message, e);
+                        return FormValidation.error(message);
+                    }
                 }
-            } catch (Exception e) {
-                final String message = Values.exceptionMessage("Server connection check error", e, "no message");
-                Logger.debug(message, e);
-                return FormValidation.error(message);
-            }
+            });
         }
 
         /**
@@ -1660,26 +1945,32 @@ private FormValidation checkServer(final Item item, final String xuser, final St
             } else {
                 item.checkPermission(Item.CONFIGURE);
             }
-            final DimensionsAPI connectionCheck = newDimensionsAPIWithCheck();
-            try {
-                if (xpasswd == null || xuser == null) {
-                    return FormValidation.error("User name and password must be specified.");
-                }
-                Logger.debug("Server connection check to user [" + xuser
-                        + "], database [" + xdatabase + "], dbConn [" + xdbConn + "], server [" + xserver + "]");
-                final long key = connectionCheck.login(xuser, Secret.fromString(xpasswd), xdatabase, xdbConn, xserver);
-                Logger.debug("Server connection check returned key [" + key + "]");
-                if (key < 1L) {
-                    return FormValidation.error("Connection test failed");
-                } else {
-                    connectionCheck.logout(key);
-                    return FormValidation.ok("Connection test succeeded!");
-                }
-            } catch (Exception e) {
-                final String message = Values.exceptionMessage("Server connection check error", e, "no message");
-                Logger.debug(message, e);
-                return FormValidation.error(message);
+            if (xpasswd == null || xuser == null) {
+                return FormValidation.error("User name and password must be specified.");
             }
+            Logger.debug("Server connection check to user [" + xuser
+                    + "], database [" + xdatabase + "], dbConn [" + xdbConn + "], server [" + xserver + "]");
+            final String fingerprint = ConnectionCheck.fingerprint("user", xuser, xpasswd, xserver, xdatabase, xdbConn);
+            return ConnectionCheck.check(fingerprint, new Callable<FormValidation>() {
+                @Override
+                public FormValidation call() {
+                    final DimensionsAPI connectionCheck = newDimensionsAPIWithCheck();
+                    try {
+                        final long key = connectionCheck.login(xuser, Secret.fromString(xpasswd), xdatabase, xdbConn, xserver);
+                        Logger.debug("Server connection check returned key [" + key + "]");
+                        if (key < 1L) {
+                            return FormValidation.error("Connection test failed");
+                        } else {
+                            connectionCheck.logout(key);
+                            return FormValidation.ok("Connection test succeeded!");
+                        }
+                    } catch (Exception e) {
+                        final String message = Values.exceptionMessage("Server connection check error", e, "no message");
+                        Logger.debug(message, e);
+                        return FormValidation.error(message);
+                    }
+                }
+            });
         }
     }
 }
@@ -0,0 +1,118 @@
+package hudson.plugins.dimensionsscm;
+
+import com.serena.dmclient.api.DimensionsRuntimeException;
+import com.serena.dmclient.api.ItemRevision;
+import com.serena.dmclient.api.SystemAttributes;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import jenkins.scm.api.SCMFile;
+
+/**
+ * A file or directory of a {@link DimensionsSCMFileSystem}.
+ * <p>
+ * Dimensions has no directory items, so a path is a directory if there are files below it.
+ */
+class DimensionsSCMFile extends SCMFile {
+    private final DimensionsSCMFileSystem fs;
+    /** The type, if it is already known from listing the parent directory. */
+    private final Type knownType;
+
+    DimensionsSCMFile(DimensionsSCMFileSystem fs) {
+        this.fs = fs;
+        this.knownType = Type.DIRECTORY;
+    }
+
+    private DimensionsSCMFile(DimensionsSCMFile parent, String name, Type knownType) {
+        super(parent, name);
+        this.fs = parent.fs;
+        this.knownType = knownType;
+    }
+
+    @NonNull
+    @Override
+    protected SCMFile newChild(@NonNull String name, boolean assumeIsDirectory) {
+        return new DimensionsSCMFile(this, name, assumeIsDirectory ? Type.DIRECTORY : null);
+    }
+
+    @NonNull
+    @Override
+    public Iterable<SCMFile> children() throws IOException {
+        String dir = isRoot() ? "" : getPath() + "/";
+        // Names of the files and subdirectories directly in this directory, with whether each is a directory.
+        Map<String, Boolean> names = new TreeMap<String, Boolean>();
+        try {
+            for (ItemRevision item : fs.list(dir)) {
+                String path = normalize((String) item.getAttribute(SystemAttributes.FULL_PATH_NAME));
+                if (path == null || !path.startsWith(dir) || path.length() == dir.length()) {
+                    continue;
+                }
+                String rest = path.substring(dir.length());
+                int slash = rest.indexOf('/');
+                if (slash < 0) {
+                    if (!names.containsKey(rest)) {
+                        names.put(rest, Boolean.FALSE);
+                    }
+                } else {
+                    names.put(rest.substring(0, slash), Boolean.TRUE);
+                }
+            }
+        } catch (DimensionsRuntimeException e) {
+            throw new IOException(Values.exceptionMessage("Unable to list '" + dir + "'", e, "no message"), e);
+        }
+        List<SCMFile> children = new ArrayList<SCMFile>(names.size());
+        for (Map.Entry<String, Boolean> name : names.entrySet()) {
+            children.add(new DimensionsSCMFile(this, name.getKey(),
+                    name.getValue() ? Type.DIRECTORY : Type.REGULAR_FILE));
+        }
+        return children;
+    }
+
+    @Override
+    public long lastModified() throws IOException {
+        ItemRevision revision = isRoot() ? null : fs.revision(getPath());
+        Object value = revision != null ? revision.getAttribute(SystemAttributes.LAST_UPDATED_DATE) : null;
+        Date date = value != null ? DateUtils.parse(value.toString()) : null;
+        return date != null ? date.getTime() : 0L;
+    }
+
+    @NonNull
+    @Override
+    protected Type type() throws IOException {
+        if (knownType != null) {
+            return knownType;
+        }
+        if (fs.revision(getPath()) != null) {
+            return Type.REGULAR_FILE;
+        }
+        return fs.hasFiles(getPath()) ? Type.DIRECTORY : Type.NONEXISTENT;
+    }
+
+    @NonNull
+    @Override
+    public InputStream content() throws IOException {
+        ItemRevision revision = isRoot() ? null : fs.revision(getPath());
+        if (revision == null) {
+            throw new FileNotFoundException(getPath());
+        }
+        return new ByteArrayInputStream(fs.content(revision));
+    }
+
+    /**
+     * Converts a project path to the form of {@link #getPath()}: '/' separators and no leading separator.
+     */
+    private static String normalize(String path) {
+        if (path == null) {
+            return null;
+        }
+        path = path.replace('\\', '/');
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+}
@@ -0,0 +1,219 @@
+package hudson.plugins.dimensionsscm;
+
+import com.serena.dmclient.api.ItemRevision;
+import com.serena.dmclient.api.SystemAttributes;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.scm.SCM;
+import hudson.scm.SCMDescriptor;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import jenkins.scm.api.SCMFile;
+import jenkins.scm.api.SCMFileSystem;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.SCMSourceDescriptor;
+
+/**
+ * Reads single files of a Dimensions project, baseline or request directly through the Java API, so that Pipeline
+ * jobs can load their script (and anything it reads with {@code readTrusted}) without updating a workspace.
+ * <p>
+ * Each file is looked up once per file system and fetched with a single {@code FI} command. Item revisions do not
+ * change once created, so file contents are also cached across file systems by server, base database and item
+ * revision spec, up to
+ * {@link #CACHE_BYTES} bytes in total, and starting a Pipeline whose script has not changed does not fetch it again.
+ * <p>
+ * Paths are paths in the project, which are also the paths in the workspace when the job checks out the project's
+ * root folder. The baseline and requests are taken from the {@code DM_BASELINE} and {@code DM_REQUEST} parameters of
+ * the build, as they are for a checkout. Projects whose names contain variables that the build does not define are
+ * not supported, so that Jenkins falls back to a full checkout.
+ */
+public class DimensionsSCMFileSystem extends SCMFileSystem {
+    /** Maximum number of bytes of file content cached across file systems. */
+    static final int CACHE_BYTES = 4 * 1024 * 1024;
+
+    private static final Map<String, byte[]> CONTENTS = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+    private static long cachedBytes;
+
+    private final DimensionsAPI api;
+    private final long key;
+    private final String serverKey;
+    private final String projectName;
+    private final String baselineName;
+    private final String requests;
+    /** The revision found at each path looked up, or null if there is no file at that path. */
+    private final Map<String, ItemRevision> revisions = new HashMap<String, ItemRevision>();
+
+    /**
+     * @param serverKey the server and base database of the login, as {@link DimensionsSession#serverKey}, or null to
+     *                  not share file contents with other file systems
+     */
+    DimensionsSCMFileSystem(DimensionsAPI api, long key, String serverKey, String projectName, String baselineName,
+            String requests) {
+        super(null);
+        this.api = api;
+        this.key = key;
+        this.serverKey = serverKey;
+        this.projectName = projectName;
+        this.baselineName = baselineName;
+        this.requests = requests;
+    }
+
+    /**
+     * Gets the server and base database of a login, as {@link DimensionsSession#serverKey}.
+     *
+     * @return the server key, or null if the key is not logged in
+     */
+    static String serverKeyOf(DimensionsAPI api, long key) {
+        DimensionsSession session = api.getSession(key);
+        return session != null ? DimensionsSession.serverKey(session.getServer(), session.getDbName(),
+                session.getDbConn()) : null;
+    }
+
+    @Override
+    public long getLastModified() {
+        // Not known without querying every item; callers only use it to tell whether files may have changed.
+        return 0L;
+    }
+
+    @NonNull
+    @Override
+    public SCMFile getRoot() {
+        return new DimensionsSCMFile(this);
+    }
+
+    @Override
+    public void close() throws IOException {
+        api.logout(key);
+    }
+
+    /**
+     * Gets the revision of the file at a path, or null if there is no file at that path.
+     */
+    synchronized ItemRevision revision(String path) throws IOException {
+        if (!revisions.containsKey(path)) {
+            revisions.put(path, api.findFileRevision(key, projectName, baselineName, requests, path));
+        }
+        return revisions.get(path);
+    }
+
+    /**
+     * Gets the files in and below a directory.
+     */
+    Iterable<ItemRevision> list(String dir) throws IOException {
+        return api.listFiles(key, projectName, baselineName, dir);
+    }
+
+    /**
+     * Tells whether there are any files in or below a directory.
+     */
+    boolean hasFiles(String dir) throws IOException {
+        return api.hasFiles(key, projectName, baselineName, dir);
+    }
+
+    /**
+     * Gets the content of an item revision, from the cache if it has been fetched before.
+     */
+    byte[] content(ItemRevision revision) throws IOException {
+        String spec = (String) revision.getAttribute(SystemAttributes.OBJECT_SPEC);
+        // Item revision specs are only unique within a base database.
+        String cacheKey = serverKey != null ? serverKey + '\0' + spec : null;
+        if (cacheKey != null) {
+            synchronized (CONTENTS) {
+                byte[] content = CONTENTS.get(cacheKey);
+                if (content != null) {
+                    DimensionsMetrics.counter("filesystem.content.hit").inc();
+                    return content;
+                }
+            }
+        }
+        DimensionsMetrics.counter("filesystem.content.miss").inc();
+        DimensionsMetrics.Timer.Context fetch = DimensionsMetrics.timer("filesystem.fetch").time();
+        byte[] content = api.fetchFile(key, spec);
+        Logger.debug("Fetched '" + spec + "' (" + content.length + " bytes) in " + fetch.stop() + " ms");
+        if (cacheKey != null && content.length <= CACHE_BYTES / 4) {
+            synchronized (CONTENTS) {
+                byte[] previous = CONTENTS.put(cacheKey, content);
+                cachedBytes += content.length - (previous != null ? previous.length : 0);
+                for (Iterator<byte[]> it = CONTENTS.values().iterator(); cachedBytes > CACHE_BYTES; ) {
+                    cachedBytes -= it.next().length;
+                    it.remove();
+                }
+            }
+        }
+        return content;
+    }
+
+    /**
+     * Builds file systems for {@link DimensionsSCM}, and for the heads of a {@link DimensionsSCMSource} through the
+     * SCM that it builds for them.
+     */
+    @Extension
+    public static class BuilderImpl extends SCMFileSystem.Builder {
+        @Override
+        public boolean supports(SCM source) {
+            return source instanceof DimensionsSCM;
+        }
+
+        @Override
+        public boolean supports(SCMSource source) {
+            return source instanceof DimensionsSCMSource;
+        }
+
+        @Override
+        protected boolean supportsDescriptor(SCMDescriptor descriptor) {
+            return descriptor instanceof DimensionsSCM.DescriptorImpl;
+        }
+
+        @Override
+        protected boolean supportsDescriptor(SCMSourceDescriptor descriptor) {
+            return descriptor instanceof DimensionsSCMSource.DescriptorImpl;
+        }
+
+        @CheckForNull
+        @Override
+        public SCMFileSystem build(@NonNull Item owner, @NonNull SCM scm, @CheckForNull SCMRevision rev)
+                throws IOException, InterruptedException {
+            return build(owner, scm, rev, null);
+        }
+
+        @CheckForNull
+        @Override
+        public SCMFileSystem build(@NonNull Item owner, @NonNull SCM scm, @CheckForNull SCMRevision rev,
+                                   @CheckForNull Run<?, ?> build) throws IOException, InterruptedException {
+            DimensionsSCM dscm = (DimensionsSCM) scm;
+            String projectName = dscm.getProjectName(build, TaskListener.NULL);
+            if (projectName == null || projectName.contains("$")) {
+                Logger.debug("Project '" + projectName + "' has unresolved variables, so a checkout is needed");
+                return null;
+            }
+            String baseline = dscm.getBaseline();
+            String requests = null;
+            if (build != null) {
+                baseline = Values.textOrElse(DimensionsSCM.getParameterFromRun(build, "DM_BASELINE"), baseline);
+                requests = Values.textOrElse(DimensionsSCM.getParameterFromRun(build, "DM_REQUEST"), null);
+                if (requests != null) {
+                    requests = requests.replaceAll(" ", "");
+                }
+            }
+            Job<?, ?> job = owner instanceof Job ? (Job<?, ?>) owner : null;
+            DimensionsAPI api = dscm.getAPI();
+            try {
+                long key = api.login(dscm, job);
+                return key > 0L ? new DimensionsSCMFileSystem(api, key, serverKeyOf(api, key), projectName, baseline,
+                        requests) : null;
+            } catch (RuntimeException e) {
+                Logger.debug(Values.exceptionMessage("Unable to log in to read files directly", e, "no message"), e);
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,574 @@
+package hudson.plugins.dimensionsscm;
+
+import com.cloudbees.plugins.credentials.common.UsernamePasswordCredentials;
+import com.serena.dmclient.api.DimensionsRuntimeException;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Item;
+import hudson.model.TaskListener;
+import hudson.scm.SCM;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.ListBoxModel;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import jenkins.scm.api.SCMEvent;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMHeadCategory;
+import jenkins.scm.api.SCMHeadEvent;
+import jenkins.scm.api.SCMHeadObserver;
+import jenkins.scm.api.SCMNavigator;
+import jenkins.scm.api.SCMProbe;
+import jenkins.scm.api.SCMProbeStat;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.SCMSourceCriteria;
+import jenkins.scm.api.SCMSourceDescriptor;
+import jenkins.scm.api.SCMSourceOwner;
+import jenkins.scm.api.SCMSourceOwners;
+import jenkins.scm.api.mixin.TagSCMHead;
+import jenkins.scm.impl.TagSCMHeadCategory;
+import jenkins.scm.impl.UncategorizedSCMHeadCategory;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.AncestorInPath;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+
+/**
+ * A source of branches for multibranch projects: a list of Dimensions streams, and optionally the baselines whose
+ * specs match a pattern (as tags).
+ * <p>
+ * The Java API cannot list the streams of a database, so the streams are the ones listed in the configuration. Scans
+ * use a {@link HeadIndex} of the database as seen by the source's user, which fetches the last update dates of all
+ * the streams with one bulk query and only queries the baselines created since the last scan. The revision of a
+ * stream is the date it was last updated, and the revision of a baseline is its spec.
+ * <p>
+ * Between scans, {@link StreamWatcher} checks every source for streams that changed, and for new baselines, and
+ * reports them to the multibranch projects as head events, so that only the heads that changed are indexed.
+ */
+public class DimensionsSCMSource extends SCMSource {
+    private final String credentialsId;
+    private final String server;
+    private final String database;
+    private final String dbConn;
+    private final String streams;
+    private String baselinePattern;
+
+    private transient DimensionsAPI cachedAPI;
+    /** The revision of each head when the watcher last checked this source, or null if it has not checked it. */
+    private transient volatile Map<SCMHead, String> watched;
+
+    @DataBoundConstructor
+    public DimensionsSCMSource(final String credentialsId, final String server, final String database,
+                               final String dbConn, final String streams) {
+        this.credentialsId = credentialsId;
+        this.server = server;
+        this.database = database;
+        this.dbConn = dbConn;
+        this.streams = streams;
+    }
+
+    public String getCredentialsId() {
+        return credentialsId;
+    }
+
+    public String getServer() {
+        return server;
+    }
+
+    public String getDatabase() {
+        return database;
+    }
+
+    public String getDbConn() {
+        return dbConn;
+    }
+
+    /**
+     * Gets the specs of the streams, separated by new lines or commas.
+     */
+    public String getStreams() {
+        return streams;
+    }
+
+    /**
+     * Gets the pattern of the specs of the baselines to find, where '*' matches any text, or null.
+     */
+    public String getBaselinePattern() {
+        return baselinePattern;
+    }
+
+    @DataBoundSetter
+    public void setBaselinePattern(final String baselinePattern) {
+        this.baselinePattern = Values.textOrElse(baselinePattern != null ? baselinePattern.trim() : null, null);
+    }
+
+    /**
+     * Gets the specs of the streams, in upper case and without duplicates.
+     */
+    List<String> getStreamSpecs() {
+        Set<String> specs = new LinkedHashSet<String>();
+        if (streams != null) {
+            for (String spec : streams.split("[,\\s]+")) {
+                if (!spec.isEmpty()) {
+                    specs.add(spec.toUpperCase(Values.ROOT_LOCALE));
+                }
+            }
+        }
+        return new ArrayList<String>(specs);
+    }
+
+    /**
+     * Converts a pattern where '*' matches any text and '?' any character to a case-insensitive regular expression.
+     */
+    static Pattern globPattern(String glob) {
+        StringBuilder regex = new StringBuilder();
+        int start = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' || c == '?') {
+                if (i > start) {
+                    regex.append(Pattern.quote(glob.substring(start, i)));
+                }
+                regex.append(c == '*' ? ".*" : ".");
+                start = i + 1;
+            }
+        }
+        if (start < glob.length()) {
+            regex.append(Pattern.quote(glob.substring(start)));
+        }
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE);
+    }
+
+    /**
+     * Gets the product of the baselines that match a pattern, or null if they may be in any product.
+     */
+    static String patternProduct(String glob) {
+        int colon = glob.indexOf(':');
+        if (colon <= 0) {
+            return null;
+        }
+        String product = glob.substring(0, colon);
+        return product.indexOf('*') < 0 && product.indexOf('?') < 0 ? product.toUpperCase(Values.ROOT_LOCALE) : null;
+    }
+
+    private DimensionsAPI getAPI() {
+        DimensionsAPI api = this.cachedAPI;
+        if (api == null) {
+            api = DimensionsSCM.newDimensionsAPIWithCheck();
+            this.cachedAPI = api;
+        }
+        return api;
+    }
+
+    /**
+     * Gets the index of the heads that the user of this source can see.
+     */
+    private HeadIndex getIndex() throws IOException {
+        return HeadIndex.of(server, database, dbConn, getCredentials().getUsername());
+    }
+
+    /**
+     * Gets the time zone of the server's dates, as configured for all jobs.
+     */
+    private static TimeZone serverTimeZone() {
+        final String timeZone = DimensionsSCM.DM_DESCRIPTOR.getTimeZone();
+        return Values.hasText(timeZone) ? TimeZone.getTimeZone(timeZone) : TimeZone.getDefault();
+    }
+
+    private UsernamePasswordCredentials getCredentials() throws IOException {
+        final UsernamePasswordCredentials credentials = DimensionsSCM.credentialsFromId(credentialsId, getOwner());
+        if (credentials == null) {
+            throw new IOException("Could not find the credentials \"" + credentialsId + "\"");
+        }
+        return credentials;
+    }
+
+    private long login(DimensionsAPI api) throws IOException {
+        final UsernamePasswordCredentials credentials = getCredentials();
+        try {
+            final long key = api.login(credentials.getUsername(), credentials.getPassword(), database, dbConn, server);
+            if (key < 1L) {
+                throw new IOException("Login to Dimensions failed");
+            }
+            return key;
+        } catch (DimensionsRuntimeException e) {
+            throw new IOException(Values.exceptionMessage("Login to Dimensions failed", e, "no message"), e);
+        }
+    }
+
+    /**
+     * Gets the current revision of each head: the streams, then the matching baselines.
+     *
+     * @param includes the heads wanted, or null for all of them
+     */
+    private Map<SCMHead, String> scan(DimensionsAPI api, long key, @CheckForNull Set<SCMHead> includes)
+            throws IOException {
+        final long now = System.currentTimeMillis();
+        final HeadIndex index = getIndex();
+        final Map<SCMHead, String> heads = new LinkedHashMap<SCMHead, String>();
+        final List<String> specs = new ArrayList<String>();
+        boolean wantBaselines = includes == null;
+        for (String spec : getStreamSpecs()) {
+            if (includes == null || includes.contains(new StreamHead(spec))) {
+                specs.add(spec);
+            }
+        }
+        if (includes != null) {
+            for (SCMHead head : includes) {
+                wantBaselines |= head instanceof BaselineHead;
+            }
+        }
+        for (Map.Entry<String, String> stream : index.streams(api, key, specs, now).entrySet()) {
+            heads.put(new StreamHead(stream.getKey()), stream.getValue());
+        }
+        if (baselinePattern != null && wantBaselines) {
+            final Pattern pattern = globPattern(baselinePattern);
+            final TimeZone tz = serverTimeZone();
+            for (Map.Entry<String, String> baseline : index.baselines(api, key, patternProduct(baselinePattern), tz, now).entrySet()) {
+                if (pattern.matcher(baseline.getKey()).matches()) {
+                    final Date created = Values.hasText(baseline.getValue())
+                            ? DimensionsAPI.parseDatabaseDate(baseline.getValue(), tz) : null;
+                    final BaselineHead head = new BaselineHead(baseline.getKey(), created != null ? created.getTime() : 0L);
+                    if (includes == null || includes.contains(head)) {
+                        heads.put(head, baseline.getKey());
+                    }
+                }
+            }
+        }
+        return heads;
+    }
+
+    @Override
+    protected void retrieve(@CheckForNull final SCMSourceCriteria criteria, @NonNull final SCMHeadObserver observer,
+                            @CheckForNull final SCMHeadEvent<?> event, @NonNull final TaskListener listener)
+            throws IOException, InterruptedException {
+        final DimensionsAPI api = getAPI();
+        final long key = login(api);
+        try {
+            final Map<SCMHead, String> heads = scan(api, key, observer.getIncludes());
+            listener.getLogger().println("[DIMENSIONS] Found " + heads.size() + " stream(s) and baseline(s)");
+            for (Map.Entry<SCMHead, String> entry : heads.entrySet()) {
+                final SCMHead head = entry.getKey();
+                final DimensionsSCMRevision revision = new DimensionsSCMRevision(head, entry.getValue());
+                if (criteria != null) {
+                    final Probe probe = new Probe(head, revision, api, key);
+                    if (!criteria.isHead(probe, listener)) {
+                        listener.getLogger().println("[DIMENSIONS] '" + head.getName() + "' does not meet the criteria");
+                        continue;
+                    }
+                }
+                observer.observe(head, revision);
+                if (!observer.isObserving()) {
+                    return;
+                }
+            }
+        } finally {
+            api.logout(key);
+        }
+    }
+
+    @Override
+    protected SCMRevision retrieve(@NonNull final SCMHead head, @NonNull final TaskListener listener)
+            throws IOException, InterruptedException {
+        final DimensionsAPI api = getAPI();
+        final long key = login(api);
+        try {
+            if (head instanceof BaselineHead) {
+                // Only a baseline that still exists, and that this source would find, has a revision.
+                final String baseline = scan(api, key, Collections.singleton(head)).get(head);
+                return baseline != null ? new DimensionsSCMRevision(head, baseline) : null;
+            }
+            final String updated = getIndex().streams(api, key, Collections.singletonList(head.getName()),
+                    System.currentTimeMillis()).get(head.getName());
+            return updated != null ? new DimensionsSCMRevision(head, updated) : null;
+        } finally {
+            api.logout(key);
+        }
+    }
+
+    @NonNull
+    @Override
+    public SCM build(@NonNull final SCMHead head, @CheckForNull final SCMRevision revision) {
+        final DimensionsSCM scm = new DimensionsSCM(head.getName(), "pluginDefined", null, null, server, null, null,
+                database, dbConn, null, null, null, null, null, null, credentialsId, null, null, null, null, false);
+        if (head instanceof BaselineHead) {
+            scm.setBaseline(head.getName());
+        }
+        return scm;
+    }
+
+    /**
+     * Checks the heads for changes since the last check, and reports them as head events.
+     */
+    void watch() throws IOException {
+        final Map<SCMHead, String> current;
+        final DimensionsAPI api = getAPI();
+        final long key = login(api);
+        try {
+            current = scan(api, key, null);
+        } finally {
+            api.logout(key);
+        }
+        final Map<SCMHead, String> previous = this.watched;
+        this.watched = current;
+        if (previous == null) {
+            // The first check only records the revisions: the heads were found by the last scan.
+            return;
+        }
+        final Map<SCMHead, SCMRevision> created = new HashMap<SCMHead, SCMRevision>();
+        final Map<SCMHead, SCMRevision> updated = new HashMap<SCMHead, SCMRevision>();
+        for (Map.Entry<SCMHead, String> entry : current.entrySet()) {
+            final SCMHead head = entry.getKey();
+            final String before = previous.get(head);
+            if (!entry.getValue().equals(before)) {
+                (before == null ? created : updated).put(head, new DimensionsSCMRevision(head, entry.getValue()));
+            }
+        }
+        final Map<SCMHead, SCMRevision> removed = new HashMap<SCMHead, SCMRevision>();
+        for (SCMHead head : previous.keySet()) {
+            if (!current.containsKey(head)) {
+                removed.put(head, null);
+            }
+        }
+        fire(SCMEvent.Type.CREATED, created);
+        fire(SCMEvent.Type.UPDATED, updated);
+        fire(SCMEvent.Type.REMOVED, removed);
+    }
+
+    private void fire(SCMEvent.Type type, Map<SCMHead, SCMRevision> heads) {
+        if (!heads.isEmpty()) {
+            Logger.debug("Dimensions source " + getId() + ": " + heads.size() + " head(s) " + type);
+            DimensionsMetrics.counter("heads.events").inc();
+            SCMHeadEvent.fireNow(new HeadEvent(type, getId(), heads));
+        }
+    }
+
+    /**
+     * A stream.
+     */
+    public static class StreamHead extends SCMHead {
+        private static final long serialVersionUID = 1L;
+
+        public StreamHead(@NonNull String name) {
+            super(name);
+        }
+
+        @Override
+        public String getPronoun() {
+            return "Stream";
+        }
+    }
+
+    /**
+     * A baseline, which is a tag: it does not change once created.
+     */
+    public static class BaselineHead extends SCMHead implements TagSCMHead {
+        private static final long serialVersionUID = 1L;
+        private final long timestamp;
+
+        public BaselineHead(@NonNull String name, long timestamp) {
+            super(name);
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String getPronoun() {
+            return "Baseline";
+        }
+    }
+
+    /**
+     * The revision of a head: the last update date of a stream, or the spec of a baseline.
+     */
+    public static class DimensionsSCMRevision extends SCMRevision {
+        private static final long serialVersionUID = 1L;
+        private final String version;
+
+        public DimensionsSCMRevision(@NonNull SCMHead head, @NonNull String version) {
+            super(head);
+            this.version = version;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            DimensionsSCMRevision that = (DimensionsSCMRevision) o;
+            return getHead().equals(that.getHead()) && version.equals(that.version);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * getHead().hashCode() + version.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return version;
+        }
+    }
+
+    /**
+     * Checks the files of a head for the criteria of a multibranch project (such as having a Jenkinsfile), by reading
+     * them directly from Dimensions.
+     */
+    private static final class Probe extends SCMProbe {
+        private static final long serialVersionUID = 1L;
+        private final String name;
+        private final long lastModified;
+        private final transient DimensionsSCMFileSystem fs;
+
+        Probe(SCMHead head, DimensionsSCMRevision revision, DimensionsAPI api, long key) {
+            this.name = head.getName();
+            final Date updated = head instanceof BaselineHead ? null : DateUtils.parse(revision.getVersion());
+            this.lastModified = head instanceof BaselineHead ? ((BaselineHead) head).getTimestamp()
+                    : updated != null ? updated.getTime() : 0L;
+            // The file system shares the scan's login, so it is not closed.
+            this.fs = new DimensionsSCMFileSystem(api, key, DimensionsSCMFileSystem.serverKeyOf(api, key), name,
+                    head instanceof BaselineHead ? name : null, null);
+        }
+
+        @NonNull
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public long lastModified() {
+            return lastModified;
+        }
+
+        @NonNull
+        @Override
+        public SCMProbeStat stat(@NonNull String path) throws IOException {
+            return SCMProbeStat.fromType(fs.getRoot().child(path).getType());
+        }
+
+        @Override
+        public void close() {
+            /* the scan logs out. */
+        }
+    }
+
+    /**
+     * Heads of a source that were found to have changed by the {@link StreamWatcher}.
+     */
+    private static final class HeadEvent extends SCMHeadEvent<String> {
+        private final Map<SCMHead, SCMRevision> heads;
+
+        HeadEvent(SCMEvent.Type type, String sourceId, Map<SCMHead, SCMRevision> heads) {
+            super(type, sourceId, null);
+            this.heads = heads;
+        }
+
+        @Override
+        public boolean isMatch(@NonNull SCMNavigator navigator) {
+            return false;
+        }
+
+        @NonNull
+        @Override
+        public String getSourceName() {
+            return getPayload();
+        }
+
+        @NonNull
+        @Override
+        public Map<SCMHead, SCMRevision> heads(@NonNull SCMSource source) {
+            return source instanceof DimensionsSCMSource && getPayload().equals(source.getId())
+                    ? heads : Collections.<SCMHead, SCMRevision>emptyMap();
+        }
+
+        @Override
+        public boolean isMatch(@NonNull SCM scm) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks the {@link DimensionsSCMSource}s of all multibranch projects for changes every few minutes (5 by default,
+     * set by the {@code hudson.plugins.dimensionsscm.DimensionsSCMSource.watchMinutes} system property).
+     */
+    @Extension
+    public static class StreamWatcher extends AsyncPeriodicWork {
+        private static final long MINUTES = Math.max(1L,
+                Long.getLong(DimensionsSCMSource.class.getName() + ".watchMinutes", 5L));
+
+        public StreamWatcher() {
+            super("Dimensions stream watcher");
+        }
+
+        @Override
+        public long getRecurrencePeriod() {
+            return TimeUnit.MINUTES.toMillis(MINUTES);
+        }
+
+        @Override
+        protected void execute(TaskListener listener) {
+            try (ACLContext ctx = ACL.as2(ACL.SYSTEM2)) {
+                for (SCMSourceOwner owner : SCMSourceOwners.all()) {
+                    for (SCMSource source : owner.getSCMSources()) {
+                        if (source instanceof DimensionsSCMSource) {
+                            try {
+                                ((DimensionsSCMSource) source).watch();
+                            } catch (IOException e) {
+                                Logger.debug(Values.exceptionMessage("Unable to check " + owner.getFullName()
+                                        + " for changes", e, "no message"), e);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Extension
+    @Symbol("dimensions")
+    public static class DescriptorImpl extends SCMSourceDescriptor {
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return "Dimensions CM";
+        }
+
+        public ListBoxModel doFillCredentialsIdItems(@AncestorInPath final Item context,
+                                                     @QueryParameter final String credentialsId) {
+            return DimensionsSCM.DM_DESCRIPTOR.doFillCredentialsIdItems(context, credentialsId);
+        }
+
+        @NonNull
+        @Override
+        protected SCMHeadCategory[] createCategories() {
+            return new SCMHeadCategory[]{UncategorizedSCMHeadCategory.DEFAULT, TagSCMHeadCategory.DEFAULT};
+        }
+    }
+}
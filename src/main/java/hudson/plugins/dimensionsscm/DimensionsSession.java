@@ -0,0 +1,189 @@
+package hudson.plugins.dimensionsscm;
+
+import com.serena.dmclient.api.DimensionsConnection;
+import com.serena.dmclient.api.DimensionsConnectionDetails;
+import com.serena.dmclient.api.Request;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The immutable details of one Dimensions login, as held by {@link DimensionsAPI} against the login's key.
+ * <p>
+ * Everything that used to be stored in fields of {@link DimensionsAPI} by {@code login} (server, base database,
+ * user and detected server version) is kept here instead, so that concurrent builds and polls of the same job can
+ * share a {@link DimensionsAPI} without overwriting each other's connection details. The only mutable state is a
+ * cache of request graphs and the keys of pooled sessions, which live and die with the connection.
+ */
+final class DimensionsSession {
+    /** Detected server versions, keyed by server and base database, so that detection happens once per server. */
+    private static final ConcurrentMap<String, Integer> SERVER_VERSIONS = new ConcurrentHashMap<String, Integer>();
+
+    private final long key;
+    private final DimensionsConnection connection;
+    private final String server;
+    private final String dbName;
+    private final String dbConn;
+    private final String user;
+    private final int version;
+    private final DimensionsBulkhead.Permit permit;
+    private final DimensionsConnectionDetails details;
+    private final ConcurrentMap<String, List<Request>> requestGraphs = new ConcurrentHashMap<String, List<Request>>();
+    private final List<Long> pooledKeys = new CopyOnWriteArrayList<Long>();
+
+    private DimensionsSession(long key, DimensionsConnection connection, String server, String dbName, String dbConn,
+            String user, int version, DimensionsBulkhead.Permit permit, DimensionsConnectionDetails details) {
+        this.key = key;
+        this.connection = connection;
+        this.server = server;
+        this.dbName = dbName;
+        this.dbConn = dbConn;
+        this.user = user;
+        this.version = version;
+        this.permit = permit;
+        this.details = details;
+    }
+
+    /**
+     * Creates the session for a new connection, detecting the server version if it is not already known.
+     *
+     * @param permit  the server's session permit held by the connection, released by {@link #release}
+     * @param details the details the connection was made with, to open pooled sessions like it
+     */
+    static DimensionsSession open(long key, DimensionsConnection connection, String server, String dbName,
+            String dbConn, String user, DimensionsBulkhead.Permit permit, DimensionsConnectionDetails details) {
+        final String serverKey = serverKey(server, dbName, dbConn);
+        Integer version = SERVER_VERSIONS.get(serverKey);
+        if (version == null) {
+            version = detectVersion(connection);
+            SERVER_VERSIONS.put(serverKey, version);
+        }
+        return new DimensionsSession(key, connection, server, dbName, dbConn, user, version, permit, details);
+    }
+
+    /**
+     * Gets the key that identifies a server and base database.
+     */
+    static String serverKey(String server, String dbName, String dbConn) {
+        return server + "|" + dbName + "@" + dbConn;
+    }
+
+    long getKey() {
+        return key;
+    }
+
+    DimensionsConnection getConnection() {
+        return connection;
+    }
+
+    String getServer() {
+        return server;
+    }
+
+    String getDbName() {
+        return dbName;
+    }
+
+    String getDbConn() {
+        return dbConn;
+    }
+
+    String getUser() {
+        return user;
+    }
+
+    /**
+     * Gets the bulkhead that limits concurrent operations against the session's server.
+     */
+    DimensionsBulkhead getBulkhead() {
+        return DimensionsBulkhead.forServer(serverKey(server, dbName, dbConn));
+    }
+
+    /**
+     * Releases the session's permit, once the connection has been closed.
+     */
+    void release() {
+        if (permit != null) {
+            permit.release();
+        }
+    }
+
+    DimensionsConnectionDetails getDetails() {
+        return details;
+    }
+
+    /**
+     * Gets the keys of the extra sessions opened for concurrent queries on behalf of this session. They are logged out
+     * with it.
+     */
+    List<Long> getPooledKeys() {
+        return pooledKeys;
+    }
+
+    void addPooledKey(long pooledKey) {
+        pooledKeys.add(pooledKey);
+    }
+
+    /**
+     * Gets a request graph already resolved in this session, keyed by its root requests.
+     */
+    List<Request> getRequestGraph(String roots) {
+        return requestGraphs.get(roots);
+    }
+
+    void putRequestGraph(String roots, List<Request> graph) {
+        requestGraphs.put(roots, graph);
+    }
+
+    /**
+     * Gets the Dimensions version of the server (10, 2009 or 2010).
+     */
+    int getVersion() {
+        return version;
+    }
+
+    private static int detectVersion(DimensionsConnection connection) {
+        int version = 2009;
+        // Get the server version.
+        List<String> inf = connection.getObjectFactory().getServerVersion(2);
+        if (inf == null) {
+            Logger.debug("Detection of server information failed");
+            return version;
+        }
+        Logger.debug("Server information detected -" + inf.size());
+        for (int i = 0; i < inf.size(); ++i) {
+            String prop = inf.get(i);
+            Logger.debug(i + " - " + prop);
+        }
+
+        // Try and locate the server version.
+        // If not found, then get the schema version and use that.
+        String serverx = inf.get(2);
+        if (serverx == null) {
+            serverx = inf.get(0);
+        }
+        if (serverx != null) {
+            Logger.debug("Detected server version: " + serverx);
+            String[] tokens = serverx.split(" ");
+            serverx = tokens[0];
+            if (serverx.startsWith("10.")) {
+                version = 10;
+            } else if (serverx.startsWith("2009")) {
+                version = 2009;
+            } else if (serverx.startsWith("201")) {
+                version = 2010;
+            } else if (serverx.startsWith("12.1")) {
+                version = 2010;
+            } else if (serverx.startsWith("12.2")) {
+                version = 2010;
+            } else {
+                version = 2009;
+            }
+            Logger.debug("Version to process set to " + version);
+        } else {
+            Logger.debug("No server information found");
+        }
+        return version;
+    }
+}
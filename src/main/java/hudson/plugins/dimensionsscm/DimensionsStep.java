@@ -43,7 +43,10 @@ public final class DimensionsStep extends SCMStep {
     private String certificatePath;
     private List<StringVarStorage> folders;
     private List<StringVarStorage> pathsToExclude;
+    private List<StringVarStorage> pathsToInclude;
     private boolean canJobDelete;
+    private boolean canJobDeleteInBackground;
+    private boolean canJobPrefetch;
     private boolean canJobForce;
     private boolean canJobRevert;
     private boolean canJobExpand;
@@ -179,11 +182,26 @@ public void setPathsToExclude(List<StringVarStorage> pathsToExclude) {
         this.pathsToExclude = Values.notBlankOrElseList(pathsToExclude, null);
     }
 
+    @DataBoundSetter
+    public void setPathsToInclude(List<StringVarStorage> pathsToInclude) {
+        this.pathsToInclude = Values.notBlankOrElseList(pathsToInclude, null);
+    }
+
     @DataBoundSetter
     public void setCanJobDelete(boolean canJobDelete) {
         this.canJobDelete = canJobDelete;
     }
 
+    @DataBoundSetter
+    public void setCanJobDeleteInBackground(boolean canJobDeleteInBackground) {
+        this.canJobDeleteInBackground = canJobDeleteInBackground;
+    }
+
+    @DataBoundSetter
+    public void setCanJobPrefetch(boolean canJobPrefetch) {
+        this.canJobPrefetch = canJobPrefetch;
+    }
+
     @DataBoundSetter
     public void setCanJobForce(boolean canJobForce) {
         this.canJobForce = canJobForce;
@@ -239,10 +257,22 @@ public List<StringVarStorage> getPathsToExclude() {
         return pathsToExclude;
     }
 
+    public List<StringVarStorage> getPathsToInclude() {
+        return pathsToInclude;
+    }
+
     public boolean isCanJobDelete() {
         return canJobDelete;
     }
 
+    public boolean isCanJobDeleteInBackground() {
+        return canJobDeleteInBackground;
+    }
+
+    public boolean isCanJobPrefetch() {
+        return canJobPrefetch;
+    }
+
     public boolean isCanJobForce() {
         return canJobForce;
     }
@@ -364,10 +394,13 @@ protected SCM createSCM() {
         scm.setTimeZone(timeZone);
         scm.setWebUrl(webUrl);
         scm.setCanJobDelete(canJobDelete);
+        scm.setCanJobDeleteInBackground(canJobDeleteInBackground);
+        scm.setCanJobPrefetch(canJobPrefetch);
         scm.setCanJobForce(canJobForce);
         scm.setCanJobRevert(canJobRevert);
         scm.setFolders(folders);
         scm.setPathsToExclude(pathsToExclude);
+        scm.setPathsToInclude(pathsToInclude);
         scm.setEol(eol);
         scm.setPermissions(permissions);
         scm.setCanJobExpand(canJobExpand);
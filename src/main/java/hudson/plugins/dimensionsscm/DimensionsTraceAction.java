@@ -0,0 +1,258 @@
+package hudson.plugins.dimensionsscm;
+
+import hudson.model.Run;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import jenkins.model.RunAction2;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * The timeline of Dimensions operations of a build, as recorded by {@link DimensionsTracer}.
+ * <p>
+ * Shown as a <i>Dimensions Timeline</i> page of the build, and exported as JSON/XML through the build's remote API
+ * (e.g. {@code <build>/dimensions-timeline/api/json}).
+ * <p>
+ * The spans are saved with the build, so at most {@link #MAX_SPANS} of them are kept. Beyond that the shortest ones are
+ * dropped, which leaves the operations that took the build's time (and the operations that contain them), and the
+ * number dropped is shown instead.
+ */
+@ExportedBean
+public class DimensionsTraceAction implements RunAction2, DimensionsTraceSink {
+    /** Maximum number of spans kept for a build. */
+    static final int MAX_SPANS = Math.max(1, Integer.getInteger(DimensionsTraceAction.class.getName() + ".maxSpans", 500));
+
+    private final List<Span> spans = new ArrayList<Span>();
+    private int droppedSpans;
+    private transient Run<?, ?> run;
+
+    /**
+     * One timed operation.
+     */
+    @ExportedBean(defaultVisibility = 2)
+    public static final class Span implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String id;
+        private final String parentId;
+        private final String name;
+        private final long start;
+        private final long duration;
+        private final String host;
+        private final String thread;
+        private final boolean failed;
+
+        Span(String id, String parentId, String name, long start, long duration, String host, String thread,
+                boolean failed) {
+            this.id = id;
+            this.parentId = parentId;
+            this.name = name;
+            this.start = start;
+            this.duration = duration;
+            this.host = host;
+            this.thread = thread;
+            this.failed = failed;
+        }
+
+        @Exported
+        public String getId() {
+            return id;
+        }
+
+        @Exported
+        public String getParentId() {
+            return parentId;
+        }
+
+        @Exported
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Start time, in milliseconds since the epoch.
+         */
+        @Exported
+        public long getStart() {
+            return start;
+        }
+
+        @Exported
+        public long getDuration() {
+            return duration;
+        }
+
+        @Exported
+        public String getHost() {
+            return host;
+        }
+
+        @Exported
+        public String getThread() {
+            return thread;
+        }
+
+        @Exported
+        public boolean isFailed() {
+            return failed;
+        }
+    }
+
+    /**
+     * Gets the action of a build, adding it if the build does not have one yet.
+     */
+    static DimensionsTraceAction of(Run<?, ?> run) {
+        synchronized (run) {
+            DimensionsTraceAction action = run.getAction(DimensionsTraceAction.class);
+            if (action == null) {
+                action = new DimensionsTraceAction();
+                run.addAction(action);
+            }
+            return action;
+        }
+    }
+
+    @Override
+    public void record(Span span) {
+        synchronized (spans) {
+            if (spans.size() < MAX_SPANS) {
+                spans.add(span);
+                return;
+            }
+            droppedSpans++;
+            int shortest = 0;
+            for (int i = 1; i < spans.size(); i++) {
+                if (spans.get(i).duration < spans.get(shortest).duration) {
+                    shortest = i;
+                }
+            }
+            if (spans.get(shortest).duration < span.duration) {
+                spans.set(shortest, span);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of spans that were not kept, as the build had more than {@link #MAX_SPANS}.
+     */
+    @Exported
+    public int getDroppedSpans() {
+        synchronized (spans) {
+            return droppedSpans;
+        }
+    }
+
+    /**
+     * Gets the spans, in start order.
+     */
+    @Exported(inline = true)
+    public List<Span> getSpans() {
+        List<Span> sorted;
+        synchronized (spans) {
+            sorted = new ArrayList<Span>(spans);
+        }
+        Collections.sort(sorted, new Comparator<Span>() {
+            @Override
+            public int compare(Span a, Span b) {
+                return a.start < b.start ? -1 : (a.start == b.start ? 0 : 1);
+            }
+        });
+        return sorted;
+    }
+
+    /**
+     * Start of the earliest span, in milliseconds since the epoch.
+     */
+    @Exported
+    public long getStart() {
+        long start = Long.MAX_VALUE;
+        for (Span span : getSpans()) {
+            start = Math.min(start, span.start);
+        }
+        return start == Long.MAX_VALUE ? 0L : start;
+    }
+
+    /**
+     * Time from the start of the earliest span to the end of the latest span, in milliseconds.
+     */
+    @Exported
+    public long getDuration() {
+        long start = Long.MAX_VALUE;
+        long end = Long.MIN_VALUE;
+        for (Span span : getSpans()) {
+            start = Math.min(start, span.start);
+            end = Math.max(end, span.start + span.duration);
+        }
+        return start == Long.MAX_VALUE ? 0L : end - start;
+    }
+
+    /**
+     * Gets the nesting depth of each span, keyed by span id, for indenting the timeline.
+     */
+    public Map<String, Integer> getDepths() {
+        List<Span> all = getSpans();
+        Map<String, String> parents = new HashMap<String, String>();
+        for (Span span : all) {
+            parents.put(span.id, span.parentId);
+        }
+        Map<String, Integer> depths = new HashMap<String, Integer>();
+        for (Span span : all) {
+            int depth = 0;
+            String parent = span.parentId;
+            while (parent != null && parents.containsKey(parent) && depth < all.size()) {
+                depth++;
+                parent = parents.get(parent);
+            }
+            depths.put(span.id, depth);
+        }
+        return depths;
+    }
+
+    /**
+     * Gets the offset of a span from the start of the timeline, as a percentage of the timeline's duration.
+     */
+    public double getOffsetPercent(Span span, long start, long duration) {
+        return duration <= 0L ? 0.0 : (span.start - start) * 100.0 / duration;
+    }
+
+    /**
+     * Gets the duration of a span as a percentage of the timeline's duration.
+     */
+    public double getWidthPercent(Span span, long duration) {
+        return duration <= 0L ? 100.0 : Math.max(0.2, span.duration * 100.0 / duration);
+    }
+
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    @Override
+    public void onAttached(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public void onLoad(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return "clock.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Dimensions Timeline";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "dimensions-timeline";
+    }
+}
@@ -0,0 +1,14 @@
+package hudson.plugins.dimensionsscm;
+
+import hudson.remoting.Asynchronous;
+
+/**
+ * Receives finished trace spans.
+ * <p>
+ * The {@link DimensionsTraceAction} of a build is exported over the agent's channel as a sink, so that tasks running on
+ * the agent can send their spans back to the controller.
+ */
+public interface DimensionsTraceSink {
+    @Asynchronous
+    void record(DimensionsTraceAction.Span span);
+}
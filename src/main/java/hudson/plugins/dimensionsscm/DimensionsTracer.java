@@ -0,0 +1,165 @@
+package hudson.plugins.dimensionsscm;
+
+import hudson.FilePath;
+import hudson.model.Run;
+import hudson.remoting.Channel;
+import hudson.remoting.VirtualChannel;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lightweight span tracing of the Dimensions operations of a build.
+ * <p>
+ * A span is started with one of the {@code start} methods and must be ended in a {@code finally} block. The span
+ * started most recently on a thread is the parent of spans started later on that thread with {@link #start(String)},
+ * so code deep in {@link DimensionsAPI} can add spans without being given the build. When no span is active on the
+ * thread, {@link #start(String)} returns a span that records nothing.
+ */
+final class DimensionsTracer {
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<Scope>();
+
+    private static final AtomicLong SEQUENCE = new AtomicLong(1L);
+
+    private static final Scope NONE = new Scope(null, null, null);
+
+    private static volatile String host;
+
+    private DimensionsTracer() {
+        /* prevent instantiation. */
+    }
+
+    /**
+     * An active span.
+     */
+    static final class Scope {
+        private final DimensionsTraceSink sink;
+        private final String id;
+        private final String parentId;
+        private final String name;
+        private final long start = System.currentTimeMillis();
+        private final Scope previous;
+        private boolean failed;
+        private boolean ended;
+
+        private Scope(DimensionsTraceSink sink, String parentId, String name) {
+            this.sink = sink;
+            this.parentId = parentId;
+            this.name = name;
+            this.id = sink == null ? null : host() + "-" + SEQUENCE.getAndIncrement();
+            this.previous = sink == null ? null : CURRENT.get();
+        }
+
+        String getId() {
+            return id;
+        }
+
+        DimensionsTraceSink getSink() {
+            return sink;
+        }
+
+        /**
+         * Marks the span as failed.
+         */
+        void fail() {
+            failed = true;
+        }
+
+        /**
+         * Ends the span, sending it to its sink.
+         */
+        void end() {
+            if (sink == null || ended) {
+                return;
+            }
+            ended = true;
+            if (CURRENT.get() == this) {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+            try {
+                sink.record(new DimensionsTraceAction.Span(id, parentId, name, start,
+                        System.currentTimeMillis() - start, host(), Thread.currentThread().getName(), failed));
+            } catch (RuntimeException e) {
+                Logger.debug("Unable to record trace span '" + name + "'", e);
+            }
+        }
+    }
+
+    /**
+     * Starts a span of a build.
+     */
+    static Scope start(Run<?, ?> run, String name) {
+        return start(DimensionsTraceAction.of(run), name);
+    }
+
+    /**
+     * Starts a span, as a child of the thread's current span if it has the same sink.
+     */
+    static Scope start(DimensionsTraceSink sink, String name) {
+        Scope current = CURRENT.get();
+        return start(sink, current != null && current.sink == sink ? current.id : null, name);
+    }
+
+    /**
+     * Starts a span with an explicit parent, e.g. on an agent or on a worker thread.
+     */
+    static Scope start(DimensionsTraceSink sink, String parentId, String name) {
+        if (sink == null) {
+            return NONE;
+        }
+        Scope scope = new Scope(sink, parentId, name);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * Starts a child of the thread's current span, or does nothing if there is no current span.
+     */
+    static Scope start(String name) {
+        Scope current = CURRENT.get();
+        return current == null ? NONE : start(current.sink, current.id, name);
+    }
+
+    /**
+     * Gets the thread's current span, to start children of it on other threads.
+     */
+    static Scope current() {
+        Scope current = CURRENT.get();
+        return current == null ? NONE : current;
+    }
+
+    /**
+     * Gets a sink for the build's spans that can be used by a task run in the workspace. For a remote workspace this
+     * is a proxy exported over the agent's channel.
+     */
+    static DimensionsTraceSink sinkFor(Run<?, ?> run, FilePath workspace) {
+        DimensionsTraceAction action = DimensionsTraceAction.of(run);
+        VirtualChannel channel = workspace.getChannel();
+        if (workspace.isRemote() && channel instanceof Channel) {
+            try {
+                return ((Channel) channel).export(DimensionsTraceSink.class, action);
+            } catch (RuntimeException e) {
+                Logger.debug("Unable to export trace sink to the agent", e);
+                return null;
+            }
+        }
+        return action;
+    }
+
+    private static String host() {
+        String h = host;
+        if (h == null) {
+            try {
+                h = InetAddress.getLocalHost().getHostName();
+            } catch (UnknownHostException e) {
+                h = "unknown";
+            }
+            host = h;
+        }
+        return h;
+    }
+}
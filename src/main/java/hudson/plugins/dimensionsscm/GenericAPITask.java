@@ -44,7 +44,6 @@ public Boolean invoke(File area, VirtualChannel channel) throws IOException {
             if (scmAPI == null) {
                 scmAPI = new DimensionsAPI();
             }
-            scmAPI.setLogger(listener.getLogger());
 
             // Connect to Dimensions...
             key = scmAPI.login(scm, run);
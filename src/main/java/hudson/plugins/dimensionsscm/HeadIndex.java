@@ -0,0 +1,164 @@
+package hudson.plugins.dimensionsscm;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stream and baseline metadata of a Dimensions database, kept between the scans of {@link DimensionsSCMSource}s so
+ * that each scan only asks the server for what may have changed since the last one.
+ * <p>
+ * The last update dates of the streams of a scan are fetched with one bulk query, and reused for
+ * {@link #FRESH_MILLIS} so that the scans that follow a head event, and other sources with the same streams, do not
+ * query them again. Baselines do not change once created, so they are found incrementally: a scan only queries the
+ * baselines created since the newest one already known, and all of them are queried again every
+ * {@link #RESCAN_MILLIS} to forget deleted baselines.
+ */
+final class HeadIndex {
+    /** How long the last update date of a stream is reused. */
+    static final long FRESH_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    /** How long baselines are found incrementally before all of them are queried again. */
+    static final long RESCAN_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private static final ConcurrentMap<String, HeadIndex> INDEXES = new ConcurrentHashMap<String, HeadIndex>();
+
+    /** The last update date ("" if none, null if it is not a stream) and when it was fetched, by stream spec. */
+    private final Map<String, Stream> streams = new HashMap<String, Stream>();
+    /** The known baselines by product ("" for all products). */
+    private final Map<String, Baselines> baselines = new HashMap<String, Baselines>();
+
+    HeadIndex() {
+    }
+
+    /**
+     * Gets the index of a database, as seen by a user. Users may be allowed to see different streams and baselines,
+     * so each user has an index of their own.
+     */
+    static HeadIndex of(String server, String database, String dbConn, String userName) {
+        String key = ConnectionCheck.fingerprint(upper(server), upper(database), upper(dbConn), upper(userName));
+        HeadIndex index = INDEXES.get(key);
+        if (index == null) {
+            HeadIndex created = new HeadIndex();
+            index = INDEXES.putIfAbsent(key, created);
+            if (index == null) {
+                index = created;
+            }
+        }
+        return index;
+    }
+
+    private static String upper(String value) {
+        return value != null ? value.trim().toUpperCase(Values.ROOT_LOCALE) : null;
+    }
+
+    /**
+     * Gets the last update date of each of some streams, only querying those that were not fetched recently.
+     *
+     * @param specs stream specs, in upper case
+     * @param now   the current time
+     * @return the last update date by stream spec, in the order of the specs, for the specs that are streams
+     */
+    Map<String, String> streams(DimensionsAPI api, long key, Collection<String> specs, long now) throws IOException {
+        List<String> stale = new ArrayList<String>();
+        synchronized (this) {
+            for (String spec : specs) {
+                Stream stream = streams.get(spec);
+                if (stream == null || now - stream.fetched >= FRESH_MILLIS) {
+                    stale.add(spec);
+                }
+            }
+        }
+        DimensionsMetrics.counter("heads.streams.hit").inc(specs.size() - stale.size());
+        if (!stale.isEmpty()) {
+            DimensionsMetrics.counter("heads.streams.miss").inc(stale.size());
+            Map<String, String> updates = api.getStreamUpdates(key, stale);
+            synchronized (this) {
+                for (String spec : stale) {
+                    streams.put(spec, new Stream(updates.get(spec), now));
+                }
+            }
+        }
+        Map<String, String> found = new LinkedHashMap<String, String>();
+        synchronized (this) {
+            for (String spec : specs) {
+                Stream stream = streams.get(spec);
+                if (stream != null && stream.updated != null) {
+                    found.put(spec, stream.updated);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Gets the baselines of a product, only querying those created since the last query.
+     *
+     * @param product the product, in upper case, or null for the baselines of all products
+     * @param tz      the time zone of the server's dates
+     * @param now     the current time
+     * @return the creation date by baseline spec, sorted by spec
+     */
+    Map<String, String> baselines(DimensionsAPI api, long key, String product, TimeZone tz, long now)
+            throws IOException {
+        String scope = product != null ? product : "";
+        Date since;
+        synchronized (this) {
+            Baselines known = baselines.get(scope);
+            since = known != null && now - known.scanned < RESCAN_MILLIS ? known.newest : null;
+        }
+        Map<String, String> created = api.findBaselines(key, product, since, tz);
+        DimensionsMetrics.counter(since != null ? "heads.baselines.incremental" : "heads.baselines.full").inc();
+        synchronized (this) {
+            Baselines known = baselines.get(scope);
+            if (known == null || since == null) {
+                known = new Baselines(now);
+                baselines.put(scope, known);
+            }
+            known.add(created, tz);
+            return new TreeMap<String, String>(known.created);
+        }
+    }
+
+    private static final class Stream {
+        private final String updated;
+        private final long fetched;
+
+        Stream(String updated, long fetched) {
+            this.updated = updated;
+            this.fetched = fetched;
+        }
+    }
+
+    private static final class Baselines {
+        private final Map<String, String> created = new HashMap<String, String>();
+        /** When all the baselines were last queried. */
+        private final long scanned;
+        /** The newest creation date seen, to query the baselines created since. */
+        private Date newest;
+
+        Baselines(long scanned) {
+            this.scanned = scanned;
+        }
+
+        void add(Map<String, String> found, TimeZone tz) {
+            for (Map.Entry<String, String> entry : found.entrySet()) {
+                created.put(entry.getKey(), entry.getValue());
+                Date date = Values.hasText(entry.getValue())
+                        ? DimensionsAPI.parseDatabaseDate(entry.getValue(), tz) : null;
+                if (date != null && (newest == null || date.after(newest))) {
+                    newest = date;
+                }
+            }
+        }
+    }
+}
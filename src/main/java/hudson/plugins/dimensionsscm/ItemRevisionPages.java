@@ -0,0 +1,132 @@
+package hudson.plugins.dimensionsscm;
+
+import com.serena.dmclient.api.DimensionsConnection;
+import com.serena.dmclient.api.DimensionsRelatedObject;
+import com.serena.dmclient.api.DimensionsRuntimeException;
+import com.serena.dmclient.api.ItemRevision;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The item revisions found by a query, whose attributes are fetched a page at a time as they are iterated.
+ * <p>
+ * The related objects returned by the query hold their item revisions, and each revision holds its attributes once
+ * fetched, so the related objects of a page are forgotten as soon as the page is fetched. Only the page being
+ * iterated is held with its attributes, and a caller that streams through the revisions (rather than copying them
+ * into a list) needs memory for one page of attributes however many revisions the query found. As a consequence the
+ * revisions can only be iterated once.
+ */
+final class ItemRevisionPages implements Iterable<ItemRevision> {
+    /** Default number of item revisions whose attributes are fetched together. */
+    static final int DEFAULT_PAGE_SIZE = 500;
+
+    private final DimensionsConnection connection;
+    /** The related objects of the pages not fetched yet; the slots of fetched pages are null. */
+    private final DimensionsRelatedObject[] pending;
+    private final int[] attrs;
+    private final int pageSize;
+    private final AtomicBoolean iterated = new AtomicBoolean();
+
+    /**
+     * @param connection the connection to fetch attributes over
+     * @param rels       the related objects returned by a {@code getChildItems} query, which are copied so that the
+     *                   caller need not keep the list
+     * @param attrs      the attributes to fetch for each item revision
+     * @param pageSize   the number of item revisions whose attributes are fetched together
+     */
+    ItemRevisionPages(DimensionsConnection connection, List<DimensionsRelatedObject> rels, int[] attrs, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        this.connection = connection;
+        this.pending = rels.toArray(new DimensionsRelatedObject[0]);
+        this.attrs = attrs.clone();
+        this.pageSize = pageSize;
+    }
+
+    static ItemRevisionPages empty() {
+        return new ItemRevisionPages(null, Collections.<DimensionsRelatedObject>emptyList(), new int[0],
+                DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Gets the number of item revisions found by the query.
+     */
+    int size() {
+        return pending.length;
+    }
+
+    boolean isEmpty() {
+        return pending.length == 0;
+    }
+
+    /**
+     * Iterates over the item revisions. The attributes of a page are fetched when its first revision is reached.
+     *
+     * @throws IllegalStateException if the revisions have already been iterated
+     * @throws DimensionsRuntimeException (from {@code next}) if the attributes of a page could not be fetched
+     */
+    @Override
+    public Iterator<ItemRevision> iterator() {
+        if (!iterated.compareAndSet(false, true)) {
+            throw new IllegalStateException("The item revisions of a query can only be iterated once");
+        }
+        return new Iterator<ItemRevision>() {
+            private int next;
+            private List<ItemRevision> page = Collections.emptyList();
+            private int inPage;
+
+            @Override
+            public boolean hasNext() {
+                return next < pending.length;
+            }
+
+            @Override
+            public ItemRevision next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (inPage == page.size()) {
+                    // Drop the previous page before fetching the next, so that only one is held at a time.
+                    page = Collections.emptyList();
+                    page = fetch(next);
+                    inPage = 0;
+                }
+                next++;
+                return page.get(inPage++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private List<ItemRevision> fetch(int start) {
+        int end = Math.min(start + pageSize, pending.length);
+        List<ItemRevision> page = new ArrayList<ItemRevision>(end - start);
+        for (int i = start; i < end; i++) {
+            page.add((ItemRevision) pending[i].getObject());
+            pending[i] = null;
+        }
+        DimensionsMetrics.Timer.Context query = DimensionsMetrics.timer("query.items.page").time();
+        try {
+            connection.getObjectFactory().getBulkOperator(page).queryAttribute(attrs);
+        } catch (RuntimeException e) {
+            query.stop();
+            String message = Values.exceptionMessage("Unable to fetch the attributes of item revisions " + start + "-"
+                    + end + "/" + pending.length, e, "no message");
+            Logger.debug(message, e);
+            throw (DimensionsRuntimeException) new DimensionsRuntimeException(message).initCause(e);
+        }
+        long elapsed = query.stop();
+        Logger.debug("Fetched the attributes of item revisions " + start + "-" + end + "/" + pending.length + " in "
+                + elapsed + " ms");
+        return page;
+    }
+}
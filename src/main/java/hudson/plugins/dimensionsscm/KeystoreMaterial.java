@@ -0,0 +1,136 @@
+package hudson.plugins.dimensionsscm;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.Provider;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.crypto.Mac;
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.X509KeyManager;
+
+/**
+ * The certificate, signing key and key manager of one alias of a keystore, as used for certificate logins.
+ * <p>
+ * Loading a keystore and setting up its key manager and signature provider is costly, and certificate logins happen
+ * on every poll and build, so the material is cached in the JVM that logs in. Entries are keyed by keystore path and
+ * alias, and are loaded again when the keystore file's modification time or size changes or when different passwords
+ * are given. Only a {@linkplain Values#newSecretDigest() keyed digest} of the passwords is kept, to tell whether they
+ * have changed.
+ */
+final class KeystoreMaterial {
+    private static final ConcurrentMap<String, KeystoreMaterial> CACHE =
+            new ConcurrentHashMap<String, KeystoreMaterial>();
+
+    private final long lastModified;
+    private final long length;
+    private final byte[] passwordDigest;
+
+    private final X509Certificate certificate;
+    private final CertificateProver prover;
+    private final KeyManager keyManager;
+
+    private KeystoreMaterial(long lastModified, long length, byte[] passwordDigest, X509Certificate certificate,
+            CertificateProver prover, KeyManager keyManager) {
+        this.lastModified = lastModified;
+        this.length = length;
+        this.passwordDigest = passwordDigest;
+        this.certificate = certificate;
+        this.prover = prover;
+        this.keyManager = keyManager;
+    }
+
+    /**
+     * Gets the material of an alias of a keystore, loading the keystore only if it has changed since it was last
+     * loaded.
+     */
+    static KeystoreMaterial get(String keystorePath, String alias, String keystorePassword, String certificatePassword)
+            throws IOException, GeneralSecurityException {
+        File file = new File(keystorePath);
+        String key = file.getAbsolutePath() + '\0' + alias;
+        byte[] digest = digest(keystorePassword, certificatePassword);
+        long lastModified = file.lastModified();
+        long length = file.length();
+        KeystoreMaterial cached = CACHE.get(key);
+        if (cached != null && cached.lastModified == lastModified && cached.length == length
+                && MessageDigest.isEqual(cached.passwordDigest, digest)) {
+            DimensionsMetrics.counter("keystore.hit").inc();
+            return cached;
+        }
+        DimensionsMetrics.counter("keystore.miss").inc();
+        KeystoreMaterial material = load(file, alias, keystorePassword, certificatePassword, lastModified, length,
+                digest);
+        CACHE.put(key, material);
+        return material;
+    }
+
+    /**
+     * Forgets all cached material.
+     */
+    static void invalidate() {
+        CACHE.clear();
+    }
+
+    X509Certificate getCertificate() {
+        return certificate;
+    }
+
+    CertificateProver getProver() {
+        return prover;
+    }
+
+    KeyManager getKeyManager() {
+        return keyManager;
+    }
+
+    private static KeystoreMaterial load(File file, String alias, String keystorePassword, String certificatePassword,
+            long lastModified, long length, byte[] digest) throws IOException, GeneralSecurityException {
+        DimensionsMetrics.Timer.Context load = DimensionsMetrics.timer("keystore.load").time();
+        KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        InputStream in = new FileInputStream(file);
+        try {
+            keyStore.load(in, keystorePassword.toCharArray());
+        } finally {
+            in.close();
+        }
+
+        KeyStore.Entry entry = keyStore.getEntry(alias, new KeyStore.PasswordProtection(certificatePassword.toCharArray()));
+        if (!(entry instanceof KeyStore.PrivateKeyEntry)) {
+            throw new GeneralSecurityException("No private key entry '" + alias + "' in keystore " + file);
+        }
+        KeyStore.PrivateKeyEntry pkEntry = (KeyStore.PrivateKeyEntry) entry;
+
+        KeyManager keyManager = null;
+        KeyManagerFactory kmfactory = KeyManagerFactory.getInstance("SunX509");
+        kmfactory.init(keyStore, certificatePassword.toCharArray());
+        KeyManager[] keyManagers = kmfactory.getKeyManagers();
+        if (keyManagers.length > 0 && keyManagers[0] instanceof X509KeyManager) {
+            keyManager = new LabeledKeyManager((X509KeyManager) keyManagers[0], alias);
+        }
+
+        Provider provider = KeyPairGenerator.getInstance(pkEntry.getPrivateKey().getAlgorithm()).getProvider();
+        KeystoreMaterial material = new KeystoreMaterial(lastModified, length, digest,
+                (X509Certificate) pkEntry.getCertificate(), new CertificateProver(pkEntry.getPrivateKey(), provider),
+                keyManager);
+        Logger.debug("Loaded keystore '" + file + "' alias '" + alias + "' in " + load.stop() + " ms");
+        return material;
+    }
+
+    private static byte[] digest(String keystorePassword, String certificatePassword)
+            throws GeneralSecurityException {
+        Mac mac = Values.newSecretDigest();
+        mac.update(keystorePassword.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);
+        mac.update(certificatePassword.getBytes(StandardCharsets.UTF_8));
+        return mac.doFinal();
+    }
+}
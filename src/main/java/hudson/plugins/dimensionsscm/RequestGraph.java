@@ -0,0 +1,72 @@
+package hudson.plugins.dimensionsscm;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Resolves the graph of dependent requests below a set of requests.
+ * <p>
+ * The graph is walked breadth first: the children of a whole level are fetched together, and a request is only
+ * visited once however many parents it has, so shared and cyclic DEPENDENT relations cost no extra round trips and
+ * every request appears once in the result.
+ */
+final class RequestGraph {
+    /**
+     * How to identify requests and fetch their children.
+     *
+     * @param <T> the request type
+     */
+    interface Relations<T> {
+        /**
+         * Gets the unique id of a request.
+         */
+        long uid(T request);
+
+        /**
+         * Gets the dependent child requests of all the requests of one level of the graph.
+         */
+        List<T> dependents(List<T> level);
+    }
+
+    private RequestGraph() {
+        /* prevent instantiation. */
+    }
+
+    /**
+     * Gets the given requests and all their (direct and indirect) dependent requests, each once, in breadth first
+     * order.
+     */
+    static <T> List<T> resolve(List<T> roots, Relations<T> relations) {
+        final Set<Long> visited = new HashSet<Long>();
+        final List<T> resolved = new ArrayList<T>();
+        List<T> level = new ArrayList<T>();
+        for (T root : roots) {
+            if (visited.add(relations.uid(root))) {
+                resolved.add(root);
+                level.add(root);
+            }
+        }
+        int depth = 0;
+        int revisits = 0;
+        while (!level.isEmpty()) {
+            List<T> next = new ArrayList<T>();
+            for (T child : relations.dependents(level)) {
+                if (visited.add(relations.uid(child))) {
+                    resolved.add(child);
+                    next.add(child);
+                } else {
+                    revisits++;
+                }
+            }
+            level = next;
+            depth++;
+        }
+        Logger.debug("Resolved " + resolved.size() + " requests from " + roots.size() + " in " + depth
+                + " levels, skipping " + revisits + " shared or cyclic relations");
+        DimensionsMetrics.histogram("requests.graph.size").update(resolved.size());
+        DimensionsMetrics.histogram("requests.graph.depth").update(depth);
+        return resolved;
+    }
+}
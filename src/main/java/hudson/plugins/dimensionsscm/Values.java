@@ -3,6 +3,8 @@
 import com.serena.dmclient.api.Filter;
 import hudson.plugins.dimensionsscm.model.StringVarStorage;
 
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -12,6 +14,8 @@
 import java.util.List;
 import java.util.Locale;
 import java.util.TimeZone;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 
 /**
  * This class provide some utility methods on strings, arrays and collections.
@@ -20,6 +24,11 @@ final class Values {
     private static final String[] EMPTY_STRING_ARRAY = new String[0];
     static final Locale ROOT_LOCALE = Locale.US;
 
+    private static final String SECRET_DIGEST_ALGORITHM = "HmacSHA256";
+
+    /** The key of the secret digests, different in every JVM. */
+    private static final SecretKeySpec SECRET_DIGEST_KEY = newSecretDigestKey();
+
     private Values() {
         /* prevent instantiation. */
     }
@@ -104,10 +113,27 @@ static String textOrElse(String value, String defaultValue) {
         return defaultValue;
     }
 
+    /**
+     * Gets a digest for telling secrets (such as passwords) apart without keeping them. It is an HMAC under a random
+     * key that never leaves the JVM, so the digests cannot be used to guess the secrets offline, for example from a
+     * heap dump.
+     */
+    static Mac newSecretDigest() throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(SECRET_DIGEST_ALGORITHM);
+        mac.init(SECRET_DIGEST_KEY);
+        return mac;
+    }
+
+    private static SecretKeySpec newSecretDigestKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return new SecretKeySpec(key, SECRET_DIGEST_ALGORITHM);
+    }
+
     /**
      * Generate a message for the new exception when re-throwing an exception.
      */
-    static String exceptionMessage(String newMessage, Exception e, String nullMessage) {
+    static String exceptionMessage(String newMessage, Throwable e, String nullMessage) {
         String className = e != null ? e.getClass().getSimpleName() : "null";
         String msg = e != null ? e.getMessage() : nullMessage;
         if (msg == null) {
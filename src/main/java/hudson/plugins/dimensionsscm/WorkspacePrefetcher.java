@@ -0,0 +1,260 @@
+package hudson.plugins.dimensionsscm;
+
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Computer;
+import hudson.model.Job;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import hudson.slaves.WorkspaceList;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import jenkins.model.Jenkins;
+
+/**
+ * Updates the workspace of a job on an agent as soon as polling finds changes, so that the build's own checkout,
+ * which may wait in the queue for an executor first, only has the changes made since then left to fetch.
+ * <p>
+ * The workspace updated is the one the job last checked out into, on the same agent, which is where Jenkins usually
+ * runs the next build; it is left alone if the agent is offline or no longer has the job's label, or if a build is
+ * using the workspace. The update is the same {@code UPDATE} of the project that the checkout runs, and holds the
+ * workspace's lease until it has finished, so nothing else is given the workspace meanwhile. A freestyle build of the
+ * job that starts on that agent during the update waits for it, for at most {@link #WAIT_MINUTES} minutes, before
+ * being given a workspace; if the update is still running by then, the build is given another workspace.
+ */
+final class WorkspacePrefetcher {
+    /** How long a build waits for the update of its workspace. */
+    static final long WAIT_MINUTES = Math.max(1L, Long.getLong(WorkspacePrefetcher.class.getName() + ".waitMinutes", 30L));
+
+    /** Maximum number of workspaces updated at the same time. */
+    private static final int THREADS = Math.max(1, Integer.getInteger(WorkspacePrefetcher.class.getName() + ".threads", 2));
+
+    private static final ExecutorService PREFETCHER = Executors.newFixedThreadPool(THREADS,
+            new NamingThreadFactory(new DaemonThreadFactory(), "Dimensions workspace prefetch"));
+
+    /** The agent and workspace each job last checked out into, by job name. */
+    private static final ConcurrentMap<String, Location> LAST_CHECKOUT = new ConcurrentHashMap<String, Location>();
+
+    /** The workspaces being updated, by agent name and path. */
+    private static final ConcurrentMap<String, CompletableFuture<Void>> RUNNING =
+            new ConcurrentHashMap<String, CompletableFuture<Void>>();
+
+    private WorkspacePrefetcher() {
+        /* prevent instantiation. */
+    }
+
+    /**
+     * Records the workspace that a job checked out into. The workspace cannot still be being updated, as the build
+     * holds its lease, unless the checkout was run outside of one; that checkout fails rather than update the
+     * workspace at the same time.
+     */
+    static void beforeCheckout(Job<?, ?> job, FilePath workspace, TaskListener listener)
+            throws IOException, InterruptedException {
+        final Computer computer = workspace.toComputer();
+        if (computer == null) {
+            return;
+        }
+        LAST_CHECKOUT.put(job.getFullName(), new Location(computer.getName(), workspace.getRemote()));
+        if (!await(computer.getName(), workspace.getRemote(), 0L, listener)) {
+            throw new AbortException("[DIMENSIONS] The workspace is still being prefetched into; not checking out "
+                    + "into it at the same time.");
+        }
+    }
+
+    /**
+     * Waits for the update of a workspace, if there is one.
+     *
+     * @param millis how long to wait
+     * @return false if the update was still running after that
+     */
+    static boolean await(String node, String path, long millis, TaskListener listener) throws InterruptedException {
+        final CompletableFuture<Void> running = RUNNING.get(key(node, path));
+        if (running == null) {
+            return true;
+        }
+        if (millis > 0L) {
+            listener.getLogger().println("[DIMENSIONS] Waiting for the prefetch into '" + path + "' to finish...");
+            listener.getLogger().flush();
+        }
+        final DimensionsMetrics.Timer.Context wait = DimensionsMetrics.timer("prefetch.wait").time();
+        try {
+            running.get(millis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // The checkout fetches whatever the prefetch did not.
+            Logger.debug(Values.exceptionMessage("Prefetch failed", e, "no message"), e);
+        } catch (TimeoutException e) {
+            return false;
+        } finally {
+            wait.stop();
+        }
+        return true;
+    }
+
+    /**
+     * Starts updating the workspace of a job in the background, if there is one where its next build is likely to run.
+     *
+     * @param version the Dimensions server version
+     */
+    static void prefetch(final DimensionsSCM scm, final Job<?, ?> job, final int version, final TaskListener listener) {
+        final Location location = LAST_CHECKOUT.get(job.getFullName());
+        if (location == null) {
+            Logger.debug("Not prefetching for " + job.getFullName() + ": no checkout recorded since Jenkins started");
+            return;
+        }
+        final Computer computer = Jenkins.get().getComputer(location.node);
+        final Node node = computer != null && computer.isOnline() ? computer.getNode() : null;
+        if (node == null || node == Jenkins.get()) {
+            // Checkouts on the controller use the Java API directly, so there is nothing to gain there.
+            Logger.debug("Not prefetching for " + job.getFullName() + ": '" + location.node + "' is not an online agent");
+            return;
+        }
+        if (job instanceof AbstractProject) {
+            final Label label = ((AbstractProject<?, ?>) job).getAssignedLabel();
+            if (label != null && !label.contains(node)) {
+                Logger.debug("Not prefetching for " + job.getFullName() + ": '" + location.node + "' is not in " + label);
+                return;
+            }
+        }
+        final FilePath workspace = node.createPath(location.path);
+        if (workspace == null) {
+            return;
+        }
+        final BaseCallable task = scm.createPrefetchTask(job.getLastBuild(), version, workspace);
+        if (task == null) {
+            return;
+        }
+        final CompletableFuture<Void> done = start(computer.getWorkspaceList(), workspace, location.node,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        final DimensionsBulkhead.Priority priority = DimensionsBulkhead.setPriority(
+                                DimensionsBulkhead.Priority.POLL);
+                        final DimensionsMetrics.Timer.Context time = DimensionsMetrics.timer("prefetch").time();
+                        try {
+                            final DimensionsBulkhead.Permit permit = DimensionsBulkhead.acquireHeavy(scm.getServer(),
+                                    scm.getDatabase(), scm.getDbConn());
+                            try {
+                                if (!Boolean.TRUE.equals(workspace.act(task))) {
+                                    Logger.debug("Prefetch into '" + location.path + "' on '" + location.node
+                                            + "' failed");
+                                }
+                            } finally {
+                                permit.release();
+                            }
+                        } catch (IOException e) {
+                            Logger.debug(Values.exceptionMessage("Prefetch into '" + location.path + "' failed", e,
+                                    "no message"), e);
+                        } catch (RuntimeException e) {
+                            Logger.debug(Values.exceptionMessage("Prefetch into '" + location.path + "' failed", e,
+                                    "no message"), e);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            Logger.debug("Prefetch into '" + location.path + "' on '" + location.node + "' took "
+                                    + time.stop() + " ms");
+                            DimensionsBulkhead.setPriority(priority);
+                        }
+                    }
+                });
+        if (done == null) {
+            Logger.debug("Not prefetching for " + job.getFullName() + ": '" + location.path + "' is in use");
+            return;
+        }
+        listener.getLogger().println("[DIMENSIONS] Prefetching the changes into '" + location.path + "' on '"
+                + location.node + "'...");
+        DimensionsMetrics.counter("prefetch.started").inc();
+    }
+
+    /**
+     * Runs an update of a workspace in the background, holding the workspace's lease until it has finished.
+     *
+     * @return the update's completion, or null if the workspace is in use or already being updated
+     */
+    static CompletableFuture<Void> start(final WorkspaceList workspaces, final FilePath workspace, final String node,
+            final Runnable update) {
+        final String key = key(node, workspace.getRemote());
+        final CompletableFuture<Void> done = new CompletableFuture<Void>();
+        if (RUNNING.putIfAbsent(key, done) != null) {
+            return null;
+        }
+        final WorkspaceList.Lease lease = workspaces.tryAcquire(workspace);
+        if (lease == null) {
+            RUNNING.remove(key, done);
+            return null;
+        }
+        try {
+            PREFETCHER.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        update.run();
+                    } finally {
+                        // Release the lease before waking any build waiting for it, so that it is given the workspace.
+                        RUNNING.remove(key, done);
+                        lease.release();
+                        done.complete(null);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            RUNNING.remove(key, done);
+            lease.release();
+            done.complete(null);
+            throw e;
+        }
+        return done;
+    }
+
+    private static String key(String node, String path) {
+        return node + '\0' + path;
+    }
+
+    private static final class Location {
+        private final String node;
+        private final String path;
+
+        Location(String node, String path) {
+            this.node = node;
+            this.path = path;
+        }
+    }
+
+    /**
+     * Holds a freestyle build that starts on the agent whose workspace is being updated for its job until the update
+     * has finished, so that it is given the updated workspace rather than another one. Builds are given their
+     * workspace after they have started.
+     */
+    @Extension
+    public static class BuildStartListener extends RunListener<AbstractBuild<?, ?>> {
+        @Override
+        public void onStarted(AbstractBuild<?, ?> build, TaskListener listener) {
+            final Location location = LAST_CHECKOUT.get(build.getParent().getFullName());
+            final Computer computer = Computer.currentComputer();
+            if (location == null || computer == null || !location.node.equals(computer.getName())) {
+                return;
+            }
+            try {
+                if (!await(location.node, location.path, TimeUnit.MINUTES.toMillis(WAIT_MINUTES), listener)) {
+                    listener.getLogger().println("[DIMENSIONS] The prefetch is still running after " + WAIT_MINUTES
+                            + " minutes; the build will use another workspace.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package hudson.plugins.dimensionsscm;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.Slave;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.slaves.ComputerListener;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Wipes a workspace without making the checkout wait for its old contents to be deleted.
+ * <p>
+ * The contents are renamed into a sibling directory named {@code <workspace>@dmwipe-<id>}, which is quick because
+ * it stays on the same file system, and the checkout can start in the empty workspace straight away. The sibling is
+ * then deleted by a small pool of background threads in the JVM that owns the workspace. Siblings left behind by a JVM
+ * that stopped before deleting them are deleted the next time that workspace is wiped, and when an agent comes online.
+ */
+final class WorkspaceWiper {
+    /** Marks the directories holding old workspace contents that are waiting to be deleted. */
+    static final String TRASH_MARKER = "@dmwipe-";
+
+    /** Maximum number of old workspaces deleted at the same time in one JVM. */
+    private static final int THREADS = Math.max(1, Integer.getInteger(WorkspaceWiper.class.getName() + ".threads", 2));
+
+    private static final ExecutorService DELETER = Executors.newFixedThreadPool(THREADS,
+            new NamingThreadFactory(new DaemonThreadFactory(), "Dimensions workspace wipe"));
+
+    /** The directories being deleted, so that each is only deleted once when workspaces are wiped in a row. */
+    private static final Set<File> PENDING = ConcurrentHashMap.newKeySet();
+
+    private WorkspaceWiper() {
+        /* prevent instantiation. */
+    }
+
+    /**
+     * Empties a workspace, deleting its old contents in the background when they can be moved aside, and in the
+     * calling thread otherwise.
+     */
+    static void wipe(FilePath wa, PrintStream logger) throws IOException, InterruptedException {
+        File area = new File(wa.getRemote());
+        deleteStale(area);
+        File trash = moveAside(area);
+        if (trash == null) {
+            wa.deleteContents();
+            return;
+        }
+        logger.println("[DIMENSIONS] Deleting the old contents of the workspace in the background from '"
+                + trash.getAbsolutePath() + "'...");
+        logger.flush();
+        deleteLater(trash);
+    }
+
+    /**
+     * Moves the contents of a directory into a new sibling directory.
+     *
+     * @return the sibling directory, or null if nothing could be moved, in which case the directory is unchanged
+     * @throws IOException if some of the contents could be neither moved nor deleted
+     */
+    static File moveAside(File area) throws IOException {
+        File parent = area.getAbsoluteFile().getParentFile();
+        File[] children = area.listFiles();
+        if (parent == null || children == null || children.length == 0) {
+            return null;
+        }
+        File trash = new File(parent, area.getName() + TRASH_MARKER + UUID.randomUUID());
+        if (!trash.mkdir()) {
+            Logger.debug("Unable to create '" + trash + "', deleting the workspace in place");
+            return null;
+        }
+        int moved = 0;
+        for (File child : children) {
+            try {
+                Files.move(child.toPath(), new File(trash, child.getName()).toPath(),
+                        StandardCopyOption.ATOMIC_MOVE);
+                moved++;
+            } catch (IOException e) {
+                // Whatever cannot be moved is deleted by the caller with the rest of the workspace.
+                Logger.debug("Unable to move '" + child + "' aside: " + e);
+            }
+        }
+        if (moved == 0) {
+            trash.delete();
+            return null;
+        }
+        if (moved < children.length) {
+            // Delete what is left in place, so that the checkout always starts in an empty workspace.
+            try {
+                for (File child : area.listFiles()) {
+                    Util.deleteRecursive(child);
+                }
+            } catch (IOException e) {
+                deleteLater(trash);
+                throw new IOException(Values.exceptionMessage("Unable to empty '" + area + "'", e, "no message"), e);
+            }
+        }
+        return trash;
+    }
+
+    /**
+     * Deletes, in the background, any directories of old contents left beside a workspace.
+     */
+    static void deleteStale(File area) {
+        File parent = area.getAbsoluteFile().getParentFile();
+        File[] siblings = parent != null ? parent.listFiles() : null;
+        if (siblings == null) {
+            return;
+        }
+        String prefix = area.getName() + TRASH_MARKER;
+        for (File sibling : siblings) {
+            if (sibling.getName().startsWith(prefix) && sibling.isDirectory()) {
+                deleteLater(sibling);
+            }
+        }
+    }
+
+    private static void deleteLater(final File trash) {
+        if (!PENDING.add(trash.getAbsoluteFile())) {
+            return;
+        }
+        DimensionsMetrics.counter("workspace.wipes.pending").inc();
+        DELETER.execute(new Runnable() {
+            @Override
+            public void run() {
+                DimensionsMetrics.Timer.Context delete = DimensionsMetrics.timer("workspace.wipe").time();
+                try {
+                    Util.deleteRecursive(trash);
+                    Logger.debug("Deleted '" + trash + "' in " + delete.stop() + " ms");
+                } catch (IOException e) {
+                    Logger.debug("Unable to delete '" + trash + "': " + e);
+                } finally {
+                    PENDING.remove(trash.getAbsoluteFile());
+                    DimensionsMetrics.counter("workspace.wipes.pending").dec();
+                }
+            }
+        });
+    }
+
+    /**
+     * Deletes the old workspace contents that an agent was still deleting when it went offline.
+     */
+    @Extension
+    public static class StaleWipeCleaner extends ComputerListener {
+        @Override
+        public void onOnline(Computer c, TaskListener listener) {
+            Node node = c.getNode();
+            if (!(node instanceof Slave)) {
+                return;
+            }
+            FilePath root = ((Slave) node).getWorkspaceRoot();
+            if (root == null) {
+                return;
+            }
+            try {
+                root.act(new DeleteStale());
+            } catch (IOException e) {
+                Logger.debug("Unable to delete old workspace contents in '" + root + "': " + e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Deletes, in the background, the old workspace contents in a workspace root.
+     */
+    private static final class DeleteStale extends MasterToSlaveFileCallable<Void> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Void invoke(File root, VirtualChannel channel) {
+            File[] children = root.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    if (child.getName().contains(TRASH_MARKER) && child.isDirectory()) {
+                        deleteLater(child);
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
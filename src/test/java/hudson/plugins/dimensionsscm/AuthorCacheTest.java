@@ -0,0 +1,100 @@
+package hudson.plugins.dimensionsscm;
+
+import hudson.model.User;
+import java.util.Map;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AuthorCacheTest {
+
+    @Test
+    public void mappingIgnoresCommentsAndMalformedLines() {
+        Map<String, String> mapping = AuthorCache.parseMapping("dmsys=admin\n# comment\n\nnoequals\n=x\nJOHN = jsmith \r\n");
+        assertThat(mapping.size(), is(2));
+        assertThat(mapping.get("DMSYS"), is("admin"));
+        assertThat(mapping.get("JOHN"), is("jsmith"));
+        assertThat(AuthorCache.parseMapping(null).isEmpty(), is(true));
+    }
+
+    private static User user(AuthorCache.Resolver resolver, String id, String fullName) {
+        User user = mock(User.class);
+        when(user.getId()).thenReturn(id);
+        when(user.getFullName()).thenReturn(fullName);
+        when(resolver.byId(id, false)).thenReturn(user);
+        return user;
+    }
+
+    @Test
+    public void authorsAreResolvedOnceAndEvictedBeyondTheBound() {
+        AuthorCache.Resolver resolver = mock(AuthorCache.Resolver.class);
+        User john = user(resolver, "john", "John Smith");
+        User admin = user(resolver, "admin", "Administrator");
+        User jane = user(resolver, "jane", "Jane Doe");
+        when(resolver.byIdOrFullName("JOHN")).thenReturn(john);
+        when(resolver.byIdOrFullName("JANE")).thenReturn(jane);
+        when(resolver.byId("admin", true)).thenReturn(admin);
+
+        AuthorCache cache = new AuthorCache(2, resolver);
+        cache.configure("DMSYS=admin");
+        assertThat(cache.resolve("JOHN"), sameInstance(john));
+        assertThat(cache.resolve("JOHN"), sameInstance(john));
+        verify(resolver, times(1)).byIdOrFullName("JOHN");
+
+        assertThat(cache.resolve("dmsys"), sameInstance(admin));
+        cache.resolve("JANE");
+        assertThat(cache.size(), is(2));
+        cache.resolve("JOHN");
+        verify(resolver, times(2)).byIdOrFullName("JOHN");
+
+        cache.invalidate();
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void savingAUserOnlyForgetsTheAuthorsThatMayResolveToIt() {
+        AuthorCache.Resolver resolver = mock(AuthorCache.Resolver.class);
+        User john = user(resolver, "john", "John Smith");
+        User jane = user(resolver, "jane", "Jane Doe");
+        when(resolver.byIdOrFullName("JOHN")).thenReturn(john);
+        when(resolver.byIdOrFullName("JSMITH")).thenReturn(john);
+        when(resolver.byIdOrFullName("JANE")).thenReturn(jane);
+        when(resolver.byIdOrFullName("Jane Doe")).thenReturn(jane);
+        AuthorCache cache = new AuthorCache(10, resolver);
+        cache.resolve("JOHN");
+        cache.resolve("JSMITH");
+        cache.resolve("JANE");
+        cache.resolve("Jane Doe");
+
+        cache.invalidate(john);
+        assertThat(cache.size(), is(2));
+        cache.resolve("JANE");
+        verify(resolver, times(1)).byIdOrFullName("JANE");
+
+        // An author named after the saved user's full name may now resolve to it instead.
+        User renamed = user(resolver, "jdoe", "Jane Doe");
+        cache.invalidate(renamed);
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    public void deletedUsersAreResolvedAgain() {
+        AuthorCache.Resolver resolver = mock(AuthorCache.Resolver.class);
+        User john = user(resolver, "john", "John Smith");
+        when(resolver.byIdOrFullName("JOHN")).thenReturn(john);
+        AuthorCache cache = new AuthorCache(10, resolver);
+        cache.resolve("JOHN");
+
+        when(resolver.byId("john", false)).thenReturn(null);
+        User recreated = mock(User.class);
+        when(recreated.getId()).thenReturn("john");
+        when(resolver.byIdOrFullName("JOHN")).thenReturn(recreated);
+        assertThat(cache.resolve("JOHN"), sameInstance(recreated));
+        verify(resolver, times(2)).byIdOrFullName("JOHN");
+    }
+}
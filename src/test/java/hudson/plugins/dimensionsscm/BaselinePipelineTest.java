@@ -0,0 +1,181 @@
+package hudson.plugins.dimensionsscm;
+
+import com.serena.dmclient.api.DimensionsResult;
+import hudson.util.StreamTaskListener;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+
+public class BaselinePipelineTest {
+
+    private static final long MAIN_KEY = 1L;
+
+    private static BaselinePipeline.Operation succeeds(final Set<Long> keysUsed) {
+        return new BaselinePipeline.Operation() {
+            @Override
+            public DimensionsResult perform(long key) {
+                keysUsed.add(key);
+                return new DimensionsResult();
+            }
+        };
+    }
+
+    private static BaselinePipeline.Operation fails() {
+        return new BaselinePipeline.Operation() {
+            @Override
+            public DimensionsResult perform(long key) {
+                return null;
+            }
+        };
+    }
+
+    private static BaselinePipeline.Sessions sessions(final AtomicLong next, final Set<Long> closed) {
+        return new BaselinePipeline.Sessions() {
+            @Override
+            public long open() {
+                return next.incrementAndGet();
+            }
+
+            @Override
+            public void close(long key) {
+                closed.add(key);
+            }
+        };
+    }
+
+    @Test
+    public void failedStepSkipsOnlyItsDependents() throws Exception {
+        Set<Long> keysUsed = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+        BaselinePipeline pipeline = new BaselinePipeline(1);
+        BaselinePipeline.Step create = pipeline.add("create", null, "ok", "failed", succeeds(keysUsed));
+        BaselinePipeline.Step deploy = pipeline.add("deploy", null, "ok", "failed", fails(), create);
+        BaselinePipeline.Step build = pipeline.add("build", null, "ok", "failed", succeeds(keysUsed), create);
+        BaselinePipeline.Step action = pipeline.add("action", null, "ok", "failed", succeeds(keysUsed), create, deploy,
+                build);
+
+        boolean ok = pipeline.run(MAIN_KEY, sessions(new AtomicLong(MAIN_KEY), Collections.<Long>emptySet()),
+                new StreamTaskListener(new ByteArrayOutputStream(), StandardCharsets.UTF_8));
+
+        assertThat(ok, is(false));
+        assertThat(create.getStatus(), is(BaselinePipeline.Status.SUCCEEDED));
+        assertThat(deploy.getStatus(), is(BaselinePipeline.Status.FAILED));
+        assertThat(build.getStatus(), is(BaselinePipeline.Status.SUCCEEDED));
+        assertThat(action.getStatus(), is(BaselinePipeline.Status.SKIPPED));
+        assertThat(keysUsed, is(Collections.singleton(MAIN_KEY)));
+    }
+
+    @Test
+    public void concurrentStepsUseTheirOwnSessions() throws Exception {
+        Set<Long> keysUsed = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+        Set<Long> closed = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+        BaselinePipeline pipeline = new BaselinePipeline(2);
+        BaselinePipeline.Step create = pipeline.add("create", null, "ok", "failed", succeeds(keysUsed));
+        pipeline.add("deploy", null, "ok", "failed", succeeds(keysUsed), create);
+        pipeline.add("build", null, "ok", "failed", succeeds(keysUsed), create);
+
+        boolean ok = pipeline.run(MAIN_KEY, sessions(new AtomicLong(MAIN_KEY), closed),
+                new StreamTaskListener(new ByteArrayOutputStream(), StandardCharsets.UTF_8));
+
+        assertThat(ok, is(true));
+        assertThat(keysUsed.size(), is(2));
+        assertThat(closed, is(Collections.singleton(MAIN_KEY + 1)));
+    }
+
+    @Test
+    public void stepsRunInTheMainSessionWhenTheServerHasNoneToSpare() throws Exception {
+        DimensionsBulkhead.configure(1, 0, 0, 1);
+        final DimensionsBulkhead bulkhead = DimensionsBulkhead.forServer("BaselinePipelineTest");
+        DimensionsBulkhead.Permit main = bulkhead.acquire(DimensionsBulkhead.SESSIONS);
+        try {
+            Set<Long> keysUsed = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+            BaselinePipeline pipeline = new BaselinePipeline(2);
+            BaselinePipeline.Step create = pipeline.add("create", null, "ok", "failed", succeeds(keysUsed));
+            BaselinePipeline.Step deploy = pipeline.add("deploy", null, "ok", "failed", succeeds(keysUsed), create);
+            BaselinePipeline.Step build = pipeline.add("build", null, "ok", "failed", succeeds(keysUsed), create);
+
+            boolean ok = pipeline.run(MAIN_KEY, new BaselinePipeline.Sessions() {
+                @Override
+                public long open() {
+                    DimensionsBulkhead.Permit permit = bulkhead.tryAcquire(DimensionsBulkhead.SESSIONS);
+                    if (permit == null) {
+                        return -1L;
+                    }
+                    permit.release();
+                    return MAIN_KEY + 1;
+                }
+
+                @Override
+                public void close(long key) {
+                }
+            }, new StreamTaskListener(new ByteArrayOutputStream(), StandardCharsets.UTF_8));
+
+            assertThat(ok, is(true));
+            assertThat(deploy.getStatus(), is(BaselinePipeline.Status.SUCCEEDED));
+            assertThat(build.getStatus(), is(BaselinePipeline.Status.SUCCEEDED));
+            assertThat(keysUsed, is(Collections.singleton(MAIN_KEY)));
+            assertThat(bulkhead.getWaiting(DimensionsBulkhead.SESSIONS), is(0));
+        } finally {
+            main.release();
+            DimensionsBulkhead.configure(0, 0, 0, 0);
+        }
+    }
+
+    @Test
+    public void stepWhoseSessionCannotBeOpenedFails() throws Exception {
+        Set<Long> keysUsed = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+        BaselinePipeline pipeline = new BaselinePipeline(2);
+        BaselinePipeline.Step create = pipeline.add("create", null, "ok", "failed", succeeds(keysUsed));
+        BaselinePipeline.Step deploy = pipeline.add("deploy", null, "ok", "failed", succeeds(keysUsed), create);
+        BaselinePipeline.Step build = pipeline.add("build", null, "ok", "failed", succeeds(keysUsed), create);
+        BaselinePipeline.Step action = pipeline.add("action", null, "ok", "failed", succeeds(keysUsed), deploy, build);
+
+        boolean ok = pipeline.run(MAIN_KEY, new BaselinePipeline.Sessions() {
+            @Override
+            public long open() {
+                throw new IllegalStateException("login failed");
+            }
+
+            @Override
+            public void close(long key) {
+                throw new AssertionError("no session was opened");
+            }
+        }, new StreamTaskListener(new ByteArrayOutputStream(), StandardCharsets.UTF_8));
+
+        assertThat(ok, is(false));
+        assertThat(deploy.getStatus(), is(BaselinePipeline.Status.SUCCEEDED));
+        assertThat(build.getStatus(), is(BaselinePipeline.Status.FAILED));
+        assertThat(action.getStatus(), is(BaselinePipeline.Status.SKIPPED));
+    }
+
+    @Test
+    public void stepThrowingAnErrorFails() throws Exception {
+        Set<Long> closed = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+        BaselinePipeline.Operation throwsError = new BaselinePipeline.Operation() {
+            @Override
+            public DimensionsResult perform(long key) {
+                throw new NoClassDefFoundError("com/serena/dmclient/api/DimensionsResult");
+            }
+        };
+        BaselinePipeline pipeline = new BaselinePipeline(2);
+        BaselinePipeline.Step create = pipeline.add("create", null, "ok", "failed",
+                succeeds(Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>())));
+        BaselinePipeline.Step deploy = pipeline.add("deploy", null, "ok", "failed", throwsError, create);
+        BaselinePipeline.Step build = pipeline.add("build", null, "ok", "failed", throwsError, create);
+        BaselinePipeline.Step action = pipeline.add("action", null, "ok", "failed", throwsError, deploy);
+
+        boolean ok = pipeline.run(MAIN_KEY, sessions(new AtomicLong(MAIN_KEY), closed),
+                new StreamTaskListener(new ByteArrayOutputStream(), StandardCharsets.UTF_8));
+
+        assertThat(ok, is(false));
+        assertThat(deploy.getStatus(), is(BaselinePipeline.Status.FAILED));
+        assertThat(build.getStatus(), is(BaselinePipeline.Status.FAILED));
+        assertThat(action.getStatus(), is(BaselinePipeline.Status.SKIPPED));
+        assertThat(closed, is(Collections.singleton(MAIN_KEY + 1)));
+    }
+}
@@ -24,4 +24,19 @@ public void getInstanceTest() {
         final DimensionsAPICallback apiCallback = CallbackInstance.getInstance(dimensionsConnection, BASELINE, REQUEST);
         assertThat(apiCallback, instanceOf(DimensionsAPICallback12.class));
     }
+
+    @Test
+    public void requestCallDoesNotChangeStrategyOfOtherCalls() {
+        final DimensionsConnection dimensionsConnection = mock(DimensionsConnection.class);
+        final DimensionsObjectFactory dimensionsObjectFactory = mock(DimensionsObjectFactory.class);
+        when(dimensionsConnection.getObjectFactory()).thenReturn(dimensionsObjectFactory);
+        when(dimensionsObjectFactory.getServerVersion(0)).thenReturn(Collections.singletonList(NEW_SERVER_VERSION));
+        when(dimensionsObjectFactory.getServerVersion(2)).thenReturn(null);
+        CallbackInstance.clearCache();
+        final DimensionsSession session = DimensionsSession.open(1L, dimensionsConnection, "callbackserver", "cm_typical", "dim14", "dmsys", null, null);
+        assertThat(CallbackInstance.getInstance(session, null, REQUEST), instanceOf(DimensionsAPICallback12.class));
+        assertThat(CallbackInstance.getInstance(session, null, null), instanceOf(DimensionsAPICallback14.class));
+        assertThat(CallbackInstance.getInstance(session, BASELINE, null), instanceOf(DimensionsAPICallback12.class));
+        assertThat(CallbackInstance.getInstance(session, null, null), instanceOf(DimensionsAPICallback14.class));
+    }
 }
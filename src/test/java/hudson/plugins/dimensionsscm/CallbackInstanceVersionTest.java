@@ -2,7 +2,6 @@
 
 import com.serena.dmclient.api.DimensionsConnection;
 import com.serena.dmclient.api.DimensionsObjectFactory;
-import java.lang.reflect.Field;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -43,10 +42,8 @@ public static Collection serverVersions() {
     }
 
     @Before
-    public void resetSingleton() throws SecurityException, NoSuchFieldException, IllegalArgumentException, IllegalAccessException {
-        final Field instance = CallbackInstance.class.getDeclaredField("dimensionsAPICallback");
-        instance.setAccessible(true);
-        instance.set(null, null);
+    public void resetCache() {
+        CallbackInstance.clearCache();
     }
 
     @Test
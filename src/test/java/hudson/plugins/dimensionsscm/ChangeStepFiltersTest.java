@@ -0,0 +1,59 @@
+package hudson.plugins.dimensionsscm;
+
+import com.serena.dmclient.api.Filter;
+import com.serena.dmclient.api.SystemAttributes;
+import java.util.List;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+
+public class ChangeStepFiltersTest {
+
+    @Test
+    public void wholeProjectWithoutExclusionsIsNotFiltered() {
+        assertThat(ChangeStepFilters.forFolder("/", null), is(nullValue()));
+        assertThat(ChangeStepFilters.forFolder(null, new DefaultPathMatcher(new String[] {"**/*.class"}, null)),
+                is(nullValue()));
+    }
+
+    @Test
+    public void monitoredFolderMayBeAnywhereInTheDirectory() {
+        List<Filter.Criterion> criteria = ChangeStepFilters.forFolder("\\src\\main\\", null).criteria();
+        assertThat(criteria.size(), is(1));
+        assertThat(criteria.get(0).getAttribute(), is(SystemAttributes.CHANGE_SET_STEPS_COLUMN_DIRPATH));
+        assertThat((String) criteria.get(0).getValue(), is(equalTo("%src/main%")));
+        assertThat(criteria.get(0).getFlags(), is(ChangeStepFilters.MATCHES));
+        // As the client-side check does.
+        assertThat(ChangeStepFilters.accepts("modules/src/main/App.java", "src/main", null), is(true));
+    }
+
+    @Test
+    public void onlyWholeFolderExclusionsArePushedDown() {
+        PathMatcher matcher = new DefaultPathMatcher(new String[] {"docs/**", "**/*.class", "build*/**", "my_dir/**"}, null);
+        List<Filter.Criterion> criteria = ChangeStepFilters.forFolder("src", matcher).criteria();
+        assertThat(criteria.size(), is(2));
+        assertThat((String) criteria.get(1).getValue(), is(equalTo("docs/%")));
+        assertThat(criteria.get(1).getFlags(), is(Filter.Criterion.NOT));
+    }
+
+    @Test
+    public void stepsMustBeInTheFolderAndNotExcluded() {
+        PathMatcher matcher = new DefaultPathMatcher(new String[] {"**/*.class"}, null);
+        assertThat(ChangeStepFilters.accepts("src/main/App.java", "/src/", matcher), is(true));
+        assertThat(ChangeStepFilters.accepts("src/main/App.class", "/src/", matcher), is(false));
+        assertThat(ChangeStepFilters.accepts("docs/index.md", "src", matcher), is(false));
+        assertThat(ChangeStepFilters.accepts("docs/index.md", null, null), is(true));
+    }
+
+    @Test
+    public void monitoredFolderIsNotLookedForInTheFileName() {
+        // The server only matches the folder against the step's directory, so neither may the client.
+        assertThat(ChangeStepFilters.accepts("docs/src.txt", "src", null), is(false));
+        assertThat(ChangeStepFilters.accepts("src/main/App.java", "main/App", null), is(false));
+        assertThat(ChangeStepFilters.accepts("src.txt", "src", null), is(false));
+        assertThat(ChangeStepFilters.accepts("src/src.txt", "src", null), is(true));
+        assertThat(ChangeStepFilters.accepts("README", "/", null), is(true));
+    }
+}
@@ -0,0 +1,45 @@
+package hudson.plugins.dimensionsscm;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+
+public class CompiledPathMatcherTest {
+    private static final String[] EXCLUDES = {"**/*.class", "docs/**", "src/main/*/gen?/**", "build", "**/tmp/*.t*t"};
+
+    private static final String[] PATHS = {"", "App.class", "src/App.class", "src/App.java", "docs", "docs/a/b.md",
+        "mydocs/a.md", "src/main/java/gen1/A.java", "src/main/java/gen12/A.java", "src/main/java/gen1", "build",
+        "build/out", "a/tmp/x.txt", "tmp/x.tt", "a/tmp/b/x.txt", "src//main/java/gen1/A.java"};
+
+    @Test
+    public void matchesLikeTheDefaultPathMatcher() {
+        PathMatcher expected = new DefaultPathMatcher(EXCLUDES, null);
+        PathMatcher actual = new CompiledPathMatcher(EXCLUDES, null);
+        for (String path : PATHS) {
+            assertThat(path, actual.match(path), is(expected.match(path)));
+        }
+    }
+
+    @Test
+    public void includesRestrictWhatIsNotExcluded() {
+        String[] includes = {"src/**", "**/*.md"};
+        PathMatcher expected = new DefaultPathMatcher(EXCLUDES, includes);
+        PathMatcher actual = new CompiledPathMatcher(EXCLUDES, includes);
+        for (String path : PATHS) {
+            assertThat(path, actual.match(path), is(expected.match(path)));
+        }
+        assertThat(actual.match("src/App.java"), is(true));
+        assertThat(actual.match("mydocs/a.md"), is(true));
+        assertThat(actual.match("docs/a/b.md"), is(false));
+        assertThat(actual.match("pom.xml"), is(false));
+    }
+
+    @Test
+    public void globsMatchWithinASegment() {
+        assertThat(CompiledPathMatcher.globMatch("*.java", "App.java"), is(true));
+        assertThat(CompiledPathMatcher.globMatch("A?p*", "App.java"), is(true));
+        assertThat(CompiledPathMatcher.globMatch("*.java", "App.class"), is(false));
+        assertThat(CompiledPathMatcher.globMatch("a*b*c", "abxbc"), is(true));
+        assertThat(CompiledPathMatcher.globMatch("a*b*c", "abxbd"), is(false));
+    }
+}
@@ -0,0 +1,89 @@
+package hudson.plugins.dimensionsscm;
+
+import hudson.util.FormValidation;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+
+public class ConnectionCheckTest {
+
+    @Test
+    public void concurrentAndRepeatedChecksShareOneTest() throws Exception {
+        final String fingerprint = ConnectionCheck.fingerprint("user", "dmsys", "secret", "dimserver", "cm_typical",
+                "dim14");
+        final AtomicInteger logins = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final FormValidation ok = FormValidation.ok("Connection test succeeded!");
+        final Callable<FormValidation> test = new Callable<FormValidation>() {
+            @Override
+            public FormValidation call() throws Exception {
+                logins.incrementAndGet();
+                started.countDown();
+                release.await();
+                return ok;
+            }
+        };
+        final FormValidation[] first = new FormValidation[1];
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                first[0] = ConnectionCheck.check(fingerprint, test);
+            }
+        });
+        thread.start();
+        started.await();
+        release.countDown();
+        assertThat(ConnectionCheck.check(fingerprint, test), sameInstance(ok));
+        thread.join();
+        assertThat(first[0], sameInstance(ok));
+        assertThat(ConnectionCheck.check(fingerprint, test), sameInstance(ok));
+        assertThat(logins.get(), is(1));
+    }
+
+    @Test
+    public void slowTestIsReportedAsRunningAndItsResultPickedUpLater() throws Exception {
+        final String fingerprint = ConnectionCheck.fingerprint("user", "dmsys", "secret", "slowserver", "cm_typical",
+                "dim14");
+        final AtomicInteger logins = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(1);
+        final FormValidation ok = FormValidation.ok("Connection test succeeded!");
+        final Callable<FormValidation> test = new Callable<FormValidation>() {
+            @Override
+            public FormValidation call() throws Exception {
+                logins.incrementAndGet();
+                try {
+                    release.await();
+                    return ok;
+                } finally {
+                    finished.countDown();
+                }
+            }
+        };
+        try {
+            long start = System.currentTimeMillis();
+            assertThat(ConnectionCheck.check(fingerprint, test).kind, is(FormValidation.Kind.WARNING));
+            assertThat(ConnectionCheck.check(fingerprint, test).kind, is(FormValidation.Kind.WARNING));
+            assertThat(System.currentTimeMillis() - start < 2 * ConnectionCheck.WAIT_MILLIS + 1000L, is(true));
+        } finally {
+            release.countDown();
+        }
+        assertThat(finished.await(10L, TimeUnit.SECONDS), is(true));
+        assertThat(ConnectionCheck.check(fingerprint, test), sameInstance(ok));
+        assertThat(logins.get(), is(1));
+    }
+
+    @Test
+    public void fingerprintsDependOnEveryPart() {
+        assertThat(ConnectionCheck.fingerprint("a", "bc"), is(ConnectionCheck.fingerprint("a", "bc")));
+        assertThat(ConnectionCheck.fingerprint("a", "bc"), not(ConnectionCheck.fingerprint("ab", "c")));
+        assertThat(ConnectionCheck.fingerprint("a", null), not(ConnectionCheck.fingerprint("a", "")));
+    }
+}
@@ -0,0 +1,172 @@
+package hudson.plugins.dimensionsscm;
+
+import com.serena.dmclient.api.DimensionsResult;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import static org.mockito.Mockito.mock;
+
+public class DimensionsBuildTrackerTest {
+
+    /** Records the outcome a job's callback was notified of. */
+    private static final class Outcome implements DimensionsBuildTracker.Callback {
+        private final AtomicReference<Object> notified = new AtomicReference<Object>();
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        @Override
+        public void onSuccess(DimensionsBuildTracker.Job job, DimensionsResult result) {
+            notified.set(result);
+            done.countDown();
+        }
+
+        @Override
+        public void onFailure(DimensionsBuildTracker.Job job, Throwable cause) {
+            notified.set(cause);
+            done.countDown();
+        }
+    }
+
+    /** Work that keeps running until it is told to finish, whether or not it is interrupted. */
+    private static final class Build implements Callable<DimensionsResult> {
+        private final DimensionsResult result;
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch finish = new CountDownLatch(1);
+        private final CountDownLatch finished = new CountDownLatch(1);
+
+        Build(DimensionsResult result) {
+            this.result = result;
+        }
+
+        @Override
+        public DimensionsResult call() {
+            started.countDown();
+            try {
+                while (true) {
+                    try {
+                        finish.await();
+                        return result;
+                    } catch (InterruptedException e) {
+                        // A Dimensions command is not stopped by interrupting the thread waiting for it.
+                    }
+                }
+            } finally {
+                finished.countDown();
+            }
+        }
+    }
+
+    private static void waitFor(DimensionsBuildTracker.Job job) throws InterruptedException {
+        for (int i = 0; i < 1000 && !job.isDone(); i++) {
+            Thread.sleep(10L);
+        }
+    }
+
+    @Test
+    public void completedJobIsSucceededAndNotifiesItsCallback() throws Exception {
+        DimensionsResult result = mock(DimensionsResult.class);
+        Build work = new Build(result);
+        Outcome outcome = new Outcome();
+        work.finish.countDown();
+
+        DimensionsBuildTracker.Job job = DimensionsBuildTracker.submit("succeeds", work, outcome);
+
+        assertThat(job.await(), is(sameInstance(result)));
+        assertThat(outcome.done.await(10L, TimeUnit.SECONDS), is(true));
+        waitFor(job);
+        assertThat(job.getState(), is(DimensionsBuildTracker.State.SUCCEEDED));
+        assertThat(outcome.notified.get(), is(sameInstance((Object) result)));
+        assertThat(DimensionsBuildTracker.get(job.getId()), is(nullValue()));
+    }
+
+    @Test
+    public void cancelledJobStaysCancelledWhenItsWorkCompletes() throws Exception {
+        Build work = new Build(mock(DimensionsResult.class));
+        Outcome outcome = new Outcome();
+        DimensionsBuildTracker.Job job = DimensionsBuildTracker.submit("cancelled", work, outcome);
+        assertThat(work.started.await(10L, TimeUnit.SECONDS), is(true));
+
+        job.cancel();
+        assertThat(job.getState(), is(DimensionsBuildTracker.State.CANCELLED));
+        assertThat(DimensionsBuildTracker.get(job.getId()), is(nullValue()));
+
+        work.finish.countDown();
+        assertThat(work.finished.await(10L, TimeUnit.SECONDS), is(true));
+        assertThat(outcome.done.await(200L, TimeUnit.MILLISECONDS), is(false));
+        assertThat(job.getState(), is(DimensionsBuildTracker.State.CANCELLED));
+    }
+
+    @Test
+    public void interruptingTheWaitCancelsTheJob() throws Exception {
+        Build work = new Build(mock(DimensionsResult.class));
+        final DimensionsBuildTracker.Job job = DimensionsBuildTracker.submit("interrupted", work, null);
+        assertThat(work.started.await(10L, TimeUnit.SECONDS), is(true));
+        final AtomicReference<Throwable> thrown = new AtomicReference<Throwable>();
+        Thread waiter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    job.await();
+                } catch (Throwable t) {
+                    thrown.set(t);
+                }
+            }
+        });
+        waiter.start();
+
+        waiter.interrupt();
+        waiter.join(10000L);
+        try {
+            assertThat(thrown.get() instanceof InterruptedException, is(true));
+            assertThat(job.getState(), is(DimensionsBuildTracker.State.CANCELLED));
+        } finally {
+            work.finish.countDown();
+        }
+        assertThat(work.finished.await(10L, TimeUnit.SECONDS), is(true));
+        assertThat(job.getState(), is(DimensionsBuildTracker.State.CANCELLED));
+    }
+
+    @Test
+    public void failedWorkIsReportedToTheWaiter() throws Exception {
+        DimensionsBuildTracker.Job job = DimensionsBuildTracker.submit("fails", new Callable<DimensionsResult>() {
+            @Override
+            public DimensionsResult call() {
+                throw new IllegalStateException("[DIMENSIONS] Login to Dimensions failed.");
+            }
+        }, null);
+        try {
+            job.await();
+            fail("expected the failure to be rethrown");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("[DIMENSIONS] Login to Dimensions failed."));
+        }
+        waitFor(job);
+        assertThat(job.getState(), is(DimensionsBuildTracker.State.FAILED));
+    }
+
+    @Test
+    public void jobsAreNotHeldBackByOtherRunningJobs() throws Exception {
+        Build[] builds = new Build[16];
+        try {
+            for (int i = 0; i < builds.length; i++) {
+                builds[i] = new Build(mock(DimensionsResult.class));
+                DimensionsBuildTracker.submit("concurrent " + i, builds[i], null);
+            }
+            for (Build build : builds) {
+                assertThat(build.started.await(10L, TimeUnit.SECONDS), is(true));
+            }
+        } finally {
+            for (Build build : builds) {
+                if (build != null) {
+                    build.finish.countDown();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package hudson.plugins.dimensionsscm;
+
+import com.serena.dmclient.api.DimensionsRuntimeException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DimensionsBulkheadTest {
+
+    @Before
+    public void setUp() {
+        DimensionsBulkhead.configure(1, 1, 1, 1);
+    }
+
+    @After
+    public void tearDown() {
+        DimensionsBulkhead.configure(0, 0, 0, 0);
+    }
+
+    @Test
+    public void buildsAreServedBeforeEarlierPolls() throws Exception {
+        final DimensionsBulkhead bulkhead = DimensionsBulkhead.forServer("bulkheadserver|cm_typical@dim14");
+        final List<String> order = new CopyOnWriteArrayList<String>();
+        DimensionsBulkhead.Permit held = bulkhead.acquire(DimensionsBulkhead.QUERIES);
+
+        Thread poll = waiter(bulkhead, DimensionsBulkhead.Priority.POLL, "poll", order);
+        poll.start();
+        awaitWaiting(bulkhead, 1);
+        Thread build = waiter(bulkhead, DimensionsBulkhead.Priority.BUILD, "build", order);
+        build.start();
+        awaitWaiting(bulkhead, 2);
+
+        held.release();
+        poll.join(5000L);
+        build.join(5000L);
+        assertThat(order.size(), is(2));
+        assertThat(order.get(0), is(equalTo("build")));
+        assertThat(order.get(1), is(equalTo("poll")));
+        assertThat(bulkhead.getInUse(DimensionsBulkhead.QUERIES), is(0));
+    }
+
+    @Test(expected = DimensionsRuntimeException.class)
+    public void waitingForAFullPoolTimesOut() {
+        DimensionsBulkhead bulkhead = DimensionsBulkhead.forServer("timeoutserver|cm_typical@dim14");
+        bulkhead.acquire(DimensionsBulkhead.HEAVY);
+        bulkhead.acquire(DimensionsBulkhead.HEAVY);
+    }
+
+    @Test
+    public void tryAcquireDoesNotWaitForAFullPool() {
+        DimensionsBulkhead bulkhead = DimensionsBulkhead.forServer("poolserver|cm_typical@dim14");
+        DimensionsBulkhead.Permit first = bulkhead.tryAcquire(DimensionsBulkhead.SESSIONS);
+        assertThat(first != null, is(true));
+        assertThat(bulkhead.tryAcquire(DimensionsBulkhead.SESSIONS) == null, is(true));
+        first.release();
+        first.release();
+        assertThat(bulkhead.getInUse(DimensionsBulkhead.SESSIONS), is(0));
+    }
+
+    private static Thread waiter(final DimensionsBulkhead bulkhead, final DimensionsBulkhead.Priority priority,
+            final String name, final List<String> order) {
+        return new Thread(new Runnable() {
+            @Override
+            public void run() {
+                DimensionsBulkhead.setPriority(priority);
+                DimensionsBulkhead.Permit permit = bulkhead.acquire(DimensionsBulkhead.QUERIES);
+                order.add(name);
+                permit.release();
+            }
+        });
+    }
+
+    private static void awaitWaiting(DimensionsBulkhead bulkhead, int waiting) throws InterruptedException {
+        for (int i = 0; i < 500 && bulkhead.getWaiting(DimensionsBulkhead.QUERIES) < waiting; i++) {
+            Thread.sleep(10L);
+        }
+        assertThat(bulkhead.getWaiting(DimensionsBulkhead.QUERIES), is(waiting));
+    }
+}
@@ -27,4 +27,48 @@ public void testStrip() {
         Assert.assertEquals("", DimensionsChangeLogEntry.FileChange.strip(""));
     }
 
+    @Test
+    public void testFileIsSplitAndJoined() {
+        Assert.assertEquals("src/main/A.java;1", new DimensionsChangeLogEntry.FileChange("src/main/A.java;1", "edit", null).getFile());
+        Assert.assertEquals("A.java;1", new DimensionsChangeLogEntry.FileChange("A.java;1", "add", null).getFile());
+        Assert.assertEquals("/a/b;1/2", new DimensionsChangeLogEntry.FileChange("/a/b;1/2", "edit", null).getFile());
+        Assert.assertEquals("a/b", new DimensionsChangeLogEntry.FileChange("/a/b;1/2", "edit", null).getPath());
+        Assert.assertNull(new DimensionsChangeLogEntry.FileChange().getFile());
+    }
+
+    @Test
+    public void testEntryKeepsSpecsAndTimestamp() {
+        DimensionsChangeLogEntry entry = new DimensionsChangeLogEntry("src/A.java;1", "dmsys", "1", "fix", 1234L);
+        entry.addFile("src/A.java;1", "edit", "QLARIUS:A-SRC.A;1");
+        Assert.assertEquals(1234L, entry.getTimestamp());
+        Assert.assertEquals(1234L, entry.getDate().getTime());
+        DimensionsChangeLogEntry.FileChange file = entry.getFiles().iterator().next();
+        Assert.assertEquals("QLARIUS:A-SRC.A;1", file.getSpec());
+        Assert.assertNull("no links without a changelog", file.getUrl());
+    }
+
+    @Test
+    public void testViewsAreSortedDeduplicatedAndReused() {
+        DimensionsChangeLogEntry entry = new DimensionsChangeLogEntry("src/B.java;1", "dmsys", "1", "fix", 0L);
+        entry.addFile("src/B.java;1", "edit", "QLARIUS:B-SRC.B;1");
+        entry.addFile("src/A.java;2", "edit", "QLARIUS:A-SRC.A;2");
+        entry.addRequest("QLARIUS_CR_2", null, "two");
+        entry.addRequest("QLARIUS_CR_1", null, "one");
+        entry.addRequest("QLARIUS_CR_2", null, "again");
+
+        Assert.assertEquals("src/A.java;2", entry.getFiles().iterator().next().getFile());
+        Assert.assertEquals(2, entry.getRequests().size());
+        Assert.assertEquals("QLARIUS_CR_1", entry.getRequests().iterator().next().getIdentifier());
+        Assert.assertSame(entry.getFiles(), entry.getFiles());
+        Assert.assertSame(entry.getAffectedPaths(), entry.getAffectedPaths());
+
+        entry.freeze();
+        Assert.assertEquals(2, entry.getAffectedPaths().size());
+        try {
+            entry.addFile("src/C.java;1", "add", "QLARIUS:C-SRC.C;1");
+            Assert.fail("a frozen entry cannot be changed");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+    }
 }
@@ -0,0 +1,41 @@
+package hudson.plugins.dimensionsscm;
+
+import java.util.Map;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+
+public class DimensionsMetricsTest {
+
+    @Test
+    public void commandVerbIsFirstWordOfCommand() {
+        assertThat(DimensionsMetrics.commandVerb("UPDATE /BRIEF /DIR=\"src\""), is(equalTo("UPDATE")));
+        assertThat(DimensionsMetrics.commandVerb("  cbl \"QLARIUS:BL1\" /TYPE=BASELINE"), is(equalTo("CBL")));
+        assertThat(DimensionsMetrics.commandVerb("DELIVER/BRIEF"), is(equalTo("DELIVER")));
+        assertThat(DimensionsMetrics.commandVerb("   "), is(equalTo("UNKNOWN")));
+    }
+
+    @Test
+    public void histogramReportsCountMeanMinMaxAndTotal() {
+        DimensionsMetrics.Histogram histogram = DimensionsMetrics.histogram("test.histogram");
+        assertThat(DimensionsMetrics.histogram("test.histogram"), is(sameInstance(histogram)));
+        histogram.update(5L);
+        histogram.update(1L);
+        histogram.update(9L);
+
+        Map<String, DimensionsMetrics.Gauge> values = DimensionsMetrics.values("test.histogram", histogram);
+        assertThat(values.get("test.histogram.count").getValue(), is(3L));
+        assertThat(values.get("test.histogram.mean").getValue(), is(5L));
+        assertThat(values.get("test.histogram.min").getValue(), is(1L));
+        assertThat(values.get("test.histogram.max").getValue(), is(9L));
+        assertThat(values.get("test.histogram.total").getValue(), is(15L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nameCannotBeReusedForAnotherType() {
+        DimensionsMetrics.counter("test.counter").inc();
+        DimensionsMetrics.timer("test.counter");
+    }
+}
@@ -0,0 +1,46 @@
+package hudson.plugins.dimensionsscm;
+
+import java.util.Arrays;
+import java.util.Collections;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+
+public class DimensionsNotificationTest {
+    private static final PathMatcher NO_DOCS = new PathMatcher() {
+        @Override
+        public boolean match(String matchText) {
+            return !matchText.startsWith("src/docs/");
+        }
+    };
+
+    @Test
+    public void matchesOnlyJobsOfTheSameServerDatabaseAndProject() {
+        DimensionsNotification notification = new DimensionsNotification("dimserver", "cm_typical@dim14", null,
+                "QLARIUS:JAVA_STR", Collections.<String>emptyList());
+        assertThat(notification.matches("DIMSERVER", "CM_TYPICAL", "DIM14", "qlarius:java_str;1", null, null), is(true));
+        assertThat(notification.matches("otherserver", "CM_TYPICAL", "DIM14", "QLARIUS:JAVA_STR", null, null), is(false));
+        assertThat(notification.matches("dimserver", "CM_TYPICAL", "DIM12", "QLARIUS:JAVA_STR", null, null), is(false));
+        assertThat(notification.matches("dimserver", "CM_TYPICAL", "DIM14", "QLARIUS:OTHER_STR", null, null), is(false));
+        assertThat(notification.matches("dimserver", "CM_TYPICAL", "DIM14", "${PROJECT}", null, null), is(false));
+    }
+
+    @Test
+    public void matchesOnlyJobsMonitoringAChangedPath() {
+        DimensionsNotification notification = new DimensionsNotification(null, null, null, "QLARIUS:JAVA_STR",
+                Arrays.asList("/src/docs/readme.txt", "src\\main\\Foo.java"));
+        assertThat(notification.matches("dimserver", "CM_TYPICAL", "DIM14", "QLARIUS:JAVA_STR",
+                new String[] {"/"}, NO_DOCS), is(true));
+        assertThat(notification.matches("dimserver", "CM_TYPICAL", "DIM14", "QLARIUS:JAVA_STR",
+                new String[] {"src/main/"}, NO_DOCS), is(true));
+        assertThat(notification.matches("dimserver", "CM_TYPICAL", "DIM14", "QLARIUS:JAVA_STR",
+                new String[] {"src/docs"}, NO_DOCS), is(false));
+        assertThat(notification.matches("dimserver", "CM_TYPICAL", "DIM14", "QLARIUS:JAVA_STR",
+                new String[] {"src/mainframe"}, NO_DOCS), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void projectIsRequired() {
+        new DimensionsNotification("dimserver", null, null, " ", null);
+    }
+}
@@ -0,0 +1,99 @@
+package hudson.plugins.dimensionsscm;
+
+import com.serena.dmclient.api.ItemRevision;
+import com.serena.dmclient.api.SystemAttributes;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import jenkins.scm.api.SCMFile;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DimensionsSCMFileTest {
+
+    private static final String SERVER = DimensionsSession.serverKey("dimensions", "CM_TYPICAL", "DIM14");
+
+    private static ItemRevision item(String path, String spec) {
+        ItemRevision item = mock(ItemRevision.class);
+        when(item.getAttribute(SystemAttributes.FULL_PATH_NAME)).thenReturn(path);
+        when(item.getAttribute(SystemAttributes.OBJECT_SPEC)).thenReturn(spec);
+        return item;
+    }
+
+    @Test
+    public void childrenAreTheFilesAndSubdirectoriesOfADirectory() throws Exception {
+        DimensionsAPI api = mock(DimensionsAPI.class);
+        List<ItemRevision> items = Arrays.asList(item("Jenkinsfile", null), item("src/App.java", null),
+                item("src/main/Main.java", null), item("docs/index.md", null));
+        when(api.listFiles(1L, "PROD:STREAM", null, "")).thenReturn(items);
+        DimensionsSCMFileSystem fs = new DimensionsSCMFileSystem(api, 1L, SERVER, "PROD:STREAM", null, null);
+
+        List<String> names = new ArrayList<String>();
+        for (SCMFile child : fs.getRoot().children()) {
+            names.add(child.getName() + (child.isDirectory() ? "/" : ""));
+        }
+        assertThat(names, is(Arrays.asList("Jenkinsfile", "docs/", "src/")));
+    }
+
+    @Test
+    public void contentIsFetchedOncePerItemRevision() throws Exception {
+        DimensionsAPI api = mock(DimensionsAPI.class);
+        ItemRevision jenkinsfile = item("Jenkinsfile", "PROD:JENKINSFILE.A-SRC;3");
+        when(api.findFileRevision(eq(1L), eq("PROD:STREAM"), eq((String) null), eq((String) null), anyString()))
+                .thenReturn(null);
+        when(api.findFileRevision(1L, "PROD:STREAM", null, null, "Jenkinsfile")).thenReturn(jenkinsfile);
+        when(api.fetchFile(1L, "PROD:JENKINSFILE.A-SRC;3")).thenReturn("node {}".getBytes("UTF-8"));
+
+        for (int i = 0; i < 2; i++) {
+            DimensionsSCMFileSystem fs = new DimensionsSCMFileSystem(api, 1L, SERVER, "PROD:STREAM", null, null);
+            SCMFile file = fs.getRoot().child("Jenkinsfile");
+            assertThat(file.isFile(), is(true));
+            InputStream in = file.content();
+            try {
+                assertThat(in.available(), is(7));
+            } finally {
+                in.close();
+            }
+        }
+        verify(api, times(1)).fetchFile(1L, "PROD:JENKINSFILE.A-SRC;3");
+    }
+
+    @Test
+    public void contentIsNotSharedBetweenServers() throws Exception {
+        DimensionsAPI api = mock(DimensionsAPI.class);
+        ItemRevision jenkinsfile = item("Jenkinsfile", "PROD:JENKINSFILE.A-SRC;1");
+        when(api.findFileRevision(1L, "PROD:STREAM", null, null, "Jenkinsfile")).thenReturn(jenkinsfile);
+        when(api.findFileRevision(2L, "PROD:STREAM", null, null, "Jenkinsfile")).thenReturn(jenkinsfile);
+        when(api.fetchFile(1L, "PROD:JENKINSFILE.A-SRC;1")).thenReturn("node {}".getBytes("UTF-8"));
+        when(api.fetchFile(2L, "PROD:JENKINSFILE.A-SRC;1")).thenReturn("node { sh 'make' }".getBytes("UTF-8"));
+
+        DimensionsSCMFileSystem first = new DimensionsSCMFileSystem(api, 1L, SERVER, "PROD:STREAM", null, null);
+        DimensionsSCMFileSystem second = new DimensionsSCMFileSystem(api, 2L,
+                DimensionsSession.serverKey("other", "CM_TYPICAL", "DIM14"), "PROD:STREAM", null, null);
+
+        assertThat(first.getRoot().child("Jenkinsfile").contentAsString(), is("node {}"));
+        assertThat(second.getRoot().child("Jenkinsfile").contentAsString(), is("node { sh 'make' }"));
+    }
+
+    @Test
+    public void directoriesAreFoundWithoutListingThem() throws Exception {
+        DimensionsAPI api = mock(DimensionsAPI.class);
+        when(api.hasFiles(1L, "PROD:STREAM", null, "src")).thenReturn(true);
+        DimensionsSCMFileSystem fs = new DimensionsSCMFileSystem(api, 1L, SERVER, "PROD:STREAM", null, null);
+
+        assertThat(fs.getRoot().child("src").isDirectory(), is(true));
+        assertThat(fs.getRoot().child("missing").exists(), is(false));
+        verify(api, never()).listFiles(anyLong(), anyString(), any(), anyString());
+    }
+}
@@ -0,0 +1,71 @@
+package hudson.plugins.dimensionsscm;
+
+import java.util.List;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+
+public class DimensionsTracerTest {
+
+    @Test
+    public void spansNestOnTheirThread() {
+        DimensionsTraceAction action = new DimensionsTraceAction();
+        DimensionsTracer.Scope outer = DimensionsTracer.start(action, "checkout");
+        DimensionsTracer.Scope inner = DimensionsTracer.start("command UPDATE");
+        inner.fail();
+        inner.end();
+        DimensionsTracer.Scope sibling = DimensionsTracer.start("changelog");
+        sibling.end();
+        outer.end();
+
+        List<DimensionsTraceAction.Span> spans = action.getSpans();
+        assertThat(spans.size(), is(3));
+        DimensionsTraceAction.Span checkout = find(spans, "checkout");
+        assertThat(checkout.getParentId(), is(nullValue()));
+        assertThat(find(spans, "command UPDATE").getParentId(), is(equalTo(checkout.getId())));
+        assertThat(find(spans, "command UPDATE").isFailed(), is(true));
+        assertThat(find(spans, "changelog").getParentId(), is(equalTo(checkout.getId())));
+        assertThat(action.getDepths().get(find(spans, "command UPDATE").getId()), is(1));
+    }
+
+    @Test
+    public void nothingIsRecordedWithoutAnActiveSpan() {
+        DimensionsTracer.Scope orphan = DimensionsTracer.start("command UPDATE");
+        orphan.end();
+        assertThat(orphan.getId(), is(nullValue()));
+        assertThat(DimensionsTracer.current().getSink(), is(nullValue()));
+    }
+
+    @Test
+    public void onlyTheLongestSpansAreKept() {
+        DimensionsTraceAction action = new DimensionsTraceAction();
+        int count = DimensionsTraceAction.MAX_SPANS + 10;
+        for (int i = 0; i < count; i++) {
+            // The short spans come first, as child spans end before the span containing them.
+            action.record(new DimensionsTraceAction.Span(Integer.toString(i), "parent", "step " + i, i, i, "host",
+                    "thread", false));
+        }
+        action.record(new DimensionsTraceAction.Span("parent", null, "changelog", 0L, count, "host", "thread",
+                false));
+
+        List<DimensionsTraceAction.Span> spans = action.getSpans();
+        assertThat(spans.size(), is(DimensionsTraceAction.MAX_SPANS));
+        assertThat(action.getDroppedSpans(), is(11));
+        assertThat(find(spans, "changelog").getParentId(), is(nullValue()));
+        assertThat(find(spans, "step " + (count - 1)).getDuration(), is((long) count - 1));
+        for (DimensionsTraceAction.Span span : spans) {
+            assertThat(span.getDuration() >= 11L, is(true));
+        }
+    }
+
+    private static DimensionsTraceAction.Span find(List<DimensionsTraceAction.Span> spans, String name) {
+        for (DimensionsTraceAction.Span span : spans) {
+            if (span.getName().equals(name)) {
+                return span;
+            }
+        }
+        throw new AssertionError("No span named " + name);
+    }
+}
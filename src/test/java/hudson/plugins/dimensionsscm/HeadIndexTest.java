@@ -0,0 +1,80 @@
+package hudson.plugins.dimensionsscm;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HeadIndexTest {
+
+    private static Map<String, String> map(String... entries) {
+        Map<String, String> map = new LinkedHashMap<String, String>();
+        for (int i = 0; i < entries.length; i += 2) {
+            map.put(entries[i], entries[i + 1]);
+        }
+        return map;
+    }
+
+    @Test
+    public void streamsFetchedRecentlyAreNotQueriedAgain() throws Exception {
+        DimensionsAPI api = mock(DimensionsAPI.class);
+        List<String> specs = Arrays.asList("PROD:MAIN", "PROD:PROJECT", "PROD:DEV");
+        when(api.getStreamUpdates(anyLong(), anyCollection()))
+                .thenReturn(map("PROD:MAIN", "01-Mar-2024 10:00:00", "PROD:DEV", "02-Mar-2024 11:00:00"));
+        HeadIndex index = new HeadIndex();
+
+        Map<String, String> first = index.streams(api, 1L, specs, 0L);
+        Map<String, String> second = index.streams(api, 1L, specs, HeadIndex.FRESH_MILLIS - 1L);
+
+        assertThat(first, is(map("PROD:MAIN", "01-Mar-2024 10:00:00", "PROD:DEV", "02-Mar-2024 11:00:00")));
+        assertThat(second, is(first));
+        verify(api, times(1)).getStreamUpdates(1L, specs);
+
+        when(api.getStreamUpdates(anyLong(), anyCollection())).thenReturn(map("PROD:MAIN", "03-Mar-2024 09:00:00"));
+        Map<String, String> third = index.streams(api, 1L, Collections.singletonList("PROD:MAIN"),
+                HeadIndex.FRESH_MILLIS);
+        assertThat(third, is(map("PROD:MAIN", "03-Mar-2024 09:00:00")));
+    }
+
+    @Test
+    public void baselinesAreQueriedSinceTheNewestKnown() throws Exception {
+        DimensionsAPI api = mock(DimensionsAPI.class);
+        TimeZone tz = TimeZone.getTimeZone("America/New_York");
+        Date newest = DimensionsAPI.parseDatabaseDate("02-Mar-2024 11:00:00", tz);
+        when(api.findBaselines(1L, "PROD", null, tz))
+                .thenReturn(map("PROD:RELEASE_2", "02-Mar-2024 11:00:00", "PROD:RELEASE_1", "01-Mar-2024 10:00:00"));
+        when(api.findBaselines(1L, "PROD", newest, tz))
+                .thenReturn(map("PROD:RELEASE_2", "02-Mar-2024 11:00:00", "PROD:RELEASE_3", "04-Mar-2024 08:00:00"));
+        HeadIndex index = new HeadIndex();
+
+        assertThat(index.baselines(api, 1L, "PROD", tz, 0L),
+                is(map("PROD:RELEASE_1", "01-Mar-2024 10:00:00", "PROD:RELEASE_2", "02-Mar-2024 11:00:00")));
+        assertThat(index.baselines(api, 1L, "PROD", tz, 1L), is(map("PROD:RELEASE_1", "01-Mar-2024 10:00:00",
+                "PROD:RELEASE_2", "02-Mar-2024 11:00:00", "PROD:RELEASE_3", "04-Mar-2024 08:00:00")));
+
+        // All the baselines are queried again after a while, to forget deleted ones.
+        when(api.findBaselines(1L, "PROD", null, tz)).thenReturn(map("PROD:RELEASE_3", "04-Mar-2024 08:00:00"));
+        assertThat(index.baselines(api, 1L, "PROD", tz, HeadIndex.RESCAN_MILLIS),
+                is(map("PROD:RELEASE_3", "04-Mar-2024 08:00:00")));
+    }
+
+    @Test
+    public void eachUserHasAnIndexOfTheirOwn() {
+        HeadIndex alice = HeadIndex.of("dimserver", "cm_typical", "dim14", "alice");
+
+        assertThat(HeadIndex.of(" DIMSERVER", "CM_TYPICAL", "DIM14", "Alice ") == alice, is(true));
+        assertThat(HeadIndex.of("dimserver", "cm_typical", "dim14", "bob") == alice, is(false));
+    }
+}
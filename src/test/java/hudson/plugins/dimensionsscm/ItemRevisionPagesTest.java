@@ -0,0 +1,131 @@
+package hudson.plugins.dimensionsscm;
+
+import com.serena.dmclient.api.BulkOperator;
+import com.serena.dmclient.api.DimensionsConnection;
+import com.serena.dmclient.api.DimensionsObjectFactory;
+import com.serena.dmclient.api.DimensionsRelatedObject;
+import com.serena.dmclient.api.ItemRevision;
+import com.serena.dmclient.api.SystemAttributes;
+import com.serena.dmclient.api.DimensionsRuntimeException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class ItemRevisionPagesTest {
+
+    /**
+     * Creates the pages of a query that found some item revisions, held only by their related objects, as they are
+     * in the Java API. The mocks record no invocations, which would hold the revisions too.
+     */
+    private static ItemRevisionPages pages(DimensionsConnection connection, int count, int pageSize,
+            List<WeakReference<ItemRevision>> revisions) {
+        List<DimensionsRelatedObject> rels = new ArrayList<DimensionsRelatedObject>();
+        for (int i = 0; i < count; i++) {
+            ItemRevision revision = mock(ItemRevision.class, withSettings().stubOnly());
+            DimensionsRelatedObject rel = mock(DimensionsRelatedObject.class, withSettings().stubOnly());
+            when(rel.getObject()).thenReturn(revision);
+            revisions.add(new WeakReference<ItemRevision>(revision));
+            rels.add(rel);
+        }
+        return new ItemRevisionPages(connection, rels, new int[]{SystemAttributes.FULL_PATH_NAME}, pageSize);
+    }
+
+    private static DimensionsConnection connection(BulkOperator bulkOperator) {
+        DimensionsConnection connection = mock(DimensionsConnection.class, withSettings().stubOnly());
+        DimensionsObjectFactory factory = mock(DimensionsObjectFactory.class, withSettings().stubOnly());
+        when(connection.getObjectFactory()).thenReturn(factory);
+        when(factory.getBulkOperator(anyList())).thenReturn(bulkOperator);
+        return connection;
+    }
+
+    @Test
+    public void attributesAreFetchedOnePageAtATime() {
+        final DimensionsConnection connection = mock(DimensionsConnection.class);
+        final DimensionsObjectFactory factory = mock(DimensionsObjectFactory.class);
+        final BulkOperator bulkOperator = mock(BulkOperator.class);
+        when(connection.getObjectFactory()).thenReturn(factory);
+        when(factory.getBulkOperator(anyList())).thenReturn(bulkOperator);
+
+        final List<ItemRevision> revisions = new ArrayList<ItemRevision>();
+        final List<DimensionsRelatedObject> rels = new ArrayList<DimensionsRelatedObject>();
+        for (int i = 0; i < 5; i++) {
+            ItemRevision revision = mock(ItemRevision.class);
+            DimensionsRelatedObject rel = mock(DimensionsRelatedObject.class);
+            when(rel.getObject()).thenReturn(revision);
+            revisions.add(revision);
+            rels.add(rel);
+        }
+
+        ItemRevisionPages pages = new ItemRevisionPages(connection, rels,
+                new int[]{SystemAttributes.FULL_PATH_NAME}, 2);
+        assertThat(pages.size(), is(5));
+        Iterator<ItemRevision> it = pages.iterator();
+        assertThat(it.next(), sameInstance(revisions.get(0)));
+        assertThat(it.next(), sameInstance(revisions.get(1)));
+        assertThat(it.next(), sameInstance(revisions.get(2)));
+        verify(factory, times(2)).getBulkOperator(anyList());
+
+        int remaining = 0;
+        while (it.hasNext()) {
+            it.next();
+            remaining++;
+        }
+        assertThat(remaining, is(2));
+        verify(factory, times(3)).getBulkOperator(anyList());
+    }
+
+    @Test
+    public void emptyPagesFetchNothing() {
+        assertThat(ItemRevisionPages.empty().iterator().hasNext(), is(false));
+        assertThat(ItemRevisionPages.empty().isEmpty(), is(true));
+    }
+
+    @Test
+    public void earlierPagesAreNotRetained() throws Exception {
+        List<WeakReference<ItemRevision>> revisions = new ArrayList<WeakReference<ItemRevision>>();
+        ItemRevisionPages pages = pages(connection(mock(BulkOperator.class, withSettings().stubOnly())), 4, 2,
+                revisions);
+        Iterator<ItemRevision> it = pages.iterator();
+        it.next();
+        it.next();
+        assertThat(it.next(), sameInstance(revisions.get(2).get()));
+
+        for (int i = 0; i < 50 && (revisions.get(0).get() != null || revisions.get(1).get() != null); i++) {
+            System.gc();
+            Thread.sleep(20L);
+        }
+        assertThat(revisions.get(0).get(), is(nullValue()));
+        assertThat(revisions.get(1).get(), is(nullValue()));
+        assertThat(it.next(), sameInstance(revisions.get(3).get()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void revisionsCanOnlyBeIteratedOnce() {
+        ItemRevisionPages pages = pages(connection(mock(BulkOperator.class)), 1, 1,
+                new ArrayList<WeakReference<ItemRevision>>());
+        pages.iterator();
+        pages.iterator();
+    }
+
+    @Test(expected = DimensionsRuntimeException.class)
+    public void attributeFetchFailuresAreDimensionsExceptions() {
+        BulkOperator bulkOperator = mock(BulkOperator.class);
+        doThrow(new IllegalStateException("connection lost")).when(bulkOperator).queryAttribute(any(int[].class));
+        ItemRevisionPages pages = pages(connection(bulkOperator), 1, 1, new ArrayList<WeakReference<ItemRevision>>());
+        pages.iterator().next();
+    }
+}
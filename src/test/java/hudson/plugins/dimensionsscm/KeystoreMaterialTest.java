@@ -0,0 +1,118 @@
+package hudson.plugins.dimensionsscm;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.fail;
+import org.junit.rules.TemporaryFolder;
+
+public class KeystoreMaterialTest {
+    private static final String ALIAS = "jenkins";
+    private static final String PASSWORD = "changeit";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File keystore;
+
+    @Before
+    public void createKeystore() throws Exception {
+        keystore = new File(tmp.getRoot(), "keystore.p12");
+        Process keytool = new ProcessBuilder(new File(System.getProperty("java.home"), "bin/keytool").getPath(),
+                "-genkeypair", "-keystore", keystore.getPath(), "-storetype", "PKCS12", "-storepass", PASSWORD,
+                "-keypass", PASSWORD, "-alias", ALIAS, "-keyalg", "RSA", "-keysize", "2048", "-validity", "1",
+                "-dname", "CN=KeystoreMaterialTest").redirectErrorStream(true).start();
+        InputStream output = keytool.getInputStream();
+        try {
+            while (output.read() >= 0) {
+                // keytool's output is not needed
+            }
+        } finally {
+            output.close();
+        }
+        assertThat(keytool.waitFor(), is(0));
+        KeystoreMaterial.invalidate();
+    }
+
+    @After
+    public void forgetKeystores() {
+        KeystoreMaterial.invalidate();
+    }
+
+    private KeystoreMaterial get(String password) throws Exception {
+        return KeystoreMaterial.get(keystore.getPath(), ALIAS, password, password);
+    }
+
+    @Test
+    public void unchangedKeystoreIsLoadedOnce() throws Exception {
+        KeystoreMaterial material = get(PASSWORD);
+
+        assertThat(get(PASSWORD), is(sameInstance(material)));
+        assertThat(material.getCertificate().getSubjectX500Principal().getName(), is("CN=KeystoreMaterialTest"));
+    }
+
+    @Test
+    public void keystoreIsLoadedAgainWhenItsModificationTimeChanges() throws Exception {
+        KeystoreMaterial material = get(PASSWORD);
+
+        assertThat(keystore.setLastModified(keystore.lastModified() - 10000L), is(true));
+        KeystoreMaterial reloaded = get(PASSWORD);
+        assertThat(reloaded, is(not(sameInstance(material))));
+        assertThat(get(PASSWORD), is(sameInstance(reloaded)));
+    }
+
+    @Test
+    public void keystoreIsLoadedAgainWhenItsLengthChanges() throws Exception {
+        KeystoreMaterial material = get(PASSWORD);
+        long lastModified = keystore.lastModified();
+        long length = keystore.length();
+
+        // Rewrite the keystore with one more entry, keeping its modification time.
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        InputStream in = new FileInputStream(keystore);
+        try {
+            keyStore.load(in, PASSWORD.toCharArray());
+        } finally {
+            in.close();
+        }
+        keyStore.setCertificateEntry("trusted", material.getCertificate());
+        OutputStream out = new FileOutputStream(keystore);
+        try {
+            keyStore.store(out, PASSWORD.toCharArray());
+        } finally {
+            out.close();
+        }
+        assertThat(keystore.setLastModified(lastModified), is(true));
+        assertThat(keystore.length() == length, is(false));
+
+        assertThat(get(PASSWORD), is(not(sameInstance(material))));
+    }
+
+    @Test
+    public void differentPasswordsAreNotGivenTheCachedMaterial() throws Exception {
+        KeystoreMaterial material = get(PASSWORD);
+
+        try {
+            get("not" + PASSWORD);
+            fail("the keystore should have been loaded again, and failed to, with the wrong password");
+        } catch (IOException e) {
+            // expected: PKCS12 keystores report a wrong password as an IOException
+        } catch (GeneralSecurityException e) {
+            // expected
+        }
+        assertThat(get(PASSWORD), is(sameInstance(material)));
+    }
+}
@@ -0,0 +1,70 @@
+package hudson.plugins.dimensionsscm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+
+public class RequestGraphTest {
+
+    /**
+     * Requests are numbered; each maps to its dependent requests. Counts how many levels were fetched.
+     */
+    private static final class Graph implements RequestGraph.Relations<Long> {
+        private final Map<Long, List<Long>> children = new HashMap<Long, List<Long>>();
+        private final List<List<Long>> fetched = new ArrayList<List<Long>>();
+
+        Graph edge(long parent, Long... dependents) {
+            children.put(parent, Arrays.asList(dependents));
+            return this;
+        }
+
+        @Override
+        public long uid(Long request) {
+            return request;
+        }
+
+        @Override
+        public List<Long> dependents(List<Long> level) {
+            fetched.add(new ArrayList<Long>(level));
+            List<Long> result = new ArrayList<Long>();
+            for (Long request : level) {
+                List<Long> c = children.get(request);
+                if (c != null) {
+                    result.addAll(c);
+                }
+            }
+            return result;
+        }
+    }
+
+    @Test
+    public void sharedAndCyclicDependentsAreResolvedOnce() {
+        Graph graph = new Graph().edge(1L, 2L, 3L).edge(2L, 4L).edge(3L, 4L).edge(4L, 1L);
+        List<Long> resolved = RequestGraph.resolve(Arrays.asList(1L), graph);
+        assertThat(resolved, is(equalTo(Arrays.asList(1L, 2L, 3L, 4L))));
+        assertThat(graph.fetched.size(), is(3));
+        assertThat(graph.fetched.get(1), is(equalTo(Arrays.asList(2L, 3L))));
+    }
+
+    @Test
+    public void rootsThatDependOnEachOtherAreNotRepeated() {
+        Graph graph = new Graph().edge(1L, 2L);
+        List<Long> resolved = RequestGraph.resolve(Arrays.asList(1L, 2L, 1L), graph);
+        assertThat(resolved, is(equalTo(Arrays.asList(1L, 2L))));
+        assertThat(graph.fetched.size(), is(1));
+    }
+
+    @Test
+    public void noRootsResolveToNothing() {
+        Graph graph = new Graph();
+        assertThat(RequestGraph.resolve(Collections.<Long>emptyList(), graph).isEmpty(), is(true));
+        assertThat(graph.fetched.isEmpty(), is(true));
+    }
+}
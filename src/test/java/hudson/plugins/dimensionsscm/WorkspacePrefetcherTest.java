@@ -0,0 +1,87 @@
+package hudson.plugins.dimensionsscm;
+
+import hudson.FilePath;
+import hudson.slaves.WorkspaceList;
+import hudson.util.StreamTaskListener;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+
+public class WorkspacePrefetcherTest {
+
+    private static Runnable blockUntil(final CountDownLatch started, final CountDownLatch finish) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    finish.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    @Test
+    public void workspaceIsLeasedUntilThePrefetchHasFinished() throws Exception {
+        WorkspaceList workspaces = new WorkspaceList();
+        FilePath workspace = new FilePath(new File("leased"));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+
+        CompletableFuture<Void> done = WorkspacePrefetcher.start(workspaces, workspace, "agent",
+                blockUntil(started, finish));
+        assertThat(done, is(notNullValue()));
+        assertThat(started.await(10L, TimeUnit.SECONDS), is(true));
+        assertThat(workspaces.tryAcquire(workspace), is(nullValue()));
+        assertThat(WorkspacePrefetcher.start(workspaces, workspace, "agent", blockUntil(started, finish)),
+                is(nullValue()));
+
+        finish.countDown();
+        done.get(10L, TimeUnit.SECONDS);
+        WorkspaceList.Lease lease = workspaces.tryAcquire(workspace);
+        assertThat(lease, is(notNullValue()));
+        lease.release();
+    }
+
+    @Test
+    public void workspaceInUseIsNotPrefetchedInto() throws Exception {
+        WorkspaceList workspaces = new WorkspaceList();
+        FilePath workspace = new FilePath(new File("in-use"));
+        WorkspaceList.Lease lease = workspaces.tryAcquire(workspace);
+        try {
+            assertThat(WorkspacePrefetcher.start(workspaces, workspace, "agent", blockUntil(new CountDownLatch(1),
+                    new CountDownLatch(0))), is(nullValue()));
+        } finally {
+            lease.release();
+        }
+    }
+
+    @Test
+    public void checkoutDoesNotWaitForeverForAPrefetch() throws Exception {
+        WorkspaceList workspaces = new WorkspaceList();
+        FilePath workspace = new FilePath(new File("slow"));
+        CountDownLatch finish = new CountDownLatch(1);
+        StreamTaskListener listener = new StreamTaskListener(new ByteArrayOutputStream(), StandardCharsets.UTF_8);
+
+        CompletableFuture<Void> done = WorkspacePrefetcher.start(workspaces, workspace, "agent",
+                blockUntil(new CountDownLatch(1), finish));
+        try {
+            assertThat(WorkspacePrefetcher.await("agent", workspace.getRemote(), 50L, listener), is(false));
+            assertThat(WorkspacePrefetcher.await("other", workspace.getRemote(), 50L, listener), is(true));
+        } finally {
+            finish.countDown();
+        }
+        done.get(10L, TimeUnit.SECONDS);
+        assertThat(WorkspacePrefetcher.await("agent", workspace.getRemote(), 0L, listener), is(true));
+    }
+}
@@ -0,0 +1,39 @@
+package hudson.plugins.dimensionsscm;
+
+import java.io.File;
+import java.io.IOException;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class WorkspaceWiperTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void contentsAreMovedIntoASibling() throws IOException {
+        File area = tmp.newFolder("job");
+        new File(area, "src/main").mkdirs();
+        new File(area, "src/main/App.java").createNewFile();
+        new File(area, "pom.xml").createNewFile();
+
+        File trash = WorkspaceWiper.moveAside(area);
+        assertThat(trash, notNullValue());
+        assertThat(trash.getParentFile(), is(area.getParentFile()));
+        assertThat(trash.getName().startsWith("job" + WorkspaceWiper.TRASH_MARKER), is(true));
+        assertThat(area.list().length, is(0));
+        assertThat(new File(trash, "src/main/App.java").isFile(), is(true));
+        assertThat(new File(trash, "pom.xml").isFile(), is(true));
+    }
+
+    @Test
+    public void emptyWorkspacesAreLeftAlone() throws IOException {
+        File area = tmp.newFolder("empty");
+        assertThat(WorkspaceWiper.moveAside(area), nullValue());
+        assertThat(tmp.getRoot().list().length, is(1));
+    }
+}